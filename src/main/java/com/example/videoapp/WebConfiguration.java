@@ -1,14 +1,30 @@
 package com.example.videoapp;
 
+import com.example.videoapp.filter.UploadQuotaInterceptor;
+import com.example.videoapp.filter.VideoExistenceInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfiguration implements WebMvcConfigurer {
 
+    @Autowired
+    private UploadQuotaInterceptor uploadQuotaInterceptor;
+
+    @Autowired
+    private VideoExistenceInterceptor videoExistenceInterceptor;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**").allowedMethods("*");
     }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(uploadQuotaInterceptor).addPathPatterns("/api/videos");
+        registry.addInterceptor(videoExistenceInterceptor).addPathPatterns("/api/videos/*", "/api/videos/*/*");
+    }
 }
@@ -0,0 +1,55 @@
+package com.example.videoapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "videoapp.catalogue-cache")
+public class CatalogueCacheConfiguration {
+
+    private boolean enabled = true;
+    private int maxCachedPage = 20;
+    private int maxEntries = 1000;
+    private int maxCursorEntries = 100;
+    private boolean gzip = true;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxCachedPage() {
+        return maxCachedPage;
+    }
+
+    public void setMaxCachedPage(int maxCachedPage) {
+        this.maxCachedPage = maxCachedPage;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public int getMaxCursorEntries() {
+        return maxCursorEntries;
+    }
+
+    public void setMaxCursorEntries(int maxCursorEntries) {
+        this.maxCursorEntries = maxCursorEntries;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+}
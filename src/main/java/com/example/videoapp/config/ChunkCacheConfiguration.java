@@ -0,0 +1,55 @@
+package com.example.videoapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "videoapp.chunk-cache")
+public class ChunkCacheConfiguration {
+
+    private boolean enabled = true;
+    private int chunkSizeKb = 1024;
+    private long maxMb = 256;
+    private int windowPercent = 1;
+    private int protectedPercent = 80;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getChunkSizeKb() {
+        return chunkSizeKb;
+    }
+
+    public void setChunkSizeKb(int chunkSizeKb) {
+        this.chunkSizeKb = chunkSizeKb;
+    }
+
+    public long getMaxMb() {
+        return maxMb;
+    }
+
+    public void setMaxMb(long maxMb) {
+        this.maxMb = maxMb;
+    }
+
+    public int getWindowPercent() {
+        return windowPercent;
+    }
+
+    public void setWindowPercent(int windowPercent) {
+        this.windowPercent = windowPercent;
+    }
+
+    public int getProtectedPercent() {
+        return protectedPercent;
+    }
+
+    public void setProtectedPercent(int protectedPercent) {
+        this.protectedPercent = protectedPercent;
+    }
+}
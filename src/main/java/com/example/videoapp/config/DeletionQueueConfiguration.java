@@ -0,0 +1,65 @@
+package com.example.videoapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "videoapp.deletion")
+public class DeletionQueueConfiguration {
+
+    private String journalFile;
+    private double maxDeletesPerSecond = 50;
+    private int batchSize = 100;
+    private int compactAfter = 1000;
+    private int maxAttempts = 3;
+    // I file che falliscono maxAttempts volte restano nel journal e vengono ritentati a questo intervallo
+    private long parkedRetryIntervalMs = 3600000L;
+
+    public String getJournalFile() {
+        return journalFile;
+    }
+
+    public void setJournalFile(String journalFile) {
+        this.journalFile = journalFile;
+    }
+
+    public double getMaxDeletesPerSecond() {
+        return maxDeletesPerSecond;
+    }
+
+    public void setMaxDeletesPerSecond(double maxDeletesPerSecond) {
+        this.maxDeletesPerSecond = maxDeletesPerSecond;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getCompactAfter() {
+        return compactAfter;
+    }
+
+    public void setCompactAfter(int compactAfter) {
+        this.compactAfter = compactAfter;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getParkedRetryIntervalMs() {
+        return parkedRetryIntervalMs;
+    }
+
+    public void setParkedRetryIntervalMs(long parkedRetryIntervalMs) {
+        this.parkedRetryIntervalMs = parkedRetryIntervalMs;
+    }
+}
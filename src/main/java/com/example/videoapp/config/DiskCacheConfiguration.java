@@ -0,0 +1,96 @@
+package com.example.videoapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache su disco locale (SSD) davanti allo storage configurato, utile quando i file stanno su nodi
+ * remoti o su un object store: segmenti di dimensione fissa con budget in byte e, opzionalmente,
+ * copie complete dei video più richiesti.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "videoapp.storage.disk-cache")
+public class DiskCacheConfiguration {
+
+    private boolean enabled = false;
+    private String dir;
+    private int chunkSizeKb = 4096;
+    private long maxMb = 10240L;
+    private boolean pinEnabled = false;
+    private long pinMaxMb = 4096L;
+    private int pinMaxFiles = 20;
+    private double pinMinAccesses = 50;
+    private int maxTrackedFiles = 100000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDir() {
+        return dir;
+    }
+
+    public void setDir(String dir) {
+        this.dir = dir;
+    }
+
+    public int getChunkSizeKb() {
+        return chunkSizeKb;
+    }
+
+    public void setChunkSizeKb(int chunkSizeKb) {
+        this.chunkSizeKb = chunkSizeKb;
+    }
+
+    public long getMaxMb() {
+        return maxMb;
+    }
+
+    public void setMaxMb(long maxMb) {
+        this.maxMb = maxMb;
+    }
+
+    public boolean isPinEnabled() {
+        return pinEnabled;
+    }
+
+    public void setPinEnabled(boolean pinEnabled) {
+        this.pinEnabled = pinEnabled;
+    }
+
+    public long getPinMaxMb() {
+        return pinMaxMb;
+    }
+
+    public void setPinMaxMb(long pinMaxMb) {
+        this.pinMaxMb = pinMaxMb;
+    }
+
+    public int getPinMaxFiles() {
+        return pinMaxFiles;
+    }
+
+    public void setPinMaxFiles(int pinMaxFiles) {
+        this.pinMaxFiles = pinMaxFiles;
+    }
+
+    public double getPinMinAccesses() {
+        return pinMinAccesses;
+    }
+
+    public void setPinMinAccesses(double pinMinAccesses) {
+        this.pinMinAccesses = pinMinAccesses;
+    }
+
+    public int getMaxTrackedFiles() {
+        return maxTrackedFiles;
+    }
+
+    public void setMaxTrackedFiles(int maxTrackedFiles) {
+        this.maxTrackedFiles = maxTrackedFiles;
+    }
+}
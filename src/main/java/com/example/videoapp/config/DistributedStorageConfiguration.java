@@ -0,0 +1,132 @@
+package com.example.videoapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Storage distribuito (videoapp.storage.mode=distributed): i nodi e il fattore di replica sono in
+ * StorageConfiguration, qui le impostazioni operative di coordinatore e nodi. nodeEnabled espone
+ * l'API interna /internal/storage sull'istanza, che in quel caso fa da nodo con il proprio storage locale.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "videoapp.storage.distributed")
+public class DistributedStorageConfiguration {
+
+    private boolean nodeEnabled = false;
+    private String nodeToken;
+    private String hintDir;
+    private String spoolDir;
+    private long maxHintMbPerNode = 10240;
+    private long maxHintAgeMs = 86400000L;
+    private int writeQuorum = 1;
+    private long healthCheckIntervalMs = 5000L;
+    private long connectTimeoutMs = 2000L;
+    private long requestTimeoutMs = 60000L;
+    private int minReadWindowKb = 1024;
+    private boolean rebalanceEnabled = true;
+    private double maxRebalanceMbPerSecond = 50;
+
+    public boolean isNodeEnabled() {
+        return nodeEnabled;
+    }
+
+    public void setNodeEnabled(boolean nodeEnabled) {
+        this.nodeEnabled = nodeEnabled;
+    }
+
+    public String getNodeToken() {
+        return nodeToken;
+    }
+
+    public void setNodeToken(String nodeToken) {
+        this.nodeToken = nodeToken;
+    }
+
+    public String getHintDir() {
+        return hintDir;
+    }
+
+    public void setHintDir(String hintDir) {
+        this.hintDir = hintDir;
+    }
+
+    public String getSpoolDir() {
+        return spoolDir;
+    }
+
+    public void setSpoolDir(String spoolDir) {
+        this.spoolDir = spoolDir;
+    }
+
+    public long getMaxHintMbPerNode() {
+        return maxHintMbPerNode;
+    }
+
+    public void setMaxHintMbPerNode(long maxHintMbPerNode) {
+        this.maxHintMbPerNode = maxHintMbPerNode;
+    }
+
+    public long getMaxHintAgeMs() {
+        return maxHintAgeMs;
+    }
+
+    public void setMaxHintAgeMs(long maxHintAgeMs) {
+        this.maxHintAgeMs = maxHintAgeMs;
+    }
+
+    public int getWriteQuorum() {
+        return writeQuorum;
+    }
+
+    public void setWriteQuorum(int writeQuorum) {
+        this.writeQuorum = writeQuorum;
+    }
+
+    public long getHealthCheckIntervalMs() {
+        return healthCheckIntervalMs;
+    }
+
+    public void setHealthCheckIntervalMs(long healthCheckIntervalMs) {
+        this.healthCheckIntervalMs = healthCheckIntervalMs;
+    }
+
+    public long getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public void setConnectTimeoutMs(long connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    public long getRequestTimeoutMs() {
+        return requestTimeoutMs;
+    }
+
+    public void setRequestTimeoutMs(long requestTimeoutMs) {
+        this.requestTimeoutMs = requestTimeoutMs;
+    }
+
+    public int getMinReadWindowKb() {
+        return minReadWindowKb;
+    }
+
+    public void setMinReadWindowKb(int minReadWindowKb) {
+        this.minReadWindowKb = minReadWindowKb;
+    }
+
+    public boolean isRebalanceEnabled() {
+        return rebalanceEnabled;
+    }
+
+    public void setRebalanceEnabled(boolean rebalanceEnabled) {
+        this.rebalanceEnabled = rebalanceEnabled;
+    }
+
+    public double getMaxRebalanceMbPerSecond() {
+        return maxRebalanceMbPerSecond;
+    }
+
+    public void setMaxRebalanceMbPerSecond(double maxRebalanceMbPerSecond) {
+        this.maxRebalanceMbPerSecond = maxRebalanceMbPerSecond;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.videoapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "videoapp.existence-filter")
+public class ExistenceFilterConfiguration {
+
+    private boolean enabled = true;
+    private long maxId = 1L << 30; // 128 MB di bitmap al massimo; gli id oltre vanno sempre al database
+    private int rebuildBatchSize = 10000;
+    private long negativeTtlMs = 30000L;
+    private int negativeMaxEntries = 100000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxId() {
+        return maxId;
+    }
+
+    public void setMaxId(long maxId) {
+        this.maxId = maxId;
+    }
+
+    public int getRebuildBatchSize() {
+        return rebuildBatchSize;
+    }
+
+    public void setRebuildBatchSize(int rebuildBatchSize) {
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    public long getNegativeTtlMs() {
+        return negativeTtlMs;
+    }
+
+    public void setNegativeTtlMs(long negativeTtlMs) {
+        this.negativeTtlMs = negativeTtlMs;
+    }
+
+    public int getNegativeMaxEntries() {
+        return negativeMaxEntries;
+    }
+
+    public void setNegativeMaxEntries(int negativeMaxEntries) {
+        this.negativeMaxEntries = negativeMaxEntries;
+    }
+}
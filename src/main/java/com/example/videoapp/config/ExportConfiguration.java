@@ -0,0 +1,30 @@
+package com.example.videoapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "videoapp.export")
+public class ExportConfiguration {
+
+    // Righe tra uno svuotamento della sessione e il successivo
+    private int batchSize = 1000;
+    // Oltre questa durata l'export si interrompe: un client lento non tiene aperti transazione e cursore
+    private long maxDurationMs = 1_800_000;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getMaxDurationMs() {
+        return maxDurationMs;
+    }
+
+    public void setMaxDurationMs(long maxDurationMs) {
+        this.maxDurationMs = maxDurationMs;
+    }
+}
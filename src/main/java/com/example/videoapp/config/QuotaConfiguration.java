@@ -0,0 +1,37 @@
+package com.example.videoapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "videoapp.quota")
+public class QuotaConfiguration {
+
+    private long maxBytesPerUser = 10737418240L; // 10GB, 0 = illimitato
+    private long maxVideosPerUser = 0; // 0 = illimitato
+    private int repairBatchSize = 1000;
+
+    public long getMaxBytesPerUser() {
+        return maxBytesPerUser;
+    }
+
+    public void setMaxBytesPerUser(long maxBytesPerUser) {
+        this.maxBytesPerUser = maxBytesPerUser;
+    }
+
+    public long getMaxVideosPerUser() {
+        return maxVideosPerUser;
+    }
+
+    public void setMaxVideosPerUser(long maxVideosPerUser) {
+        this.maxVideosPerUser = maxVideosPerUser;
+    }
+
+    public int getRepairBatchSize() {
+        return repairBatchSize;
+    }
+
+    public void setRepairBatchSize(int repairBatchSize) {
+        this.repairBatchSize = repairBatchSize;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.videoapp.config;
+
+import com.example.videoapp.controller.ReactiveVideoHandler;
+import com.example.videoapp.service.LocalFileStorage;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+
+/**
+ * Server Reactor Netty per lo streaming dei file, su una porta separata accanto a Tomcat/MVC:
+ * ogni connessione lenta occupa solo un canale, non un thread, quindi pochi thread di event loop
+ * servono migliaia di client contemporanei. Invia i file direttamente dal disco, quindi richiede uno
+ * storage con file locali: con s3 o distributed l'avvio fallisce invece di rispondere 500 a ogni richiesta.
+ */
+@Component
+@ConditionalOnProperty(name = "videoapp.reactive.enabled", havingValue = "true")
+public class ReactiveStreamingServer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveStreamingServer.class);
+
+    @Autowired
+    private ReactiveStreamingConfiguration reactiveConfig;
+
+    @Autowired
+    private ReactiveVideoHandler reactiveVideoHandler;
+
+    @Autowired
+    private ObjectProvider<LocalFileStorage> localFileStorage;
+
+    private LoopResources loops;
+    private volatile DisposableServer server;
+
+    @PostConstruct
+    public void checkStorage() {
+        if (localFileStorage.getIfAvailable() == null) {
+            throw new IllegalStateException("videoapp.reactive.enabled=true richiede uno storage con file locali "
+                    + "(videoapp.storage.mode=local o tiered): con s3 e distributed lo streaming resta su Tomcat");
+        }
+    }
+
+    @Override
+    public void start() {
+        int threads = reactiveConfig.getEventLoopThreads() > 0
+                ? reactiveConfig.getEventLoopThreads() : LoopResources.DEFAULT_IO_WORKER_COUNT;
+        loops = LoopResources.create("reactive-stream", threads, true);
+
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(reactiveVideoHandler.routes());
+        server = HttpServer.create()
+                .host(reactiveConfig.getHost())
+                .port(reactiveConfig.getPort())
+                .runOn(loops)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        logger.info("Reactive streaming server started on port {} with {} event loop threads", server.port(), threads);
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.disposeNow(Duration.ofSeconds(10));
+            server = null;
+        }
+        if (loops != null) {
+            loops.disposeLater().block(Duration.ofSeconds(10));
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.videoapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sostituisce il DataSource di spring.datasource con il routing primario/repliche quando
+ * videoapp.read-replicas.enabled=true; senza repliche configurate tutto resta sul primario.
+ */
+@Configuration
+@ConditionalOnProperty(name = "videoapp.read-replicas.enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfiguration {
+
+    @Autowired
+    private ReadReplicaConfiguration replicaConfig;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             DataSourceProperties properties,
+                                                             MeterRegistry meterRegistry) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaConfig.getNodes().size(); i++) {
+            ReadReplicaConfiguration.Node node = replicaConfig.getNodes().get(i);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(node.getUrl());
+            replica.setUsername(StringUtils.hasText(node.getUsername()) ? node.getUsername() : properties.determineUsername());
+            replica.setPassword(StringUtils.hasText(node.getUsername()) ? node.getPassword() : properties.determinePassword());
+            replica.setMaximumPoolSize(node.getMaxPoolSize());
+            replica.setReadOnly(true);
+            // Una replica spenta all'avvio non deve impedire la partenza: la esclude il controllo periodico
+            replica.setInitializationFailTimeout(-1);
+            replicas.put(node.getUrl(), replica);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicas, replicaConfig);
+        Gauge.builder("videoapp.datasource.replicas.healthy", routing, ReplicaRoutingDataSource::getHealthyReplicaCount)
+                .register(meterRegistry);
+        return routing;
+    }
+
+    /**
+     * Con open-in-view la sessione trattiene la connessione per tutta la richiesta: una connessione presa
+     * da una replica verrebbe riusata dalle scritture successive. Rilasciandola a fine transazione
+     * ogni transazione sceglie di nuovo la destinazione.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer replicaConnectionHandling() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
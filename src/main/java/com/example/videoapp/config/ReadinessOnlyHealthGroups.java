@@ -0,0 +1,67 @@
+package com.example.videoapp.config;
+
+import org.springframework.boot.actuate.endpoint.SecurityContext;
+import org.springframework.boot.actuate.health.AdditionalHealthEndpointPath;
+import org.springframework.boot.actuate.health.HealthEndpointGroup;
+import org.springframework.boot.actuate.health.HealthEndpointGroups;
+import org.springframework.boot.actuate.health.HealthEndpointGroupsPostProcessor;
+import org.springframework.boot.actuate.health.HttpCodeStatusMapper;
+import org.springframework.boot.actuate.health.StatusAggregator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Toglie dal gruppo principale di /actuator/health gli indicatori che riguardano solo l'ingresso del
+ * traffico: restano nel gruppo di readiness (management.endpoint.health.group.readiness.include), ma
+ * non rendono OUT_OF_SERVICE lo stato complessivo usato da monitoraggio e liveness.
+ */
+@Component
+public class ReadinessOnlyHealthGroups implements HealthEndpointGroupsPostProcessor {
+
+    private static final Set<String> READINESS_ONLY = Set.of(WarmupHealthIndicator.NAME);
+
+    @Override
+    public HealthEndpointGroups postProcessHealthEndpointGroups(HealthEndpointGroups groups) {
+        Map<String, HealthEndpointGroup> named = new LinkedHashMap<>();
+        for (String name : groups.getNames()) {
+            named.put(name, groups.get(name));
+        }
+        return HealthEndpointGroups.of(new ExcludingGroup(groups.getPrimary()), named);
+    }
+
+    private record ExcludingGroup(HealthEndpointGroup delegate) implements HealthEndpointGroup {
+
+        @Override
+        public boolean isMember(String name) {
+            return !READINESS_ONLY.contains(name) && delegate.isMember(name);
+        }
+
+        @Override
+        public boolean showComponents(SecurityContext securityContext) {
+            return delegate.showComponents(securityContext);
+        }
+
+        @Override
+        public boolean showDetails(SecurityContext securityContext) {
+            return delegate.showDetails(securityContext);
+        }
+
+        @Override
+        public StatusAggregator getStatusAggregator() {
+            return delegate.getStatusAggregator();
+        }
+
+        @Override
+        public HttpCodeStatusMapper getHttpCodeStatusMapper() {
+            return delegate.getHttpCodeStatusMapper();
+        }
+
+        @Override
+        public AdditionalHealthEndpointPath getAdditionalPath() {
+            return delegate.getAdditionalPath();
+        }
+    }
+}
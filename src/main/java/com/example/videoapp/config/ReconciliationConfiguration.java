@@ -0,0 +1,73 @@
+package com.example.videoapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "videoapp.reconciliation")
+public class ReconciliationConfiguration {
+
+    private boolean enabled = false;
+    private boolean quarantineOrphans = false;
+    private int batchSize = 500;
+    private int parallelism = 4;
+    private double maxChecksPerSecond = 500;
+    private long orphanGraceMs = 3600000L; // 1 ora
+    private int maxReportedItems = 100;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isQuarantineOrphans() {
+        return quarantineOrphans;
+    }
+
+    public void setQuarantineOrphans(boolean quarantineOrphans) {
+        this.quarantineOrphans = quarantineOrphans;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public double getMaxChecksPerSecond() {
+        return maxChecksPerSecond;
+    }
+
+    public void setMaxChecksPerSecond(double maxChecksPerSecond) {
+        this.maxChecksPerSecond = maxChecksPerSecond;
+    }
+
+    public long getOrphanGraceMs() {
+        return orphanGraceMs;
+    }
+
+    public void setOrphanGraceMs(long orphanGraceMs) {
+        this.orphanGraceMs = orphanGraceMs;
+    }
+
+    public int getMaxReportedItems() {
+        return maxReportedItems;
+    }
+
+    public void setMaxReportedItems(int maxReportedItems) {
+        this.maxReportedItems = maxReportedItems;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.videoapp.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource che manda le transazioni in sola lettura a una delle repliche sane (a rotazione)
+ * e tutto il resto al primario. Va avvolto in un LazyConnectionDataSourceProxy: la connessione deve
+ * essere chiesta alla prima istruzione, quando il flag readOnly della transazione è già impostato.
+ * Dopo il commit di una transazione di scrittura, le letture dello stesso utente restano sul primario
+ * per stickyMs (read-your-writes); le repliche irraggiungibili o in ritardo oltre maxLagMs vengono escluse
+ * finché il controllo periodico non le trova di nuovo allineate.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    // Chiave della risorsa di transazione che evita di registrare più volte la stessa sincronizzazione
+    private static final Object WRITE_MARKER = new Object();
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReadReplicaConfiguration replicaConfig;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Map<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    ReadReplicaConfiguration replicaConfig) {
+        this.primary = primary;
+        this.replicaConfig = replicaConfig;
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    public int getHealthyReplicaCount() {
+        int count = 0;
+        for (Replica replica : replicas) {
+            if (replica.healthy) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Validità della connessione e ritardo di replica; una replica torna in uso solo quando entrambi sono a posto
+     */
+    @Scheduled(fixedDelayString = "${videoapp.read-replicas.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid(replicaConfig.getValidationTimeoutSeconds())) {
+                    throw new SQLException("Connessione non valida");
+                }
+                replica.lagMs = measureLagMs(connection);
+                replica.healthy = replica.lagMs <= replicaConfig.getMaxLagMs();
+                if (!replica.healthy && wasHealthy) {
+                    logger.warn("Read replica {} is {} ms behind, routing reads elsewhere", replica.name,
+                            replica.lagMs == Long.MAX_VALUE ? "unknown" : replica.lagMs);
+                }
+            } catch (SQLException e) {
+                replica.healthy = false;
+                if (wasHealthy) {
+                    logger.warn("Read replica {} is unreachable: {}", replica.name, e.getMessage());
+                }
+            }
+            if (replica.healthy && !wasHealthy) {
+                logger.info("Read replica {} is back in rotation (lag {} ms)", replica.name, replica.lagMs);
+            }
+        }
+
+        long cutoff = System.currentTimeMillis() - replicaConfig.getStickyMs();
+        lastWriteByUser.values().removeIf(writtenAt -> writtenAt < cutoff);
+    }
+
+    // Il primario è un bean a sé e viene chiuso dal contesto; le repliche appartengono a questo DataSource
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            closeQuietly(replica.dataSource);
+        }
+    }
+
+    private Connection route(ConnectionSource source) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registerWrite();
+            return source.get(primary);
+        }
+        if (replicas.isEmpty() || isSticky()) {
+            return source.get(primary);
+        }
+
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.healthy) continue;
+            try {
+                return source.get(replica.dataSource);
+            } catch (SQLException e) {
+                // Esclusa fino al prossimo controllo riuscito; la lettura prosegue sulla replica successiva
+                replica.healthy = false;
+                logger.warn("Read replica {} failed, falling back: {}", replica.name, e.getMessage());
+            }
+        }
+        return source.get(primary);
+    }
+
+    private void registerWrite() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(WRITE_MARKER)) {
+            return;
+        }
+        String user = currentUser();
+        if (user == null) return;
+
+        TransactionSynchronizationManager.bindResource(WRITE_MARKER, user);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lastWriteByUser.put(user, System.currentTimeMillis());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_MARKER);
+            }
+        });
+    }
+
+    private boolean isSticky() {
+        if (lastWriteByUser.isEmpty()) return false;
+        String user = currentUser();
+        if (user == null) return false;
+        Long writtenAt = lastWriteByUser.get(user);
+        return writtenAt != null && System.currentTimeMillis() - writtenAt < replicaConfig.getStickyMs();
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    // Ritardo in millisecondi; Long.MAX_VALUE se la replica non sta replicando o il valore è nullo
+    private long measureLagMs(Connection connection) throws SQLException {
+        String query = replicaConfig.getLagQuery();
+        if (!StringUtils.hasText(query)) return 0;
+
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(query)) {
+            if (!rs.next()) return Long.MAX_VALUE;
+
+            int column = 1;
+            ResultSetMetaData metaData = rs.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                String label = metaData.getColumnLabel(i);
+                if ("Seconds_Behind_Source".equalsIgnoreCase(label) || "Seconds_Behind_Master".equalsIgnoreCase(label)) {
+                    column = i;
+                    break;
+                }
+            }
+            long seconds = rs.getLong(column);
+            return rs.wasNull() ? Long.MAX_VALUE : seconds * 1000;
+        }
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                logger.warn("Error closing data source: {}", e.getMessage());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+
+    private static class Replica {
+        final String name;
+        final DataSource dataSource;
+        volatile boolean healthy = true;
+        volatile long lagMs;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
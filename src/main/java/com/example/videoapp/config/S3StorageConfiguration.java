@@ -0,0 +1,154 @@
+package com.example.videoapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "videoapp.storage.s3")
+public class S3StorageConfiguration {
+
+    private String endpoint;
+    private String region = "us-east-1";
+    private String bucket;
+    private String accessKey;
+    private String secretKey;
+    private String keyPrefix = "";
+    private int partSizeMb = 16;
+    private int uploadConcurrency = 4;
+    private int minReadWindowKb = 1024;
+    private int maxAttempts = 4;
+    private long retryBaseDelayMs = 100;
+    private long retryMaxDelayMs = 5000;
+    private long connectTimeoutMs = 5000;
+    private long requestTimeoutMs = 60000;
+    private long metadataCacheTtlMs = 30000;
+    private int metadataCacheMaxEntries = 10000;
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(String bucket) {
+        this.bucket = bucket;
+    }
+
+    public String getAccessKey() {
+        return accessKey;
+    }
+
+    public void setAccessKey(String accessKey) {
+        this.accessKey = accessKey;
+    }
+
+    public String getSecretKey() {
+        return secretKey;
+    }
+
+    public void setSecretKey(String secretKey) {
+        this.secretKey = secretKey;
+    }
+
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    public void setKeyPrefix(String keyPrefix) {
+        this.keyPrefix = keyPrefix;
+    }
+
+    public int getPartSizeMb() {
+        return partSizeMb;
+    }
+
+    public void setPartSizeMb(int partSizeMb) {
+        this.partSizeMb = partSizeMb;
+    }
+
+    public int getUploadConcurrency() {
+        return uploadConcurrency;
+    }
+
+    public void setUploadConcurrency(int uploadConcurrency) {
+        this.uploadConcurrency = uploadConcurrency;
+    }
+
+    public int getMinReadWindowKb() {
+        return minReadWindowKb;
+    }
+
+    public void setMinReadWindowKb(int minReadWindowKb) {
+        this.minReadWindowKb = minReadWindowKb;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getRetryBaseDelayMs() {
+        return retryBaseDelayMs;
+    }
+
+    public void setRetryBaseDelayMs(long retryBaseDelayMs) {
+        this.retryBaseDelayMs = retryBaseDelayMs;
+    }
+
+    public long getRetryMaxDelayMs() {
+        return retryMaxDelayMs;
+    }
+
+    public void setRetryMaxDelayMs(long retryMaxDelayMs) {
+        this.retryMaxDelayMs = retryMaxDelayMs;
+    }
+
+    public long getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public void setConnectTimeoutMs(long connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    public long getRequestTimeoutMs() {
+        return requestTimeoutMs;
+    }
+
+    public void setRequestTimeoutMs(long requestTimeoutMs) {
+        this.requestTimeoutMs = requestTimeoutMs;
+    }
+
+    public long getMetadataCacheTtlMs() {
+        return metadataCacheTtlMs;
+    }
+
+    public void setMetadataCacheTtlMs(long metadataCacheTtlMs) {
+        this.metadataCacheTtlMs = metadataCacheTtlMs;
+    }
+
+    public int getMetadataCacheMaxEntries() {
+        return metadataCacheMaxEntries;
+    }
+
+    public void setMetadataCacheMaxEntries(int metadataCacheMaxEntries) {
+        this.metadataCacheMaxEntries = metadataCacheMaxEntries;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.videoapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "videoapp.scrubber")
+public class ScrubberConfiguration {
+
+    private boolean enabled = true;
+    private double maxMbPerSecond = 20;
+    private int bufferSizeKb = 1024;
+    private int batchSize = 100;
+    private long passIntervalMs = 86400000L; // pausa tra due passate complete
+    private long progressSaveIntervalMs = 10000L;
+    private String progressFile;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getMaxMbPerSecond() {
+        return maxMbPerSecond;
+    }
+
+    public void setMaxMbPerSecond(double maxMbPerSecond) {
+        this.maxMbPerSecond = maxMbPerSecond;
+    }
+
+    public int getBufferSizeKb() {
+        return bufferSizeKb;
+    }
+
+    public void setBufferSizeKb(int bufferSizeKb) {
+        this.bufferSizeKb = bufferSizeKb;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getPassIntervalMs() {
+        return passIntervalMs;
+    }
+
+    public void setPassIntervalMs(long passIntervalMs) {
+        this.passIntervalMs = passIntervalMs;
+    }
+
+    public long getProgressSaveIntervalMs() {
+        return progressSaveIntervalMs;
+    }
+
+    public void setProgressSaveIntervalMs(long progressSaveIntervalMs) {
+        this.progressSaveIntervalMs = progressSaveIntervalMs;
+    }
+
+    public String getProgressFile() {
+        return progressFile;
+    }
+
+    public void setProgressFile(String progressFile) {
+        this.progressFile = progressFile;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.videoapp.config;
 
 import com.example.videoapp.filter.JwtAuthenticationFilter;
+import com.example.videoapp.model.User;
 import com.example.videoapp.service.CustomUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -34,8 +35,10 @@ public class SecurityConfig {
             .authorizeHttpRequests(authz -> authz
                 // Endpoint pubblici
                 .requestMatchers("/api/videos/public/**").permitAll()
+                .requestMatchers("/api/videos/trending").permitAll()
                 .requestMatchers("/api/users/register").permitAll()
                 .requestMatchers("/api/users/login").permitAll()
+                .requestMatchers("/api/users/*/usage").authenticated()
                 
                 // Endpoint per lo streaming e download dei video pubblici
                 .requestMatchers("/api/videos/*/stream").permitAll()
@@ -47,6 +50,17 @@ public class SecurityConfig {
                 // Altri endpoint video richiedono autenticazione
                 .requestMatchers("/api/videos/**").authenticated()
                 
+                // Endpoint di amministrazione (riconciliazione, scrubber, warmup, export del catalogo):
+                // la registrazione è aperta a tutti, quindi non basta essere autenticati
+                .requestMatchers("/api/admin/**").hasRole(User.ROLE_ADMIN)
+                
+                // API interna dei nodi di storage: autenticata dal token condiviso nel controller
+                .requestMatchers("/internal/storage/**").permitAll()
+                
+                // Actuator: solo lo stato di salute è pubblico
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .requestMatchers("/actuator/**").authenticated()
+                
                 // Tutto il resto è permesso
                 .anyRequest().permitAll()
             )
@@ -67,10 +81,10 @@ public class SecurityConfig {
             public void addCorsMappings(CorsRegistry registry) {
                 registry.addMapping("/**")
                     .allowedOrigins("http://localhost:3000", "http://localhost:3001")
-                    .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS", "HEAD")
+                    .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "HEAD")
                     .allowedHeaders("*")
                     .allowCredentials(false)
-                    .exposedHeaders("Authorization", "Content-Disposition");
+                    .exposedHeaders("Authorization", "Content-Disposition", "ETag");
             }
         };
     }
@@ -3,13 +3,30 @@ package com.example.videoapp.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 @ConfigurationProperties(prefix = "videoapp.storage")
 public class StorageConfiguration {
     
+    private String mode = "local"; // local | tiered | s3 | distributed
     private String uploadDir;
     private long maxFileSize = 1073741824L; // 1GB in bytes
     private String allowedExtensions = "mp4,avi,mov,wmv,flv,webm,mkv";
+    private String quarantineDir;
+    // Modalità distributed: indirizzi base dei nodi di storage (es. http://10.0.0.5:8080)
+    private List<String> nodes = new ArrayList<>();
+    private int replicationFactor = 2;
+    private int virtualNodes = 160;
+    
+    public String getMode() {
+        return mode;
+    }
+    
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
     
     public String getUploadDir() {
         return uploadDir;
@@ -34,4 +51,36 @@ public class StorageConfiguration {
     public void setAllowedExtensions(String allowedExtensions) {
         this.allowedExtensions = allowedExtensions;
     }
-}
\ No newline at end of file
+
+    public String getQuarantineDir() {
+        return quarantineDir;
+    }
+    
+    public void setQuarantineDir(String quarantineDir) {
+        this.quarantineDir = quarantineDir;
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+    
+    public void setNodes(List<String> nodes) {
+        this.nodes = nodes;
+    }
+    
+    public int getReplicationFactor() {
+        return replicationFactor;
+    }
+    
+    public void setReplicationFactor(int replicationFactor) {
+        this.replicationFactor = replicationFactor;
+    }
+    
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+    
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+}
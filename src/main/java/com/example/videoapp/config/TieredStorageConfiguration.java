@@ -0,0 +1,104 @@
+package com.example.videoapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Storage a livelli (videoapp.storage.mode=tiered): la directory di upload è il livello freddo,
+ * hotDir quello veloce (SSD) dove vengono promossi i video più richiesti.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "videoapp.storage.tiering")
+public class TieredStorageConfiguration {
+
+    private String hotDir;
+    private long hotMaxBytes = 107374182400L; // 100GB
+    private double accessHalfLifeHours = 24;
+    private double promoteMinScore = 5;
+    private long demoteIdleMs = 604800000L; // 7 giorni
+    private long migrationIntervalMs = 300000L;
+    private int maxMigrationsPerRun = 20;
+    private double maxMigrationMbPerSecond = 50;
+    private long sourceDeleteGraceMs = 60000L;
+    private int maxTrackedFiles = 100000;
+
+    public String getHotDir() {
+        return hotDir;
+    }
+
+    public void setHotDir(String hotDir) {
+        this.hotDir = hotDir;
+    }
+
+    public long getHotMaxBytes() {
+        return hotMaxBytes;
+    }
+
+    public void setHotMaxBytes(long hotMaxBytes) {
+        this.hotMaxBytes = hotMaxBytes;
+    }
+
+    public double getAccessHalfLifeHours() {
+        return accessHalfLifeHours;
+    }
+
+    public void setAccessHalfLifeHours(double accessHalfLifeHours) {
+        this.accessHalfLifeHours = accessHalfLifeHours;
+    }
+
+    public double getPromoteMinScore() {
+        return promoteMinScore;
+    }
+
+    public void setPromoteMinScore(double promoteMinScore) {
+        this.promoteMinScore = promoteMinScore;
+    }
+
+    public long getDemoteIdleMs() {
+        return demoteIdleMs;
+    }
+
+    public void setDemoteIdleMs(long demoteIdleMs) {
+        this.demoteIdleMs = demoteIdleMs;
+    }
+
+    public long getMigrationIntervalMs() {
+        return migrationIntervalMs;
+    }
+
+    public void setMigrationIntervalMs(long migrationIntervalMs) {
+        this.migrationIntervalMs = migrationIntervalMs;
+    }
+
+    public int getMaxMigrationsPerRun() {
+        return maxMigrationsPerRun;
+    }
+
+    public void setMaxMigrationsPerRun(int maxMigrationsPerRun) {
+        this.maxMigrationsPerRun = maxMigrationsPerRun;
+    }
+
+    public double getMaxMigrationMbPerSecond() {
+        return maxMigrationMbPerSecond;
+    }
+
+    public void setMaxMigrationMbPerSecond(double maxMigrationMbPerSecond) {
+        this.maxMigrationMbPerSecond = maxMigrationMbPerSecond;
+    }
+
+    public long getSourceDeleteGraceMs() {
+        return sourceDeleteGraceMs;
+    }
+
+    public void setSourceDeleteGraceMs(long sourceDeleteGraceMs) {
+        this.sourceDeleteGraceMs = sourceDeleteGraceMs;
+    }
+
+    public int getMaxTrackedFiles() {
+        return maxTrackedFiles;
+    }
+
+    public void setMaxTrackedFiles(int maxTrackedFiles) {
+        this.maxTrackedFiles = maxTrackedFiles;
+    }
+}
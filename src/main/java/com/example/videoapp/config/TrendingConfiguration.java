@@ -0,0 +1,73 @@
+package com.example.videoapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "videoapp.trending")
+public class TrendingConfiguration {
+
+    private double halfLifeHours = 24.0;
+    private double viewWeight = 1.0;
+    private double uploadWeight = 10.0;
+    private int maxEntries = 10000;
+    private int defaultLimit = 20;
+    private String snapshotFile;
+    private long snapshotIntervalMs = 60000L;
+
+    public double getHalfLifeHours() {
+        return halfLifeHours;
+    }
+
+    public void setHalfLifeHours(double halfLifeHours) {
+        this.halfLifeHours = halfLifeHours;
+    }
+
+    public double getViewWeight() {
+        return viewWeight;
+    }
+
+    public void setViewWeight(double viewWeight) {
+        this.viewWeight = viewWeight;
+    }
+
+    public double getUploadWeight() {
+        return uploadWeight;
+    }
+
+    public void setUploadWeight(double uploadWeight) {
+        this.uploadWeight = uploadWeight;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public int getDefaultLimit() {
+        return defaultLimit;
+    }
+
+    public void setDefaultLimit(int defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    public String getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    public void setSnapshotFile(String snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+    public long getSnapshotIntervalMs() {
+        return snapshotIntervalMs;
+    }
+
+    public void setSnapshotIntervalMs(long snapshotIntervalMs) {
+        this.snapshotIntervalMs = snapshotIntervalMs;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.videoapp.config;
+
+import com.example.videoapp.model.Video;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Allinea il generatore di id dei video alle righe esistenti.
+ * Le tabelle create con IDENTITY contengono già id assegnati dall'auto-increment:
+ * il primo blocco allocato deve partire oltre il massimo esistente.
+ */
+@Component
+public class VideoIdSequenceInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoIdSequenceInitializer.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Garantisce che lo schema sia già stato aggiornato da Hibernate
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Una riga già presente non è un errore (INSERT IGNORE); qualunque altro problema blocca l'avvio,
+     * perché con la sequenza non allineata i nuovi id collidono con quelli esistenti
+     */
+    @PostConstruct
+    public void alignSequence() {
+        try {
+            jdbcTemplate.update("INSERT IGNORE INTO video_id_sequence (sequence_name, next_val) VALUES ('video', 1)");
+            int updated = jdbcTemplate.update(
+                    "UPDATE video_id_sequence SET next_val = GREATEST(next_val, " +
+                    "(SELECT COALESCE(MAX(id), 0) FROM video) + ? + 1) WHERE sequence_name = 'video'",
+                    Video.ID_ALLOCATION_SIZE);
+            if (updated != 1) {
+                throw new IllegalStateException("Riga 'video' assente in video_id_sequence dopo l'inizializzazione");
+            }
+            logger.info("Video id sequence aligned");
+        } catch (RuntimeException e) {
+            logger.error("Could not align video id sequence: {}", e.getMessage());
+            throw new IllegalStateException("Impossibile allineare la sequenza degli id video", e);
+        }
+    }
+}
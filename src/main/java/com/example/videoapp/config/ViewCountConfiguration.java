@@ -0,0 +1,73 @@
+package com.example.videoapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "videoapp.views")
+public class ViewCountConfiguration {
+
+    private String nodeId;
+    private long flushIntervalMs = 10000L;
+    private long dedupWindowMs = 1800000L; // 30 minuti
+    private int maxDedupEntries = 500000;
+    private long idleEvictionMs = 600000L; // 10 minuti
+    private long persistedCacheTtlMs = 60000L; // totali salvati letti al più una volta al minuto per video
+    private int maxPersistedCacheEntries = 100000;
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public long getDedupWindowMs() {
+        return dedupWindowMs;
+    }
+
+    public void setDedupWindowMs(long dedupWindowMs) {
+        this.dedupWindowMs = dedupWindowMs;
+    }
+
+    public int getMaxDedupEntries() {
+        return maxDedupEntries;
+    }
+
+    public void setMaxDedupEntries(int maxDedupEntries) {
+        this.maxDedupEntries = maxDedupEntries;
+    }
+
+    public long getIdleEvictionMs() {
+        return idleEvictionMs;
+    }
+
+    public void setIdleEvictionMs(long idleEvictionMs) {
+        this.idleEvictionMs = idleEvictionMs;
+    }
+
+    public long getPersistedCacheTtlMs() {
+        return persistedCacheTtlMs;
+    }
+
+    public void setPersistedCacheTtlMs(long persistedCacheTtlMs) {
+        this.persistedCacheTtlMs = persistedCacheTtlMs;
+    }
+
+    public int getMaxPersistedCacheEntries() {
+        return maxPersistedCacheEntries;
+    }
+
+    public void setMaxPersistedCacheEntries(int maxPersistedCacheEntries) {
+        this.maxPersistedCacheEntries = maxPersistedCacheEntries;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.videoapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "videoapp.warmup")
+public class WarmupConfiguration {
+
+    private boolean enabled = true;
+    private String snapshotFile;
+    private int topVideos = 200;
+    private int headChunks = 2;
+    private int hotPages = 50;
+    private int hotChunks = 2048;
+    private double maxItemsPerSecond = 200;
+    private double maxMbPerSecond = 100;
+    private double readyThreshold = 0.8; // frazione dello snapshot da riscaldare prima di dichiararsi pronti
+    private long maxWarmupMs = 120000L;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    public void setSnapshotFile(String snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+    public int getTopVideos() {
+        return topVideos;
+    }
+
+    public void setTopVideos(int topVideos) {
+        this.topVideos = topVideos;
+    }
+
+    public int getHeadChunks() {
+        return headChunks;
+    }
+
+    public void setHeadChunks(int headChunks) {
+        this.headChunks = headChunks;
+    }
+
+    public int getHotPages() {
+        return hotPages;
+    }
+
+    public void setHotPages(int hotPages) {
+        this.hotPages = hotPages;
+    }
+
+    public int getHotChunks() {
+        return hotChunks;
+    }
+
+    public void setHotChunks(int hotChunks) {
+        this.hotChunks = hotChunks;
+    }
+
+    public double getMaxItemsPerSecond() {
+        return maxItemsPerSecond;
+    }
+
+    public void setMaxItemsPerSecond(double maxItemsPerSecond) {
+        this.maxItemsPerSecond = maxItemsPerSecond;
+    }
+
+    public double getMaxMbPerSecond() {
+        return maxMbPerSecond;
+    }
+
+    public void setMaxMbPerSecond(double maxMbPerSecond) {
+        this.maxMbPerSecond = maxMbPerSecond;
+    }
+
+    public double getReadyThreshold() {
+        return readyThreshold;
+    }
+
+    public void setReadyThreshold(double readyThreshold) {
+        this.readyThreshold = readyThreshold;
+    }
+
+    public long getMaxWarmupMs() {
+        return maxWarmupMs;
+    }
+
+    public void setMaxWarmupMs(long maxWarmupMs) {
+        this.maxWarmupMs = maxWarmupMs;
+    }
+}
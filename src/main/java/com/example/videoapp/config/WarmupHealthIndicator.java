@@ -0,0 +1,36 @@
+package com.example.videoapp.config;
+
+import com.example.videoapp.dto.WarmupStatusDto;
+import com.example.videoapp.service.WarmupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Indicatore "warmup" per il gruppo di readiness: fuori servizio finché il riscaldamento delle cache
+ * all'avvio non ha raggiunto la soglia, così il bilanciatore non manda traffico a un'istanza fredda.
+ * Resta fuori dallo stato complessivo di /actuator/health (vedi ReadinessOnlyHealthGroups): un'istanza
+ * fredda non è un'istanza guasta.
+ */
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    static final String NAME = "warmup";
+
+    @Autowired
+    private WarmupService warmupService;
+
+    @Override
+    public Health health() {
+        WarmupStatusDto status = warmupService.getStatus();
+        Health.Builder builder = status.isReady() ? Health.up() : Health.outOfService();
+        return builder
+                .withDetail("running", status.isRunning())
+                .withDetail("processedItems", status.getProcessedItems())
+                .withDetail("warmedItems", status.getWarmedItems())
+                .withDetail("failedItems", status.getFailedItems())
+                .withDetail("totalItems", status.getTotalItems())
+                .build();
+    }
+}
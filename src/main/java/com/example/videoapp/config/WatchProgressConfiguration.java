@@ -0,0 +1,46 @@
+package com.example.videoapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "videoapp.progress")
+public class WatchProgressConfiguration {
+
+    private long flushIntervalMs = 5000L;
+    private int flushThreshold = 1000;
+    private int batchSize = 500;
+    private int maxPendingEntries = 100000;
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public int getFlushThreshold() {
+        return flushThreshold;
+    }
+
+    public void setFlushThreshold(int flushThreshold) {
+        this.flushThreshold = flushThreshold;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxPendingEntries() {
+        return maxPendingEntries;
+    }
+
+    public void setMaxPendingEntries(int maxPendingEntries) {
+        this.maxPendingEntries = maxPendingEntries;
+    }
+}
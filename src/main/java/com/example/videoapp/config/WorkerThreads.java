@@ -0,0 +1,42 @@
+package com.example.videoapp.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread dei worker in background. Con spring.threads.virtual.enabled=true (che vale anche per Tomcat,
+ * scheduler e @Async) i worker girano su virtual thread, altrimenti su thread daemon di piattaforma.
+ */
+@Component
+public class WorkerThreads {
+
+    @Autowired
+    private Environment environment;
+
+    public boolean isVirtual() {
+        return Threading.VIRTUAL.isActive(environment);
+    }
+
+    /**
+     * Factory per i pool dei worker; i thread sono numerati a partire dal nome indicato
+     */
+    public ThreadFactory factory(String name) {
+        if (isVirtual()) {
+            return Thread.ofVirtual().name(name + "-", 0).factory();
+        }
+        return Thread.ofPlatform().name(name + "-", 0).daemon(true).factory();
+    }
+
+    /**
+     * Thread singolo non ancora avviato
+     */
+    public Thread newThread(String name, Runnable task) {
+        return isVirtual()
+                ? Thread.ofVirtual().name(name).unstarted(task)
+                : Thread.ofPlatform().name(name).daemon(true).unstarted(task);
+    }
+}
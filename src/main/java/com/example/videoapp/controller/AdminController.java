@@ -0,0 +1,82 @@
+package com.example.videoapp.controller;
+
+import com.example.videoapp.converter.VideoExportWriter;
+import com.example.videoapp.dto.IntegrityMismatchDto;
+import com.example.videoapp.dto.ReconciliationReportDto;
+import com.example.videoapp.dto.ScrubberStatusDto;
+import com.example.videoapp.dto.WarmupStatusDto;
+import com.example.videoapp.service.IntegrityScrubberService;
+import com.example.videoapp.service.ReconciliationService;
+import com.example.videoapp.service.VideoService;
+import com.example.videoapp.service.WarmupService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private IntegrityScrubberService integrityScrubberService;
+
+    @Autowired
+    private WarmupService warmupService;
+
+    @Autowired
+    private VideoService videoService;
+
+    @PostMapping("/reconciliation")
+    public ResponseEntity<ReconciliationReportDto> startReconciliation() {
+        // Se è già in corso restituisce lo stato dell'esecuzione attuale
+        reconciliationService.start();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reconciliationService.getLastReport());
+    }
+
+    @GetMapping("/reconciliation")
+    public ResponseEntity<ReconciliationReportDto> getReconciliationReport() {
+        ReconciliationReportDto report = reconciliationService.getLastReport();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/scrubber")
+    public ResponseEntity<ScrubberStatusDto> getScrubberStatus() {
+        return ResponseEntity.ok(integrityScrubberService.getStatus());
+    }
+
+    @PostMapping("/scrubber/videos/{id}/verify")
+    public ResponseEntity<IntegrityMismatchDto> verifyVideo(@PathVariable Long id) {
+        IntegrityMismatchDto mismatch = integrityScrubberService.verify(id);
+        return mismatch != null ? ResponseEntity.ok(mismatch) : ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/warmup")
+    public ResponseEntity<WarmupStatusDto> getWarmupStatus() {
+        return ResponseEntity.ok(warmupService.getStatus());
+    }
+
+    @PostMapping("/warmup/snapshot")
+    public ResponseEntity<WarmupStatusDto> writeWarmupSnapshot() {
+        // Utile subito prima di un deploy pianificato, senza attendere il job periodico
+        warmupService.writeSnapshot();
+        return ResponseEntity.ok(warmupService.getStatus());
+    }
+
+    @GetMapping("/videos/export")
+    public void exportVideos(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response)
+            throws IOException {
+        VideoExportWriter.Format exportFormat = VideoExportWriter.Format.parse(format);
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"videos." + exportFormat.getExtension() + "\"");
+        videoService.exportVideos(exportFormat, response.getOutputStream());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.videoapp.controller;
+
+import com.example.videoapp.model.Video;
+import com.example.videoapp.service.LocalFileStorage;
+import com.example.videoapp.service.StorageService;
+import com.example.videoapp.service.TrendingService;
+import com.example.videoapp.service.VideoExistenceFilter;
+import com.example.videoapp.service.VideoService;
+import com.example.videoapp.service.ViewCounterService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+
+/**
+ * Endpoint /file e /stream sul server reattivo. Solo la ricerca del video (JPA, bloccante) passa dal pool
+ * elastico; i byte vengono inviati dall'event loop con scritture zero-copy della regione richiesta, oppure
+ * letti con AsynchronousFileChannel in DataBuffer con backpressure quando lo zero-copy non è disponibile.
+ * Le richieste Range (anche multiple) sono gestite dal writer delle risorse di WebFlux.
+ */
+@Component
+public class ReactiveVideoHandler {
+
+    @Autowired
+    private VideoService videoService;
+
+    @Autowired
+    private StorageService storageService;
+
+    // Assente con gli storage remoti (s3, distributed), che ReactiveStreamingServer rifiuta all'avvio
+    @Autowired
+    private ObjectProvider<LocalFileStorage> localFileStorage;
+
+    @Autowired
+    private ViewCounterService viewCounterService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private VideoExistenceFilter videoExistenceFilter;
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/api/videos/{id}/file", this::serveFile)
+                .GET("/api/videos/{id}/stream", this::serveFile)
+                .build();
+    }
+
+    public Mono<ServerResponse> serveFile(ServerRequest request) {
+        Long id;
+        try {
+            id = Long.valueOf(request.pathVariable("id"));
+        } catch (NumberFormatException e) {
+            return ServerResponse.badRequest().build();
+        }
+        // Id sicuramente inesistente: si risponde dall'event loop senza passare dal pool elastico
+        if (!videoExistenceFilter.mightExist(id)) {
+            return ServerResponse.notFound().build();
+        }
+        String viewerKey = "ip:" + request.remoteAddress()
+                .map(address -> address.getAddress().getHostAddress())
+                .orElse("unknown");
+
+        return Mono.fromCallable(() -> resolve(id, viewerKey))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(file -> ServerResponse.ok()
+                        .contentType(file.mediaType)
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + file.filename + "\"")
+                        .body(BodyInserters.fromResource(new FileSystemResource(file.path))))
+                .onErrorResume(e -> e instanceof NoSuchElementException || e instanceof NoSuchFileException,
+                        e -> ServerResponse.notFound().build());
+    }
+
+    private ResolvedFile resolve(Long id, String viewerKey) throws Exception {
+        Video video = videoService.getVideoById(id);
+        if (video.getFilePath() == null) {
+            throw new NoSuchElementException("Il video non ha un file associato");
+        }
+        Path path = localFileStorage.getObject().getLocalPath(video.getFilePath());
+        MediaType mediaType = MediaType.parseMediaType(storageService.getContentType(video.getFilePath()));
+
+        if (viewCounterService.recordView(id, viewerKey)) {
+            trendingService.recordView(video);
+        }
+        storageService.recordAccess(video.getFilePath());
+        return new ResolvedFile(path, video.getFilePath(), mediaType);
+    }
+
+    private static final class ResolvedFile {
+        final Path path;
+        final String filename;
+        final MediaType mediaType;
+
+        ResolvedFile(Path path, String filename, MediaType mediaType) {
+            this.path = path;
+            this.filename = filename;
+            this.mediaType = mediaType;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.videoapp.controller;
+
+import com.example.videoapp.config.DistributedStorageConfiguration;
+import com.example.videoapp.config.StorageConfiguration;
+import com.example.videoapp.service.LocalFileStorage;
+import com.example.videoapp.service.StorageService;
+import com.example.videoapp.service.StoredFile;
+import com.example.videoapp.service.impl.StorageNodeClient;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * API interna di un nodo di storage, usata dal coordinatore in modalità distributed. Espone lo storage
+ * locale dell'istanza (local o tiered, che forniscono LocalFileStorage); le richieste sono autenticate
+ * dal token condiviso tra i nodi, non dal JWT utente.
+ */
+@RestController
+@RequestMapping("/internal/storage")
+@ConditionalOnProperty(name = "videoapp.storage.distributed.node-enabled", havingValue = "true")
+public class StorageNodeController {
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private LocalFileStorage localFileStorage;
+
+    @Autowired
+    private StorageConfiguration storageConfig;
+
+    @Autowired
+    private DistributedStorageConfiguration distributedConfig;
+
+    @GetMapping("/health")
+    public ResponseEntity<String> health(HttpServletRequest request) {
+        authorize(request);
+        return ResponseEntity.ok("OK");
+    }
+
+    @GetMapping(value = "/files", produces = MediaType.TEXT_PLAIN_VALUE)
+    public void listFiles(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        authorize(request);
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        // Un nome per riga, scritto mentre la directory viene letta
+        try (Stream<String> files = storageService.listFiles(); Writer writer = response.getWriter()) {
+            Iterator<String> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Contenuto del file; Range e HEAD sono gestiti da Spring sul Resource restituito
+     */
+    @GetMapping("/files/{filename}")
+    public ResponseEntity<Resource> readFile(@PathVariable String filename, HttpServletRequest request)
+            throws IOException {
+        authorize(request);
+        Path path = localFileStorage.getLocalPath(filename);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(storageService.getContentType(filename)))
+                .lastModified(Files.getLastModifiedTime(path).toInstant())
+                .body(new FileSystemResource(path));
+    }
+
+    @PutMapping("/files/{filename}")
+    public ResponseEntity<Void> writeFile(@PathVariable String filename, HttpServletRequest request)
+            throws IOException {
+        authorize(request);
+        StoredFile stored = storageService.storeAs(filename, request.getInputStream(), storageConfig.getMaxFileSize());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(StorageNodeClient.CHECKSUM_HEADER, Long.toString(stored.getChecksum()))
+                .build();
+    }
+
+    @DeleteMapping("/files/{filename}")
+    public ResponseEntity<Void> deleteFile(@PathVariable String filename, HttpServletRequest request)
+            throws IOException {
+        authorize(request);
+        storageService.deleteFile(filename);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/files/{filename}/quarantine")
+    public ResponseEntity<Void> quarantineFile(@PathVariable String filename, HttpServletRequest request)
+            throws IOException {
+        authorize(request);
+        storageService.quarantine(filename);
+        return ResponseEntity.noContent().build();
+    }
+
+    private void authorize(HttpServletRequest request) {
+        String expected = distributedConfig.getNodeToken();
+        String provided = request.getHeader(StorageNodeClient.TOKEN_HEADER);
+        // Senza token configurato l'API resta chiusa; confronto a tempo costante
+        if (!StringUtils.hasText(expected) || provided == null || !MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8), provided.getBytes(StandardCharsets.UTF_8))) {
+            throw new AccessDeniedException("Token del nodo di storage non valido");
+        }
+    }
+}
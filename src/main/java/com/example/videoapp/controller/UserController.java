@@ -1,11 +1,15 @@
 package com.example.videoapp.controller;
 
 import com.example.videoapp.dto.LoginResponseDto;
+import com.example.videoapp.dto.UserUsageDto;
+import com.example.videoapp.filter.JwtAuthenticationFilter;
 import com.example.videoapp.model.User;
 import com.example.videoapp.repository.UserRepository;
+import com.example.videoapp.service.StorageQuotaService;
 import com.example.videoapp.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,12 +20,15 @@ public class UserController {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final StorageQuotaService storageQuotaService;
 
     @Autowired
-    public UserController(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
+    public UserController(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtUtil jwtUtil,
+                          StorageQuotaService storageQuotaService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
+        this.storageQuotaService = storageQuotaService;
     }
 
     @PostMapping("/login")
@@ -41,10 +48,23 @@ public class UserController {
             return ResponseEntity.badRequest().body("Username già esistente");
         }
         user.setPassword(passwordEncoder.encode(user.getPassword()));
+        // Il ruolo non si sceglie alla registrazione
+        user.setRole(User.ROLE_USER);
         User savedUser = userRepository.save(user);
         
         // Rimuovi la password dalla risposta
         savedUser.setPassword(null);
         return ResponseEntity.ok(savedUser);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/{id}/usage")
+    public ResponseEntity<UserUsageDto> getUsage(
+            @PathVariable Long id,
+            @RequestAttribute(name = JwtAuthenticationFilter.USER_ID_ATTRIBUTE, required = false) Long currentUserId
+    ) {
+        if (!id.equals(currentUserId)) {
+            throw new AccessDeniedException("Non puoi consultare l'utilizzo di un altro utente");
+        }
+        return ResponseEntity.ok(storageQuotaService.getUsage(id));
+    }
+}
@@ -1,51 +1,137 @@
 package com.example.videoapp.controller;
 
+import com.example.videoapp.converter.VideoListJsonWriter;
 import com.example.videoapp.converter.VideoMapper;
+import com.example.videoapp.dto.BulkDeleteRequestDto;
+import com.example.videoapp.dto.BundleDownloadRequestDto;
+import com.example.videoapp.dto.BulkOperationResultDto;
 import com.example.videoapp.dto.NuovoVideoInputDto;
+import com.example.videoapp.dto.TrendingVideoDto;
 import com.example.videoapp.dto.VideoOutputDto;
+import com.example.videoapp.dto.VideoViewCountDto;
+import com.example.videoapp.dto.WatchProgressDto;
+import com.example.videoapp.filter.JwtAuthenticationFilter;
 import com.example.videoapp.model.Video;
+import com.example.videoapp.service.PublicCatalogueCache;
+import com.example.videoapp.service.TrendingService;
 import com.example.videoapp.service.VideoService;
+import com.example.videoapp.service.ViewCounterService;
+import com.example.videoapp.service.WatchProgressService;
+import com.example.videoapp.util.ByteRanges;
+import com.example.videoapp.util.PageCursor;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/videos")
 public class VideoController {
 
+    // Intervalli separati da meno di così vengono serviti come uno solo: costa meno di un'altra lettura
+    private static final long RANGE_MERGE_GAP = 64 * 1024;
+
     @Autowired
     private VideoService videoService;
 
     @Autowired
     private VideoMapper videoMapper;
 
+    @Autowired
+    private VideoListJsonWriter videoListJsonWriter;
+
+    @Autowired
+    private ViewCounterService viewCounterService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private WatchProgressService watchProgressService;
+
+    @Autowired
+    private PublicCatalogueCache publicCatalogueCache;
+
     @GetMapping
-    public ResponseEntity<Page<VideoOutputDto>> getVideos(
+    public void getVideos(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) Long userId,
-            @RequestParam(required = false) Boolean isPublic
-    ) {
-        Page<Video> videos = videoService.getVideos(page, size, userId, isPublic);
-        Page<VideoOutputDto> dtoPage = videos.map(videoMapper::toDto);
-        return ResponseEntity.ok(dtoPage);
+            @RequestParam(required = false) Boolean isPublic,
+            @RequestParam(required = false) String cursor,
+            HttpServletResponse response
+    ) throws IOException {
+        Slice<Video> videos = cursor != null
+                ? videoService.getVideosAfter(PageCursor.decode(cursor), size, userId, isPublic)
+                : videoService.getVideos(page, size, userId, isPublic);
+
+        // La lista viene scritta in streaming direttamente sulla risposta
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        videoListJsonWriter.write(videos, cursor != null, response.getOutputStream());
     }
 
     @GetMapping("/public")
-    public ResponseEntity<Page<VideoOutputDto>> getPublicVideos(
+    public ResponseEntity<byte[]> getPublicVideos(
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        // Stessa normalizzazione di getVideos, così pagine equivalenti condividono la voce in cache
+        int pageNumber = Math.max(page, 1);
+        int pageSize = Math.min(size, 10);
+        Long afterId = cursor != null ? PageCursor.decode(cursor) : null;
+
+        PublicCatalogueCache.CachedPage cached = publicCatalogueCache.getPage(pageNumber, pageSize, afterId,
+                () -> afterId != null
+                        ? videoService.getVideosAfter(afterId, pageSize, null, true)
+                        : videoService.getVideos(pageNumber, pageSize, null, true));
+
+        boolean gzip = cached.getGzipBody() != null && acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = gzip ? cached.getGzipEtag() : cached.getEtag();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache");
+
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        byte[] body = gzip ? cached.getGzipBody() : cached.getBody();
+        return response.contentType(MediaType.APPLICATION_JSON)
+                .contentLength(body.length)
+                .body(body);
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingVideoDto>> getTrendingVideos(
+            @RequestParam(defaultValue = "0") int limit
     ) {
-        Page<Video> videos = videoService.getVideos(page, size, null, true);
-        Page<VideoOutputDto> dtoPage = videos.map(videoMapper::toDto);
-        return ResponseEntity.ok(dtoPage);
+        return ResponseEntity.ok(trendingService.getTrending(Math.min(limit, 100)));
     }
 
     @PostMapping(consumes = "multipart/form-data")
@@ -66,6 +152,19 @@ public class VideoController {
         return ResponseEntity.ok("Video caricato con successo");
     }
 
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<BulkOperationResultDto> bulkDeleteVideos(@RequestBody BulkDeleteRequestDto request) {
+        int deleted = videoService.bulkDelete(request.getIds());
+        return ResponseEntity.ok(new BulkOperationResultDto(request.getIds().size(), deleted));
+    }
+
+    // Ogni elemento contiene "id", opzionalmente "version" e i campi da aggiornare
+    @PatchMapping("/bulk")
+    public ResponseEntity<BulkOperationResultDto> bulkUpdateVideos(@RequestBody List<Map<String, Object>> patches) {
+        int updated = videoService.bulkUpdate(patches);
+        return ResponseEntity.ok(new BulkOperationResultDto(patches.size(), updated));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteVideo(@PathVariable Long id) {
         videoService.deleteVideo(id);
@@ -75,7 +174,9 @@ public class VideoController {
     @GetMapping("/{id}")
     public ResponseEntity<VideoOutputDto> getVideo(@PathVariable Long id) {
         Video video = videoService.getVideoById(id);
-        return ResponseEntity.ok(videoMapper.toDto(video));
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(video.getVersion()))
+                .body(videoMapper.toDto(video));
     }
 
     // Endpoint PUT per aggiornare video con multipart/form-data
@@ -85,44 +186,83 @@ public class VideoController {
             @RequestParam("title") String title,
             @RequestParam("description") String description,
             @RequestParam("isPublic") boolean isPublic,
-            @RequestParam(value = "file", required = false) MultipartFile file
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws IOException {
-        Video video = videoService.updateVideoWithFile(id, title, description, isPublic, file);
-        return ResponseEntity.ok(videoMapper.toDto(video));
+        Video video = videoService.updateVideoWithFile(id, title, description, isPublic, file, parseIfMatch(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(video.getVersion()))
+                .body(videoMapper.toDto(video));
     }
 
     // Endpoint PUT per aggiornare solo i metadati (senza file)
     @PutMapping("/{id}")
     public ResponseEntity<VideoOutputDto> updateVideo(
             @PathVariable Long id,
-            @RequestBody Map<String, Object> updates
+            @RequestBody Map<String, Object> updates,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
-        Video video = videoService.updateVideo(id, updates);
-        return ResponseEntity.ok(videoMapper.toDto(video));
+        Video video = videoService.updateVideo(id, updates, parseIfMatch(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(video.getVersion()))
+                .body(videoMapper.toDto(video));
     }
 
-    @GetMapping("/{id}/file")
-    public ResponseEntity<byte[]> getVideoFile(@PathVariable Long id) throws IOException {
-        byte[] content = videoService.getVideoFile(id);
-        String contentType = videoService.getVideoContentType(id);
-        Video video = videoService.getVideoById(id);
+    // Endpoint PATCH: aggiornamento parziale condizionato, un'unica UPDATE senza select preventiva
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchVideo(
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> updates,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        Long expectedVersion = parseIfMatch(ifMatch);
+        if (expectedVersion == null) {
+            throw new IllegalArgumentException("Header If-Match con la versione del video obbligatorio");
+        }
+        long newVersion = videoService.patchVideo(id, updates, expectedVersion);
+        return ResponseEntity.noContent()
+                .eTag(String.valueOf(newVersion))
+                .build();
+    }
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + video.getFilePath() + "\"")
-                .contentType(MediaType.parseMediaType(contentType))
-                .body(content);
+    @GetMapping("/{id}/views")
+    public ResponseEntity<VideoViewCountDto> getVideoViews(@PathVariable Long id) {
+        videoService.getVideoById(id);
+        return ResponseEntity.ok(new VideoViewCountDto(id, viewCounterService.getViewCount(id)));
     }
 
-    @GetMapping("/{id}/stream")
-    public ResponseEntity<byte[]> streamVideo(@PathVariable Long id) throws IOException {
-        byte[] content = videoService.getVideoFile(id);
-        String contentType = videoService.getVideoContentType(id);
-        Video video = videoService.getVideoById(id);
+    @PutMapping("/{id}/progress")
+    public ResponseEntity<Void> saveProgress(
+            @PathVariable Long id,
+            @RequestAttribute(JwtAuthenticationFilter.USER_ID_ATTRIBUTE) Long userId,
+            @RequestBody WatchProgressDto progress
+    ) {
+        if (progress.getPositionMs() == null) {
+            throw new IllegalArgumentException("positionMs è obbligatorio");
+        }
+        watchProgressService.saveProgress(userId, id, progress.getPositionMs());
+        return ResponseEntity.noContent().build();
+    }
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + video.getFilePath() + "\"")
-                .contentType(MediaType.parseMediaType(contentType))
-                .body(content);
+    @GetMapping("/{id}/progress")
+    public ResponseEntity<WatchProgressDto> getProgress(
+            @PathVariable Long id,
+            @RequestAttribute(JwtAuthenticationFilter.USER_ID_ATTRIBUTE) Long userId
+    ) {
+        WatchProgressDto progress = watchProgressService.getProgress(userId, id);
+        return progress != null ? ResponseEntity.ok(progress) : ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/{id}/file")
+    public void getVideoFile(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        writeVideoContent(id, request, response);
+    }
+
+    @GetMapping("/{id}/stream")
+    public void streamVideo(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        writeVideoContent(id, request, response);
     }
 
     @GetMapping("/{id}/download")
@@ -141,4 +281,123 @@ public class VideoController {
                 .contentLength(content.length)
                 .body(content);
     }
+
+    @PostMapping("/download-bundle")
+    public void downloadBundle(@RequestBody BundleDownloadRequestDto request, HttpServletResponse response)
+            throws IOException {
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"videos.zip\"");
+        videoService.writeVideoBundle(request.getIds(), response.getOutputStream());
+    }
+
+    // Contenuto intero, un intervallo o più intervalli (multipart/byteranges), scritti in streaming dalla cache dei segmenti
+    private void writeVideoContent(Long id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        // Riga letta una sola volta: tipo, dimensione e tutte le parti usano lo stesso video
+        Video video = videoService.getVideoById(id);
+        String contentType = videoService.getVideoContentType(video);
+        long size = videoService.getVideoFileSize(video);
+        String viewerKey = getViewerKey(request);
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + video.getFilePath() + "\"");
+
+        List<HttpRange> ranges = parseRanges(request.getHeader(HttpHeaders.RANGE));
+        if (ranges.isEmpty()) {
+            response.setContentType(contentType);
+            response.setContentLengthLong(size);
+            recordView(video, viewerKey);
+            videoService.writeVideoFile(video, 0, size, viewerKey, response.getOutputStream());
+            return;
+        }
+
+        List<ByteRanges.Segment> segments = ByteRanges.resolve(ranges, size, RANGE_MERGE_GAP);
+        if (segments.isEmpty()) {
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            return;
+        }
+
+        // La visualizzazione conta solo per un intervallo accettato, non per una risposta 416
+        recordView(video, viewerKey);
+        response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+        if (segments.size() == 1) {
+            ByteRanges.Segment segment = segments.get(0);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(segment, size));
+            response.setContentLengthLong(segment.getLength());
+            videoService.writeVideoFile(video, segment.getStart(), segment.getLength(), viewerKey, response.getOutputStream());
+            return;
+        }
+
+        // Le intestazioni delle parti sono note in anticipo, quindi la lunghezza totale si calcola senza bufferizzare
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        List<byte[]> partHeaders = new ArrayList<>(segments.size());
+        long contentLength = 0;
+        for (ByteRanges.Segment segment : segments) {
+            byte[] header = ("\r\n--" + boundary + "\r\n" +
+                    HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n" +
+                    HttpHeaders.CONTENT_RANGE + ": " + contentRange(segment, size) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + segment.getLength();
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        OutputStream out = response.getOutputStream();
+        for (int i = 0; i < segments.size(); i++) {
+            ByteRanges.Segment segment = segments.get(i);
+            out.write(partHeaders.get(i));
+            videoService.writeVideoFile(video, segment.getStart(), segment.getLength(), viewerKey, out);
+        }
+        out.write(closing);
+    }
+
+    private static String contentRange(ByteRanges.Segment segment, long size) {
+        return "bytes " + segment.getStart() + "-" + segment.getEnd() + "/" + size;
+    }
+
+    // Un header Range non valido viene ignorato, come previsto da RFC 9110
+    private static List<HttpRange> parseRanges(String header) {
+        if (header == null) return List.of();
+        try {
+            return HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    private void recordView(Video video, String viewerKey) {
+        if (viewCounterService.recordView(video.getId(), viewerKey)) {
+            trendingService.recordView(video);
+        }
+    }
+
+    // Utente autenticato se presente, altrimenti indirizzo IP del client
+    private String getViewerKey(HttpServletRequest request) {
+        if (request.getUserPrincipal() != null) {
+            return "u:" + request.getUserPrincipal().getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    // If-Match contiene la versione come ETag ("3" oppure W/"3"); "*" o assente = nessun controllo
+    private Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        value = value.replace("\"", "");
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Header If-Match non valido: " + ifMatch);
+        }
+    }
 }
\ No newline at end of file
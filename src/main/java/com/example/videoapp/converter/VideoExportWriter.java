@@ -0,0 +1,197 @@
+package com.example.videoapp.converter;
+
+import com.example.videoapp.model.Video;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Scrive l'export del catalogo una riga per video, man mano che le righe arrivano dal cursore:
+ * NDJSON (un oggetto JSON per riga) oppure CSV con intestazione. Nessuna riga resta in memoria dopo essere stata scritta.
+ */
+@Component
+public class VideoExportWriter {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString TITLE = new SerializedString("title");
+    private static final SerializedString DESCRIPTION = new SerializedString("description");
+    private static final SerializedString IS_PUBLIC = new SerializedString("isPublic");
+    private static final SerializedString USER_ID = new SerializedString("userId");
+    private static final SerializedString USERNAME = new SerializedString("username");
+    private static final SerializedString FILE_PATH = new SerializedString("filePath");
+    private static final SerializedString FILE_SIZE = new SerializedString("fileSize");
+    private static final SerializedString CHECKSUM = new SerializedString("checksum");
+    private static final SerializedString VERSION = new SerializedString("version");
+
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private static final String CSV_HEADER = "id,title,description,isPublic,userId,username,filePath,fileSize,checksum,version";
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) return format;
+            }
+            throw new IllegalArgumentException("Formato di export non supportato: " + value + " (ndjson o csv)");
+        }
+    }
+
+    /**
+     * Scrittore di righe aperto su uno stream; close svuota i buffer senza chiudere lo stream sottostante
+     */
+    public interface RowWriter extends Closeable {
+        void write(Video video) throws IOException;
+    }
+
+    private final JsonFactory jsonFactory;
+
+    public VideoExportWriter(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public RowWriter open(Format format, OutputStream out) throws IOException {
+        return format == Format.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+    }
+
+    private class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator gen;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            gen = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Il separatore di default tra valori radice è uno spazio: qui ogni oggetto termina con il proprio a capo
+            gen.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(Video video) throws IOException {
+            gen.writeStartObject();
+            gen.writeFieldName(ID);
+            gen.writeNumber(video.getId());
+            gen.writeFieldName(TITLE);
+            gen.writeString(video.getTitle());
+            gen.writeFieldName(DESCRIPTION);
+            gen.writeString(video.getDescription());
+            gen.writeFieldName(IS_PUBLIC);
+            gen.writeBoolean(video.isPublic());
+            if (video.getUser() != null) {
+                gen.writeFieldName(USER_ID);
+                gen.writeNumber(video.getUser().getId());
+                gen.writeFieldName(USERNAME);
+                gen.writeString(video.getUser().getUsername());
+            }
+            gen.writeFieldName(FILE_PATH);
+            gen.writeString(video.getFilePath());
+            if (video.getFileSize() != null) {
+                gen.writeFieldName(FILE_SIZE);
+                gen.writeNumber(video.getFileSize());
+            }
+            if (video.getChecksum() != null) {
+                gen.writeFieldName(CHECKSUM);
+                gen.writeNumber(video.getChecksum());
+            }
+            gen.writeFieldName(VERSION);
+            gen.writeNumber(video.getVersion());
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            gen.close();
+        }
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out) throws IOException {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+            writer.write(CSV_HEADER);
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(Video video) throws IOException {
+            writer.write(String.valueOf(video.getId()));
+            writer.write(',');
+            writeField(video.getTitle());
+            writer.write(',');
+            writeField(video.getDescription());
+            writer.write(',');
+            writer.write(String.valueOf(video.isPublic()));
+            writer.write(',');
+            if (video.getUser() != null) {
+                writer.write(String.valueOf(video.getUser().getId()));
+                writer.write(',');
+                writeField(video.getUser().getUsername());
+            } else {
+                writer.write(',');
+            }
+            writer.write(',');
+            writeField(video.getFilePath());
+            writer.write(',');
+            if (video.getFileSize() != null) writer.write(String.valueOf(video.getFileSize()));
+            writer.write(',');
+            if (video.getChecksum() != null) writer.write(String.valueOf(video.getChecksum()));
+            writer.write(',');
+            writer.write(String.valueOf(video.getVersion()));
+            writer.write("\r\n");
+        }
+
+        // RFC 4180: tra virgolette solo i campi con separatori, virgolette o a capo. I testi che un foglio
+        // di calcolo interpreterebbe come formula (= + - @, anche dopo tab o a capo iniziali) sono preceduti
+        // da un apice, come suggerito da OWASP contro la CSV injection
+        private void writeField(String value) throws IOException {
+            if (value == null) return;
+            boolean quote = false;
+            if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+                value = "'" + value;
+                quote = true;
+            }
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+// INIZIO VideoListJsonWriter.java
+package com.example.videoapp.converter;
+
+import com.example.videoapp.model.Video;
+import com.example.videoapp.util.PageCursor;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Scrive le liste di video con un JsonGenerator direttamente sullo stream di uscita.
+ * Formato della busta:
+ * {"content":[...],"page":1,"size":10,"hasNext":true,"totalElements":42,"totalPages":5,"nextCursor":"..."}
+ * In modalità cursore page, totalElements e totalPages sono omessi. Ogni video ha gli stessi campi che
+ * Jackson produce per VideoOutputDto (compresi "public", dal getter isPublic(), e "user":null), così i client
+ * della vecchia serializzazione ricevono lo stesso formato.
+ */
+@Component
+public class VideoListJsonWriter {
+
+    private static final SerializedString CONTENT = new SerializedString("content");
+    private static final SerializedString PAGE = new SerializedString("page");
+    private static final SerializedString SIZE = new SerializedString("size");
+    private static final SerializedString HAS_NEXT = new SerializedString("hasNext");
+    private static final SerializedString TOTAL_ELEMENTS = new SerializedString("totalElements");
+    private static final SerializedString TOTAL_PAGES = new SerializedString("totalPages");
+    private static final SerializedString NEXT_CURSOR = new SerializedString("nextCursor");
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString TITLE = new SerializedString("title");
+    private static final SerializedString DESCRIPTION = new SerializedString("description");
+    private static final SerializedString IS_PUBLIC = new SerializedString("isPublic");
+    private static final SerializedString PUBLIC = new SerializedString("public");
+    private static final SerializedString USER = new SerializedString("user");
+    private static final SerializedString USER_ID = new SerializedString("userId");
+    private static final SerializedString USERNAME = new SerializedString("username");
+
+    private final JsonFactory jsonFactory;
+
+    public VideoListJsonWriter(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public void write(Slice<Video> slice, boolean cursorMode, OutputStream out) throws IOException {
+        try (JsonGenerator gen = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gen.writeStartObject();
+
+            gen.writeFieldName(CONTENT);
+            gen.writeStartArray();
+            List<Video> videos = slice.getContent();
+            for (Video video : videos) {
+                writeVideo(gen, video);
+            }
+            gen.writeEndArray();
+
+            if (!cursorMode) {
+                gen.writeFieldName(PAGE);
+                gen.writeNumber(slice.getNumber() + 1);
+            }
+            gen.writeFieldName(SIZE);
+            gen.writeNumber(slice.getSize());
+            gen.writeFieldName(HAS_NEXT);
+            gen.writeBoolean(slice.hasNext());
+
+            if (!cursorMode && slice instanceof Page) {
+                Page<Video> page = (Page<Video>) slice;
+                gen.writeFieldName(TOTAL_ELEMENTS);
+                gen.writeNumber(page.getTotalElements());
+                gen.writeFieldName(TOTAL_PAGES);
+                gen.writeNumber(page.getTotalPages());
+            }
+
+            if (slice.hasNext() && !videos.isEmpty()) {
+                gen.writeFieldName(NEXT_CURSOR);
+                gen.writeString(PageCursor.encode(videos.get(videos.size() - 1).getId()));
+            }
+
+            gen.writeEndObject();
+        }
+    }
+
+    private void writeVideo(JsonGenerator gen, Video video) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(ID);
+        gen.writeNumber(video.getId());
+        gen.writeFieldName(TITLE);
+        gen.writeString(video.getTitle());
+        gen.writeFieldName(DESCRIPTION);
+        gen.writeString(video.getDescription());
+        gen.writeFieldName(IS_PUBLIC);
+        gen.writeBoolean(video.isPublic());
+        gen.writeFieldName(PUBLIC);
+        gen.writeBoolean(video.isPublic());
+
+        gen.writeFieldName(USER);
+        if (video.getUser() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartObject();
+            gen.writeFieldName(USER_ID);
+            gen.writeNumber(video.getUser().getId());
+            gen.writeFieldName(USERNAME);
+            gen.writeString(video.getUser().getUsername());
+            gen.writeEndObject();
+        }
+        gen.writeEndObject();
+    }
+}
+// FINE VideoListJsonWriter.java
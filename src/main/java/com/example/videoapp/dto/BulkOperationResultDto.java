@@ -0,0 +1,17 @@
+package com.example.videoapp.dto;
+
+public class BulkOperationResultDto {
+    private int requested;
+    private int affected;
+
+    public BulkOperationResultDto(int requested, int affected) {
+        this.requested = requested;
+        this.affected = affected;
+    }
+
+    public int getRequested() { return requested; }
+    public void setRequested(int requested) { this.requested = requested; }
+
+    public int getAffected() { return affected; }
+    public void setAffected(int affected) { this.affected = affected; }
+}
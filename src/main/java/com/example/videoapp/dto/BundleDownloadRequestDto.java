@@ -0,0 +1,10 @@
+package com.example.videoapp.dto;
+
+import java.util.List;
+
+public class BundleDownloadRequestDto {
+    private List<Long> ids;
+
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+}
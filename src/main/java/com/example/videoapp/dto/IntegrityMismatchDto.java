@@ -0,0 +1,48 @@
+package com.example.videoapp.dto;
+
+public class IntegrityMismatchDto {
+
+    public enum Type { MISSING, SIZE, CHECKSUM, UNREADABLE }
+
+    private Long videoId;
+    private String filePath;
+    private Type type;
+    private Long expectedSize;
+    private Long actualSize;
+    private Long expectedChecksum;
+    private Long actualChecksum;
+    private long detectedAt;
+
+    public IntegrityMismatchDto() {}
+
+    public IntegrityMismatchDto(Long videoId, String filePath, Type type) {
+        this.videoId = videoId;
+        this.filePath = filePath;
+        this.type = type;
+        this.detectedAt = System.currentTimeMillis();
+    }
+
+    public Long getVideoId() { return videoId; }
+    public void setVideoId(Long videoId) { this.videoId = videoId; }
+
+    public String getFilePath() { return filePath; }
+    public void setFilePath(String filePath) { this.filePath = filePath; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public Long getExpectedSize() { return expectedSize; }
+    public void setExpectedSize(Long expectedSize) { this.expectedSize = expectedSize; }
+
+    public Long getActualSize() { return actualSize; }
+    public void setActualSize(Long actualSize) { this.actualSize = actualSize; }
+
+    public Long getExpectedChecksum() { return expectedChecksum; }
+    public void setExpectedChecksum(Long expectedChecksum) { this.expectedChecksum = expectedChecksum; }
+
+    public Long getActualChecksum() { return actualChecksum; }
+    public void setActualChecksum(Long actualChecksum) { this.actualChecksum = actualChecksum; }
+
+    public long getDetectedAt() { return detectedAt; }
+    public void setDetectedAt(long detectedAt) { this.detectedAt = detectedAt; }
+}
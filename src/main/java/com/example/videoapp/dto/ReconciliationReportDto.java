@@ -0,0 +1,51 @@
+package com.example.videoapp.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public class ReconciliationReportDto {
+    private boolean running;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private long filesScanned;
+    private long orphanFiles;
+    private long quarantinedFiles;
+    private long rowsScanned;
+    private long brokenRows;
+    private List<String> orphanSample;
+    private List<Long> brokenRowSample;
+    private String error;
+
+    public boolean isRunning() { return running; }
+    public void setRunning(boolean running) { this.running = running; }
+
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+
+    public Instant getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+
+    public long getFilesScanned() { return filesScanned; }
+    public void setFilesScanned(long filesScanned) { this.filesScanned = filesScanned; }
+
+    public long getOrphanFiles() { return orphanFiles; }
+    public void setOrphanFiles(long orphanFiles) { this.orphanFiles = orphanFiles; }
+
+    public long getQuarantinedFiles() { return quarantinedFiles; }
+    public void setQuarantinedFiles(long quarantinedFiles) { this.quarantinedFiles = quarantinedFiles; }
+
+    public long getRowsScanned() { return rowsScanned; }
+    public void setRowsScanned(long rowsScanned) { this.rowsScanned = rowsScanned; }
+
+    public long getBrokenRows() { return brokenRows; }
+    public void setBrokenRows(long brokenRows) { this.brokenRows = brokenRows; }
+
+    public List<String> getOrphanSample() { return orphanSample; }
+    public void setOrphanSample(List<String> orphanSample) { this.orphanSample = orphanSample; }
+
+    public List<Long> getBrokenRowSample() { return brokenRowSample; }
+    public void setBrokenRowSample(List<Long> brokenRowSample) { this.brokenRowSample = brokenRowSample; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
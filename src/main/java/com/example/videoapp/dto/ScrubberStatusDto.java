@@ -0,0 +1,34 @@
+package com.example.videoapp.dto;
+
+import java.util.List;
+
+public class ScrubberStatusDto {
+    private boolean enabled;
+    private long lastVideoId;
+    private long passStartedAt;
+    private long lastPassCompletedAt;
+    private long filesVerified;
+    private long bytesVerified;
+    private List<IntegrityMismatchDto> mismatches;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public long getLastVideoId() { return lastVideoId; }
+    public void setLastVideoId(long lastVideoId) { this.lastVideoId = lastVideoId; }
+
+    public long getPassStartedAt() { return passStartedAt; }
+    public void setPassStartedAt(long passStartedAt) { this.passStartedAt = passStartedAt; }
+
+    public long getLastPassCompletedAt() { return lastPassCompletedAt; }
+    public void setLastPassCompletedAt(long lastPassCompletedAt) { this.lastPassCompletedAt = lastPassCompletedAt; }
+
+    public long getFilesVerified() { return filesVerified; }
+    public void setFilesVerified(long filesVerified) { this.filesVerified = filesVerified; }
+
+    public long getBytesVerified() { return bytesVerified; }
+    public void setBytesVerified(long bytesVerified) { this.bytesVerified = bytesVerified; }
+
+    public List<IntegrityMismatchDto> getMismatches() { return mismatches; }
+    public void setMismatches(List<IntegrityMismatchDto> mismatches) { this.mismatches = mismatches; }
+}
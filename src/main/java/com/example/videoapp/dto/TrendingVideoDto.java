@@ -0,0 +1,19 @@
+package com.example.videoapp.dto;
+
+public class TrendingVideoDto {
+    private VideoOutputDto video;
+    private double score;
+
+    public TrendingVideoDto() {}
+
+    public TrendingVideoDto(VideoOutputDto video, double score) {
+        this.video = video;
+        this.score = score;
+    }
+
+    public VideoOutputDto getVideo() { return video; }
+    public void setVideo(VideoOutputDto video) { this.video = video; }
+
+    public double getScore() { return score; }
+    public void setScore(double score) { this.score = score; }
+}
@@ -0,0 +1,32 @@
+package com.example.videoapp.dto;
+
+public class UserUsageDto {
+    private Long userId;
+    private long bytesUsed;
+    private long videoCount;
+    private long maxBytes;
+    private long maxVideos;
+
+    public UserUsageDto(Long userId, long bytesUsed, long videoCount, long maxBytes, long maxVideos) {
+        this.userId = userId;
+        this.bytesUsed = bytesUsed;
+        this.videoCount = videoCount;
+        this.maxBytes = maxBytes;
+        this.maxVideos = maxVideos;
+    }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public long getBytesUsed() { return bytesUsed; }
+    public void setBytesUsed(long bytesUsed) { this.bytesUsed = bytesUsed; }
+
+    public long getVideoCount() { return videoCount; }
+    public void setVideoCount(long videoCount) { this.videoCount = videoCount; }
+
+    public long getMaxBytes() { return maxBytes; }
+    public void setMaxBytes(long maxBytes) { this.maxBytes = maxBytes; }
+
+    public long getMaxVideos() { return maxVideos; }
+    public void setMaxVideos(long maxVideos) { this.maxVideos = maxVideos; }
+}
@@ -0,0 +1,17 @@
+package com.example.videoapp.dto;
+
+public class VideoViewCountDto {
+    private Long videoId;
+    private long views;
+
+    public VideoViewCountDto(Long videoId, long views) {
+        this.videoId = videoId;
+        this.views = views;
+    }
+
+    public Long getVideoId() { return videoId; }
+    public void setVideoId(Long videoId) { this.videoId = videoId; }
+
+    public long getViews() { return views; }
+    public void setViews(long views) { this.views = views; }
+}
@@ -0,0 +1,40 @@
+package com.example.videoapp.dto;
+
+public class WarmupStatusDto {
+    private boolean ready;
+    private boolean running;
+    private int totalItems;
+    private int processedItems;
+    private int warmedItems;
+    private int failedItems;
+    private long bytesLoaded;
+    private long startedAt;
+    private long finishedAt;
+
+    public boolean isReady() { return ready; }
+    public void setReady(boolean ready) { this.ready = ready; }
+
+    public boolean isRunning() { return running; }
+    public void setRunning(boolean running) { this.running = running; }
+
+    public int getTotalItems() { return totalItems; }
+    public void setTotalItems(int totalItems) { this.totalItems = totalItems; }
+
+    public int getProcessedItems() { return processedItems; }
+    public void setProcessedItems(int processedItems) { this.processedItems = processedItems; }
+
+    public int getWarmedItems() { return warmedItems; }
+    public void setWarmedItems(int warmedItems) { this.warmedItems = warmedItems; }
+
+    public int getFailedItems() { return failedItems; }
+    public void setFailedItems(int failedItems) { this.failedItems = failedItems; }
+
+    public long getBytesLoaded() { return bytesLoaded; }
+    public void setBytesLoaded(long bytesLoaded) { this.bytesLoaded = bytesLoaded; }
+
+    public long getStartedAt() { return startedAt; }
+    public void setStartedAt(long startedAt) { this.startedAt = startedAt; }
+
+    public long getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(long finishedAt) { this.finishedAt = finishedAt; }
+}
@@ -0,0 +1,24 @@
+package com.example.videoapp.dto;
+
+public class WatchProgressDto {
+    private Long videoId;
+    private Long positionMs;
+    private Long updatedAt;
+
+    public WatchProgressDto() {}
+
+    public WatchProgressDto(Long videoId, Long positionMs, Long updatedAt) {
+        this.videoId = videoId;
+        this.positionMs = positionMs;
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getVideoId() { return videoId; }
+    public void setVideoId(Long videoId) { this.videoId = videoId; }
+
+    public Long getPositionMs() { return positionMs; }
+    public void setPositionMs(Long positionMs) { this.positionMs = positionMs; }
+
+    public Long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Long updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,11 @@
+package com.example.videoapp.exception;
+
+/**
+ * La versione indicata in If-Match non corrisponde a quella corrente della risorsa.
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.videoapp.exception;
+
+/**
+ * Il caricamento supererebbe la quota di storage dell'utente.
+ */
+public class QuotaExceededException extends RuntimeException {
+
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+}
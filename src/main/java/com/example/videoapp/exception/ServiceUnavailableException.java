@@ -0,0 +1,18 @@
+package com.example.videoapp.exception;
+
+/**
+ * Richiesta non accettata per saturazione temporanea: il client può ritentare dopo retryAfterSeconds.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
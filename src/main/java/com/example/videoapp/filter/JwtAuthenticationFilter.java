@@ -20,6 +20,9 @@ import java.io.IOException;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // Attributo della request con l'id dell'utente autenticato, letto dal token
+    public static final String USER_ID_ATTRIBUTE = "videoapp.userId";
+
     @Autowired
     private JwtUtil jwtUtil;
 
@@ -41,6 +44,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             
             SecurityContextHolder.getContext().setAuthentication(authentication);
+            request.setAttribute(USER_ID_ATTRIBUTE, jwtUtil.getUserIdFromToken(jwt));
         }
         
         filterChain.doFilter(request, response);
@@ -0,0 +1,39 @@
+package com.example.videoapp.filter;
+
+import com.example.videoapp.service.StorageQuotaService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Rifiuta gli upload che supererebbero la quota prima che il corpo multipart venga letto,
+ * usando il Content-Length e l'utente del token. Il controllo definitivo resta nel servizio,
+ * che verifica anche le sostituzioni di file (dove lo spazio del file precedente torna disponibile).
+ */
+@Component
+public class UploadQuotaInterceptor implements HandlerInterceptor {
+
+    // Intestazioni multipart e campi di testo non contano sulla quota
+    private static final long MULTIPART_OVERHEAD_ALLOWANCE = 64 * 1024;
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String contentType = request.getContentType();
+        if (!"POST".equals(request.getMethod()) || contentType == null || !contentType.startsWith(MediaType.MULTIPART_FORM_DATA_VALUE)) {
+            return true;
+        }
+
+        Object userId = request.getAttribute(JwtAuthenticationFilter.USER_ID_ATTRIBUTE);
+        long contentLength = request.getContentLengthLong();
+        if (userId instanceof Long id && contentLength > MULTIPART_OVERHEAD_ALLOWANCE) {
+            storageQuotaService.checkUpload(id, contentLength - MULTIPART_OVERHEAD_ALLOWANCE);
+        }
+        return true;
+    }
+}
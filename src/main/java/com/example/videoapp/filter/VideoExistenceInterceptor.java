@@ -0,0 +1,70 @@
+package com.example.videoapp.filter;
+
+import com.example.videoapp.dto.ErrorResponse;
+import com.example.videoapp.service.VideoExistenceFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Risponde 404 alle letture di video sicuramente inesistenti prima di arrivare al controller:
+ * nessuna query e nessuna eccezione per gli id sequenziali o casuali provati dagli scraper.
+ * Il corpo è lo stesso prodotto da GlobalExceptionHandler per NoSuchElementException.
+ */
+@Component
+public class VideoExistenceInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private VideoExistenceFilter videoExistenceFilter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return true;
+        }
+
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (!(variables instanceof Map<?, ?> map) || !(map.get("id") instanceof String value)) {
+            return true;
+        }
+
+        Long id = parseId(value);
+        if (id == null || videoExistenceFilter.mightExist(id)) {
+            return true;
+        }
+
+        response.setStatus(HttpStatus.NOT_FOUND.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        ErrorResponse errorResponse = new ErrorResponse(HttpStatus.NOT_FOUND.value(), "Not Found",
+                "Risorsa non trovata", request.getRequestURI());
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+        return false;
+    }
+
+    // Senza NumberFormatException: gli id non numerici restano al controller, che risponde 400 come prima
+    private static Long parseId(String value) {
+        int length = value.length();
+        if (length == 0 || length > 18) return null;
+        long id = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return null;
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+}
@@ -8,6 +8,9 @@ import java.util.List;
 @Table(name = "user")
 public class User {
 
+    public static final String ROLE_USER = "USER";
+    public static final String ROLE_ADMIN = "ADMIN";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -16,6 +19,10 @@ public class User {
     private String password;
     private String email;
 
+    // Gli utenti registrati sono sempre USER: gli amministratori si promuovono direttamente sul database
+    @Column(name = "role", nullable = false, columnDefinition = "varchar(16) default 'USER'")
+    private String role = ROLE_USER;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Video> videos;
 
@@ -34,6 +41,9 @@ public class User {
     public String getEmail() { return email; }
     public void setEmail(String email) { this.email = email; }
 
+    public String getRole() { return role; }
+    public void setRole(String role) { this.role = role; }
+
     public List<Video> getVideos() { return videos; }
     public void setVideos(List<Video> videos) { this.videos = videos; }
 }
@@ -0,0 +1,36 @@
+// INIZIO UserStorageUsage.java
+package com.example.videoapp.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Contatori di utilizzo dello storage per utente, aggiornati in modo incrementale
+ * nella stessa transazione che crea, sostituisce o elimina i video.
+ */
+@Entity
+@Table(name = "user_storage_usage")
+public class UserStorageUsage {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "bytes_used", nullable = false)
+    private long bytesUsed;
+
+    @Column(name = "video_count", nullable = false)
+    private long videoCount;
+
+    public UserStorageUsage() {}
+
+    // Getter e Setter
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public long getBytesUsed() { return bytesUsed; }
+    public void setBytesUsed(long bytesUsed) { this.bytesUsed = bytesUsed; }
+
+    public long getVideoCount() { return videoCount; }
+    public void setVideoCount(long videoCount) { this.videoCount = videoCount; }
+}
+// FINE UserStorageUsage.java
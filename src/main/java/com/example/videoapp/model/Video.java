@@ -4,11 +4,16 @@ package com.example.videoapp.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "video")
+@Table(name = "video", indexes = @Index(name = "idx_video_file_path", columnList = "file_path"))
 public class Video {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Generatore a tabella con allocazione a blocchi: a differenza di IDENTITY consente il batching degli insert
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "video_id")
+    @TableGenerator(name = "video_id", table = "video_id_sequence", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "video", allocationSize = Video.ID_ALLOCATION_SIZE)
     private Long id;
 
     private String title;
@@ -20,10 +25,21 @@ public class Video {
     @Column(name = "file_path")
     private String filePath;
 
+    // CRC-32 e dimensione del file calcolati al salvataggio, verificati dallo scrubber
+    @Column(name = "checksum")
+    private Long checksum;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
     @ManyToOne
     @JoinColumn(name = "user_id") 
     private User user; 
 
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     public Video() {}
 
     public Video(String title, String description, boolean isPublic, User user) {
@@ -49,7 +65,16 @@ public class Video {
     public String getFilePath() { return filePath; }
     public void setFilePath(String filePath) { this.filePath = filePath; }
 
+    public Long getChecksum() { return checksum; }
+    public void setChecksum(Long checksum) { this.checksum = checksum; }
+
+    public Long getFileSize() { return fileSize; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
 // FINE Video.java
\ No newline at end of file
@@ -0,0 +1,72 @@
+// INIZIO VideoViewCount.java
+package com.example.videoapp.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Contatore visualizzazioni persistito per (video, nodo).
+ * Ogni nodo scrive solo la propria riga, il totale è la somma sulle righe del video.
+ */
+@Entity
+@Table(name = "video_view_count")
+@IdClass(VideoViewCount.Key.class)
+public class VideoViewCount {
+
+    @Id
+    @Column(name = "video_id")
+    private Long videoId;
+
+    @Id
+    @Column(name = "node_id", length = 64)
+    private String nodeId;
+
+    @Column(name = "view_count", nullable = false)
+    private long viewCount;
+
+    @Column(name = "last_batch", nullable = false)
+    private long lastBatch;
+
+    public VideoViewCount() {}
+
+    // Getter e Setter
+    public Long getVideoId() { return videoId; }
+    public void setVideoId(Long videoId) { this.videoId = videoId; }
+
+    public String getNodeId() { return nodeId; }
+    public void setNodeId(String nodeId) { this.nodeId = nodeId; }
+
+    public long getViewCount() { return viewCount; }
+    public void setViewCount(long viewCount) { this.viewCount = viewCount; }
+
+    public long getLastBatch() { return lastBatch; }
+    public void setLastBatch(long lastBatch) { this.lastBatch = lastBatch; }
+
+    public static class Key implements Serializable {
+        private Long videoId;
+        private String nodeId;
+
+        public Key() {}
+
+        public Key(Long videoId, String nodeId) {
+            this.videoId = videoId;
+            this.nodeId = nodeId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(videoId, key.videoId) && Objects.equals(nodeId, key.nodeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(videoId, nodeId);
+        }
+    }
+}
+// FINE VideoViewCount.java
@@ -0,0 +1,71 @@
+// INIZIO WatchProgress.java
+package com.example.videoapp.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+@Entity
+@Table(name = "watch_progress", indexes = @Index(name = "idx_watch_progress_video", columnList = "video_id"))
+@IdClass(WatchProgress.Key.class)
+public class WatchProgress {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "video_id")
+    private Long videoId;
+
+    @Column(name = "position_ms", nullable = false)
+    private long positionMs;
+
+    @Column(name = "updated_at", nullable = false)
+    private long updatedAt;
+
+    public WatchProgress() {}
+
+    // Getter e Setter
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getVideoId() { return videoId; }
+    public void setVideoId(Long videoId) { this.videoId = videoId; }
+
+    public long getPositionMs() { return positionMs; }
+    public void setPositionMs(long positionMs) { this.positionMs = positionMs; }
+
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+
+    public static class Key implements Serializable {
+        private Long userId;
+        private Long videoId;
+
+        public Key() {}
+
+        public Key(Long userId, Long videoId) {
+            this.userId = userId;
+            this.videoId = videoId;
+        }
+
+        public Long getUserId() { return userId; }
+        public Long getVideoId() { return videoId; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(userId, key.userId) && Objects.equals(videoId, key.videoId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, videoId);
+        }
+    }
+}
+// FINE WatchProgress.java
@@ -0,0 +1,7 @@
+package com.example.videoapp.repository;
+
+import com.example.videoapp.model.UserStorageUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UserStorageUsageRepository extends JpaRepository<UserStorageUsage, Long> {
+}
@@ -4,11 +4,75 @@ package com.example.videoapp.repository;
 import com.example.videoapp.model.Video;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface VideoRepository extends JpaRepository<Video, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface VideoRepository extends JpaRepository<Video, Long>, VideoRepositoryCustom {
     Page<Video> findByIsPublic(Boolean isPublic, Pageable pageable);
     Page<Video> findByUserId(Long userId, Pageable pageable);  
     Page<Video> findByUserIdAndIsPublic(Long userId, Boolean isPublic, Pageable pageable);  
+
+    // Paginazione keyset: nessuna query di conteggio e nessun OFFSET
+    Slice<Video> findByIdGreaterThan(Long id, Pageable pageable);
+    Slice<Video> findByIsPublicAndIdGreaterThan(Boolean isPublic, Long id, Pageable pageable);
+    Slice<Video> findByUserIdAndIdGreaterThan(Long userId, Long id, Pageable pageable);
+    Slice<Video> findByUserIdAndIsPublicAndIdGreaterThan(Long userId, Boolean isPublic, Long id, Pageable pageable);
+
+    @Query("select v.id as id, v.filePath as filePath, v.isPublic as isPublic, v.user.id as userId, " +
+           "v.fileSize as fileSize from Video v where v.id in :ids")
+    List<VideoFileRef> findFileRefsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select v.id from Video v where v.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select v.filePath from Video v where v.filePath in :paths")
+    List<String> findExistingFilePaths(@Param("paths") Collection<String> paths);
+
+    // Solo la chiave primaria: l'indice basta, nessuna lettura delle righe
+    @Query("select v.id from Video v where v.id > :afterId order by v.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select v.id as id, v.filePath as filePath, v.isPublic as isPublic, v.user.id as userId, " +
+           "v.fileSize as fileSize from Video v where v.id > :afterId and v.filePath is not null order by v.id")
+    List<VideoFileRef> findFileRefsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select v.id as id, v.filePath as filePath, v.checksum as checksum, v.fileSize as fileSize from Video v " +
+           "where v.id > :afterId and v.filePath is not null order by v.id")
+    List<VideoChecksumRef> findChecksumRefsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select v.id as id, v.filePath as filePath, v.checksum as checksum, v.fileSize as fileSize from Video v " +
+           "where v.id = :id")
+    Optional<VideoChecksumRef> findChecksumRefById(@Param("id") Long id);
+
+    // Per i video caricati prima dell'introduzione dei checksum; non tocca la versione
+    @Transactional
+    @Modifying
+    @Query("update Video v set v.checksum = :checksum, v.fileSize = :fileSize " +
+           "where v.id = :id and v.filePath = :filePath and v.checksum is null")
+    int backfillChecksum(@Param("id") Long id, @Param("filePath") String filePath,
+                         @Param("checksum") long checksum, @Param("fileSize") long fileSize);
+
+    interface VideoFileRef {
+        Long getId();
+        String getFilePath();
+        boolean getIsPublic();
+        Long getUserId();
+        Long getFileSize();
+    }
+
+    interface VideoChecksumRef {
+        Long getId();
+        String getFilePath();
+        Long getChecksum();
+        Long getFileSize();
+    }
 }
-// FINE VideoRepository.java
\ No newline at end of file
+// FINE VideoRepository.java
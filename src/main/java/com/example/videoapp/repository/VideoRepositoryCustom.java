@@ -0,0 +1,37 @@
+// INIZIO VideoRepositoryCustom.java
+package com.example.videoapp.repository;
+
+import com.example.videoapp.model.Video;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public interface VideoRepositoryCustom {
+
+    /**
+     * Aggiorna solo i campi indicati con un'unica UPDATE condizionata alla versione.
+     * Restituisce il numero di righe modificate (0 se il video non esiste o la versione non coincide).
+     */
+    int updateFields(Long id, long expectedVersion, Map<String, Object> fields);
+
+    /**
+     * Applica in un unico batch JDBC patch che modificano tutte lo stesso insieme di campi.
+     * Ogni patch contiene "id", opzionalmente "version" e i valori dei campi.
+     * Restituisce gli id per cui nessuna riga è stata aggiornata.
+     */
+    List<Long> batchUpdateFields(List<String> fields, boolean checkVersion, List<Map<String, Object>> patches);
+
+    /**
+     * Scorre tutti i video in ordine di id con un cursore forward-only in una transazione in sola lettura.
+     * Le righe arrivano dal database in streaming e la sessione viene svuotata ogni batchSize righe,
+     * quindi la memoria usata non dipende dal numero di video. Restituisce il numero di video passati all'handler.
+     */
+    long scrollAll(int batchSize, VideoRowHandler handler) throws IOException;
+
+    @FunctionalInterface
+    interface VideoRowHandler {
+        void handle(Video video) throws IOException;
+    }
+}
+// FINE VideoRepositoryCustom.java
@@ -0,0 +1,179 @@
+// INIZIO VideoRepositoryCustomImpl.java
+package com.example.videoapp.repository;
+
+import com.example.videoapp.model.Video;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class VideoRepositoryCustomImpl implements VideoRepositoryCustom {
+
+    // Campi aggiornabili: nome nella richiesta -> attributo dell'entità
+    private static final Map<String, String> UPDATABLE_FIELDS = Map.of(
+            "title", "title",
+            "description", "description",
+            "isPublic", "isPublic"
+    );
+
+    // Colonne corrispondenti, per gli aggiornamenti JDBC in batch
+    private static final Map<String, String> UPDATABLE_COLUMNS = Map.of(
+            "title", "title",
+            "description", "description",
+            "isPublic", "is_public"
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public int updateFields(Long id, long expectedVersion, Map<String, Object> fields) {
+        StringBuilder jpql = new StringBuilder("update Video v set ");
+        for (String field : fields.keySet()) {
+            jpql.append("v.").append(UPDATABLE_FIELDS.get(field)).append(" = :").append(field).append(", ");
+        }
+        jpql.append("v.version = v.version + 1 where v.id = :id and v.version = :version");
+
+        Query query = entityManager.createQuery(jpql.toString());
+        fields.forEach(query::setParameter);
+        query.setParameter("id", id);
+        query.setParameter("version", expectedVersion);
+        return query.executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public List<Long> batchUpdateFields(List<String> fields, boolean checkVersion, List<Map<String, Object>> patches) {
+        StringBuilder sql = new StringBuilder("UPDATE video SET ");
+        for (String field : fields) {
+            sql.append(UPDATABLE_COLUMNS.get(field)).append(" = ?, ");
+        }
+        sql.append("version = version + 1 WHERE id = ?");
+        if (checkVersion) {
+            sql.append(" AND version = ?");
+        }
+
+        int[][] counts = jdbcTemplate.batchUpdate(sql.toString(), patches, 500, (ps, patch) -> {
+            int index = 1;
+            for (String field : fields) {
+                ps.setObject(index++, patch.get(field));
+            }
+            ps.setLong(index++, ((Number) patch.get("id")).longValue());
+            if (checkVersion) {
+                ps.setLong(index, ((Number) patch.get("version")).longValue());
+            }
+        });
+
+        List<Long> notUpdated = new ArrayList<>();
+        List<Map<String, Object>> unknown = new ArrayList<>();
+        int position = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                Map<String, Object> patch = patches.get(position++);
+                if (count == 0) {
+                    notUpdated.add(((Number) patch.get("id")).longValue());
+                } else if (count == Statement.SUCCESS_NO_INFO) {
+                    // Il driver non sa quante righe sono cambiate (es. batch riscritto): va verificato
+                    unknown.add(patch);
+                }
+            }
+        }
+        if (!unknown.isEmpty()) {
+            notUpdated.addAll(verifyUpdated(fields, checkVersion, unknown));
+        }
+        return notUpdated;
+    }
+
+    /**
+     * Rilegge nella stessa transazione le righe con esito sconosciuto: una patch è applicata se la riga ha i
+     * valori richiesti e, con il controllo di versione, la versione successiva a quella attesa.
+     * Le righe aggiornate sono bloccate dalla transazione, quindi la lettura non può vedere modifiche successive;
+     * una modifica concorrente con la stessa versione e gli stessi valori è indistinguibile, ma lascia la riga
+     * esattamente come l'avrebbe lasciata la patch.
+     */
+    private List<Long> verifyUpdated(List<String> fields, boolean checkVersion, List<Map<String, Object>> patches) {
+        StringBuilder sql = new StringBuilder("SELECT id, version");
+        for (String field : fields) {
+            sql.append(", ").append(UPDATABLE_COLUMNS.get(field));
+        }
+        sql.append(" FROM video WHERE id IN (")
+                .append(String.join(", ", Collections.nCopies(patches.size(), "?")))
+                .append(") FOR UPDATE");
+
+        Object[] ids = patches.stream().map(patch -> ((Number) patch.get("id")).longValue()).toArray();
+        Map<Long, Map<String, Object>> rows = new HashMap<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(sql.toString(), ids)) {
+            rows.put(((Number) row.get("id")).longValue(), row);
+        }
+
+        List<Long> notUpdated = new ArrayList<>();
+        for (Map<String, Object> patch : patches) {
+            Long id = ((Number) patch.get("id")).longValue();
+            Map<String, Object> row = rows.get(id);
+            boolean applied = row != null && (!checkVersion
+                    || ((Number) row.get("version")).longValue() == ((Number) patch.get("version")).longValue() + 1);
+            for (int i = 0; applied && i < fields.size(); i++) {
+                applied = sameValue(patch.get(fields.get(i)), row.get(UPDATABLE_COLUMNS.get(fields.get(i))));
+            }
+            if (!applied) {
+                notUpdated.add(id);
+            }
+        }
+        return notUpdated;
+    }
+
+    // BIT/TINYINT possono arrivare come Boolean o come numero a seconda del driver
+    private static boolean sameValue(Object requested, Object stored) {
+        if (requested instanceof Boolean flag && stored instanceof Number number) {
+            return flag == (number.intValue() != 0);
+        }
+        return Objects.equals(requested, stored);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long scrollAll(int batchSize, VideoRowHandler handler) throws IOException {
+        batchSize = Math.max(1, batchSize);
+        Session session = entityManager.unwrap(Session.class);
+
+        // Fetch join dell'utente: una sola query, senza una select per ogni proprietario.
+        // Con Integer.MIN_VALUE Connector/J legge le righe in streaming una alla volta, solo per questa query:
+        // useCursorFetch nell'URL userebbe i prepared statement lato server in tutta l'applicazione
+        try (ScrollableResults<Video> results = session
+                .createSelectionQuery("select v from Video v left join fetch v.user order by v.id", Video.class)
+                .setFetchSize(Integer.MIN_VALUE)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            long count = 0;
+            while (results.next()) {
+                handler.handle(results.get());
+                if (++count % batchSize == 0) {
+                    // Stacca le entità già scritte: il contesto di persistenza resta limitato a un blocco
+                    session.clear();
+                }
+            }
+            return count;
+        }
+    }
+}
+// FINE VideoRepositoryCustomImpl.java
@@ -0,0 +1,22 @@
+// INIZIO VideoViewCountRepository.java
+package com.example.videoapp.repository;
+
+import com.example.videoapp.model.VideoViewCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface VideoViewCountRepository extends JpaRepository<VideoViewCount, VideoViewCount.Key> {
+
+    @Query("select coalesce(sum(c.viewCount), 0) from VideoViewCount c where c.videoId = :videoId")
+    long sumByVideoId(@Param("videoId") Long videoId);
+
+    // Nella stessa transazione della cancellazione dei video
+    @Modifying
+    @Query("delete from VideoViewCount c where c.videoId in :videoIds")
+    int deleteByVideoIdIn(@Param("videoIds") Collection<Long> videoIds);
+}
+// FINE VideoViewCountRepository.java
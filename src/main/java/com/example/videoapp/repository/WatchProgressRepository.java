@@ -0,0 +1,19 @@
+// INIZIO WatchProgressRepository.java
+package com.example.videoapp.repository;
+
+import com.example.videoapp.model.WatchProgress;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface WatchProgressRepository extends JpaRepository<WatchProgress, WatchProgress.Key> {
+
+    // Nella stessa transazione della cancellazione dei video
+    @Modifying
+    @Query("delete from WatchProgress p where p.videoId in :videoIds")
+    int deleteByVideoIdIn(@Param("videoIds") Collection<Long> videoIds);
+}
+// FINE WatchProgressRepository.java
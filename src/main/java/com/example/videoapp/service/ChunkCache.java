@@ -0,0 +1,61 @@
+package com.example.videoapp.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Cache off-heap di segmenti di file a dimensione fissa, indicizzata per (file, indice del segmento)
+ */
+public interface ChunkCache {
+
+    /**
+     * Dimensione dei segmenti in byte
+     */
+    int getChunkSize();
+
+    /**
+     * Restituisce il segmento richiesto, caricandolo se assente; va chiuso (una sola volta) a fine uso,
+     * finché è aperto la memoria non viene riutilizzata anche se il segmento esce dalla cache
+     */
+    Chunk acquire(String filename, long chunkIndex) throws IOException;
+
+    /**
+     * Indica se il segmento è già in cache, senza contarlo come accesso
+     */
+    boolean isCached(String filename, long chunkIndex);
+
+    /**
+     * Rimuove dalla cache tutti i segmenti di un file
+     */
+    void invalidate(String filename);
+
+    /**
+     * Segmenti in cache dal più prezioso (parte protetta, usati di recente) al meno prezioso, al più limit
+     */
+    List<ChunkRef> hotChunks(int limit);
+
+    interface Chunk extends AutoCloseable {
+
+        /**
+         * Vista in sola lettura del contenuto, da posizione 0 alla lunghezza del segmento
+         */
+        ByteBuffer buffer();
+
+        @Override
+        void close();
+    }
+
+    class ChunkRef {
+        private final String filename;
+        private final long index;
+
+        public ChunkRef(String filename, long index) {
+            this.filename = filename;
+            this.index = index;
+        }
+
+        public String getFilename() { return filename; }
+        public long getIndex() { return index; }
+    }
+}
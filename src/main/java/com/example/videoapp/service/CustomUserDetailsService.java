@@ -3,12 +3,14 @@ package com.example.videoapp.service;
 import com.example.videoapp.model.User;
 import com.example.videoapp.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
-import java.util.ArrayList;
+import java.util.List;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
@@ -22,11 +24,12 @@ public class CustomUserDetailsService implements UserDetailsService {
         if (user == null) {
             throw new UsernameNotFoundException("User not found: " + username);
         }
-        
+
+        String role = StringUtils.hasText(user.getRole()) ? user.getRole() : User.ROLE_USER;
         return new org.springframework.security.core.userdetails.User(
             user.getUsername(),
             user.getPassword(),
-            new ArrayList<>()
+            List.of(new SimpleGrantedAuthority("ROLE_" + role))
         );
     }
 }
\ No newline at end of file
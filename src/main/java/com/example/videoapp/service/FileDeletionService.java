@@ -0,0 +1,23 @@
+package com.example.videoapp.service;
+
+import java.util.Collection;
+
+public interface FileDeletionService {
+
+    /**
+     * Accoda un file per l'eliminazione in background; la richiesta non attende l'unlink
+     */
+    void enqueue(String filename);
+
+    /**
+     * Accoda i file al commit della transazione corrente. L'intenzione viene resa persistente prima del commit,
+     * così un crash tra il commit e l'accodamento non lascia file orfani: al riavvio i file non più
+     * referenziati da alcun video vengono eliminati. Senza transazione attiva equivale a enqueue
+     */
+    void enqueueAfterCommit(Collection<String> filenames);
+
+    /**
+     * Numero di file in attesa di eliminazione
+     */
+    int pendingCount();
+}
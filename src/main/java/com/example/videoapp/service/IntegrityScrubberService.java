@@ -0,0 +1,17 @@
+package com.example.videoapp.service;
+
+import com.example.videoapp.dto.IntegrityMismatchDto;
+import com.example.videoapp.dto.ScrubberStatusDto;
+
+public interface IntegrityScrubberService {
+
+    /**
+     * Stato della passata corrente e anomalie rilevate e non ancora risolte
+     */
+    ScrubberStatusDto getStatus();
+
+    /**
+     * Verifica subito il file di un video; restituisce l'anomalia trovata, o null se il file è integro
+     */
+    IntegrityMismatchDto verify(Long videoId);
+}
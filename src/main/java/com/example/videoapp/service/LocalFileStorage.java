@@ -0,0 +1,17 @@
+package com.example.videoapp.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Capacità degli storage che tengono i file sul filesystem dell'istanza (local e tiered). Gli storage
+ * remoti (s3, distributed) non la implementano: chi ha bisogno di un percorso locale la richiede
+ * esplicitamente e fallisce all'avvio se non è disponibile.
+ */
+public interface LocalFileStorage {
+
+    /**
+     * Percorso locale di un file esistente, per letture asincrone o zero-copy fuori dal percorso MVC
+     */
+    Path getLocalPath(String filename) throws IOException;
+}
@@ -0,0 +1,66 @@
+package com.example.videoapp.service;
+
+import com.example.videoapp.model.Video;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+public interface PublicCatalogueCache {
+
+    /**
+     * Restituisce la pagina già serializzata; in caso di miss una sola richiesta esegue il loader.
+     * Con un cursore (afterId non null) la pagina è in modalità keyset e page viene ignorato.
+     */
+    CachedPage getPage(int page, int size, Long afterId, Supplier<Slice<Video>> loader);
+
+    /**
+     * Invalida le pagine che contengono il video (modifica dei soli metadati)
+     */
+    void invalidateVideo(Long videoId);
+
+    /**
+     * Invalida tutte le pagine (inserimento, eliminazione o cambio di visibilità)
+     */
+    void invalidateAll();
+
+    /**
+     * Chiavi delle pagine in cache ordinate per numero di richieste servite, al più limit
+     */
+    List<PageRef> hotPages(int limit);
+
+    class CachedPage {
+        private final byte[] body;
+        private final byte[] gzipBody;
+        private final String etag;
+
+        public CachedPage(byte[] body, byte[] gzipBody, String etag) {
+            this.body = body;
+            this.gzipBody = gzipBody;
+            this.etag = etag;
+        }
+
+        public byte[] getBody() { return body; }
+        public byte[] getGzipBody() { return gzipBody; }
+
+        // Le due codifiche hanno ETag distinti, come richiesto per le varianti di una risorsa
+        public String getEtag() { return "\"" + etag + "\""; }
+        public String getGzipEtag() { return "\"" + etag + "-gz\""; }
+    }
+
+    class PageRef {
+        private final int page;
+        private final int size;
+        private final Long afterId;
+
+        public PageRef(int page, int size, Long afterId) {
+            this.page = page;
+            this.size = size;
+            this.afterId = afterId;
+        }
+
+        public int getPage() { return page; }
+        public int getSize() { return size; }
+        public Long getAfterId() { return afterId; }
+    }
+}
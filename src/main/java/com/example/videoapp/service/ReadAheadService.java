@@ -0,0 +1,18 @@
+package com.example.videoapp.service;
+
+/**
+ * Read-ahead sul percorso di servizio dei file: riconosce le letture sequenziali di un client
+ * e precarica in background i segmenti successivi nella cache dei segmenti
+ */
+public interface ReadAheadService {
+
+    /**
+     * Segnala che il client sta leggendo il file alla posizione indicata (in byte)
+     */
+    void onRead(String clientKey, String filename, long position);
+
+    /**
+     * Interrompe il read-ahead del client sul file, ad esempio alla disconnessione
+     */
+    void cancel(String clientKey, String filename);
+}
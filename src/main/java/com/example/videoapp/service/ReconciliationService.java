@@ -0,0 +1,21 @@
+package com.example.videoapp.service;
+
+import com.example.videoapp.dto.ReconciliationReportDto;
+
+public interface ReconciliationService {
+
+    /**
+     * Avvia una riconciliazione in background; restituisce false se ce n'è già una in corso
+     */
+    boolean start();
+
+    /**
+     * Esegue la riconciliazione tra file salvati e righe video, attendendone la fine
+     */
+    ReconciliationReportDto reconcile();
+
+    /**
+     * Report dell'esecuzione in corso o dell'ultima completata, null se non è mai stata eseguita
+     */
+    ReconciliationReportDto getLastReport();
+}
@@ -0,0 +1,32 @@
+package com.example.videoapp.service;
+
+import com.example.videoapp.dto.UserUsageDto;
+
+public interface StorageQuotaService {
+
+    /**
+     * Controllo preventivo: lancia QuotaExceededException se l'utente non ha spazio per altri incomingBytes
+     */
+    void checkUpload(Long userId, long incomingBytes);
+
+    /**
+     * Byte ancora disponibili per l'utente (Long.MAX_VALUE se senza limite)
+     */
+    long remainingBytes(Long userId);
+
+    /**
+     * Applica una variazione ai contatori nella transazione corrente; gli incrementi che superano
+     * la quota vengono rifiutati con QuotaExceededException
+     */
+    void adjust(Long userId, long bytesDelta, int videoCountDelta);
+
+    /**
+     * Utilizzo corrente dell'utente
+     */
+    UserUsageDto getUsage(Long userId);
+
+    /**
+     * Ricalcola i contatori dalla tabella video, correggendo eventuali derive
+     */
+    void repair();
+}
@@ -3,7 +3,11 @@ package com.example.videoapp.service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.NoSuchFileException;
+import java.time.Instant;
+import java.util.stream.Stream;
 
 public interface StorageService {
     
@@ -13,15 +17,46 @@ public interface StorageService {
     void init() throws IOException;
     
     /**
-     * Salva un file e restituisce il nome del file salvato
+     * Salva un file e restituisce nome, dimensione e checksum calcolato durante la copia
      */
-    String store(MultipartFile file) throws IOException;
+    StoredFile store(MultipartFile file) throws IOException;
+    
+    /**
+     * Come store, ma interrompe la copia (eliminando il file parziale) appena vengono superati maxBytes
+     */
+    StoredFile store(MultipartFile file, long maxBytes) throws IOException;
+    
+    /**
+     * Salva un contenuto con un nome già assegnato (repliche tra nodi di storage); il file diventa
+     * visibile solo a scrittura completata e sostituisce un'eventuale copia precedente
+     */
+    StoredFile storeAs(String filename, InputStream in, long maxBytes) throws IOException;
     
     /**
      * Legge il contenuto di un file
      */
     byte[] loadFile(String filename) throws IOException;
     
+    /**
+     * Apre un canale in sola lettura su un file, per letture sequenziali o posizionali senza caricarlo in memoria
+     */
+    SeekableByteChannel openChannel(String filename) throws IOException;
+    
+    /**
+     * Come openChannel, ma legge la copia di origine senza passare da cache locali né popolarle:
+     * per i job interni (scrubber) che devono verificare il file autorevole senza espellere i contenuti serviti
+     */
+    default SeekableByteChannel openOriginChannel(String filename) throws IOException {
+        return openChannel(filename);
+    }
+    
+    /**
+     * Registra una lettura dal percorso di servizio ai client (non da job interni come lo scrubber);
+     * usata dalle implementazioni che spostano i file in base alla popolarità
+     */
+    default void recordAccess(String filename) {
+    }
+    
     /**
      * Elimina un file
      */
@@ -32,6 +67,26 @@ public interface StorageService {
      */
     boolean exists(String filename);
     
+    /**
+     * Elenca i nomi dei file salvati; lo stream è lazy (nessun elenco completo in memoria) e va chiuso
+     */
+    Stream<String> listFiles() throws IOException;
+
+    /**
+     * Dimensione di un file in byte
+     */
+    long getFileSize(String filename) throws IOException;
+
+    /**
+     * Data di ultima modifica di un file
+     */
+    Instant getLastModified(String filename) throws IOException;
+
+    /**
+     * Sposta un file nella directory di quarantena invece di eliminarlo
+     */
+    void quarantine(String filename) throws IOException;
+    
     /**
      * Ottiene il content type di un file
      */
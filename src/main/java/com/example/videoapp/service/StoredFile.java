@@ -0,0 +1,23 @@
+package com.example.videoapp.service;
+
+/**
+ * Risultato del salvataggio di un file: nome assegnato, dimensione e CRC-32 calcolato durante la scrittura
+ */
+public class StoredFile {
+
+    private final String filename;
+    private final long size;
+    private final long checksum;
+
+    public StoredFile(String filename, long size, long checksum) {
+        this.filename = filename;
+        this.size = size;
+        this.checksum = checksum;
+    }
+
+    public String getFilename() { return filename; }
+
+    public long getSize() { return size; }
+
+    public long getChecksum() { return checksum; }
+}
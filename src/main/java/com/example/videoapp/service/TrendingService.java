@@ -0,0 +1,39 @@
+package com.example.videoapp.service;
+
+import com.example.videoapp.dto.TrendingVideoDto;
+import com.example.videoapp.model.Video;
+
+import java.util.List;
+
+public interface TrendingService {
+
+    /**
+     * Aggiunge una visualizzazione al punteggio del video
+     */
+    void recordView(Video video);
+
+    /**
+     * Inserisce un video appena caricato con il punteggio iniziale
+     */
+    void recordUpload(Video video);
+
+    /**
+     * Aggiorna i metadati mostrati; i video non pubblici vengono rimossi
+     */
+    void refresh(Video video);
+
+    /**
+     * Aggiorna titolo e descrizione mostrati, se il video è in classifica (null = invariato)
+     */
+    void updateMetadata(Long videoId, String title, String description);
+
+    /**
+     * Rimuove un video dalla classifica
+     */
+    void remove(Long videoId);
+
+    /**
+     * Restituisce i video con il punteggio più alto, senza accedere al database
+     */
+    List<TrendingVideoDto> getTrending(int limit);
+}
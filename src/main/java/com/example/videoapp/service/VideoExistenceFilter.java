@@ -0,0 +1,34 @@
+package com.example.videoapp.service;
+
+/**
+ * Filtro di esistenza degli id video, consultato prima di qualunque accesso al database
+ */
+public interface VideoExistenceFilter {
+
+    /**
+     * Falso solo se il video è stato cercato di recente nel database senza trovarlo; vero anche quando
+     * il filtro non sa rispondere (non ancora caricato, disattivato o id assente dalla bitmap)
+     */
+    boolean mightExist(Long id);
+
+    /**
+     * Vero se il video risulta nella bitmap, senza bisogno di chiederlo al database;
+     * falso anche quando il filtro non sa rispondere
+     */
+    boolean isKnown(Long id);
+
+    /**
+     * Da chiamare dopo il commit dell'inserimento
+     */
+    void added(Long id);
+
+    /**
+     * Da chiamare dopo il commit della cancellazione
+     */
+    void removed(Long id);
+
+    /**
+     * Registra un id cercato nel database e non trovato, per rispondere alle richieste successive senza query
+     */
+    void recordMiss(Long id);
+}
@@ -1,17 +1,23 @@
 package com.example.videoapp.service;
 
+import com.example.videoapp.converter.VideoExportWriter;
 import com.example.videoapp.dto.NuovoVideoInputDto;
 import com.example.videoapp.model.Video;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
 import java.util.Map;
 
 public interface VideoService {
 
     Page<Video> getVideos(int page, int size, Long userId, Boolean isPublic);
 
+    Slice<Video> getVideosAfter(Long afterId, int size, Long userId, Boolean isPublic);
+
     Video getVideoById(Long id);
 
     Video uploadVideo(NuovoVideoInputDto dto, MultipartFile file) throws IOException;
@@ -20,13 +26,46 @@ public interface VideoService {
 
     byte[] getVideoFile(Long id) throws IOException;
 
-    Video updateVideo(Long id, Map<String, Object> updates);
+    long getVideoFileSize(Long id) throws IOException;
+
+    /**
+     * Come {@link #getVideoFileSize(Long)}, per un video già letto dal chiamante
+     */
+    long getVideoFileSize(Video video) throws IOException;
+
+    /**
+     * Scrive length byte del file del video a partire da start, leggendo dalla cache dei segmenti;
+     * il video è quello già letto dal chiamante, così le parti di una risposta multipart non rileggono la riga.
+     * clientKey identifica il client per il read-ahead (null per disattivarlo)
+     */
+    void writeVideoFile(Video video, long start, long length, String clientKey, OutputStream out) throws IOException;
+
+    Video updateVideo(Long id, Map<String, Object> updates, Long expectedVersion);
+
+    Video updateVideoWithFile(Long id, String title, String description, boolean isPublic, MultipartFile file,
+                              Long expectedVersion) throws IOException;
 
-    Video updateVideoWithFile(Long id, String title, String description, boolean isPublic, MultipartFile file) throws IOException;
+    long patchVideo(Long id, Map<String, Object> updates, long expectedVersion);
+
+    int bulkDelete(List<Long> ids);
+
+    int bulkUpdate(List<Map<String, Object>> patches);
 
     byte[] downloadVideoFile(Long id) throws IOException;
+
+    /**
+     * Scrive in streaming un archivio ZIP con i file dei video indicati, nell'ordine richiesto
+     */
+    void writeVideoBundle(List<Long> ids, OutputStream out) throws IOException;
+
+    /**
+     * Scrive in streaming l'intero catalogo nel formato indicato; restituisce il numero di video esportati
+     */
+    long exportVideos(VideoExportWriter.Format format, OutputStream out) throws IOException;
     
     String getVideoContentType(Long id) throws IOException;
+
+    String getVideoContentType(Video video) throws IOException;
     
     String getVideoFileName(Long id);
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.example.videoapp.service;
+
+import java.util.Collection;
+
+public interface ViewCounterService {
+
+    /**
+     * Registra una visualizzazione; restituisce false se lo spettatore
+     * ha già visto il video nella finestra di deduplica corrente
+     */
+    boolean recordView(Long videoId, String viewerKey);
+
+    /**
+     * Restituisce il numero di visualizzazioni, inclusi i delta non ancora salvati
+     */
+    long getViewCount(Long videoId);
+
+    /**
+     * Salva su database i delta accumulati in memoria
+     */
+    void flush();
+
+    /**
+     * Elimina i contatori dei video cancellati; da chiamare nella transazione della cancellazione
+     */
+    void deleteByVideos(Collection<Long> videoIds);
+}
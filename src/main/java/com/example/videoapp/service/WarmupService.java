@@ -0,0 +1,21 @@
+package com.example.videoapp.service;
+
+import com.example.videoapp.dto.WarmupStatusDto;
+
+public interface WarmupService {
+
+    /**
+     * Salva subito lo snapshot dell'insieme di lavoro caldo (video, pagine del catalogo, segmenti)
+     */
+    void writeSnapshot();
+
+    /**
+     * Indica se il riscaldamento all'avvio ha raggiunto la soglia configurata (o è terminato)
+     */
+    boolean isReady();
+
+    /**
+     * Stato del riscaldamento all'avvio
+     */
+    WarmupStatusDto getStatus();
+}
@@ -0,0 +1,30 @@
+package com.example.videoapp.service;
+
+import com.example.videoapp.dto.WatchProgressDto;
+
+import java.util.Collection;
+
+public interface WatchProgressService {
+
+    /**
+     * Registra la posizione di riproduzione; viene salvata in modo differito.
+     * NoSuchElementException se il video non esiste, ServiceUnavailableException se il buffer delle
+     * posizioni in attesa è pieno (la posizione non viene salvata)
+     */
+    void saveProgress(Long userId, Long videoId, long positionMs);
+
+    /**
+     * Restituisce l'ultima posizione nota, o null se non presente
+     */
+    WatchProgressDto getProgress(Long userId, Long videoId);
+
+    /**
+     * Scrive su database le posizioni in attesa
+     */
+    void flush();
+
+    /**
+     * Elimina le posizioni dei video cancellati; da chiamare nella transazione della cancellazione
+     */
+    void deleteByVideos(Collection<Long> videoIds);
+}
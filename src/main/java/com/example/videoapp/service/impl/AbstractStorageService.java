@@ -0,0 +1,144 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.StorageConfiguration;
+import com.example.videoapp.exception.QuotaExceededException;
+import com.example.videoapp.service.StorageService;
+import com.example.videoapp.service.StoredFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Parte comune a tutti i backend di storage: validazione degli upload, generazione e sanitizzazione
+ * dei nomi, content type per estensione e copia con checksum. Ogni backend implementa solo dove
+ * stanno i byte.
+ */
+public abstract class AbstractStorageService implements StorageService {
+    
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    
+    @Autowired
+    protected StorageConfiguration storageConfig;
+    
+    @Override
+    public StoredFile store(MultipartFile file) throws IOException {
+        return store(file, Long.MAX_VALUE);
+    }
+    
+    /**
+     * Copia lo stream calcolando checksum e dimensione; si interrompe appena supera maxBytes
+     * e in caso di errore elimina il file parziale
+     */
+    protected StoredFile writeChecked(InputStream source, Path target, String filename, long maxBytes)
+            throws IOException {
+        long size = 0;
+        try (CheckedInputStream in = new CheckedInputStream(source, new CRC32());
+             OutputStream out = Files.newOutputStream(target)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                size += read;
+                if (size > maxBytes) {
+                    throw new QuotaExceededException("Il file supera lo spazio disponibile di " + maxBytes + " byte");
+                }
+                out.write(buffer, 0, read);
+            }
+            return new StoredFile(filename, size, in.getChecksum().getValue());
+        } catch (IOException | QuotaExceededException e) {
+            Files.deleteIfExists(target);
+            if (e instanceof QuotaExceededException quotaExceeded) {
+                throw quotaExceeded;
+            }
+            throw new IOException("Failed to store file: " + filename, e);
+        }
+    }
+    
+    protected String contentTypeByExtension(String filename) {
+        String extension = getFileExtension(filename).toLowerCase();
+        return switch (extension) {
+            case ".mp4" -> "video/mp4";
+            case ".avi" -> "video/x-msvideo";
+            case ".mov" -> "video/quicktime";
+            case ".wmv" -> "video/x-ms-wmv";
+            case ".flv" -> "video/x-flv";
+            case ".webm" -> "video/webm";
+            case ".mkv" -> "video/x-matroska";
+            default -> "application/octet-stream";
+        };
+    }
+    
+    @Override
+    public void validateFile(MultipartFile file) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IOException("File is empty or null");
+        }
+        
+        // Validate file size
+        if (file.getSize() > storageConfig.getMaxFileSize()) {
+            throw new IOException("File size exceeds maximum allowed size: " + 
+                formatFileSize(storageConfig.getMaxFileSize()));
+        }
+        
+        // Validate file extension
+        String originalFilename = file.getOriginalFilename();
+        if (!StringUtils.hasText(originalFilename)) {
+            throw new IOException("Original filename is missing");
+        }
+        
+        String fileExtension = getFileExtension(originalFilename).toLowerCase().substring(1); // Remove the dot
+        List<String> allowedExtensions = Arrays.asList(storageConfig.getAllowedExtensions().toLowerCase().split(","));
+        
+        if (!allowedExtensions.contains(fileExtension)) {
+            throw new IOException("File extension not allowed. Allowed extensions: " + 
+                storageConfig.getAllowedExtensions());
+        }
+    }
+    
+    @Override
+    public String sanitizeFileName(String fileName) {
+        if (fileName == null) {
+            return "video";
+        }
+        
+        return fileName.replaceAll("[^a-zA-Z0-9._-]", "_")
+                      .replaceAll("_{2,}", "_")
+                      .trim();
+    }
+    
+    @Override
+    public String getFileExtension(String fileName) {
+        if (fileName == null) {
+            return "";
+        }
+        
+        int lastDotIndex = fileName.lastIndexOf('.');
+        return lastDotIndex != -1 ? fileName.substring(lastDotIndex) : "";
+    }
+    
+    protected String generateUniqueFilename(String originalFilename, String extension) {
+        String baseName = sanitizeFileName(originalFilename.substring(0, 
+            Math.max(0, originalFilename.lastIndexOf('.'))));
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        String uuid = UUID.randomUUID().toString().substring(0, 8);
+        
+        return String.format("%s_%s_%s%s", baseName, timestamp, uuid, extension);
+    }
+    
+    private String formatFileSize(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return (bytes / 1024) + " KB";
+        if (bytes < 1024 * 1024 * 1024) return (bytes / (1024 * 1024)) + " MB";
+        return (bytes / (1024 * 1024 * 1024)) + " GB";
+    }
+}
@@ -0,0 +1,698 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.DiskCacheConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.service.StorageService;
+import com.example.videoapp.service.StoredFile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Cache read-through su disco locale davanti a qualunque StorageService (videoapp.storage.disk-cache.enabled).
+ * Le letture passano per segmenti di dimensione fissa salvati come file in dir/chunks, con budget in byte
+ * ed espulsione LRU; i miss concorrenti sullo stesso segmento attendono un unico trasferimento dal backend.
+ * Se abilitato, i video più richiesti vengono copiati per intero in dir/pinned e serviti senza passare
+ * dai segmenti. Scritture, eliminazioni e quarantena vanno al backend e invalidano le copie locali;
+ * le letture dei job interni (openOriginChannel) vanno direttamente al backend senza entrare nella cache.
+ * <p>
+ * Il bean è primario: gli altri componenti ricevono la cache, mentre il backend scelto da
+ * videoapp.storage.mode viene iniettato qui come delegato (Spring esclude il bean stesso dai candidati).
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "videoapp.storage.disk-cache.enabled", havingValue = "true")
+public class CachingStorageServiceImpl implements StorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingStorageServiceImpl.class);
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+    private static final String SIZE_FILE = ".size";
+
+    @Autowired
+    private StorageService delegate;
+
+    @Autowired
+    private DiskCacheConfiguration diskCacheConfig;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Ordine di accesso dei segmenti e byte occupati, protetti da lruLock
+    private final ReentrantLock lruLock = new ReentrantLock();
+    private final LinkedHashMap<ChunkKey, Long> lru = new LinkedHashMap<>(1024, 0.75f, true);
+    private final Map<String, CachedFile> files = new HashMap<>();
+    private long cachedBytes;
+
+    private final Map<ChunkKey, CompletableFuture<Void>> loading = new ConcurrentHashMap<>();
+    private final Map<String, Path> pinned = new ConcurrentHashMap<>();
+    private final AtomicLong pinnedBytes = new AtomicLong();
+    private final Map<String, LongAdder> accesses = new ConcurrentHashMap<>();
+    private final Map<String, Double> scores = new HashMap<>();
+    private final AtomicBoolean pinning = new AtomicBoolean();
+
+    private Path chunksPath;
+    private Path pinnedPath;
+    private Path tmpPath;
+    private int chunkSize;
+    private long maxBytes;
+    private ExecutorService pinExecutor;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter evictions;
+
+    @PostConstruct
+    @Override
+    public void init() throws IOException {
+        if (!StringUtils.hasText(diskCacheConfig.getDir())) {
+            throw new IOException("videoapp.storage.disk-cache.dir is required when the disk cache is enabled");
+        }
+        Path root = Paths.get(diskCacheConfig.getDir());
+        chunksPath = Files.createDirectories(root.resolve("chunks"));
+        pinnedPath = Files.createDirectories(root.resolve("pinned"));
+        tmpPath = root.resolve("tmp");
+        FileSystemUtils.deleteRecursively(tmpPath);
+        Files.createDirectories(tmpPath);
+
+        chunkSize = Math.max(64 * 1024, diskCacheConfig.getChunkSizeKb() * 1024);
+        maxBytes = Math.max(0, diskCacheConfig.getMaxMb() * BYTES_PER_MB);
+        if (maxBytes < chunkSize) {
+            logger.warn("Disk cache budget is smaller than one chunk, chunk caching disabled");
+        }
+
+        hits = Counter.builder("videoapp.storage.disk.cache.hits").register(meterRegistry);
+        misses = Counter.builder("videoapp.storage.disk.cache.misses").register(meterRegistry);
+        evictions = Counter.builder("videoapp.storage.disk.cache.evictions").register(meterRegistry);
+        Gauge.builder("videoapp.storage.disk.cache.bytes", this, cache -> cache.cachedBytes).register(meterRegistry);
+        Gauge.builder("videoapp.storage.disk.cache.pinned.bytes", pinnedBytes, AtomicLong::get).register(meterRegistry);
+
+        // Il contenuto sopravvive ai riavvii: l'indice viene ricostruito dai file presenti
+        restoreChunks();
+        restorePinned();
+        pinExecutor = Executors.newSingleThreadExecutor(workerThreads.factory("disk-cache-pinning"));
+        logger.info("Disk cache initialized in {}: {} MB of {} KB chunks ({} MB restored), {} pinned files",
+                root.toAbsolutePath(), maxBytes / BYTES_PER_MB, chunkSize / 1024, cachedBytes / BYTES_PER_MB, pinned.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pinExecutor.shutdownNow();
+    }
+
+    @Override
+    public StoredFile store(MultipartFile file) throws IOException {
+        return delegate.store(file);
+    }
+
+    @Override
+    public StoredFile store(MultipartFile file, long maxBytes) throws IOException {
+        return delegate.store(file, maxBytes);
+    }
+
+    @Override
+    public StoredFile storeAs(String filename, InputStream in, long maxBytes) throws IOException {
+        StoredFile stored = delegate.storeAs(filename, in, maxBytes);
+        invalidate(filename);
+        return stored;
+    }
+
+    @Override
+    public byte[] loadFile(String filename) throws IOException {
+        long size = getFileSize(filename);
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IOException("File troppo grande per essere caricato in memoria: " + filename);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        try (SeekableByteChannel channel = openChannel(filename)) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // legge fino alla fine del file
+            }
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public SeekableByteChannel openChannel(String filename) throws IOException {
+        Path pinnedFile = pinned.get(filename);
+        if (pinnedFile != null) {
+            try {
+                SeekableByteChannel channel = Files.newByteChannel(pinnedFile, StandardOpenOption.READ);
+                hits.increment();
+                return channel;
+            } catch (NoSuchFileException e) {
+                // rimosso dai pinned nel frattempo
+            }
+        }
+        if (maxBytes < chunkSize) {
+            return delegate.openChannel(filename);
+        }
+        return new CachedChannel(filename, getFileSize(filename));
+    }
+
+    @Override
+    public SeekableByteChannel openOriginChannel(String filename) throws IOException {
+        return delegate.openOriginChannel(filename);
+    }
+
+    @Override
+    public void recordAccess(String filename) {
+        delegate.recordAccess(filename);
+        if (diskCacheConfig.isPinEnabled() && (accesses.size() < diskCacheConfig.getMaxTrackedFiles()
+                || accesses.containsKey(filename))) {
+            accesses.computeIfAbsent(filename, name -> new LongAdder()).increment();
+        }
+    }
+
+    @Override
+    public void deleteFile(String filename) throws IOException {
+        delegate.deleteFile(filename);
+        invalidate(filename);
+    }
+
+    @Override
+    public boolean exists(String filename) {
+        return delegate.exists(filename);
+    }
+
+    @Override
+    public Stream<String> listFiles() throws IOException {
+        return delegate.listFiles();
+    }
+
+    @Override
+    public long getFileSize(String filename) throws IOException {
+        // I file sono immutabili (nomi univoci): la dimensione nota evita una richiesta al backend
+        lruLock.lock();
+        try {
+            CachedFile cached = files.get(filename);
+            if (cached != null) return cached.size;
+        } finally {
+            lruLock.unlock();
+        }
+        Path pinnedFile = pinned.get(filename);
+        if (pinnedFile != null) {
+            try {
+                return Files.size(pinnedFile);
+            } catch (NoSuchFileException e) {
+                // rimosso dai pinned nel frattempo
+            }
+        }
+        return delegate.getFileSize(filename);
+    }
+
+    @Override
+    public Instant getLastModified(String filename) throws IOException {
+        return delegate.getLastModified(filename);
+    }
+
+    @Override
+    public void quarantine(String filename) throws IOException {
+        delegate.quarantine(filename);
+        invalidate(filename);
+    }
+
+    @Override
+    public String getContentType(String filename) throws IOException {
+        return delegate.getContentType(filename);
+    }
+
+    @Override
+    public void validateFile(MultipartFile file) throws IOException {
+        delegate.validateFile(file);
+    }
+
+    @Override
+    public String sanitizeFileName(String fileName) {
+        return delegate.sanitizeFileName(fileName);
+    }
+
+    @Override
+    public String getFileExtension(String fileName) {
+        return delegate.getFileExtension(fileName);
+    }
+
+    @Scheduled(fixedDelayString = "${videoapp.storage.disk-cache.pin-interval-ms:300000}",
+               initialDelayString = "${videoapp.storage.disk-cache.pin-initial-delay-ms:300000}")
+    public void scheduledPinning() {
+        if (diskCacheConfig.isPinEnabled() && pinning.compareAndSet(false, true)) {
+            pinExecutor.execute(this::updatePins);
+        }
+    }
+
+    /**
+     * Canale aperto sul segmento corrente: un segmento espulso mentre è aperto resta leggibile fino alla chiusura
+     */
+    private FileChannel acquire(ChunkKey key, long fileSize) throws IOException {
+        Path path = chunkPath(key);
+        while (true) {
+            if (touch(key)) {
+                try {
+                    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                    hits.increment();
+                    return channel;
+                } catch (NoSuchFileException e) {
+                    // espulso tra il controllo e l'apertura
+                }
+            }
+
+            // Un solo trasferimento per segmento: le richieste concorrenti attendono lo stesso risultato
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            CompletableFuture<Void> inProgress = loading.putIfAbsent(key, future);
+            if (inProgress != null) {
+                await(inProgress);
+                continue;
+            }
+
+            misses.increment();
+            try {
+                fetch(key, fileSize, path);
+                future.complete(null);
+            } catch (IOException | RuntimeException e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                loading.remove(key, future);
+            }
+            try {
+                return FileChannel.open(path, StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                // espulso subito da letture concorrenti: si riprova
+            }
+        }
+    }
+
+    private void fetch(ChunkKey key, long fileSize, Path path) throws IOException {
+        long start = key.index * chunkSize;
+        long length = Math.min(chunkSize, fileSize - start);
+        if (length <= 0) {
+            throw new EOFException("Segmento " + key.index + " oltre la fine del file " + key.filename);
+        }
+
+        Path tmp = Files.createTempFile(tmpPath, ".chunk-", ".tmp");
+        try {
+            try (SeekableByteChannel source = delegate.openChannel(key.filename);
+                 FileChannel target = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                source.position(start);
+                ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+                long remaining = length;
+                while (remaining > 0) {
+                    buffer.clear().limit((int) Math.min(buffer.capacity(), remaining));
+                    if (source.read(buffer) < 0) {
+                        throw new EOFException("File " + key.filename + " più corto del previsto");
+                    }
+                    buffer.flip();
+                    remaining -= buffer.remaining();
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                }
+            }
+            Path dir = Files.createDirectories(path.getParent());
+            Path sizeFile = dir.resolve(SIZE_FILE);
+            if (!Files.exists(sizeFile)) {
+                Files.writeString(sizeFile, Long.toString(fileSize), StandardCharsets.US_ASCII);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        admit(key, length, fileSize);
+    }
+
+    private boolean touch(ChunkKey key) {
+        lruLock.lock();
+        try {
+            return lru.get(key) != null;
+        } finally {
+            lruLock.unlock();
+        }
+    }
+
+    private void admit(ChunkKey key, long length, long fileSize) {
+        List<ChunkKey> evicted = new ArrayList<>();
+        lruLock.lock();
+        try {
+            if (lru.put(key, length) == null) {
+                cachedBytes += length;
+                files.computeIfAbsent(key.filename, name -> new CachedFile(fileSize)).chunks++;
+            }
+            Iterator<Map.Entry<ChunkKey, Long>> eldest = lru.entrySet().iterator();
+            while (cachedBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<ChunkKey, Long> entry = eldest.next();
+                if (entry.getKey().equals(key)) continue;
+                eldest.remove();
+                cachedBytes -= entry.getValue();
+                releaseChunk(entry.getKey());
+                evicted.add(entry.getKey());
+            }
+        } finally {
+            lruLock.unlock();
+        }
+        // Gli unlink fuori dal lock: i lettori con il segmento aperto continuano a leggerlo
+        for (ChunkKey victim : evicted) {
+            evictions.increment();
+            try {
+                Files.deleteIfExists(chunkPath(victim));
+            } catch (IOException e) {
+                logger.warn("Could not delete evicted disk cache chunk {}: {}", chunkPath(victim), e.getMessage());
+            }
+        }
+    }
+
+    // Va chiamato con lruLock acquisito
+    private void releaseChunk(ChunkKey key) {
+        CachedFile file = files.get(key.filename);
+        if (file != null && --file.chunks <= 0) {
+            files.remove(key.filename);
+        }
+    }
+
+    private void invalidate(String filename) {
+        if (!isCacheableName(filename)) return;
+        lruLock.lock();
+        try {
+            Iterator<Map.Entry<ChunkKey, Long>> iterator = lru.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<ChunkKey, Long> entry = iterator.next();
+                if (entry.getKey().filename.equals(filename)) {
+                    iterator.remove();
+                    cachedBytes -= entry.getValue();
+                }
+            }
+            files.remove(filename);
+        } finally {
+            lruLock.unlock();
+        }
+        try {
+            FileSystemUtils.deleteRecursively(chunksPath.resolve(filename));
+        } catch (IOException e) {
+            logger.warn("Could not delete disk cache chunks of {}: {}", filename, e.getMessage());
+        }
+        unpin(filename);
+    }
+
+    private void updatePins() {
+        try {
+            // Punteggio con decadimento: ogni giro dimezza lo storico e aggiunge gli accessi recenti
+            scores.replaceAll((name, score) -> score / 2);
+            for (String name : new ArrayList<>(accesses.keySet())) {
+                LongAdder count = accesses.remove(name);
+                if (count != null) scores.merge(name, (double) count.sum(), Double::sum);
+            }
+            scores.values().removeIf(score -> score < 0.5);
+
+            List<String> candidates = scores.entrySet().stream()
+                    .filter(entry -> entry.getValue() >= diskCacheConfig.getPinMinAccesses())
+                    .filter(entry -> isCacheableName(entry.getKey()))
+                    .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                    .limit(Math.max(0, diskCacheConfig.getPinMaxFiles()))
+                    .map(Map.Entry::getKey)
+                    .toList();
+
+            long budget = diskCacheConfig.getPinMaxMb() * BYTES_PER_MB;
+            long used = 0;
+            Set<String> wanted = new LinkedHashSet<>();
+            for (String name : candidates) {
+                try {
+                    long size = getFileSize(name);
+                    if (used + size > budget) continue;
+                    used += size;
+                    wanted.add(name);
+                } catch (NoSuchFileException e) {
+                    scores.remove(name);
+                } catch (IOException e) {
+                    logger.warn("Could not size {} for pinning: {}", name, e.getMessage());
+                }
+            }
+
+            for (String name : new ArrayList<>(pinned.keySet())) {
+                if (!wanted.contains(name)) unpin(name);
+            }
+            for (String name : wanted) {
+                if (Thread.currentThread().isInterrupted()) return;
+                if (!pinned.containsKey(name)) pin(name);
+            }
+        } finally {
+            pinning.set(false);
+        }
+    }
+
+    private void pin(String filename) {
+        Path target = pinnedPath.resolve(filename);
+        try {
+            Path tmp = Files.createTempFile(tmpPath, ".pin-", ".tmp");
+            try (InputStream in = Channels.newInputStream(openChannel(filename))) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            pinned.put(filename, target);
+            pinnedBytes.addAndGet(Files.size(target));
+            logger.info("Pinned {} in the disk cache", filename);
+        } catch (IOException e) {
+            logger.warn("Could not pin {} in the disk cache: {}", filename, e.getMessage());
+        }
+    }
+
+    private void unpin(String filename) {
+        Path path = pinned.remove(filename);
+        if (path == null) return;
+        try {
+            long size = Files.size(path);
+            Files.deleteIfExists(path);
+            pinnedBytes.addAndGet(-size);
+            logger.info("Unpinned {} from the disk cache", filename);
+        } catch (IOException e) {
+            logger.warn("Could not unpin {} from the disk cache: {}", filename, e.getMessage());
+        }
+    }
+
+    private void restoreChunks() throws IOException {
+        List<RestoredChunk> found = new ArrayList<>();
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(chunksPath)) {
+            for (Path dir : dirs) {
+                String filename = dir.getFileName().toString();
+                long fileSize;
+                try {
+                    fileSize = Long.parseLong(Files.readString(dir.resolve(SIZE_FILE), StandardCharsets.US_ASCII).trim());
+                } catch (IOException | NumberFormatException e) {
+                    // Directory senza dimensione valida (crash durante la prima scrittura): si scarta
+                    FileSystemUtils.deleteRecursively(dir);
+                    continue;
+                }
+                try (DirectoryStream<Path> chunks = Files.newDirectoryStream(dir, "[0-9]*")) {
+                    for (Path chunk : chunks) {
+                        BasicFileAttributes attributes = Files.readAttributes(chunk, BasicFileAttributes.class);
+                        found.add(new RestoredChunk(new ChunkKey(filename, Long.parseLong(chunk.getFileName().toString())),
+                                attributes.size(), fileSize, attributes.lastModifiedTime().toMillis()));
+                    }
+                }
+            }
+        }
+        // I segmenti scritti più di recente entrano per ultimi, quindi sono gli ultimi a essere espulsi
+        found.sort(Comparator.comparingLong(chunk -> chunk.lastModified));
+        for (RestoredChunk chunk : found) {
+            admit(chunk.key, chunk.length, chunk.fileSize);
+        }
+    }
+
+    private void restorePinned() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(pinnedPath)) {
+            for (Path path : stream) {
+                String filename = path.getFileName().toString();
+                pinned.put(filename, path);
+                pinnedBytes.addAndGet(Files.size(path));
+                // Restano pinned al primo giro anche senza accessi registrati da questo processo
+                scores.put(filename, diskCacheConfig.getPinMinAccesses() * 2);
+            }
+        }
+    }
+
+    // Il nome diventa un percorso sotto la directory della cache: niente separatori né nomi nascosti
+    private static boolean isCacheableName(String filename) {
+        return StringUtils.hasText(filename) && !filename.contains("/") && !filename.contains("\\")
+                && !filename.startsWith(".");
+    }
+
+    private Path chunkPath(ChunkKey key) {
+        return chunksPath.resolve(key.filename).resolve(Long.toString(key.index));
+    }
+
+    private void await(CompletableFuture<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Caricamento del segmento interrotto");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private final class CachedChannel implements SeekableByteChannel {
+        private final String filename;
+        private final long size;
+        private long position;
+        private long currentIndex = -1;
+        private FileChannel current;
+        private boolean open = true;
+
+        CachedChannel(String filename, long size) {
+            if (!isCacheableName(filename)) {
+                throw new IllegalArgumentException("Cannot access file outside upload directory");
+            }
+            this.filename = filename;
+            this.size = size;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (!open) throw new ClosedChannelException();
+            if (position >= size) return -1;
+
+            long index = position / chunkSize;
+            if (current == null || currentIndex != index) {
+                closeCurrent();
+                current = acquire(new ChunkKey(filename, index), size);
+                currentIndex = index;
+            }
+            int read = current.read(dst, position - index * chunkSize);
+            if (read < 0) {
+                throw new EOFException("Segmento " + index + " di " + filename + " incompleto");
+            }
+            position += read;
+            return read;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) {
+            position = newPosition;
+            return this;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long size) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            open = false;
+            closeCurrent();
+        }
+
+        private void closeCurrent() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+    }
+
+    private static final class RestoredChunk {
+        final ChunkKey key;
+        final long length;
+        final long fileSize;
+        final long lastModified;
+
+        RestoredChunk(ChunkKey key, long length, long fileSize, long lastModified) {
+            this.key = key;
+            this.length = length;
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private static final class CachedFile {
+        final long size;
+        int chunks;
+
+        CachedFile(long size) {
+            this.size = size;
+        }
+    }
+
+    private static final class ChunkKey {
+        final String filename;
+        final long index;
+
+        ChunkKey(String filename, long index) {
+            this.filename = filename;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ChunkKey other)) return false;
+            return index == other.index && filename.equals(other.filename);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * filename.hashCode() + Long.hashCode(index);
+        }
+    }
+}
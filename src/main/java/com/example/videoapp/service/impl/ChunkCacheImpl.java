@@ -0,0 +1,437 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.ChunkCacheConfiguration;
+import com.example.videoapp.service.ChunkCache;
+import com.example.videoapp.service.StorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache dei segmenti di file in direct buffer fuori dall'heap, con budget in byte e politica W-TinyLFU:
+ * i nuovi segmenti entrano in una piccola finestra LRU e passano nella parte principale (SLRU) solo se
+ * più frequenti del segmento che dovrebbero sostituire, secondo uno sketch Count-Min delle frequenze.
+ * Così una singola visione di un video raro non scalza i segmenti dei video più visti.
+ * <p>
+ * Ogni segmento ha un contatore di riferimenti: la cache ne tiene uno finché il segmento è indicizzato
+ * e ogni lettore uno finché non lo chiude. Il buffer torna nel pool solo quando il contatore arriva a zero,
+ * quindi un segmento espulso mentre viene inviato a un client resta valido fino alla fine dell'invio.
+ */
+@Service
+public class ChunkCacheImpl implements ChunkCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkCacheImpl.class);
+
+    private enum Region { WINDOW, PROBATION, PROTECTED }
+
+    @Autowired
+    private ChunkCacheConfiguration chunkCacheConfig;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Indice concorrente per le letture; le liste della politica sono protette da policyLock
+    private final Map<ChunkKey, Entry> index = new ConcurrentHashMap<>();
+    private final Map<ChunkKey, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final LinkedHashMap<ChunkKey, Entry> window = new LinkedHashMap<>();
+    private final LinkedHashMap<ChunkKey, Entry> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<ChunkKey, Entry> protectedSegment = new LinkedHashMap<>();
+    private final Queue<ByteBuffer> bufferPool = new ConcurrentLinkedQueue<>();
+
+    private int chunkSize;
+    private int capacity;
+    private int windowCapacity;
+    private int protectedCapacity;
+    private FrequencySketch sketch;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter evictions;
+
+    @PostConstruct
+    public void init() {
+        chunkSize = Math.max(4096, chunkCacheConfig.getChunkSizeKb() * 1024);
+        long maxBytes = chunkCacheConfig.isEnabled() ? chunkCacheConfig.getMaxMb() * 1024 * 1024 : 0;
+        capacity = (int) Math.min(Integer.MAX_VALUE, maxBytes / chunkSize);
+        windowCapacity = Math.max(1, capacity * chunkCacheConfig.getWindowPercent() / 100);
+        int mainCapacity = Math.max(0, capacity - windowCapacity);
+        protectedCapacity = mainCapacity * chunkCacheConfig.getProtectedPercent() / 100;
+        sketch = new FrequencySketch(Math.max(capacity, 16));
+
+        hits = Counter.builder("videoapp.chunk.cache.hits").register(meterRegistry);
+        misses = Counter.builder("videoapp.chunk.cache.misses").register(meterRegistry);
+        evictions = Counter.builder("videoapp.chunk.cache.evictions").register(meterRegistry);
+        Gauge.builder("videoapp.chunk.cache.bytes", index, map -> (double) map.size() * chunkSize)
+                .register(meterRegistry);
+
+        logger.info("Chunk cache initialized: {} chunks of {} KB ({} MB)",
+                capacity, chunkSize / 1024, (long) capacity * chunkSize / (1024 * 1024));
+    }
+
+    @Override
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    @Override
+    public Chunk acquire(String filename, long chunkIndex) throws IOException {
+        ChunkKey key = new ChunkKey(filename, chunkIndex);
+
+        while (true) {
+            Entry entry = index.get(key);
+            if (entry != null && entry.chunk.retain()) {
+                hits.increment();
+                onAccess(entry);
+                return entry.chunk;
+            }
+            if (capacity == 0) {
+                misses.increment();
+                return load(key);
+            }
+
+            // Un solo caricamento per segmento: le richieste concorrenti attendono lo stesso risultato
+            CompletableFuture<Entry> future = new CompletableFuture<>();
+            CompletableFuture<Entry> inProgress = loading.putIfAbsent(key, future);
+            if (inProgress != null) {
+                Entry loaded = await(inProgress);
+                if (loaded.chunk.retain()) {
+                    hits.increment();
+                    return loaded.chunk;
+                }
+                // Espulso prima che potessimo usarlo: si riprova
+                continue;
+            }
+
+            try {
+                // Un altro caricamento può essersi concluso tra la lettura dell'indice e putIfAbsent
+                Entry cached = index.get(key);
+                if (cached != null && cached.chunk.retain()) {
+                    future.complete(cached);
+                    hits.increment();
+                    onAccess(cached);
+                    return cached.chunk;
+                }
+
+                misses.increment();
+                CachedChunk chunk = load(key);
+                // Riferimento del chiamante oltre a quello della cache
+                chunk.retain();
+                Entry loaded = new Entry(key, chunk);
+                admit(loaded);
+                future.complete(loaded);
+                return chunk;
+            } catch (IOException | RuntimeException e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                loading.remove(key, future);
+            }
+        }
+    }
+
+    @Override
+    public boolean isCached(String filename, long chunkIndex) {
+        return index.containsKey(new ChunkKey(filename, chunkIndex));
+    }
+
+    @Override
+    public void invalidate(String filename) {
+        policyLock.lock();
+        try {
+            for (Entry entry : new ArrayList<>(index.values())) {
+                if (entry.key.filename.equals(filename)) {
+                    remove(entry);
+                }
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    @Override
+    public List<ChunkRef> hotChunks(int limit) {
+        List<ChunkRef> result = new ArrayList<>(Math.min(limit, index.size()));
+        policyLock.lock();
+        try {
+            for (LinkedHashMap<ChunkKey, Entry> segment : List.of(protectedSegment, probation, window)) {
+                for (ChunkKey key : segment.sequencedKeySet().reversed()) {
+                    if (result.size() >= limit) return result;
+                    result.add(new ChunkRef(key.filename, key.index));
+                }
+            }
+        } finally {
+            policyLock.unlock();
+        }
+        return result;
+    }
+
+    private CachedChunk load(ChunkKey key) throws IOException {
+        ByteBuffer buffer = bufferPool.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(chunkSize);
+        }
+        buffer.clear();
+
+        try (SeekableByteChannel channel = storageService.openChannel(key.filename)) {
+            channel.position(key.index * chunkSize);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // legge fino a riempire il segmento o alla fine del file
+            }
+        } catch (IOException | RuntimeException e) {
+            recycle(buffer);
+            throw e;
+        }
+
+        buffer.flip();
+        if (!buffer.hasRemaining()) {
+            recycle(buffer);
+            throw new EOFException("Segmento " + key.index + " oltre la fine del file " + key.filename);
+        }
+        return new CachedChunk(buffer);
+    }
+
+    private Entry await(CompletableFuture<Entry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Caricamento del segmento interrotto");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void recycle(ByteBuffer buffer) {
+        // Il pool non supera la capacità della cache: i buffer in più restano al garbage collector
+        if (bufferPool.size() < capacity) {
+            bufferPool.offer(buffer);
+        }
+    }
+
+    // Sulle letture l'aggiornamento della politica è best-effort: sotto contesa si salta, come un read buffer lossy
+    private void onAccess(Entry entry) {
+        if (!policyLock.tryLock()) return;
+        try {
+            sketch.increment(entry.key.hashCode());
+            // Espulso tra il retain del lettore e l'acquisizione del lock: non c'è più nulla da spostare
+            if (entry.region == null) return;
+            switch (entry.region) {
+                case WINDOW -> moveToTail(window, entry);
+                case PROTECTED -> moveToTail(protectedSegment, entry);
+                case PROBATION -> {
+                    if (probation.remove(entry.key) == null) return;
+                    entry.region = Region.PROTECTED;
+                    protectedSegment.put(entry.key, entry);
+                    if (protectedSegment.size() > protectedCapacity) {
+                        Entry demoted = pollFirst(protectedSegment);
+                        demoted.region = Region.PROBATION;
+                        probation.put(demoted.key, demoted);
+                    }
+                }
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    // Se il segmento è già indicizzato la copia appena caricata non entra in cache: resta solo al chiamante,
+    // altrimenti la voce sostituita uscirebbe dalle liste senza restituire il suo riferimento né il suo spazio
+    private void admit(Entry entry) {
+        policyLock.lock();
+        try {
+            sketch.increment(entry.key.hashCode());
+            if (index.putIfAbsent(entry.key, entry) != null) {
+                entry.region = null;
+                entry.chunk.release();
+                return;
+            }
+            window.put(entry.key, entry);
+            if (window.size() <= windowCapacity) return;
+
+            // Il segmento più vecchio della finestra si candida alla parte principale
+            Entry candidate = pollFirst(window);
+            candidate.region = Region.PROBATION;
+            probation.put(candidate.key, candidate);
+
+            while (index.size() > capacity) {
+                Entry victim = probation.isEmpty() ? null : probation.values().iterator().next();
+                if (victim == null || victim == candidate) {
+                    remove(candidate);
+                } else if (sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())) {
+                    remove(victim);
+                } else {
+                    remove(candidate);
+                }
+                if (candidate.region == null) break;
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    // Va chiamato con policyLock acquisito
+    private void remove(Entry entry) {
+        if (entry.region == null) return;
+        switch (entry.region) {
+            case WINDOW -> window.remove(entry.key);
+            case PROBATION -> probation.remove(entry.key);
+            case PROTECTED -> protectedSegment.remove(entry.key);
+        }
+        entry.region = null;
+        index.remove(entry.key, entry);
+        evictions.increment();
+        entry.chunk.release();
+    }
+
+    private static void moveToTail(LinkedHashMap<ChunkKey, Entry> segment, Entry entry) {
+        if (segment.remove(entry.key) != null) {
+            segment.put(entry.key, entry);
+        }
+    }
+
+    private static Entry pollFirst(LinkedHashMap<ChunkKey, Entry> segment) {
+        Iterator<Entry> iterator = segment.values().iterator();
+        Entry first = iterator.next();
+        iterator.remove();
+        return first;
+    }
+
+    private static final class ChunkKey {
+        final String filename;
+        final long index;
+
+        ChunkKey(String filename, long index) {
+            this.filename = filename;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ChunkKey other)) return false;
+            return index == other.index && filename.equals(other.filename);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * filename.hashCode() + Long.hashCode(index);
+        }
+    }
+
+    private static final class Entry {
+        final ChunkKey key;
+        final CachedChunk chunk;
+        Region region = Region.WINDOW;
+
+        Entry(ChunkKey key, CachedChunk chunk) {
+            this.key = key;
+            this.chunk = chunk;
+        }
+    }
+
+    private final class CachedChunk implements Chunk {
+        private final ByteBuffer data;
+        private final AtomicInteger refCount = new AtomicInteger(1);
+
+        CachedChunk(ByteBuffer data) {
+            this.data = data;
+        }
+
+        // Fallisce se il segmento è già stato liberato: chi lo trova nell'indice deve ricaricarlo
+        boolean retain() {
+            while (true) {
+                int count = refCount.get();
+                if (count <= 0) return false;
+                if (refCount.compareAndSet(count, count + 1)) return true;
+            }
+        }
+
+        void release() {
+            if (refCount.decrementAndGet() == 0) {
+                recycle(data);
+            }
+        }
+
+        @Override
+        public ByteBuffer buffer() {
+            return data.asReadOnlyBuffer();
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
+
+    /**
+     * Sketch Count-Min a quattro righe con contatori saturati a 15; i contatori vengono dimezzati ogni
+     * 10 × capacità incrementi, così la frequenza stimata segue la popolarità recente
+     */
+    private static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int[] SEEDS = { 0x97cb3127, 0x3c6ef372, 0xc8013ea4, 0x7e95761e };
+
+        private final byte[] table;
+        private final int width;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            width = Integer.highestOneBit(Math.max(capacity, 16) - 1) << 1;
+            table = new byte[DEPTH * width];
+            sampleSize = 10 * capacity;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int row = 0; row < DEPTH; row++) {
+                int slot = slot(hash, row);
+                if (table[slot] < 15) {
+                    table[slot]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] >>= 1;
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(int hash) {
+            int min = 15;
+            for (int row = 0; row < DEPTH; row++) {
+                min = Math.min(min, table[slot(hash, row)]);
+            }
+            return min;
+        }
+
+        private int slot(int hash, int row) {
+            int h = hash * SEEDS[row];
+            h ^= h >>> 16;
+            return row * width + (h & (width - 1));
+        }
+    }
+}
@@ -0,0 +1,606 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.DistributedStorageConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.service.StoredFile;
+import com.example.videoapp.util.ConsistentHashRing;
+import com.example.videoapp.util.RateLimiter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Storage distribuito su più nodi: ogni file è assegnato a replicationFactor nodi con hashing consistente
+ * (nodi virtuali), scritto in parallelo su tutte le repliche e letto dalla replica sana con la latenza
+ * più bassa. Le scritture e le eliminazioni destinate a un nodo non raggiungibile vengono conservate
+ * su disco come hint e consegnate quando il nodo torna disponibile (hinted handoff); gli hint con
+ * contenuto sono limitati per dimensione ed età, oltre i quali la replica mancante viene ricreata dal
+ * ribilanciamento. Dopo l'aggiunta di un nodo il ribilanciamento copia in streaming i file verso i nuovi
+ * proprietari e li rimuove dai nodi che non ne sono più responsabili; nel frattempo le letture cercano
+ * anche sugli altri nodi. Non espone percorsi locali (non implementa LocalFileStorage).
+ */
+@Service
+@ConditionalOnProperty(name = "videoapp.storage.mode", havingValue = "distributed")
+public class DistributedStorageServiceImpl extends AbstractStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DistributedStorageServiceImpl.class);
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+    private static final double LATENCY_SMOOTHING = 0.2;
+    private static final String PUT_HINTS = "put";
+    private static final String DELETE_HINTS = "delete";
+
+    @Autowired
+    private DistributedStorageConfiguration distributedConfig;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    private List<Node> nodes;
+    private ConsistentHashRing<Node> ring;
+    private HttpClient httpClient;
+    private ExecutorService replicaWriters;
+    private ExecutorService background;
+    private Path hintPath;
+    private Path spoolPath;
+    private RateLimiter rebalanceLimiter;
+    private final AtomicBoolean rebalancing = new AtomicBoolean();
+
+    @PostConstruct
+    @Override
+    public void init() throws IOException {
+        List<String> addresses = storageConfig.getNodes();
+        if (addresses == null || addresses.isEmpty()) {
+            throw new IOException("videoapp.storage.nodes is required in distributed mode");
+        }
+        if (!StringUtils.hasText(distributedConfig.getHintDir()) || !StringUtils.hasText(distributedConfig.getSpoolDir())) {
+            throw new IOException("videoapp.storage.distributed.hint-dir and spool-dir are required in distributed mode");
+        }
+        hintPath = Files.createDirectories(Paths.get(distributedConfig.getHintDir()));
+        spoolPath = Files.createDirectories(Paths.get(distributedConfig.getSpoolDir()));
+
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(distributedConfig.getConnectTimeoutMs()))
+                .build();
+        Map<String, Node> byAddress = new LinkedHashMap<>();
+        for (String address : addresses) {
+            StorageNodeClient client = new StorageNodeClient(address.trim(), httpClient, distributedConfig.getNodeToken(),
+                    Duration.ofMillis(distributedConfig.getRequestTimeoutMs()), distributedConfig.getMinReadWindowKb() * 1024L);
+            byAddress.put(client.getAddress(), new Node(client));
+        }
+        nodes = List.copyOf(byAddress.values());
+        ring = new ConsistentHashRing<>(byAddress, storageConfig.getVirtualNodes());
+
+        replicaWriters = Executors.newCachedThreadPool(workerThreads.factory("storage-replica-writer"));
+        background = Executors.newSingleThreadExecutor(workerThreads.factory("storage-node-maintenance"));
+        rebalanceLimiter = new RateLimiter(distributedConfig.getMaxRebalanceMbPerSecond() * BYTES_PER_MB);
+        logger.info("Distributed storage initialized: {} nodes, replication factor {}, {} virtual nodes per node",
+                nodes.size(), replicationFactor(), storageConfig.getVirtualNodes());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        background.shutdownNow();
+        replicaWriters.shutdownNow();
+        httpClient.close();
+    }
+
+    @Override
+    public StoredFile store(MultipartFile file, long maxBytes) throws IOException {
+        validateFile(file);
+
+        String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
+        String uniqueFilename = generateUniqueFilename(originalFilename, getFileExtension(originalFilename));
+        StoredFile stored = storeAs(uniqueFilename, file.getInputStream(), maxBytes);
+        logger.info("File stored successfully on {} replicas: {}", replicationFactor(), uniqueFilename);
+        return stored;
+    }
+
+    @Override
+    public StoredFile storeAs(String filename, InputStream in, long maxBytes) throws IOException {
+        checkFilename(filename);
+        // Il contenuto passa da un file di spool locale: checksum e quota vengono verificati una volta sola
+        // e ogni replica (o hint) riceve la stessa copia senza tenerla in memoria
+        Path spool = Files.createTempFile(spoolPath, ".upload-", ".tmp");
+        try {
+            StoredFile stored = writeChecked(in, spool, filename, maxBytes);
+            writeReplicas(filename, spool);
+            return stored;
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    @Override
+    public byte[] loadFile(String filename) throws IOException {
+        return readFromReplicas(filename, client -> {
+            try (InputStream in = client.get(filename)) {
+                return in.readAllBytes();
+            }
+        });
+    }
+
+    @Override
+    public SeekableByteChannel openChannel(String filename) throws IOException {
+        return readFromReplicas(filename, client -> client.openChannel(filename));
+    }
+
+    @Override
+    public void deleteFile(String filename) throws IOException {
+        if (!StringUtils.hasText(filename)) {
+            return;
+        }
+        checkFilename(filename);
+        // Anche i nodi non proprietari: una copia non ancora ribilanciata verrebbe altrimenti ricopiata
+        for (Node node : nodes) {
+            removeHint(node, PUT_HINTS, filename);
+            if (node.healthy) {
+                try {
+                    node.client.delete(filename);
+                    continue;
+                } catch (IOException e) {
+                    markDown(node, e);
+                }
+            }
+            writeHint(node, DELETE_HINTS, filename, null);
+        }
+        logger.info("File deleted from distributed storage: {}", filename);
+    }
+
+    @Override
+    public boolean exists(String filename) {
+        if (!StringUtils.hasText(filename)) {
+            return false;
+        }
+        try {
+            readFromReplicas(filename, client -> client.head(filename));
+            return true;
+        } catch (NoSuchFileException | IllegalArgumentException e) {
+            return false;
+        } catch (IOException e) {
+            logger.warn("Could not check {} on storage nodes: {}", filename, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Unione degli elenchi dei nodi sani. Un file viene riportato dalla prima replica sana del suo
+     * insieme di proprietari e da eventuali nodi che ne hanno una copia fuori posto (ribilanciamento
+     * in corso), quindi in quella finestra può comparire più di una volta.
+     */
+    @Override
+    public Stream<String> listFiles() {
+        return nodes.stream()
+                .filter(node -> node.healthy)
+                .flatMap(node -> {
+                    try {
+                        return node.client.listFiles().filter(name -> reportedBy(node, name));
+                    } catch (IOException e) {
+                        logger.warn("Could not list files on storage node {}: {}", node.address(), e.getMessage());
+                        return Stream.empty();
+                    }
+                });
+    }
+
+    @Override
+    public long getFileSize(String filename) throws IOException {
+        return readFromReplicas(filename, client -> client.head(filename)).getSize();
+    }
+
+    @Override
+    public Instant getLastModified(String filename) throws IOException {
+        return readFromReplicas(filename, client -> client.head(filename)).getLastModified();
+    }
+
+    @Override
+    public void quarantine(String filename) throws IOException {
+        checkFilename(filename);
+        boolean found = false;
+        for (Node node : nodes) {
+            if (!node.healthy) continue;
+            try {
+                node.client.quarantine(filename);
+                found = true;
+            } catch (NoSuchFileException e) {
+                // nessuna copia su questo nodo
+            }
+        }
+        if (!found) {
+            throw new NoSuchFileException("File not found: " + filename);
+        }
+        logger.info("File moved to quarantine on storage nodes: {}", filename);
+    }
+
+    @Override
+    public String getContentType(String filename) throws IOException {
+        String contentType = readFromReplicas(filename, client -> client.head(filename)).getContentType();
+        return StringUtils.hasText(contentType) && !"application/octet-stream".equals(contentType)
+                ? contentType : contentTypeByExtension(filename);
+    }
+
+    @Scheduled(fixedDelayString = "${videoapp.storage.distributed.health-check-interval-ms:5000}")
+    public void checkNodes() {
+        Duration timeout = Duration.ofMillis(distributedConfig.getConnectTimeoutMs());
+        for (Node node : nodes) {
+            long started = System.nanoTime();
+            node.client.ping(timeout).thenAccept(up -> {
+                if (up) {
+                    node.recordLatency((System.nanoTime() - started) / 1_000_000.0);
+                    if (!node.healthy) {
+                        logger.info("Storage node {} is back up", node.address());
+                        node.healthy = true;
+                    }
+                    if (hasHints(node) && node.replayingHints.compareAndSet(false, true)) {
+                        background.execute(() -> replayHints(node));
+                    }
+                } else if (node.healthy) {
+                    logger.warn("Storage node {} failed its health check", node.address());
+                    node.healthy = false;
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${videoapp.storage.distributed.rebalance-interval-ms:3600000}",
+               initialDelayString = "${videoapp.storage.distributed.rebalance-initial-delay-ms:60000}")
+    public void scheduledRebalance() {
+        if (distributedConfig.isRebalanceEnabled() && rebalancing.compareAndSet(false, true)) {
+            background.execute(this::rebalance);
+        }
+    }
+
+    private void writeReplicas(String filename, Path spool) throws IOException {
+        List<Node> owners = ring.preferenceList(filename, replicationFactor());
+        List<CompletableFuture<Boolean>> writes = new ArrayList<>(owners.size());
+        for (Node node : owners) {
+            writes.add(CompletableFuture.supplyAsync(() -> writeReplica(node, filename, spool), replicaWriters));
+        }
+
+        int acks = 0;
+        for (CompletableFuture<Boolean> write : writes) {
+            if (write.join()) acks++;
+        }
+        int quorum = Math.min(Math.max(1, distributedConfig.getWriteQuorum()), owners.size());
+        if (acks < quorum) {
+            // Nessuna copia parziale: senza quorum l'upload fallisce e gli hint non devono resuscitare il file
+            for (Node node : owners) {
+                removeHint(node, PUT_HINTS, filename);
+                try {
+                    if (node.healthy) node.client.delete(filename);
+                } catch (IOException e) {
+                    logger.debug("Could not roll back replica of {} on {}: {}", filename, node.address(), e.getMessage());
+                }
+            }
+            throw new IOException("Scrittura di " + filename + " confermata da " + acks + " repliche su " + quorum + " richieste");
+        }
+    }
+
+    private boolean writeReplica(Node node, String filename, Path spool) {
+        if (node.healthy) {
+            try {
+                node.client.put(filename, spool);
+                return true;
+            } catch (IOException e) {
+                markDown(node, e);
+            }
+        }
+        // Hinted handoff: la copia viene consegnata quando il nodo torna raggiungibile
+        try {
+            writeHint(node, PUT_HINTS, filename, spool);
+        } catch (IOException e) {
+            logger.error("Could not store hint for {} on node {}: {}", filename, node.address(), e.getMessage());
+        }
+        return false;
+    }
+
+    private <T> T readFromReplicas(String filename, NodeCall<T> call) throws IOException {
+        checkFilename(filename);
+        List<Node> owners = ring.preferenceList(filename, replicationFactor());
+
+        // Prima i proprietari, dal più vicino; poi gli altri nodi, che possono avere copie non ancora ribilanciate
+        List<Node> order = new ArrayList<>(owners);
+        order.sort(Comparator.comparing((Node node) -> !node.healthy).thenComparingDouble(node -> node.latencyMs));
+        for (Node node : nodes) {
+            if (!owners.contains(node) && node.healthy) order.add(node);
+        }
+
+        IOException failure = null;
+        for (Node node : order) {
+            try {
+                return call.apply(node.client);
+            } catch (NoSuchFileException e) {
+                // prova la replica successiva
+            } catch (IOException e) {
+                markDown(node, e);
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw new IOException("Nessuna replica raggiungibile per " + filename, failure);
+        }
+        throw new NoSuchFileException("File not found: " + filename);
+    }
+
+    private boolean reportedBy(Node node, String filename) {
+        List<Node> owners = ring.preferenceList(filename, replicationFactor());
+        if (!owners.contains(node)) return true;
+        for (Node owner : owners) {
+            if (owner.healthy) return owner == node;
+        }
+        return false;
+    }
+
+    private void replayHints(Node node) {
+        int delivered = 0;
+        try {
+            expireHints(node);
+            // Prima le eliminazioni: un file eliminato non deve essere riconsegnato
+            for (String filename : hintedFiles(node, DELETE_HINTS)) {
+                node.client.delete(filename);
+                removeHint(node, DELETE_HINTS, filename);
+                delivered++;
+            }
+            for (String filename : hintedFiles(node, PUT_HINTS)) {
+                Path hint = hintFile(node, PUT_HINTS, filename);
+                node.client.put(filename, hint);
+                Files.deleteIfExists(hint);
+                delivered++;
+            }
+        } catch (NoSuchFileException e) {
+            // hint rimosso nel frattempo da un'eliminazione, al prossimo giro
+        } catch (IOException e) {
+            markDown(node, e);
+        } finally {
+            node.replayingHints.set(false);
+            if (delivered > 0) {
+                logger.info("Delivered {} hinted writes/deletes to storage node {}", delivered, node.address());
+            }
+        }
+    }
+
+    private void rebalance() {
+        long copied = 0;
+        long removed = 0;
+        try {
+            for (Node node : nodes) {
+                // Spegnimento: il prossimo giro riprende da capo
+                if (Thread.currentThread().isInterrupted()) break;
+                if (!node.healthy) continue;
+                try (Stream<String> files = node.client.listFiles()) {
+                    Iterator<String> iterator = files.iterator();
+                    while (iterator.hasNext()) {
+                        String filename = iterator.next();
+                        List<Node> owners = ring.preferenceList(filename, replicationFactor());
+                        boolean complete = true;
+                        for (Node owner : owners) {
+                            if (owner == node) continue;
+                            if (!owner.healthy) {
+                                complete = false;
+                            } else if (copyIfMissing(node, owner, filename)) {
+                                copied++;
+                            }
+                        }
+                        // La copia fuori posto si elimina solo quando tutti i proprietari ne hanno una
+                        if (!owners.contains(node) && complete) {
+                            node.client.delete(filename);
+                            removed++;
+                        }
+                    }
+                } catch (IOException | UncheckedIOException e) {
+                    logger.warn("Rebalancing of storage node {} interrupted: {}", node.address(), e.getMessage());
+                }
+            }
+        } finally {
+            rebalancing.set(false);
+            logger.info("Storage rebalancing finished: {} replicas copied, {} misplaced copies removed", copied, removed);
+        }
+    }
+
+    private boolean copyIfMissing(Node source, Node target, String filename) throws IOException {
+        try {
+            target.client.head(filename);
+            return false;
+        } catch (NoSuchFileException e) {
+            // da copiare
+        }
+        long size = source.client.head(filename).getSize();
+        // Streaming da nodo a nodo: il file non passa dal disco del coordinatore, il limite si applica a ogni buffer
+        try (InputStream in = new ThrottledInputStream(source.client.get(filename), rebalanceLimiter)) {
+            target.client.put(filename, in, size);
+        }
+        logger.debug("Copied {} from {} to {}", filename, source.address(), target.address());
+        return true;
+    }
+
+    private void markDown(Node node, IOException cause) {
+        if (node.healthy) {
+            logger.warn("Storage node {} marked down: {}", node.address(), cause.getMessage());
+            node.healthy = false;
+        }
+    }
+
+    private void writeHint(Node node, String kind, String filename, Path content) throws IOException {
+        Path hint = hintFile(node, kind, filename);
+        Files.createDirectories(hint.getParent());
+        if (content == null) {
+            removeHint(node, PUT_HINTS, filename);
+            Files.write(hint, new byte[0]);
+            return;
+        }
+        expireHints(node);
+        long maxBytes = distributedConfig.getMaxHintMbPerNode() * BYTES_PER_MB;
+        if (hintBytes(node) + Files.size(content) > maxBytes) {
+            logger.warn("Hint space for storage node {} is full, {} will be restored by the next rebalance",
+                    node.address(), filename);
+            return;
+        }
+        Path partial = hint.resolveSibling("." + filename + ".part");
+        Files.copy(content, partial, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(partial, hint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void removeHint(Node node, String kind, String filename) {
+        try {
+            Files.deleteIfExists(hintFile(node, kind, filename));
+        } catch (IOException e) {
+            logger.warn("Could not remove {} hint for {} on node {}: {}", kind, filename, node.address(), e.getMessage());
+        }
+    }
+
+    /**
+     * Scarta le copie più vecchie di maxHintAgeMs. Solo quelle con contenuto: un hint di eliminazione
+     * scartato lascerebbe sul nodo una copia che il ribilanciamento tornerebbe a replicare.
+     */
+    private void expireHints(Node node) throws IOException {
+        long cutoff = System.currentTimeMillis() - distributedConfig.getMaxHintAgeMs();
+        int expired = 0;
+        for (String filename : hintedFiles(node, PUT_HINTS)) {
+            Path hint = hintFile(node, PUT_HINTS, filename);
+            try {
+                if (Files.getLastModifiedTime(hint).toMillis() < cutoff && Files.deleteIfExists(hint)) {
+                    expired++;
+                }
+            } catch (NoSuchFileException e) {
+                // consegnato o rimosso nel frattempo
+            }
+        }
+        if (expired > 0) {
+            logger.warn("Dropped {} expired hinted writes for storage node {}, the next rebalance restores them",
+                    expired, node.address());
+        }
+    }
+
+    private long hintBytes(Node node) throws IOException {
+        Path dir = hintPath.resolve(node.hintDir).resolve(PUT_HINTS);
+        if (!Files.isDirectory(dir)) return 0;
+        long total = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                try {
+                    total += Files.size(file);
+                } catch (NoSuchFileException e) {
+                    // consegnato nel frattempo
+                }
+            }
+        }
+        return total;
+    }
+
+    private boolean hasHints(Node node) {
+        try {
+            return !hintedFiles(node, DELETE_HINTS).isEmpty() || !hintedFiles(node, PUT_HINTS).isEmpty();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private List<String> hintedFiles(Node node, String kind) throws IOException {
+        Path dir = hintPath.resolve(node.hintDir).resolve(kind);
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> path.getFileName().toString()).filter(name -> !name.startsWith(".")).toList();
+        }
+    }
+
+    private Path hintFile(Node node, String kind, String filename) {
+        return hintPath.resolve(node.hintDir).resolve(kind).resolve(filename);
+    }
+
+    private int replicationFactor() {
+        return Math.max(1, storageConfig.getReplicationFactor());
+    }
+
+    private static void checkFilename(String filename) {
+        if (!StringUtils.hasText(filename)) {
+            throw new IllegalArgumentException("Filename cannot be empty");
+        }
+        if (filename.contains("/") || filename.contains("\\") || filename.startsWith(".")) {
+            throw new IllegalArgumentException("Cannot access file outside upload directory");
+        }
+    }
+
+    /**
+     * Stream che consuma dal limitatore un permesso per ogni byte letto, buffer per buffer
+     */
+    private static final class ThrottledInputStream extends FilterInputStream {
+        private final RateLimiter limiter;
+
+        ThrottledInputStream(InputStream in, RateLimiter limiter) {
+            super(in);
+            this.limiter = limiter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) throttle(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) throttle(n);
+            return n;
+        }
+
+        private void throttle(int bytes) throws InterruptedIOException {
+            try {
+                limiter.acquire(bytes);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Copia di ribilanciamento interrotta");
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface NodeCall<T> {
+        T apply(StorageNodeClient client) throws IOException;
+    }
+
+    private static final class Node {
+        final StorageNodeClient client;
+        // Directory degli hint derivata dall'indirizzo: resta valida se l'elenco dei nodi cambia ordine
+        final String hintDir;
+        final AtomicBoolean replayingHints = new AtomicBoolean();
+        volatile boolean healthy = true;
+        volatile double latencyMs;
+
+        Node(StorageNodeClient client) {
+            this.client = client;
+            this.hintDir = client.getAddress().replaceAll("^[a-z]+://", "").replaceAll("[^A-Za-z0-9.-]", "_");
+        }
+
+        String address() {
+            return client.getAddress();
+        }
+
+        void recordLatency(double sampleMs) {
+            latencyMs = latencyMs == 0 ? sampleMs : latencyMs + LATENCY_SMOOTHING * (sampleMs - latencyMs);
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.DeletionQueueConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.repository.VideoRepository;
+import com.example.videoapp.service.ChunkCache;
+import com.example.videoapp.service.FileDeletionService;
+import com.example.videoapp.service.StorageService;
+import com.example.videoapp.util.RateLimiter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coda di eliminazione dei file: le richieste accodano e un worker in background esegue gli unlink a blocchi.
+ * Il journal append-only registra l'intenzione di eliminare prima del commit ("? nome"), l'accodamento dopo
+ * il commit ("+ nome") e il completamento dopo l'unlink ("- nome"). Le scritture passano da un thread dedicato
+ * che le raggruppa con un solo fsync per gruppo: le richieste attendono il fsync solo per le intenzioni.
+ * Al riavvio le voci accodate vengono riaccodate e le intenzioni senza esito vengono risolte sul database:
+ * il file si elimina se nessun video lo referenzia più. I file che esauriscono i tentativi restano pendenti
+ * e vengono ritentati periodicamente.
+ */
+@Service
+public class FileDeletionServiceImpl implements FileDeletionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileDeletionServiceImpl.class);
+
+    private static final String INTENT = "? ";
+    private static final String ENQUEUED = "+ ";
+    private static final String DONE = "- ";
+    // Attesa massima del fsync di un'intenzione prima del commit
+    private static final long INTENT_TIMEOUT_SECONDS = 5;
+
+    @Autowired
+    private DeletionQueueConfiguration deletionConfig;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private ChunkCache chunkCache;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    private final BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+    // Intenzioni di transazioni non ancora concluse
+    private final Set<String> intents = ConcurrentHashMap.newKeySet();
+    // Intenzioni dall'esito sconosciuto (riavvio, commit incerto), da verificare sul database
+    private final Set<String> unresolved = ConcurrentHashMap.newKeySet();
+    // File che hanno esaurito i tentativi, con l'istante in cui sono stati messi da parte
+    private final Map<String, Long> parked = new ConcurrentHashMap<>();
+    private final BlockingQueue<JournalWrite> journalWrites = new LinkedBlockingQueue<>();
+    // ReentrantLock e non synchronized: la scrittura con force() non deve bloccare il carrier di un virtual thread
+    private final ReentrantLock journalLock = new ReentrantLock();
+
+    private Path journalPath;
+    private FileChannel journal;
+    private int doneSinceCompaction;
+    private RateLimiter rateLimiter;
+    private volatile boolean running = true;
+    private volatile boolean journalRunning = true;
+    private Thread worker;
+    private Thread journalWriter;
+
+    @PostConstruct
+    public void start() throws IOException {
+        rateLimiter = new RateLimiter(deletionConfig.getMaxDeletesPerSecond());
+
+        if (StringUtils.hasText(deletionConfig.getJournalFile())) {
+            journalPath = Paths.get(deletionConfig.getJournalFile());
+            replayJournal();
+            journalWriter = workerThreads.newThread("file-deletion-journal", this::writeJournal);
+            journalWriter.start();
+        }
+
+        worker = workerThreads.newThread("file-deletion-worker", this::processQueue);
+        worker.start();
+    }
+
+    @Override
+    public void enqueue(String filename) {
+        if (!StringUtils.hasText(filename) || !pending.add(filename)) {
+            return;
+        }
+        // Non si attende il fsync: chi deve sopravvivere a un crash è già coperto dall'intenzione
+        appendToJournal(List.of(ENQUEUED + filename));
+        queue.add(filename);
+    }
+
+    @Override
+    public void enqueueAfterCommit(Collection<String> filenames) {
+        List<String> files = filenames.stream().filter(StringUtils::hasText).distinct().toList();
+        if (files.isEmpty()) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            files.forEach(this::enqueue);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean journaled;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                intents.addAll(files);
+                try {
+                    appendToJournal(files.stream().map(filename -> INTENT + filename).toList())
+                            .get(INTENT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                    journaled = true;
+                } catch (TimeoutException e) {
+                    logger.error("Timed out journaling deletion intent for {} files", files.size());
+                } catch (ExecutionException e) {
+                    // Il commit prosegue: in caso di crash il file resterebbe orfano fino alla riconciliazione
+                    logger.error("Could not journal deletion intent for {} files: {}",
+                            files.size(), e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    files.forEach(FileDeletionServiceImpl.this::enqueue);
+                } else if (status == STATUS_UNKNOWN) {
+                    unresolved.addAll(files);
+                } else if (journaled) {
+                    appendToJournal(files.stream().map(filename -> DONE + filename).toList());
+                }
+                intents.removeAll(files);
+            }
+        });
+    }
+
+    @Override
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Riaccoda i file messi da parte da almeno un intervallo e ritenta la verifica delle intenzioni
+     * rimaste senza esito (es. database non raggiungibile all'avvio)
+     */
+    @Scheduled(fixedDelayString = "${videoapp.deletion.parked-retry-interval-ms:3600000}",
+            initialDelayString = "${videoapp.deletion.parked-retry-interval-ms:3600000}")
+    public void retryParked() {
+        resolveIntents();
+
+        long cutoff = System.currentTimeMillis() - deletionConfig.getParkedRetryIntervalMs();
+        int retried = 0;
+        for (Map.Entry<String, Long> entry : parked.entrySet()) {
+            if (entry.getValue() <= cutoff && parked.remove(entry.getKey(), entry.getValue())) {
+                queue.add(entry.getKey());
+                retried++;
+            }
+        }
+        if (retried > 0) {
+            logger.info("Retrying {} parked file deletions", retried);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        worker.interrupt();
+        join(worker);
+        if (!pending.isEmpty()) {
+            logger.warn("{} files still queued for deletion on shutdown, they will be replayed on restart", pending.size());
+        }
+
+        // Il thread del journal scrive quanto resta in coda prima di uscire; non viene interrotto,
+        // perché un'interruzione durante la scrittura chiuderebbe il canale
+        journalRunning = false;
+        if (journalWriter != null) {
+            join(journalWriter);
+        }
+        journalLock.lock();
+        try {
+            closeJournal();
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    private void join(Thread thread) {
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void processQueue() {
+        resolveIntents();
+
+        int batchSize = Math.max(1, deletionConfig.getBatchSize());
+        List<String> batch = new ArrayList<>(batchSize);
+        List<String> completed = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                String first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                for (String filename : batch) {
+                    rateLimiter.acquire();
+                    if (delete(filename)) {
+                        completed.add(DONE + filename);
+                    }
+                }
+                markCompleted(completed);
+                logger.debug("Processed {} queued file deletions", batch.size());
+            } catch (InterruptedException e) {
+                // Le eliminazioni già eseguite del blocco corrente vanno comunque marcate nel journal
+                markCompleted(completed);
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+                completed.clear();
+            }
+        }
+    }
+
+    private boolean delete(String filename) {
+        try {
+            storageService.deleteFile(filename);
+            chunkCache.invalidate(filename);
+        } catch (IOException e) {
+            int attempt = attempts.merge(filename, 1, Integer::sum);
+            if (attempt < deletionConfig.getMaxAttempts()) {
+                logger.warn("Background deletion failed for {} (attempt {}), retrying later: {}",
+                        filename, attempt, e.getMessage());
+                queue.add(filename);
+                return false;
+            }
+            // Resta pendente e nel journal: viene ritentato dopo l'intervallo, anche dopo un riavvio
+            attempts.remove(filename);
+            parked.put(filename, System.currentTimeMillis());
+            logger.error("Background deletion failed for {} after {} attempts, parked for {} ms: {}",
+                    filename, attempt, deletionConfig.getParkedRetryIntervalMs(), e.getMessage());
+            return false;
+        }
+        attempts.remove(filename);
+        pending.remove(filename);
+        return true;
+    }
+
+    private void markCompleted(List<String> completed) {
+        if (completed.isEmpty()) return;
+        appendToJournal(new ArrayList<>(completed));
+    }
+
+    /**
+     * Elimina i file delle intenzioni senza esito che nessun video referenzia più; per gli altri
+     * la transazione non è stata confermata e l'intenzione viene chiusa
+     */
+    private void resolveIntents() {
+        if (unresolved.isEmpty()) return;
+
+        List<String> candidates = new ArrayList<>(unresolved);
+        int batchSize = Math.max(1, deletionConfig.getBatchSize());
+        Set<String> referenced = new HashSet<>();
+        try {
+            for (int from = 0; from < candidates.size(); from += batchSize) {
+                referenced.addAll(videoRepository.findExistingFilePaths(
+                        candidates.subList(from, Math.min(from + batchSize, candidates.size()))));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not resolve {} deletion intents, retrying later: {}", candidates.size(), e.getMessage());
+            return;
+        }
+
+        List<String> discarded = new ArrayList<>();
+        for (String filename : candidates) {
+            unresolved.remove(filename);
+            if (referenced.contains(filename)) {
+                discarded.add(DONE + filename);
+            } else {
+                enqueue(filename);
+            }
+        }
+        if (!discarded.isEmpty()) {
+            appendToJournal(discarded);
+        }
+        logger.info("Resolved {} deletion intents: {} files deleted, {} still referenced",
+                candidates.size(), candidates.size() - discarded.size(), discarded.size());
+    }
+
+    /**
+     * Accoda righe per il thread del journal; il future si completa dopo il fsync del gruppo che le contiene
+     */
+    private CompletableFuture<Void> appendToJournal(List<String> lines) {
+        if (journalPath == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        JournalWrite write = new JournalWrite(lines, new CompletableFuture<>());
+        journalWrites.add(write);
+        return write.written();
+    }
+
+    private void writeJournal() {
+        List<JournalWrite> group = new ArrayList<>();
+        while (journalRunning || !journalWrites.isEmpty()) {
+            try {
+                JournalWrite first = journalWrites.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                group.add(first);
+                journalWrites.drainTo(group);
+                StringBuilder sb = new StringBuilder();
+                int done = 0;
+                for (JournalWrite write : group) {
+                    for (String line : write.lines()) {
+                        sb.append(line).append('\n');
+                        if (line.startsWith(DONE)) done++;
+                    }
+                }
+
+                journalLock.lock();
+                try {
+                    writeAndForce(StandardCharsets.UTF_8.encode(sb.toString()));
+                    group.forEach(write -> write.written().complete(null));
+
+                    doneSinceCompaction += done;
+                    if (doneSinceCompaction >= deletionConfig.getCompactAfter()) {
+                        compactJournal();
+                    }
+                } finally {
+                    journalLock.unlock();
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.error("Could not write {} deletion journal entries: {}", group.size(), e.getMessage());
+                group.forEach(write -> write.written().completeExceptionally(e));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    // Va chiamato con journalLock acquisito
+    private void writeAndForce(ByteBuffer buffer) throws IOException {
+        FileChannel channel = openJournal();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    private void replayJournal() throws IOException {
+        if (journalPath.getParent() != null) {
+            Files.createDirectories(journalPath.getParent());
+        }
+
+        Set<String> outstanding = new LinkedHashSet<>();
+        Set<String> intended = new LinkedHashSet<>();
+        if (Files.exists(journalPath)) {
+            try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    // Una riga troncata da un crash durante la scrittura viene ignorata
+                    if (line.startsWith(INTENT)) {
+                        intended.add(line.substring(INTENT.length()));
+                    } else if (line.startsWith(ENQUEUED)) {
+                        String filename = line.substring(ENQUEUED.length());
+                        intended.remove(filename);
+                        outstanding.add(filename);
+                    } else if (line.startsWith(DONE)) {
+                        String filename = line.substring(DONE.length());
+                        intended.remove(filename);
+                        outstanding.remove(filename);
+                    }
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        pending.addAll(outstanding);
+        queue.addAll(outstanding);
+        unresolved.addAll(intended);
+        journalLock.lock();
+        try {
+            compactJournal();
+        } finally {
+            journalLock.unlock();
+        }
+        if (!outstanding.isEmpty() || !intended.isEmpty()) {
+            logger.info("Replayed {} pending file deletions and {} unresolved intents from journal",
+                    outstanding.size(), intended.size());
+        }
+    }
+
+    // Riscrive il journal con le sole voci ancora aperte; va chiamato con journalLock acquisito
+    private void compactJournal() throws IOException {
+        if (journalPath == null) return;
+
+        Path tmp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+        List<String> lines = new ArrayList<>(pending.size());
+        for (String filename : pending) {
+            lines.add(ENQUEUED + filename);
+        }
+        for (String filename : intents) {
+            lines.add(INTENT + filename);
+        }
+        for (String filename : unresolved) {
+            lines.add(INTENT + filename);
+        }
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = StandardCharsets.UTF_8.encode(lines.isEmpty() ? "" : String.join("\n", lines) + "\n");
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        closeJournal();
+        Files.move(tmp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        doneSinceCompaction = 0;
+        logger.debug("Deletion journal compacted to {} entries", lines.size());
+    }
+
+    private FileChannel openJournal() throws IOException {
+        if (journal == null || !journal.isOpen()) {
+            journal = FileChannel.open(journalPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return journal;
+    }
+
+    private void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.warn("Error closing deletion journal: {}", e.getMessage());
+        }
+        journal = null;
+    }
+
+    private record JournalWrite(List<String> lines, CompletableFuture<Void> written) {
+    }
+}
@@ -0,0 +1,352 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.ScrubberConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.dto.IntegrityMismatchDto;
+import com.example.videoapp.dto.ScrubberStatusDto;
+import com.example.videoapp.repository.VideoRepository;
+import com.example.videoapp.service.IntegrityScrubberService;
+import com.example.videoapp.service.StorageService;
+import com.example.videoapp.util.RateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Scrubber di integrità: rilegge in sequenza i file di tutti i video con buffer diretti di grandi
+ * dimensioni, entro un budget di MB/s, e confronta dimensione e CRC-32 con quelli salvati al caricamento.
+ * Il punto raggiunto viene salvato periodicamente, così dopo un riavvio la passata riprende da lì.
+ */
+@Service
+public class IntegrityScrubberServiceImpl implements IntegrityScrubberService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IntegrityScrubberServiceImpl.class);
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    @Autowired
+    private ScrubberConfiguration scrubberConfig;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    private final Map<Long, IntegrityMismatchDto> mismatches = new ConcurrentHashMap<>();
+
+    private Progress progress = new Progress();
+    // ReentrantLock e non synchronized: saveProgress scrive su disco tenendo il lock
+    private final ReentrantLock progressLock = new ReentrantLock();
+    private RateLimiter rateLimiter;
+    private Counter verifiedCounter;
+    private Counter mismatchCounter;
+    private Counter bytesCounter;
+    private final AtomicLong filesVerified = new AtomicLong();
+    private final AtomicLong bytesVerified = new AtomicLong();
+    private long lastSavedAt;
+    private volatile boolean running = true;
+    private Thread worker;
+
+    @PostConstruct
+    public void init() {
+        // Il limitatore lavora in byte: ogni lettura consuma tanti permessi quanti byte letti
+        rateLimiter = new RateLimiter(scrubberConfig.getMaxMbPerSecond() * BYTES_PER_MB);
+
+        verifiedCounter = meterRegistry.counter("videoapp.scrubber.files.verified");
+        mismatchCounter = meterRegistry.counter("videoapp.scrubber.mismatches.detected");
+        bytesCounter = meterRegistry.counter("videoapp.scrubber.bytes.read");
+        meterRegistry.gaugeMapSize("videoapp.scrubber.mismatches.open", List.of(), mismatches);
+
+        loadProgress();
+
+        if (scrubberConfig.isEnabled()) {
+            worker = workerThreads.newThread("integrity-scrubber", this::scrubLoop);
+            // Ignorata sui virtual thread: lì il carico resta limitato solo dal rate limiter
+            worker.setPriority(Thread.MIN_PRIORITY);
+            worker.start();
+        }
+    }
+
+    @Override
+    public ScrubberStatusDto getStatus() {
+        ScrubberStatusDto status = new ScrubberStatusDto();
+        status.setEnabled(scrubberConfig.isEnabled());
+        progressLock.lock();
+        try {
+            status.setLastVideoId(progress.lastVideoId);
+            status.setPassStartedAt(progress.passStartedAt);
+            status.setLastPassCompletedAt(progress.lastPassCompletedAt);
+        } finally {
+            progressLock.unlock();
+        }
+        status.setFilesVerified(filesVerified.get());
+        status.setBytesVerified(bytesVerified.get());
+        List<IntegrityMismatchDto> list = new ArrayList<>(mismatches.values());
+        list.sort(Comparator.comparing(IntegrityMismatchDto::getVideoId));
+        status.setMismatches(list);
+        return status;
+    }
+
+    @Override
+    public IntegrityMismatchDto verify(Long videoId) {
+        VideoRepository.VideoChecksumRef ref = videoRepository.findChecksumRefById(videoId)
+                .orElseThrow(() -> new NoSuchElementException("Video con id " + videoId + " non trovato"));
+        if (ref.getFilePath() == null) {
+            throw new IllegalArgumentException("Il video non ha un file associato");
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(scrubberConfig.getBufferSizeKb() * 1024);
+            return check(ref, buffer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Verifica interrotta", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        saveProgress();
+    }
+
+    private void scrubLoop() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(scrubberConfig.getBufferSizeKb() * 1024);
+        int batchSize = Math.max(1, scrubberConfig.getBatchSize());
+
+        while (running) {
+            try {
+                long wait = nextPassDelay();
+                if (wait > 0) {
+                    Thread.sleep(Math.min(wait, TimeUnit.MINUTES.toMillis(1)));
+                    continue;
+                }
+
+                List<VideoRepository.VideoChecksumRef> batch =
+                        videoRepository.findChecksumRefsAfter(progress.lastVideoId, PageRequest.of(0, batchSize));
+                for (VideoRepository.VideoChecksumRef ref : batch) {
+                    check(ref, buffer);
+                    progressLock.lock();
+                    try {
+                        progress.lastVideoId = ref.getId();
+                    } finally {
+                        progressLock.unlock();
+                    }
+                    saveProgressIfDue();
+                }
+
+                if (batch.size() < batchSize) {
+                    completePass();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Integrity scrubber error: {}", e.getMessage());
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private long nextPassDelay() {
+        progressLock.lock();
+        try {
+            if (progress.lastVideoId > 0) {
+                return 0;
+            }
+            long wait = progress.lastPassCompletedAt + scrubberConfig.getPassIntervalMs() - System.currentTimeMillis();
+            if (wait <= 0 && progress.passStartedAt <= progress.lastPassCompletedAt) {
+                progress.passStartedAt = System.currentTimeMillis();
+                logger.info("Integrity scrub pass started");
+            }
+            return wait;
+        } finally {
+            progressLock.unlock();
+        }
+    }
+
+    private void completePass() {
+        // Le anomalie di video eliminati nel frattempo non sono più rilevanti
+        if (!mismatches.isEmpty()) {
+            Set<Long> existing = new HashSet<>(videoRepository.findExistingIds(mismatches.keySet()));
+            mismatches.keySet().retainAll(existing);
+        }
+        progressLock.lock();
+        try {
+            progress.lastVideoId = 0;
+            progress.lastPassCompletedAt = System.currentTimeMillis();
+        } finally {
+            progressLock.unlock();
+        }
+        saveProgress();
+        logger.info("Integrity scrub pass completed: {} files, {} MB verified, {} open mismatches",
+                filesVerified.get(), bytesVerified.get() / BYTES_PER_MB, mismatches.size());
+    }
+
+    private IntegrityMismatchDto check(VideoRepository.VideoChecksumRef ref, ByteBuffer buffer)
+            throws InterruptedException {
+        CRC32 crc = new CRC32();
+        long size = 0;
+        IntegrityMismatchDto mismatch = null;
+
+        // Letta dall'origine: una copia in cache può essere integra anche se il file originale non lo è
+        try (SeekableByteChannel channel = storageService.openOriginChannel(ref.getFilePath())) {
+            buffer.clear();
+            int read;
+            while ((read = channel.read(buffer)) != -1) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+                size += read;
+                bytesCounter.increment(read);
+                rateLimiter.acquire(read);
+            }
+        } catch (ClosedByInterruptException e) {
+            // Interruzione allo spegnimento, non un errore del file
+            throw new InterruptedException("Scrub interrupted");
+        } catch (NoSuchFileException e) {
+            mismatch = new IntegrityMismatchDto(ref.getId(), ref.getFilePath(), IntegrityMismatchDto.Type.MISSING);
+        } catch (IOException e) {
+            mismatch = new IntegrityMismatchDto(ref.getId(), ref.getFilePath(), IntegrityMismatchDto.Type.UNREADABLE);
+        }
+
+        filesVerified.incrementAndGet();
+        bytesVerified.addAndGet(size);
+        verifiedCounter.increment();
+
+        if (mismatch == null && ref.getChecksum() == null) {
+            // Video caricato prima dei checksum: il valore letto diventa quello di riferimento
+            videoRepository.backfillChecksum(ref.getId(), ref.getFilePath(), crc.getValue(), size);
+            mismatches.remove(ref.getId());
+            return null;
+        }
+
+        if (mismatch == null && ref.getFileSize() != null && ref.getFileSize() != size) {
+            mismatch = new IntegrityMismatchDto(ref.getId(), ref.getFilePath(), IntegrityMismatchDto.Type.SIZE);
+        } else if (mismatch == null && ref.getChecksum() != crc.getValue()) {
+            mismatch = new IntegrityMismatchDto(ref.getId(), ref.getFilePath(), IntegrityMismatchDto.Type.CHECKSUM);
+        }
+
+        if (mismatch == null) {
+            mismatches.remove(ref.getId());
+            return null;
+        }
+
+        // Il file può essere stato sostituito durante la lettura: si segnala solo se il riferimento è invariato
+        Optional<VideoRepository.VideoChecksumRef> current = videoRepository.findChecksumRefById(ref.getId());
+        if (current.isEmpty() || !Objects.equals(current.get().getFilePath(), ref.getFilePath())) {
+            return null;
+        }
+
+        mismatch.setExpectedSize(ref.getFileSize());
+        mismatch.setExpectedChecksum(ref.getChecksum());
+        if (mismatch.getType() == IntegrityMismatchDto.Type.SIZE || mismatch.getType() == IntegrityMismatchDto.Type.CHECKSUM) {
+            mismatch.setActualSize(size);
+            mismatch.setActualChecksum(crc.getValue());
+        }
+        if (mismatches.put(ref.getId(), mismatch) == null) {
+            mismatchCounter.increment();
+        }
+        logger.error("Integrity mismatch ({}) for video ID {} file {}", mismatch.getType(), ref.getId(), ref.getFilePath());
+        return mismatch;
+    }
+
+    private Path progressPath() {
+        String file = scrubberConfig.getProgressFile();
+        return StringUtils.hasText(file) ? Paths.get(file) : null;
+    }
+
+    private void saveProgressIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastSavedAt >= scrubberConfig.getProgressSaveIntervalMs()) {
+            saveProgress();
+        }
+    }
+
+    private void saveProgress() {
+        Path path = progressPath();
+        if (path == null) return;
+
+        progressLock.lock();
+        try {
+            progress.mismatches = new ArrayList<>(mismatches.values());
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            objectMapper.writeValue(tmp.toFile(), progress);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lastSavedAt = System.currentTimeMillis();
+        } catch (IOException e) {
+            logger.error("Failed to write scrubber progress {}: {}", path, e.getMessage());
+        } finally {
+            progressLock.unlock();
+        }
+    }
+
+    private void loadProgress() {
+        Path path = progressPath();
+        if (path == null || !Files.exists(path)) return;
+
+        try {
+            progress = objectMapper.readValue(path.toFile(), Progress.class);
+            for (IntegrityMismatchDto mismatch : progress.mismatches) {
+                mismatches.put(mismatch.getVideoId(), mismatch);
+            }
+            logger.info("Integrity scrubber resuming after video ID {} ({} open mismatches)",
+                    progress.lastVideoId, mismatches.size());
+        } catch (IOException e) {
+            logger.warn("Could not load scrubber progress {}: {}", path, e.getMessage());
+        }
+    }
+
+    static class Progress {
+        public long lastVideoId;
+        public long passStartedAt;
+        public long lastPassCompletedAt;
+        public List<IntegrityMismatchDto> mismatches = new ArrayList<>();
+    }
+}
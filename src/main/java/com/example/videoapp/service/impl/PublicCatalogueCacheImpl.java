@@ -0,0 +1,225 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.CatalogueCacheConfiguration;
+import com.example.videoapp.converter.VideoListJsonWriter;
+import com.example.videoapp.model.Video;
+import com.example.videoapp.service.PublicCatalogueCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache delle pagine del catalogo pubblico già serializzate in JSON (e opzionalmente compresse).
+ * Solo le prime maxCachedPage pagine vengono tenute in memoria, al più maxEntries voci di cui al più
+ * maxCursorEntries con cursore: il cursore lo sceglie il client, quindi quelle voci hanno una quota propria.
+ * A quota piena una nuova voce espelle quella che ha servito meno richieste, così le pagine più
+ * richieste restano in cache anche quando arrivano molti cursori diversi.
+ * Le voci non scadono, quindi il caricamento che le riempie legge dal primario: dopo l'invalidazione
+ * che segue una scrittura, una replica in ritardo rimetterebbe in cache la pagina vecchia a tempo indeterminato.
+ */
+@Service
+public class PublicCatalogueCacheImpl implements PublicCatalogueCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PublicCatalogueCacheImpl.class);
+
+    @Autowired
+    private CatalogueCacheConfiguration cacheConfig;
+
+    @Autowired
+    private VideoListJsonWriter videoListJsonWriter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<PageKey, CompletableFuture<Entry>> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public CachedPage getPage(int page, int size, Long afterId, Supplier<Slice<Video>> loader) {
+        boolean cursorMode = afterId != null;
+        PageKey key = new PageKey(cursorMode ? 0 : page, size, afterId);
+
+        CompletableFuture<Entry> future = entries.get(key);
+        if (future == null && !admit(key)) {
+            return serialize(loader.get(), cursorMode).page;
+        }
+        if (future == null) {
+            CompletableFuture<Entry> created = new CompletableFuture<>();
+            future = entries.putIfAbsent(key, created);
+            if (future == null) {
+                // Questa richiesta carica la pagina, le altre concorrenti attendono lo stesso risultato
+                future = created;
+                try {
+                    // Transazione di scrittura perché il routing la mandi al primario; quella in sola lettura
+                    // del loader vi partecipa
+                    created.complete(serialize(transactionTemplate.execute(status -> loader.get()), cursorMode));
+                } catch (RuntimeException e) {
+                    entries.remove(key, created);
+                    created.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+
+        try {
+            Entry entry = future.join();
+            entry.hits.increment();
+            return entry.page;
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    @Override
+    public void invalidateVideo(Long videoId) {
+        entries.entrySet().removeIf(e -> {
+            CompletableFuture<Entry> future = e.getValue();
+            // Un caricamento in corso potrebbe già contenere il valore vecchio
+            return !future.isDone() || future.isCompletedExceptionally() || future.join().contains(videoId);
+        });
+    }
+
+    @Override
+    public void invalidateAll() {
+        entries.clear();
+        logger.debug("Public catalogue cache invalidated");
+    }
+
+    @Override
+    public List<PageRef> hotPages(int limit) {
+        List<Map.Entry<PageKey, Entry>> loaded = new ArrayList<>();
+        entries.forEach((key, future) -> {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                loaded.add(Map.entry(key, future.join()));
+            }
+        });
+        return loaded.stream()
+                .sorted(Comparator.comparingLong((Map.Entry<PageKey, Entry> e) -> e.getValue().hits.sum()).reversed())
+                .limit(limit)
+                .map(e -> new PageRef(e.getKey().page, e.getKey().size, e.getKey().afterId))
+                .toList();
+    }
+
+    /**
+     * Fa posto alla nuova voce espellendo la meno richiesta (tra quelle con cursore se la nuova ha un cursore);
+     * le voci ancora in caricamento non vengono espulse. Con richieste concorrenti i limiti sono approssimati.
+     */
+    private boolean admit(PageKey key) {
+        if (!cacheConfig.isEnabled() || key.page > cacheConfig.getMaxCachedPage()) {
+            return false;
+        }
+        boolean cursor = key.afterId != null;
+        int cursorEntries = 0;
+        PageKey victim = null;
+        long victimHits = Long.MAX_VALUE;
+        for (Map.Entry<PageKey, CompletableFuture<Entry>> e : entries.entrySet()) {
+            boolean cursorEntry = e.getKey().afterId != null;
+            if (cursorEntry) cursorEntries++;
+            CompletableFuture<Entry> future = e.getValue();
+            if ((cursor && !cursorEntry) || !future.isDone() || future.isCompletedExceptionally()) continue;
+            long hits = future.join().hits.sum();
+            if (hits < victimHits) {
+                victim = e.getKey();
+                victimHits = hits;
+            }
+        }
+
+        boolean full = entries.size() >= cacheConfig.getMaxEntries()
+                || (cursor && cursorEntries >= cacheConfig.getMaxCursorEntries());
+        if (!full) return true;
+        if (victim == null) return false;
+        entries.remove(victim);
+        return true;
+    }
+
+    private Entry serialize(Slice<Video> slice, boolean cursorMode) {
+        try {
+            ByteArrayOutputStream json = new ByteArrayOutputStream(1024);
+            videoListJsonWriter.write(slice, cursorMode, json);
+            byte[] body = json.toByteArray();
+
+            byte[] gzipBody = null;
+            if (cacheConfig.isGzip()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                    gzip.write(body);
+                }
+                gzipBody = out.toByteArray();
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(body);
+
+            long[] ids = slice.getContent().stream()
+                    .map(Video::getId)
+                    .filter(Objects::nonNull)
+                    .mapToLong(Long::longValue)
+                    .toArray();
+
+            return new Entry(new CachedPage(body, gzipBody, Long.toHexString(crc.getValue()) + "-" + body.length), ids);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class Entry {
+        final CachedPage page;
+        final long[] videoIds;
+        final LongAdder hits = new LongAdder();
+
+        Entry(CachedPage page, long[] videoIds) {
+            this.page = page;
+            this.videoIds = videoIds;
+        }
+
+        boolean contains(Long videoId) {
+            for (long id : videoIds) {
+                if (id == videoId) return true;
+            }
+            return false;
+        }
+    }
+
+    private static class PageKey {
+        final int page;
+        final int size;
+        final Long afterId;
+
+        PageKey(int page, int size, Long afterId) {
+            this.page = page;
+            this.size = size;
+            this.afterId = afterId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PageKey)) return false;
+            PageKey other = (PageKey) o;
+            return page == other.page && size == other.size && Objects.equals(afterId, other.afterId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(page, size, afterId);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.ReadAheadConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.service.ChunkCache;
+import com.example.videoapp.service.ReadAheadService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+
+/**
+ * Read-ahead per (client, file): dopo alcune letture su segmenti consecutivi i segmenti successivi vengono
+ * caricati in background nella cache dei segmenti. La profondità segue la velocità con cui il client consuma
+ * i dati (abbastanza segmenti da coprire leadTimeMs di riproduzione), entro minDepth e maxDepth.
+ * Un salto di posizione o la disconnessione del client annullano i precaricamenti ancora in coda.
+ */
+@Service
+public class ReadAheadServiceImpl implements ReadAheadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadAheadServiceImpl.class);
+
+    // Peso dell'ultima misura nella media mobile esponenziale della velocità di consumo
+    private static final double RATE_SMOOTHING = 0.3;
+
+    @Autowired
+    private ReadAheadConfiguration readAheadConfig;
+
+    @Autowired
+    private ChunkCache chunkCache;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    private final Map<StreamKey, ReadStream> streams = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, readAheadConfig.getThreads());
+        // Coda limitata: se il disco non tiene il passo i precaricamenti in eccesso vengono scartati
+        executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, readAheadConfig.getQueueSize())),
+                workerThreads.factory("read-ahead"),
+                new ThreadPoolExecutor.DiscardPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void onRead(String clientKey, String filename, long position) {
+        if (!readAheadConfig.isEnabled() || clientKey == null || filename == null) return;
+
+        StreamKey key = new StreamKey(clientKey, filename);
+        ReadStream stream = streams.get(key);
+        if (stream == null) {
+            if (streams.size() >= readAheadConfig.getMaxStreams()) return;
+            stream = streams.computeIfAbsent(key, k -> new ReadStream());
+        }
+
+        List<Long> chunks;
+        int generation;
+        synchronized (stream) {
+            chunks = plan(stream, position / chunkCache.getChunkSize(), position, System.nanoTime());
+            generation = stream.generation;
+        }
+
+        ReadStream target = stream;
+        for (Long chunk : chunks) {
+            executor.execute(() -> prefetch(key, target, generation, chunk));
+        }
+    }
+
+    @Override
+    public void cancel(String clientKey, String filename) {
+        if (clientKey == null || filename == null) return;
+
+        ReadStream stream = streams.remove(new StreamKey(clientKey, filename));
+        if (stream != null) {
+            synchronized (stream) {
+                stream.generation++;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${videoapp.read-ahead.sweep-interval-ms:60000}")
+    public void evictIdleStreams() {
+        long cutoff = System.currentTimeMillis() - readAheadConfig.getIdleTimeoutMs();
+        streams.values().removeIf(stream -> stream.lastAccessMillis < cutoff);
+    }
+
+    // Va chiamato con il lock dello stream acquisito; restituisce i segmenti da precaricare
+    private List<Long> plan(ReadStream stream, long chunk, long position, long now) {
+        stream.lastAccessMillis = System.currentTimeMillis();
+
+        boolean sequential = stream.lastChunk >= 0
+                && (chunk == stream.lastChunk || chunk == stream.lastChunk + 1);
+        if (!sequential) {
+            if (stream.lastChunk >= 0) {
+                // Seek: i precaricamenti già in coda non servono più
+                stream.generation++;
+            }
+            stream.sequentialCount = 0;
+            stream.bytesPerSecond = 0;
+            stream.prefetchedUpTo = chunk;
+        } else {
+            if (chunk != stream.lastChunk) stream.sequentialCount++;
+            long elapsed = now - stream.lastNanos;
+            if (elapsed > 0 && position > stream.lastPosition) {
+                double sample = (position - stream.lastPosition) * 1e9 / elapsed;
+                stream.bytesPerSecond = stream.bytesPerSecond == 0 ? sample
+                        : (1 - RATE_SMOOTHING) * stream.bytesPerSecond + RATE_SMOOTHING * sample;
+            }
+        }
+        stream.lastChunk = chunk;
+        stream.lastPosition = position;
+        stream.lastNanos = now;
+
+        if (stream.sequentialCount < readAheadConfig.getSequentialThreshold()) return List.of();
+
+        long target = Math.min(chunk + depth(stream.bytesPerSecond), stream.endChunk - 1);
+        List<Long> chunks = new ArrayList<>();
+        for (long next = Math.max(stream.prefetchedUpTo, chunk) + 1; next <= target; next++) {
+            chunks.add(next);
+        }
+        stream.prefetchedUpTo = Math.max(stream.prefetchedUpTo, target);
+        return chunks;
+    }
+
+    private int depth(double bytesPerSecond) {
+        int minDepth = Math.max(1, readAheadConfig.getMinDepth());
+        int maxDepth = Math.max(minDepth, readAheadConfig.getMaxDepth());
+        if (bytesPerSecond <= 0) return minDepth;
+
+        double chunksAhead = bytesPerSecond * readAheadConfig.getLeadTimeMs() / 1000.0 / chunkCache.getChunkSize();
+        return (int) Math.max(minDepth, Math.min(maxDepth, Math.ceil(chunksAhead)));
+    }
+
+    private void prefetch(StreamKey key, ReadStream stream, int generation, long chunk) {
+        if (stream.generation != generation || streams.get(key) != stream) return;
+        if (chunkCache.isCached(key.filename, chunk)) return;
+
+        try {
+            // Basta caricarlo in cache: il riferimento si rilascia subito
+            chunkCache.acquire(key.filename, chunk).close();
+            logger.trace("Prefetched chunk {} of {}", chunk, key.filename);
+        } catch (EOFException e) {
+            // Fine del file: i segmenti successivi non vanno più richiesti
+            synchronized (stream) {
+                stream.endChunk = Math.min(stream.endChunk, chunk);
+            }
+        } catch (IOException e) {
+            logger.debug("Read-ahead of chunk {} of {} failed: {}", chunk, key.filename, e.getMessage());
+        }
+    }
+
+    private static final class StreamKey {
+        final String clientKey;
+        final String filename;
+
+        StreamKey(String clientKey, String filename) {
+            this.clientKey = clientKey;
+            this.filename = filename;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof StreamKey other)) return false;
+            return clientKey.equals(other.clientKey) && filename.equals(other.filename);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(clientKey, filename);
+        }
+    }
+
+    private static final class ReadStream {
+        long lastChunk = -1;
+        long lastPosition;
+        long lastNanos;
+        double bytesPerSecond;
+        int sequentialCount;
+        long prefetchedUpTo = -1;
+        long endChunk = Long.MAX_VALUE;
+        volatile int generation;
+        volatile long lastAccessMillis = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.ReconciliationConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.dto.ReconciliationReportDto;
+import com.example.videoapp.repository.VideoRepository;
+import com.example.videoapp.service.ReconciliationService;
+import com.example.videoapp.service.StorageService;
+import com.example.videoapp.util.RateLimiter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Riconciliazione tra upload directory e tabella video: trova i file senza riga (orfani) e le righe
+ * il cui file non esiste più. File e righe vengono letti in streaming a blocchi di dimensione fissa,
+ * verificati in parallelo con un numero limitato di blocchi in volo, quindi la memoria usata non
+ * dipende dalla dimensione del catalogo. Le verifiche sono limitate in frequenza per non pesare sul traffico.
+ */
+@Service
+public class ReconciliationServiceImpl implements ReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliationServiceImpl.class);
+
+    @Autowired
+    private ReconciliationConfiguration reconciliationConfig;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ExecutorService launcher;
+
+    private volatile Run currentRun;
+
+    @PostConstruct
+    public void init() {
+        launcher = Executors.newSingleThreadExecutor(workerThreads.factory("reconciliation"));
+    }
+
+    @Override
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Run run = newRun();
+        launcher.execute(() -> execute(run));
+        return true;
+    }
+
+    @Override
+    public ReconciliationReportDto reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Reconciliation already in progress, skipping");
+            return getLastReport();
+        }
+        return execute(newRun());
+    }
+
+    @Override
+    public ReconciliationReportDto getLastReport() {
+        Run run = currentRun;
+        return run != null ? run.toDto() : null;
+    }
+
+    @Scheduled(fixedDelayString = "${videoapp.reconciliation.interval-ms:86400000}",
+               initialDelayString = "${videoapp.reconciliation.initial-delay-ms:600000}")
+    public void scheduledReconcile() {
+        // Eseguita sul proprio thread per non bloccare lo scheduler condiviso con i flush periodici
+        if (reconciliationConfig.isEnabled()) {
+            start();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        launcher.shutdownNow();
+    }
+
+    private Run newRun() {
+        Run run = new Run(reconciliationConfig.getMaxReportedItems());
+        currentRun = run;
+        return run;
+    }
+
+    private ReconciliationReportDto execute(Run run) {
+        logger.info("Reconciliation started (quarantine orphans: {})", reconciliationConfig.isQuarantineOrphans());
+
+        int parallelism = Math.max(1, reconciliationConfig.getParallelism());
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, workerThreads.factory("reconciliation-worker"));
+        // Al massimo due blocchi in attesa per worker: il lettore si ferma finché non si libera un posto
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        RateLimiter rateLimiter = new RateLimiter(reconciliationConfig.getMaxChecksPerSecond());
+
+        try {
+            scanFiles(run, workers, inFlight, rateLimiter);
+            scanRows(run, workers, inFlight, rateLimiter);
+            workers.shutdown();
+            while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.debug("Waiting for reconciliation workers to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.error = "Riconciliazione interrotta";
+        } catch (Exception e) {
+            logger.error("Reconciliation failed: {}", e.getMessage(), e);
+            run.error = e.getMessage();
+        } finally {
+            workers.shutdownNow();
+            run.finishedAt = Instant.now();
+            running.set(false);
+        }
+
+        logger.info("Reconciliation finished: {} files scanned, {} orphans ({} quarantined), {} rows scanned, {} broken rows",
+                run.filesScanned, run.orphanFiles, run.quarantinedFiles, run.rowsScanned, run.brokenRows);
+        return run.toDto();
+    }
+
+    private void scanFiles(Run run, ExecutorService workers, Semaphore inFlight, RateLimiter rateLimiter)
+            throws IOException, InterruptedException {
+        int batchSize = Math.max(1, reconciliationConfig.getBatchSize());
+        long cutoff = System.currentTimeMillis() - reconciliationConfig.getOrphanGraceMs();
+
+        // L'elenco è una sola sequenza (directory piatta, pagine di chiavi S3, elenco di un nodo) e lo scorre
+        // questo thread; in parallelo vanno le verifiche dei blocchi, cioè le query e gli stat che costano
+        try (Stream<String> files = storageService.listFiles()) {
+            Iterator<String> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                List<String> batch = new ArrayList<>(batchSize);
+                while (iterator.hasNext() && batch.size() < batchSize) {
+                    batch.add(iterator.next());
+                }
+                submit(workers, inFlight, run, () -> checkFiles(batch, cutoff, run, rateLimiter));
+            }
+        }
+    }
+
+    private void scanRows(Run run, ExecutorService workers, Semaphore inFlight, RateLimiter rateLimiter)
+            throws InterruptedException {
+        int batchSize = Math.max(1, reconciliationConfig.getBatchSize());
+        Long afterId = 0L;
+
+        // Paginazione keyset sull'id: ogni blocco costa una sola query indicizzata
+        while (true) {
+            List<VideoRepository.VideoFileRef> batch =
+                    videoRepository.findFileRefsAfter(afterId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) break;
+
+            afterId = batch.get(batch.size() - 1).getId();
+            submit(workers, inFlight, run, () -> checkRows(batch, run, rateLimiter));
+            if (batch.size() < batchSize) break;
+        }
+    }
+
+    private void submit(ExecutorService workers, Semaphore inFlight, Run run, Callable<Void> task)
+            throws InterruptedException {
+        inFlight.acquire();
+        workers.execute(() -> {
+            try {
+                task.call();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error("Reconciliation batch failed: {}", e.getMessage());
+                run.error = e.getMessage();
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private Void checkFiles(List<String> filenames, long cutoff, Run run, RateLimiter rateLimiter)
+            throws InterruptedException {
+        rateLimiter.acquire(filenames.size());
+        run.filesScanned.addAndGet(filenames.size());
+
+        Set<String> referenced = new HashSet<>(videoRepository.findExistingFilePaths(filenames));
+        for (String filename : filenames) {
+            if (referenced.contains(filename)) continue;
+
+            // I file appena caricati possono non avere ancora la riga committata
+            try {
+                if (storageService.getLastModified(filename).toEpochMilli() > cutoff) continue;
+            } catch (NoSuchFileException e) {
+                continue;
+            } catch (IOException e) {
+                logger.warn("Could not stat {} during reconciliation: {}", filename, e.getMessage());
+                continue;
+            }
+
+            run.orphanFiles.incrementAndGet();
+            run.addOrphan(filename);
+            if (!reconciliationConfig.isQuarantineOrphans()) {
+                logger.warn("Orphan file found: {}", filename);
+                continue;
+            }
+            try {
+                storageService.quarantine(filename);
+                run.quarantinedFiles.incrementAndGet();
+            } catch (IOException e) {
+                logger.error("Could not quarantine orphan file {}: {}", filename, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private Void checkRows(List<VideoRepository.VideoFileRef> refs, Run run, RateLimiter rateLimiter)
+            throws InterruptedException {
+        rateLimiter.acquire(refs.size());
+        run.rowsScanned.addAndGet(refs.size());
+
+        for (VideoRepository.VideoFileRef ref : refs) {
+            if (!storageService.exists(ref.getFilePath())) {
+                run.brokenRows.incrementAndGet();
+                run.addBrokenRow(ref.getId());
+                logger.warn("Video ID {} references missing file: {}", ref.getId(), ref.getFilePath());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stato di un'esecuzione: contatori completi, ma solo un campione limitato di file e righe segnalati
+     */
+    private static class Run {
+        final Instant startedAt = Instant.now();
+        final int maxReportedItems;
+        final AtomicLong filesScanned = new AtomicLong();
+        final AtomicLong orphanFiles = new AtomicLong();
+        final AtomicLong quarantinedFiles = new AtomicLong();
+        final AtomicLong rowsScanned = new AtomicLong();
+        final AtomicLong brokenRows = new AtomicLong();
+        final List<String> orphanSample = new ArrayList<>();
+        final List<Long> brokenRowSample = new ArrayList<>();
+        volatile Instant finishedAt;
+        volatile String error;
+
+        Run(int maxReportedItems) {
+            this.maxReportedItems = maxReportedItems;
+        }
+
+        synchronized void addOrphan(String filename) {
+            if (orphanSample.size() < maxReportedItems) orphanSample.add(filename);
+        }
+
+        synchronized void addBrokenRow(Long videoId) {
+            if (brokenRowSample.size() < maxReportedItems) brokenRowSample.add(videoId);
+        }
+
+        synchronized ReconciliationReportDto toDto() {
+            ReconciliationReportDto dto = new ReconciliationReportDto();
+            dto.setRunning(finishedAt == null);
+            dto.setStartedAt(startedAt);
+            dto.setFinishedAt(finishedAt);
+            dto.setFilesScanned(filesScanned.get());
+            dto.setOrphanFiles(orphanFiles.get());
+            dto.setQuarantinedFiles(quarantinedFiles.get());
+            dto.setRowsScanned(rowsScanned.get());
+            dto.setBrokenRows(brokenRows.get());
+            dto.setOrphanSample(new ArrayList<>(orphanSample));
+            dto.setBrokenRowSample(new ArrayList<>(brokenRowSample));
+            dto.setError(error);
+            return dto;
+        }
+    }
+}
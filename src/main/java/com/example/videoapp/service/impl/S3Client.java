@@ -0,0 +1,492 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.S3StorageConfiguration;
+import com.example.videoapp.exception.QuotaExceededException;
+import com.example.videoapp.service.StoredFile;
+import com.example.videoapp.util.AwsV4Signer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Client minimale per object store compatibili S3 (AWS, MinIO, Ceph RGW...) basato su java.net.http.
+ * Un solo HttpClient condiviso riusa le connessioni keep-alive; le richieste fallite per errori di rete,
+ * 429 o 5xx vengono ritentate con backoff esponenziale e jitter completo. I caricamenti grandi usano
+ * multipart upload con un numero limitato di parti in volo, le letture usano GET con Range.
+ */
+public class S3Client implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3Client.class);
+
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME;
+
+    /**
+     * Metadati di un oggetto restituiti da HEAD
+     */
+    public static final class ObjectInfo {
+        private final long size;
+        private final Instant lastModified;
+        private final String contentType;
+        private final String etag;
+
+        public ObjectInfo(long size, Instant lastModified, String contentType, String etag) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+            this.etag = etag;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public Instant getLastModified() {
+            return lastModified;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+
+    /**
+     * L'oggetto è stato sostituito dopo la lettura dei metadati (If-Match fallito)
+     */
+    public static final class ObjectChangedException extends IOException {
+        public ObjectChangedException(String key) {
+            super("L'oggetto " + key + " è cambiato durante la lettura");
+        }
+    }
+
+    private final S3StorageConfiguration config;
+    private final ExecutorService uploadExecutor;
+    private final HttpClient httpClient;
+    private final AwsV4Signer signer;
+    private final URI endpoint;
+    private final int partSize;
+
+    public S3Client(S3StorageConfiguration config, ExecutorService uploadExecutor) {
+        this.config = config;
+        this.uploadExecutor = uploadExecutor;
+        this.endpoint = URI.create(config.getEndpoint().replaceAll("/+$", ""));
+        this.partSize = (int) Math.max(MIN_PART_SIZE, config.getPartSizeMb() * 1024L * 1024L);
+        this.signer = new AwsV4Signer(config.getAccessKey(), config.getSecretKey(), config.getRegion(), "s3");
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(config.getConnectTimeoutMs()))
+                .build();
+    }
+
+    public void putObject(String key, byte[] data, int length, String contentType) throws IOException {
+        HttpResponse<byte[]> response = execute("PUT", key, null, Map.of("content-type", contentType),
+                data, length, HttpResponse.BodyHandlers.ofByteArray());
+        check(response, "PUT", key);
+    }
+
+    /**
+     * Carica lo stream calcolando CRC-32 e dimensione; oltre maxBytes il caricamento viene annullato
+     */
+    public StoredFile upload(String key, InputStream in, long maxBytes, String contentType) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] part = new byte[partSize];
+        int length = readFully(in, part);
+        long size = checkSize(length, maxBytes);
+        crc.update(part, 0, length);
+
+        // Gli oggetti più piccoli di una parte vanno in un'unica PUT
+        if (length < partSize) {
+            putObject(key, part, length, contentType);
+            return new StoredFile(key, size, crc.getValue());
+        }
+
+        String uploadId = initiateMultipart(key, contentType);
+        // Ogni parte in volo tiene un buffer: il semaforo limita insieme concorrenza e memoria
+        Semaphore slots = new Semaphore(Math.max(1, config.getUploadConcurrency()));
+        List<CompletableFuture<String>> etags = new ArrayList<>();
+        try {
+            int partNumber = 1;
+            while (true) {
+                slots.acquire();
+                failFast(etags);
+                byte[] data = part;
+                int dataLength = length;
+                int number = partNumber;
+                etags.add(CompletableFuture
+                        .supplyAsync(() -> uploadPart(key, uploadId, number, data, dataLength), uploadExecutor)
+                        .whenComplete((etag, error) -> slots.release()));
+
+                part = new byte[partSize];
+                length = readFully(in, part);
+                if (length == 0) break;
+                size = checkSize(size + length, maxBytes);
+                crc.update(part, 0, length);
+                if (++partNumber > MAX_PARTS) {
+                    throw new IOException("Troppe parti per il multipart upload: aumentare part-size-mb");
+                }
+            }
+
+            List<String> completed = new ArrayList<>(etags.size());
+            for (CompletableFuture<String> etag : etags) {
+                completed.add(await(etag));
+            }
+            completeMultipart(key, uploadId, completed);
+            logger.debug("Multipart upload of {} completed in {} parts", key, completed.size());
+            return new StoredFile(key, size, crc.getValue());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abortMultipart(key, uploadId, etags);
+            throw new InterruptedIOException("Caricamento interrotto");
+        } catch (IOException | RuntimeException e) {
+            abortMultipart(key, uploadId, etags);
+            throw e;
+        }
+    }
+
+    public ObjectInfo head(String key) throws IOException {
+        HttpResponse<byte[]> response = execute("HEAD", key, null, Map.of(), null, 0,
+                HttpResponse.BodyHandlers.ofByteArray());
+        check(response, "HEAD", key);
+
+        HttpHeaders headers = response.headers();
+        long size = headers.firstValueAsLong("content-length").orElse(0);
+        Instant lastModified = headers.firstValue("last-modified")
+                .map(value -> ZonedDateTime.parse(value, HTTP_DATE).toInstant())
+                .orElse(Instant.EPOCH);
+        return new ObjectInfo(size, lastModified, headers.firstValue("content-type").orElse(null),
+                headers.firstValue("etag").orElse(null));
+    }
+
+    public byte[] getObject(String key) throws IOException {
+        HttpResponse<byte[]> response = execute("GET", key, null, Map.of(), null, 0,
+                HttpResponse.BodyHandlers.ofByteArray());
+        check(response, "GET", key);
+        return response.body();
+    }
+
+    /**
+     * Stream dei byte [start, endInclusive] dell'oggetto, senza scaricare il resto; con etag non null
+     * la lettura riesce solo se l'oggetto è ancora quello descritto da quei metadati
+     */
+    public InputStream getRange(String key, long start, long endInclusive, String etag) throws IOException {
+        Map<String, String> headers = etag != null
+                ? Map.of("range", "bytes=" + start + "-" + endInclusive, "if-match", etag)
+                : Map.of("range", "bytes=" + start + "-" + endInclusive);
+        HttpResponse<InputStream> response = execute("GET", key, null, headers, null, 0,
+                HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() == 412) {
+            discard(response);
+            throw new ObjectChangedException(key);
+        }
+        if (response.statusCode() != 206 && response.statusCode() != 200) {
+            try (InputStream body = response.body()) {
+                check(response.statusCode(), body.readAllBytes(), "GET", key);
+            }
+        }
+        InputStream body = response.body();
+        // Un server che ignora Range risponde 200 con l'oggetto intero: si salta fino all'inizio richiesto
+        if (response.statusCode() == 200 && start > 0) {
+            body.skipNBytes(start);
+        }
+        return body;
+    }
+
+    public void deleteObject(String key) throws IOException {
+        HttpResponse<byte[]> response = execute("DELETE", key, null, Map.of(), null, 0,
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 404) {
+            check(response, "DELETE", key);
+        }
+    }
+
+    /**
+     * Copia lato server (CopyObject, limitata dallo store a 5 GB per singola copia)
+     */
+    public void copyObject(String sourceKey, String targetKey) throws IOException {
+        String source = "/" + config.getBucket() + "/" + AwsV4Signer.uriEncode(sourceKey, true);
+        HttpResponse<byte[]> response = execute("PUT", targetKey, null, Map.of("x-amz-copy-source", source),
+                null, 0, HttpResponse.BodyHandlers.ofByteArray());
+        check(response, "COPY", sourceKey);
+    }
+
+    /**
+     * Chiavi con il prefisso indicato, lette pagina per pagina mentre lo stream viene consumato
+     */
+    public Stream<String> listKeys(String prefix) {
+        Iterator<String> iterator = new Iterator<>() {
+            private final Deque<String> page = new ArrayDeque<>();
+            private String continuationToken;
+            private boolean lastPage;
+
+            @Override
+            public boolean hasNext() {
+                while (page.isEmpty() && !lastPage) {
+                    fetch();
+                }
+                return !page.isEmpty();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return page.poll();
+            }
+
+            private void fetch() {
+                StringBuilder query = new StringBuilder("list-type=2&prefix=")
+                        .append(AwsV4Signer.uriEncode(prefix, false));
+                if (continuationToken != null) {
+                    query.append("&continuation-token=").append(AwsV4Signer.uriEncode(continuationToken, false));
+                }
+                try {
+                    HttpResponse<byte[]> response = execute("GET", null, query.toString(), Map.of(), null, 0,
+                            HttpResponse.BodyHandlers.ofByteArray());
+                    check(response, "LIST", prefix);
+                    Document document = parseXml(response.body());
+                    NodeList keys = document.getElementsByTagName("Key");
+                    for (int i = 0; i < keys.getLength(); i++) {
+                        page.add(keys.item(i).getTextContent());
+                    }
+                    continuationToken = text(document, "NextContinuationToken");
+                    lastPage = !"true".equals(text(document, "IsTruncated")) || continuationToken == null;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+    }
+
+    private String initiateMultipart(String key, String contentType) throws IOException {
+        HttpResponse<byte[]> response = execute("POST", key, "uploads=", Map.of("content-type", contentType),
+                null, 0, HttpResponse.BodyHandlers.ofByteArray());
+        check(response, "INITIATE", key);
+        String uploadId = text(parseXml(response.body()), "UploadId");
+        if (uploadId == null) {
+            throw new IOException("Risposta senza UploadId per " + key);
+        }
+        return uploadId;
+    }
+
+    private String uploadPart(String key, String uploadId, int partNumber, byte[] data, int length) {
+        String query = "partNumber=" + partNumber + "&uploadId=" + AwsV4Signer.uriEncode(uploadId, false);
+        try {
+            HttpResponse<byte[]> response = execute("PUT", key, query, Map.of(), data, length,
+                    HttpResponse.BodyHandlers.ofByteArray());
+            check(response, "UPLOAD PART " + partNumber, key);
+            return response.headers().firstValue("etag")
+                    .orElseThrow(() -> new IOException("Parte " + partNumber + " di " + key + " senza ETag"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void completeMultipart(String key, String uploadId, List<String> etags) throws IOException {
+        StringBuilder xml = new StringBuilder("<CompleteMultipartUpload>");
+        for (int i = 0; i < etags.size(); i++) {
+            xml.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                    .append(etags.get(i).replace("&", "&amp;").replace("\"", "&quot;"))
+                    .append("</ETag></Part>");
+        }
+        xml.append("</CompleteMultipartUpload>");
+        byte[] body = xml.toString().getBytes(StandardCharsets.UTF_8);
+
+        HttpResponse<byte[]> response = execute("POST", key, "uploadId=" + AwsV4Signer.uriEncode(uploadId, false),
+                Map.of("content-type", "application/xml"), body, body.length, HttpResponse.BodyHandlers.ofByteArray());
+        check(response, "COMPLETE", key);
+        // CompleteMultipartUpload può fallire con 200 e un documento <Error> nel corpo
+        if (new String(response.body(), StandardCharsets.UTF_8).contains("<Error>")) {
+            throw new IOException("Completamento del multipart upload di " + key + " fallito: " +
+                    new String(response.body(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private void abortMultipart(String key, String uploadId, List<CompletableFuture<String>> etags) {
+        // Le parti ancora in volo vanno lasciate finire, altrimenti ricreerebbero l'upload dopo l'abort
+        for (CompletableFuture<String> etag : etags) {
+            try {
+                etag.join();
+            } catch (CompletionException | CancellationException ignored) {
+                // l'errore è già stato gestito dal chiamante
+            }
+        }
+        try {
+            HttpResponse<byte[]> response = execute("DELETE", key,
+                    "uploadId=" + AwsV4Signer.uriEncode(uploadId, false), Map.of(), null, 0,
+                    HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 404) {
+                check(response, "ABORT", key);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not abort multipart upload {} of {}: {}", uploadId, key, e.getMessage());
+        }
+    }
+
+    private <T> HttpResponse<T> execute(String method, String key, String query, Map<String, String> headers,
+                                        byte[] body, int length, HttpResponse.BodyHandler<T> handler)
+            throws IOException {
+        URI uri = uri(key, query);
+        String payloadHash = body != null ? AwsV4Signer.sha256Hex(body, 0, length) : AwsV4Signer.EMPTY_PAYLOAD_SHA256;
+        int maxAttempts = Math.max(1, config.getMaxAttempts());
+
+        for (int attempt = 1; ; attempt++) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofMillis(config.getRequestTimeoutMs()))
+                    .method(method, body != null
+                            ? HttpRequest.BodyPublishers.ofByteArray(body, 0, length)
+                            : HttpRequest.BodyPublishers.noBody());
+            headers.forEach(builder::header);
+            signer.sign(method, uri, headers, payloadHash, Instant.now()).forEach(builder::header);
+
+            try {
+                HttpResponse<T> response = httpClient.send(builder.build(), handler);
+                if (!isRetryable(response.statusCode()) || attempt >= maxAttempts) {
+                    return response;
+                }
+                discard(response);
+                logger.debug("S3 {} {} returned HTTP {}, retrying (attempt {})", method, uri, response.statusCode(), attempt);
+            } catch (IOException e) {
+                if (attempt >= maxAttempts) throw e;
+                logger.debug("S3 {} {} failed: {}, retrying (attempt {})", method, uri, e.getMessage(), attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Richiesta S3 interrotta");
+            }
+            backoff(attempt);
+        }
+    }
+
+    // Jitter completo: attesa casuale tra 0 e il tetto esponenziale, così i client non ritentano in sincrono
+    private void backoff(int attempt) throws InterruptedIOException {
+        long cap = Math.min(config.getRetryMaxDelayMs(), config.getRetryBaseDelayMs() << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Richiesta S3 interrotta");
+        }
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 429 || status == 500 || status == 502 || status == 503 || status == 504;
+    }
+
+    private static void discard(HttpResponse<?> response) {
+        if (response.body() instanceof InputStream stream) {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+                // la connessione viene comunque scartata
+            }
+        }
+    }
+
+    private URI uri(String key, String query) {
+        StringBuilder sb = new StringBuilder(endpoint.toString())
+                .append('/').append(AwsV4Signer.uriEncode(config.getBucket(), false));
+        if (key != null) {
+            sb.append('/').append(AwsV4Signer.uriEncode(key, true));
+        }
+        if (query != null) {
+            sb.append('?').append(query);
+        }
+        return URI.create(sb.toString());
+    }
+
+    private static void check(HttpResponse<byte[]> response, String operation, String key) throws IOException {
+        check(response.statusCode(), response.body(), operation, key);
+    }
+
+    private static void check(int status, byte[] body, String operation, String key) throws IOException {
+        if (status >= 200 && status < 300) return;
+        if (status == 404) {
+            throw new NoSuchFileException("File not found: " + key);
+        }
+        String detail = body != null ? new String(body, 0, Math.min(body.length, 512), StandardCharsets.UTF_8) : "";
+        throw new IOException("S3 " + operation + " di " + key + " fallita con HTTP " + status + ": " + detail);
+    }
+
+    private static long checkSize(long size, long maxBytes) {
+        if (size > maxBytes) {
+            throw new QuotaExceededException("Il file supera lo spazio disponibile di " + maxBytes + " byte");
+        }
+        return size;
+    }
+
+    private static void failFast(List<CompletableFuture<String>> etags) throws IOException {
+        for (CompletableFuture<String> etag : etags) {
+            if (etag.isCompletedExceptionally()) {
+                await(etag);
+            }
+        }
+    }
+
+    private static String await(CompletableFuture<String> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException unchecked) throw unchecked.getCause();
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = in.read(buffer, total, buffer.length - total);
+            if (read < 0) break;
+            total += read;
+        }
+        return total;
+    }
+
+    private static Document parseXml(byte[] body) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setExpandEntityReferences(false);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            return builder.parse(new ByteArrayInputStream(body));
+        } catch (ParserConfigurationException | org.xml.sax.SAXException e) {
+            throw new IOException("Risposta XML non valida dallo storage S3", e);
+        }
+    }
+
+    private static String text(Document document, String tag) {
+        NodeList nodes = document.getElementsByTagName(tag);
+        return nodes.getLength() > 0 ? nodes.item(0).getTextContent() : null;
+    }
+}
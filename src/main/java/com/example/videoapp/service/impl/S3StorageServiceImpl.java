@@ -0,0 +1,224 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.S3StorageConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.service.StoredFile;
+import com.example.videoapp.util.RangedReadChannel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Storage su object store compatibile S3. I nomi dei file diventano chiavi sotto keyPrefix;
+ * le letture passano da GET con Range, quindi il servizio di un intervallo di byte (o di un blocco
+ * della chunk cache) non scarica mai l'oggetto intero. Dimensione ed ETag di ogni oggetto restano
+ * in memoria per metadataCacheTtlMs: le aperture successive non rifanno HEAD e le letture sono
+ * condizionate all'ETag, quindi un oggetto sostituito non viene mai letto con metadati vecchi.
+ * Non espone percorsi locali (non implementa LocalFileStorage).
+ */
+@Service
+@ConditionalOnProperty(name = "videoapp.storage.mode", havingValue = "s3")
+public class S3StorageServiceImpl extends AbstractStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3StorageServiceImpl.class);
+
+    private static final String QUARANTINE_PREFIX = ".quarantine/";
+
+    @Autowired
+    private S3StorageConfiguration s3Config;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    private final Map<String, CachedInfo> metadata = new ConcurrentHashMap<>();
+    private ExecutorService uploadExecutor;
+    private S3Client client;
+    private String keyPrefix;
+
+    @PostConstruct
+    @Override
+    public void init() throws IOException {
+        if (!StringUtils.hasText(s3Config.getEndpoint()) || !StringUtils.hasText(s3Config.getBucket())) {
+            throw new IOException("videoapp.storage.s3.endpoint and bucket are required in s3 mode");
+        }
+        if (!StringUtils.hasText(s3Config.getAccessKey()) || !StringUtils.hasText(s3Config.getSecretKey())) {
+            throw new IOException("videoapp.storage.s3.access-key and secret-key are required in s3 mode");
+        }
+
+        String prefix = s3Config.getKeyPrefix() != null ? s3Config.getKeyPrefix() : "";
+        keyPrefix = prefix.isEmpty() || prefix.endsWith("/") ? prefix : prefix + "/";
+        uploadExecutor = Executors.newCachedThreadPool(workerThreads.factory("s3-upload"));
+        client = new S3Client(s3Config, uploadExecutor);
+        logger.info("S3 storage initialized: bucket {} at {}, key prefix '{}'", s3Config.getBucket(),
+                s3Config.getEndpoint(), keyPrefix);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (client != null) {
+            client.close();
+        }
+        if (uploadExecutor != null) {
+            uploadExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public StoredFile store(MultipartFile file, long maxBytes) throws IOException {
+        validateFile(file);
+
+        String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
+        String uniqueFilename = generateUniqueFilename(originalFilename, getFileExtension(originalFilename));
+
+        try (InputStream in = file.getInputStream()) {
+            StoredFile stored = client.upload(key(uniqueFilename), in, maxBytes, contentTypeByExtension(uniqueFilename));
+            logger.info("File stored successfully in S3: {}", uniqueFilename);
+            return new StoredFile(uniqueFilename, stored.getSize(), stored.getChecksum());
+        } catch (IOException e) {
+            throw new IOException("Failed to store file: " + uniqueFilename, e);
+        }
+    }
+
+    @Override
+    public StoredFile storeAs(String filename, InputStream in, long maxBytes) throws IOException {
+        StoredFile stored = client.upload(key(filename), in, maxBytes, contentTypeByExtension(filename));
+        metadata.remove(key(filename));
+        return new StoredFile(filename, stored.getSize(), stored.getChecksum());
+    }
+
+    @Override
+    public byte[] loadFile(String filename) throws IOException {
+        return client.getObject(key(filename));
+    }
+
+    @Override
+    public SeekableByteChannel openChannel(String filename) throws IOException {
+        String key = key(filename);
+        CachedInfo cached = cachedInfo(key);
+        // Ogni finestra di lettura è un GET con Range condizionato all'ETag letto all'apertura
+        return new RangedReadChannel(key, cached.info.getSize(), s3Config.getMinReadWindowKb() * 1024L, (start, end) -> {
+            try {
+                return client.getRange(key, start, end, cached.info.getEtag());
+            } catch (S3Client.ObjectChangedException e) {
+                // Metadati superati: la prossima apertura rilegge dimensione ed ETag
+                metadata.remove(key, cached);
+                throw e;
+            }
+        });
+    }
+
+    @Override
+    public void deleteFile(String filename) throws IOException {
+        if (!StringUtils.hasText(filename)) {
+            return;
+        }
+        metadata.remove(key(filename));
+        client.deleteObject(key(filename));
+        logger.info("File deleted successfully from S3: {}", filename);
+    }
+
+    @Override
+    public boolean exists(String filename) {
+        if (!StringUtils.hasText(filename)) {
+            return false;
+        }
+        try {
+            // Sempre verificato sullo store: la riconciliazione decide in base a questa risposta
+            cache(key(filename), client.head(key(filename)));
+            return true;
+        } catch (NoSuchFileException | IllegalArgumentException e) {
+            return false;
+        } catch (IOException e) {
+            logger.warn("Could not check {} in S3: {}", filename, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public Stream<String> listFiles() {
+        // Solo le chiavi al primo livello sotto il prefisso: la quarantena e gli oggetti di altri servizi restano fuori
+        return client.listKeys(keyPrefix)
+                .map(key -> key.substring(keyPrefix.length()))
+                .filter(name -> !name.isEmpty() && !name.startsWith(".") && !name.contains("/"));
+    }
+
+    @Override
+    public long getFileSize(String filename) throws IOException {
+        return cachedInfo(key(filename)).info.getSize();
+    }
+
+    @Override
+    public Instant getLastModified(String filename) throws IOException {
+        return cachedInfo(key(filename)).info.getLastModified();
+    }
+
+    @Override
+    public void quarantine(String filename) throws IOException {
+        // Lo store non ha una rename: copia lato server e poi eliminazione dell'originale
+        metadata.remove(key(filename));
+        client.copyObject(key(filename), keyPrefix + QUARANTINE_PREFIX + filename);
+        client.deleteObject(key(filename));
+        logger.info("File moved to quarantine: {}", filename);
+    }
+
+    @Override
+    public String getContentType(String filename) throws IOException {
+        String contentType = cachedInfo(key(filename)).info.getContentType();
+        return StringUtils.hasText(contentType) && !"application/octet-stream".equals(contentType)
+                ? contentType : contentTypeByExtension(filename);
+    }
+
+    private CachedInfo cachedInfo(String key) throws IOException {
+        CachedInfo cached = metadata.get(key);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            return cached;
+        }
+        return cache(key, client.head(key));
+    }
+
+    private CachedInfo cache(String key, S3Client.ObjectInfo info) {
+        long now = System.currentTimeMillis();
+        CachedInfo cached = new CachedInfo(info, now + s3Config.getMetadataCacheTtlMs());
+        if (s3Config.getMetadataCacheTtlMs() <= 0) {
+            return cached;
+        }
+        if (metadata.size() >= s3Config.getMetadataCacheMaxEntries()) {
+            metadata.values().removeIf(entry -> entry.expiresAt <= now);
+        }
+        // Oltre il limite i metadati non vengono memorizzati: si torna a un HEAD per apertura
+        if (metadata.size() < s3Config.getMetadataCacheMaxEntries()) {
+            metadata.put(key, cached);
+        }
+        return cached;
+    }
+
+    private String key(String filename) {
+        if (!StringUtils.hasText(filename)) {
+            throw new IllegalArgumentException("Filename cannot be empty");
+        }
+        if (filename.contains("/") || filename.contains("\\") || filename.equals("..")) {
+            throw new IllegalArgumentException("Cannot access file outside upload directory");
+        }
+        return keyPrefix + filename;
+    }
+
+    private record CachedInfo(S3Client.ObjectInfo info, long expiresAt) {
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.util.RangedReadChannel;
+
+import java.io.*;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Client dell'API interna /internal/storage esposta da un nodo di storage (StorageNodeController).
+ * L'HttpClient è condiviso tra tutti i nodi e mantiene le connessioni keep-alive verso ciascuno.
+ */
+public class StorageNodeClient {
+
+    public static final String TOKEN_HEADER = "X-Storage-Node-Token";
+    public static final String CHECKSUM_HEADER = "X-Checksum-CRC32";
+
+    /**
+     * Metadati di un file su un nodo
+     */
+    public static final class FileInfo {
+        private final long size;
+        private final Instant lastModified;
+        private final String contentType;
+
+        public FileInfo(long size, Instant lastModified, String contentType) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public Instant getLastModified() {
+            return lastModified;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
+    private final String address;
+    private final HttpClient httpClient;
+    private final String token;
+    private final Duration requestTimeout;
+    private final long minReadWindow;
+
+    public StorageNodeClient(String address, HttpClient httpClient, String token, Duration requestTimeout,
+                             long minReadWindow) {
+        this.address = address.replaceAll("/+$", "");
+        this.httpClient = httpClient;
+        this.token = token;
+        this.requestTimeout = requestTimeout;
+        this.minReadWindow = minReadWindow;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * Controllo di salute asincrono: completa con false invece che con un'eccezione
+     */
+    public CompletableFuture<Boolean> ping(Duration timeout) {
+        HttpRequest request = request("/health").timeout(timeout).GET().build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> response.statusCode() == 200)
+                .exceptionally(error -> false);
+    }
+
+    public FileInfo head(String filename) throws IOException {
+        HttpResponse<Void> response = send(request(file(filename))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.discarding());
+        check(response.statusCode(), filename);
+
+        HttpHeaders headers = response.headers();
+        Instant lastModified = headers.firstValue("last-modified")
+                .map(value -> ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant())
+                .orElse(Instant.EPOCH);
+        return new FileInfo(headers.firstValueAsLong("content-length").orElse(0), lastModified,
+                headers.firstValue("content-type").orElse(null));
+    }
+
+    public InputStream get(String filename) throws IOException {
+        HttpResponse<InputStream> response = send(request(file(filename)).GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        return checkStream(response, filename);
+    }
+
+    public InputStream getRange(String filename, long start, long endInclusive) throws IOException {
+        HttpResponse<InputStream> response = send(request(file(filename))
+                .header("Range", "bytes=" + start + "-" + endInclusive).GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        InputStream body = checkStream(response, filename);
+        if (response.statusCode() == 200 && start > 0) {
+            body.skipNBytes(start);
+        }
+        return body;
+    }
+
+    public SeekableByteChannel openChannel(String filename) throws IOException {
+        return new RangedReadChannel(filename, head(filename).getSize(), minReadWindow,
+                (start, end) -> getRange(filename, start, end));
+    }
+
+    public void put(String filename, Path source) throws IOException {
+        HttpResponse<Void> response = send(request(file(filename))
+                .PUT(HttpRequest.BodyPublishers.ofFile(source)).build(), HttpResponse.BodyHandlers.discarding());
+        check(response.statusCode(), filename);
+    }
+
+    /**
+     * Carica uno stream di lunghezza nota (copie tra nodi senza passare dal disco locale)
+     */
+    public void put(String filename, InputStream source, long length) throws IOException {
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.fromPublisher(
+                HttpRequest.BodyPublishers.ofInputStream(() -> source), length);
+        HttpResponse<Void> response = send(request(file(filename)).PUT(body).build(),
+                HttpResponse.BodyHandlers.discarding());
+        check(response.statusCode(), filename);
+    }
+
+    public void delete(String filename) throws IOException {
+        HttpResponse<Void> response = send(request(file(filename)).DELETE().build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 404) {
+            check(response.statusCode(), filename);
+        }
+    }
+
+    public void quarantine(String filename) throws IOException {
+        HttpResponse<Void> response = send(request(file(filename) + "/quarantine")
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.discarding());
+        check(response.statusCode(), filename);
+    }
+
+    /**
+     * Nomi dei file del nodo, letti riga per riga dalla risposta; lo stream va chiuso
+     */
+    public Stream<String> listFiles() throws IOException {
+        HttpResponse<Stream<String>> response = send(request("/files").GET().build(),
+                HttpResponse.BodyHandlers.ofLines());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("Elenco dei file del nodo " + address + " fallito con HTTP " + response.statusCode());
+        }
+        return response.body().filter(line -> !line.isEmpty());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(address + "/internal/storage" + path))
+                .timeout(requestTimeout);
+        if (token != null) {
+            builder.header(TOKEN_HEADER, token);
+        }
+        return builder;
+    }
+
+    private static String file(String filename) {
+        return "/files/" + URLEncoder.encode(filename, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return httpClient.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Richiesta al nodo " + address + " interrotta");
+        }
+    }
+
+    private InputStream checkStream(HttpResponse<InputStream> response, String filename) throws IOException {
+        int status = response.statusCode();
+        if (status != 200 && status != 206) {
+            response.body().close();
+            check(status, filename);
+        }
+        return response.body();
+    }
+
+    private void check(int status, String filename) throws IOException {
+        if (status >= 200 && status < 300) return;
+        if (status == 404) {
+            throw new NoSuchFileException("File not found: " + filename);
+        }
+        throw new IOException("Il nodo " + address + " ha risposto HTTP " + status + " per " + filename);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.QuotaConfiguration;
+import com.example.videoapp.dto.UserUsageDto;
+import com.example.videoapp.exception.QuotaExceededException;
+import com.example.videoapp.service.StorageQuotaService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Quote di storage per utente basate su contatori incrementali: nessuna somma sulle righe video
+ * a ogni richiesta. Gli incrementi sono condizionati alla quota in un unico UPDATE, quindi due
+ * caricamenti concorrenti non possono superarla insieme.
+ */
+@Service
+public class StorageQuotaServiceImpl implements StorageQuotaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageQuotaServiceImpl.class);
+
+    // Se la riga manca ancora viene inizializzata con l'utilizzo reale dei video già presenti
+    private static final String SEED_SQL =
+            "INSERT IGNORE INTO user_storage_usage (user_id, bytes_used, video_count) " +
+            "SELECT ?, COALESCE(SUM(file_size), 0), COUNT(*) FROM video WHERE user_id = ?";
+
+    private static final String USAGE_SQL =
+            "SELECT bytes_used, video_count FROM user_storage_usage WHERE user_id = ?";
+
+    private static final String COMPUTE_SQL =
+            "SELECT COALESCE(SUM(file_size), 0), COUNT(*) FROM video WHERE user_id = ?";
+
+    // Blocca i contatori dell'intervallo: chi modifica i video di un utente aggiorna prima il suo contatore,
+    // quindi finché la riparazione tiene questi lock nessuna variazione concorrente può andare persa
+    private static final String LOCK_RANGE_SQL =
+            "SELECT user_id FROM user_storage_usage WHERE user_id BETWEEN ? AND ? FOR UPDATE";
+
+    private static final String REPAIR_SQL =
+            "INSERT INTO user_storage_usage (user_id, bytes_used, video_count) " +
+            "SELECT u.id, COALESCE(SUM(v.file_size), 0), COUNT(v.id) FROM user u " +
+            "LEFT JOIN video v ON v.user_id = u.id WHERE u.id BETWEEN ? AND ? GROUP BY u.id " +
+            "ON DUPLICATE KEY UPDATE bytes_used = VALUES(bytes_used), video_count = VALUES(video_count)";
+
+    @Autowired
+    private QuotaConfiguration quotaConfig;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void checkUpload(Long userId, long incomingBytes) {
+        long maxBytes = quotaConfig.getMaxBytesPerUser();
+        if (userId == null || maxBytes <= 0) return;
+
+        UserUsageDto usage = getUsage(userId);
+        if (usage.getBytesUsed() + incomingBytes > maxBytes) {
+            throw new QuotaExceededException("Quota di storage superata: utilizzati " + usage.getBytesUsed() +
+                    " byte su " + maxBytes);
+        }
+    }
+
+    @Override
+    public long remainingBytes(Long userId) {
+        long maxBytes = quotaConfig.getMaxBytesPerUser();
+        if (userId == null || maxBytes <= 0) return Long.MAX_VALUE;
+
+        return Math.max(0, maxBytes - getUsage(userId).getBytesUsed());
+    }
+
+    @Override
+    public void adjust(Long userId, long bytesDelta, int videoCountDelta) {
+        if (userId == null || (bytesDelta == 0 && videoCountDelta == 0)) return;
+
+        StringBuilder sql = new StringBuilder("UPDATE user_storage_usage SET " +
+                "bytes_used = GREATEST(0, bytes_used + ?), video_count = GREATEST(0, video_count + ?) WHERE user_id = ?");
+        List<Object> args = new ArrayList<>(List.of(bytesDelta, videoCountDelta, userId));
+
+        // Le riduzioni sono sempre accettate, anche se l'utente è già oltre una quota abbassata nel frattempo
+        if (bytesDelta > 0 && quotaConfig.getMaxBytesPerUser() > 0) {
+            sql.append(" AND bytes_used + ? <= ?");
+            args.add(bytesDelta);
+            args.add(quotaConfig.getMaxBytesPerUser());
+        }
+        if (videoCountDelta > 0 && quotaConfig.getMaxVideosPerUser() > 0) {
+            sql.append(" AND video_count + ? <= ?");
+            args.add(videoCountDelta);
+            args.add(quotaConfig.getMaxVideosPerUser());
+        }
+
+        // Il seed (una somma sui video dell'utente) serve solo quando l'UPDATE non trova la riga;
+        // il secondo tentativo copre anche una riga creata nel frattempo da un'altra transazione
+        if (jdbcTemplate.update(sql.toString(), args.toArray()) == 0) {
+            if (!usageRowExists(userId)) {
+                jdbcTemplate.update(SEED_SQL, userId, userId);
+            }
+            if (jdbcTemplate.update(sql.toString(), args.toArray()) == 0) {
+                throw new QuotaExceededException("Quota di storage superata per l'utente " + userId);
+            }
+        }
+    }
+
+    private boolean usageRowExists(Long userId) {
+        return !jdbcTemplate.queryForList(USAGE_SQL, userId).isEmpty();
+    }
+
+    @Override
+    public UserUsageDto getUsage(Long userId) {
+        List<long[]> rows = jdbcTemplate.query(USAGE_SQL,
+                (rs, rowNum) -> new long[] { rs.getLong(1), rs.getLong(2) }, userId);
+        long[] usage = !rows.isEmpty() ? rows.get(0)
+                : jdbcTemplate.queryForObject(COMPUTE_SQL, (rs, rowNum) -> new long[] { rs.getLong(1), rs.getLong(2) }, userId);
+
+        return new UserUsageDto(userId, usage[0], usage[1],
+                quotaConfig.getMaxBytesPerUser(), quotaConfig.getMaxVideosPerUser());
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${videoapp.quota.repair-interval-ms:21600000}",
+               initialDelayString = "${videoapp.quota.repair-initial-delay-ms:60000}")
+    public void repair() {
+        Long maxUserId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM user", Long.class);
+        if (maxUserId == null) return;
+
+        // Intervalli di id limitati: ogni transazione blocca solo le righe di pochi utenti
+        int batchSize = Math.max(1, quotaConfig.getRepairBatchSize());
+        int failed = 0;
+        for (long from = 1; from <= maxUserId; from += batchSize) {
+            long rangeStart = from;
+            long rangeEnd = from + batchSize - 1;
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.queryForList(LOCK_RANGE_SQL, Long.class, rangeStart, rangeEnd);
+                    jdbcTemplate.update(REPAIR_SQL, rangeStart, rangeEnd);
+                });
+            } catch (Exception e) {
+                failed++;
+                logger.warn("Storage usage repair failed for users {}-{}: {}", rangeStart, rangeEnd, e.getMessage());
+            }
+        }
+        logger.info("Storage usage counters repaired up to user ID {} ({} ranges failed)", maxUserId, failed);
+    }
+}
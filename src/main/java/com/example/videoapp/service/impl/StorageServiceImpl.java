@@ -1,29 +1,28 @@
 package com.example.videoapp.service.impl;
 
-import com.example.videoapp.config.StorageConfiguration;
-import com.example.videoapp.service.StorageService;
+import com.example.videoapp.service.LocalFileStorage;
+import com.example.videoapp.service.StoredFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.*;
-import java.util.Arrays;
-import java.util.List;
-import java.util.UUID;
+import java.time.Instant;
+import java.util.stream.Stream;
 
 @Service
-public class StorageServiceImpl implements StorageService {
+@ConditionalOnProperty(name = "videoapp.storage.mode", havingValue = "local", matchIfMissing = true)
+public class StorageServiceImpl extends AbstractStorageService implements LocalFileStorage {
     
     private static final Logger logger = LoggerFactory.getLogger(StorageServiceImpl.class);
     
-    @Autowired
-    private StorageConfiguration storageConfig;
-    
     private Path uploadPath;
     
     @PostConstruct
@@ -47,7 +46,7 @@ public class StorageServiceImpl implements StorageService {
     }
     
     @Override
-    public String store(MultipartFile file) throws IOException {
+    public StoredFile store(MultipartFile file, long maxBytes) throws IOException {
         validateFile(file);
         
         String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
@@ -61,13 +60,20 @@ public class StorageServiceImpl implements StorageService {
             throw new IOException("Cannot store file outside current directory");
         }
         
-        try {
-            Files.copy(file.getInputStream(), destinationFile, StandardCopyOption.REPLACE_EXISTING);
-            logger.info("File stored successfully: {}", uniqueFilename);
-            return uniqueFilename;
-        } catch (IOException e) {
-            throw new IOException("Failed to store file: " + uniqueFilename, e);
-        }
+        StoredFile stored = writeChecked(file.getInputStream(), destinationFile, uniqueFilename, maxBytes);
+        logger.info("File stored successfully: {}", uniqueFilename);
+        return stored;
+    }
+    
+    @Override
+    public StoredFile storeAs(String filename, InputStream in, long maxBytes) throws IOException {
+        Path destinationFile = locate(filename);
+        // Copia su un file nascosto e rename atomico: chi legge vede la versione precedente o quella completa
+        Path partFile = destinationFile.resolveSibling("." + filename + ".part");
+        StoredFile stored = writeChecked(in, partFile, filename, maxBytes);
+        Files.move(partFile, destinationFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.debug("File stored as {}", filename);
+        return stored;
     }
     
     @Override
@@ -76,12 +82,7 @@ public class StorageServiceImpl implements StorageService {
             throw new IllegalArgumentException("Filename cannot be empty");
         }
         
-        Path filePath = uploadPath.resolve(filename).normalize();
-        
-        // Security check
-        if (!filePath.getParent().equals(uploadPath)) {
-            throw new IOException("Cannot read file outside upload directory");
-        }
+        Path filePath = locate(filename);
         
         if (!Files.exists(filePath)) {
             throw new NoSuchFileException("File not found: " + filename);
@@ -94,6 +95,11 @@ public class StorageServiceImpl implements StorageService {
         }
     }
     
+    @Override
+    public SeekableByteChannel openChannel(String filename) throws IOException {
+        return Files.newByteChannel(resolveExisting(filename), StandardOpenOption.READ);
+    }
+    
     @Override
     public void deleteFile(String filename) throws IOException {
         if (!StringUtils.hasText(filename)) {
@@ -126,14 +132,46 @@ public class StorageServiceImpl implements StorageService {
             return false;
         }
         
-        Path filePath = uploadPath.resolve(filename).normalize();
-        
-        // Security check
-        if (!filePath.getParent().equals(uploadPath)) {
-            return false;
+        try {
+            return Files.exists(locate(filename));
+        } catch (IOException e) {
+            return false; // Percorso fuori dalla directory di upload
         }
-        
-        return Files.exists(filePath);
+    }
+    
+    @Override
+    public Stream<String> listFiles() throws IOException {
+        // I file nascosti (es. la quarantena o file temporanei) non fanno parte del catalogo
+        return Files.list(uploadPath)
+            .map(path -> path.getFileName().toString())
+            .filter(name -> !name.startsWith("."));
+    }
+    
+    @Override
+    public Path getLocalPath(String filename) throws IOException {
+        return resolveExisting(filename);
+    }
+    
+    @Override
+    public long getFileSize(String filename) throws IOException {
+        return Files.size(resolveExisting(filename));
+    }
+    
+    @Override
+    public Instant getLastModified(String filename) throws IOException {
+        return Files.getLastModifiedTime(resolveExisting(filename)).toInstant();
+    }
+    
+    @Override
+    public void quarantine(String filename) throws IOException {
+        Path source = resolveExisting(filename);
+        Path quarantinePath = StringUtils.hasText(storageConfig.getQuarantineDir())
+            ? Paths.get(storageConfig.getQuarantineDir())
+            : uploadPath.resolve(".quarantine");
+        Files.createDirectories(quarantinePath);
+        
+        Files.move(source, quarantinePath.resolve(filename), StandardCopyOption.REPLACE_EXISTING);
+        logger.info("File moved to quarantine: {}", filename);
     }
     
     @Override
@@ -142,93 +180,42 @@ public class StorageServiceImpl implements StorageService {
             throw new IllegalArgumentException("Filename cannot be empty");
         }
         
-        Path filePath = uploadPath.resolve(filename).normalize();
-        
-        if (!exists(filename)) {
-            throw new NoSuchFileException("File not found: " + filename);
-        }
+        Path filePath = resolveExisting(filename);
         
         String contentType = Files.probeContentType(filePath);
         
         // Fallback per video files se probeContentType non funziona
-        if (contentType == null) {
-            String extension = getFileExtension(filename).toLowerCase();
-            contentType = switch (extension) {
-                case ".mp4" -> "video/mp4";
-                case ".avi" -> "video/x-msvideo";
-                case ".mov" -> "video/quicktime";
-                case ".wmv" -> "video/x-ms-wmv";
-                case ".flv" -> "video/x-flv";
-                case ".webm" -> "video/webm";
-                case ".mkv" -> "video/x-matroska";
-                default -> "application/octet-stream";
-            };
-        }
-        
-        return contentType;
+        return contentType != null ? contentType : contentTypeByExtension(filename);
     }
     
-    @Override
-    public void validateFile(MultipartFile file) throws IOException {
-        if (file == null || file.isEmpty()) {
-            throw new IOException("File is empty or null");
-        }
-        
-        // Validate file size
-        if (file.getSize() > storageConfig.getMaxFileSize()) {
-            throw new IOException("File size exceeds maximum allowed size: " + 
-                formatFileSize(storageConfig.getMaxFileSize()));
-        }
-        
-        // Validate file extension
-        String originalFilename = file.getOriginalFilename();
-        if (!StringUtils.hasText(originalFilename)) {
-            throw new IOException("Original filename is missing");
-        }
-        
-        String fileExtension = getFileExtension(originalFilename).toLowerCase().substring(1); // Remove the dot
-        List<String> allowedExtensions = Arrays.asList(storageConfig.getAllowedExtensions().toLowerCase().split(","));
+    /**
+     * Percorso corrente di un file; le implementazioni con più posizioni (es. storage a livelli)
+     * restituiscono quella in cui il file si trova in questo momento
+     */
+    protected Path locate(String filename) throws IOException {
+        Path filePath = uploadPath.resolve(filename).normalize();
         
-        if (!allowedExtensions.contains(fileExtension)) {
-            throw new IOException("File extension not allowed. Allowed extensions: " + 
-                storageConfig.getAllowedExtensions());
+        // Security check
+        if (!filePath.getParent().equals(uploadPath)) {
+            throw new IOException("Cannot access file outside upload directory");
         }
+        return filePath;
     }
     
-    @Override
-    public String sanitizeFileName(String fileName) {
-        if (fileName == null) {
-            return "video";
-        }
-        
-        return fileName.replaceAll("[^a-zA-Z0-9._-]", "_")
-                      .replaceAll("_{2,}", "_")
-                      .trim();
+    protected Path getUploadPath() {
+        return uploadPath;
     }
     
-    @Override
-    public String getFileExtension(String fileName) {
-        if (fileName == null) {
-            return "";
+    protected Path resolveExisting(String filename) throws IOException {
+        if (!StringUtils.hasText(filename)) {
+            throw new IllegalArgumentException("Filename cannot be empty");
         }
         
-        int lastDotIndex = fileName.lastIndexOf('.');
-        return lastDotIndex != -1 ? fileName.substring(lastDotIndex) : "";
-    }
-    
-    private String generateUniqueFilename(String originalFilename, String extension) {
-        String baseName = sanitizeFileName(originalFilename.substring(0, 
-            Math.max(0, originalFilename.lastIndexOf('.'))));
-        String timestamp = String.valueOf(System.currentTimeMillis());
-        String uuid = UUID.randomUUID().toString().substring(0, 8);
+        Path filePath = locate(filename);
         
-        return String.format("%s_%s_%s%s", baseName, timestamp, uuid, extension);
-    }
-    
-    private String formatFileSize(long bytes) {
-        if (bytes < 1024) return bytes + " B";
-        if (bytes < 1024 * 1024) return (bytes / 1024) + " KB";
-        if (bytes < 1024 * 1024 * 1024) return (bytes / (1024 * 1024)) + " MB";
-        return (bytes / (1024 * 1024 * 1024)) + " GB";
+        if (!Files.exists(filePath)) {
+            throw new NoSuchFileException("File not found: " + filename);
+        }
+        return filePath;
     }
-}
\ No newline at end of file
+}
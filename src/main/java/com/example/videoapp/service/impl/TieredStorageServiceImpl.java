@@ -0,0 +1,336 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.TieredStorageConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.util.RateLimiter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Storage a due livelli: la directory di upload è il livello freddo, hotDir quello veloce.
+ * Le letture dal percorso di servizio alimentano un punteggio di accesso a decadimento esponenziale;
+ * un migratore in background promuove i file più richiesti e retrocede quelli inattivi o meno richiesti
+ * quando il livello caldo è pieno.
+ *
+ * Ogni spostamento copia su un file temporaneo nel livello di destinazione, lo rinomina atomicamente
+ * e solo dopo un periodo di grazia elimina l'originale: le letture cercano prima nel livello caldo e poi
+ * in quello freddo, quindi trovano sempre almeno una copia completa e i canali già aperti restano validi.
+ */
+@Service
+@ConditionalOnProperty(name = "videoapp.storage.mode", havingValue = "tiered")
+public class TieredStorageServiceImpl extends StorageServiceImpl {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredStorageServiceImpl.class);
+
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+    private static final double MIN_TRACKED_SCORE = 0.01;
+
+    @Autowired
+    private TieredStorageConfiguration tieringConfig;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    private final Map<String, AccessStats> accessStats = new ConcurrentHashMap<>();
+    private final Set<String> pendingSourceDeletes = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean migrating = new AtomicBoolean();
+    private ScheduledExecutorService migrator;
+
+    private Path hotPath;
+    private double lambdaPerMs;
+    private RateLimiter rateLimiter;
+
+    @Override
+    public void init() throws IOException {
+        super.init();
+
+        if (!StringUtils.hasText(tieringConfig.getHotDir())) {
+            throw new IOException("videoapp.storage.tiering.hot-dir is required in tiered mode");
+        }
+        hotPath = Paths.get(tieringConfig.getHotDir());
+        Files.createDirectories(hotPath);
+        if (!Files.isWritable(hotPath)) {
+            throw new IOException("Hot tier directory is not writable: " + hotPath);
+        }
+
+        lambdaPerMs = Math.log(2) / (tieringConfig.getAccessHalfLifeHours() * 3600_000.0);
+        rateLimiter = new RateLimiter(tieringConfig.getMaxMigrationMbPerSecond() * BYTES_PER_MB);
+        migrator = Executors.newSingleThreadScheduledExecutor(workerThreads.factory("storage-tier-migrator"));
+        logger.info("Tiered storage initialized: hot tier {}, cold tier {}", hotPath.toAbsolutePath(),
+                getUploadPath().toAbsolutePath());
+    }
+
+    @Override
+    protected Path locate(String filename) throws IOException {
+        Path coldFile = super.locate(filename);
+        Path hotFile = hotPath.resolve(coldFile.getFileName());
+        return Files.exists(hotFile) ? hotFile : coldFile;
+    }
+
+    @Override
+    public void recordAccess(String filename) {
+        if (!StringUtils.hasText(filename)) return;
+
+        long now = System.currentTimeMillis();
+        AccessStats existing = accessStats.get(filename);
+        if (existing == null && accessStats.size() >= tieringConfig.getMaxTrackedFiles()) {
+            return; // Limite raggiunto: i nuovi file vengono tracciati dopo la prossima pulizia
+        }
+        accessStats.computeIfAbsent(filename, k -> new AccessStats()).record(now, lambdaPerMs);
+    }
+
+    @Override
+    public void deleteFile(String filename) throws IOException {
+        if (!StringUtils.hasText(filename)) {
+            return;
+        }
+
+        Path coldFile = super.locate(filename);
+        boolean deletedHot = Files.deleteIfExists(hotPath.resolve(coldFile.getFileName()));
+        if (deletedHot) {
+            logger.info("File deleted from hot tier: {}", filename);
+        }
+        if (!deletedHot || Files.exists(coldFile)) {
+            super.deleteFile(filename);
+        }
+        accessStats.remove(filename);
+    }
+
+    @Override
+    public Stream<String> listFiles() throws IOException {
+        // Durante una migrazione un file può comparire in entrambi i livelli: il livello caldo (piccolo) viene
+        // letto per primo, poi quello freddo scorre in modo lazy togliendo dall'insieme i nomi già emessi.
+        // Leggendo il caldo per primo, un file retrocesso nel frattempo compare comunque una volta sola
+        Set<String> hotOnly = new HashSet<>(listHotFiles().keySet());
+        Stream<String> coldFiles = super.listFiles().peek(hotOnly::remove);
+        return Stream.concat(coldFiles, Stream.of(hotOnly).flatMap(Set::stream));
+    }
+
+    @Scheduled(fixedDelayString = "${videoapp.storage.tiering.migration-interval-ms:300000}")
+    public void scheduleMigration() {
+        // Le copie possono durare minuti: girano sul thread del migratore, non su quello dello scheduler
+        if (migrating.compareAndSet(false, true)) {
+            migrator.execute(() -> {
+                try {
+                    migrate();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    logger.error("Tier migration failed: {}", e.getMessage(), e);
+                } finally {
+                    migrating.set(false);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        migrator.shutdownNow();
+    }
+
+    private void migrate() throws IOException, InterruptedException {
+        long now = System.currentTimeMillis();
+        Map<String, Long> hotFiles = listHotFiles();
+        long hotBytes = hotFiles.values().stream().mapToLong(Long::longValue).sum();
+        int moves = 0;
+
+        // 1. Retrocede i file caldi non letti da troppo tempo
+        for (Iterator<Map.Entry<String, Long>> it = hotFiles.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Long> entry = it.next();
+            if (moves >= tieringConfig.getMaxMigrationsPerRun()) break;
+            if (lastAccess(entry.getKey(), now) < now - tieringConfig.getDemoteIdleMs() && demote(entry.getKey())) {
+                hotBytes -= entry.getValue();
+                it.remove();
+                moves++;
+            }
+        }
+
+        // 2. Promuove i file freddi più richiesti, liberando spazio solo a scapito di file meno richiesti
+        List<Map.Entry<String, Double>> candidates = new ArrayList<>();
+        accessStats.forEach((name, stats) -> {
+            double score = stats.score(now, lambdaPerMs);
+            if (score >= tieringConfig.getPromoteMinScore() && !hotFiles.containsKey(name)) {
+                candidates.add(Map.entry(name, score));
+            }
+        });
+        candidates.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+
+        for (Map.Entry<String, Double> candidate : candidates) {
+            if (moves >= tieringConfig.getMaxMigrationsPerRun()) break;
+
+            Path coldFile = super.locate(candidate.getKey());
+            if (!Files.exists(coldFile) || pendingSourceDeletes.contains(candidate.getKey())) continue;
+            long size = Files.size(coldFile);
+            if (size > tieringConfig.getHotMaxBytes()) continue;
+
+            while (hotBytes + size > tieringConfig.getHotMaxBytes() && moves < tieringConfig.getMaxMigrationsPerRun()) {
+                String victim = coldestHotFile(hotFiles.keySet(), now);
+                if (victim == null || score(victim, now) >= candidate.getValue() || !demote(victim)) break;
+                hotBytes -= hotFiles.remove(victim);
+                moves++;
+            }
+            if (hotBytes + size > tieringConfig.getHotMaxBytes() || moves >= tieringConfig.getMaxMigrationsPerRun()) {
+                break;
+            }
+            if (promote(candidate.getKey())) {
+                hotFiles.put(candidate.getKey(), size);
+                hotBytes += size;
+                moves++;
+            }
+        }
+
+        pruneStats(now, hotFiles.keySet());
+        if (moves > 0) {
+            logger.info("Tier migration completed: {} moves, hot tier {} MB of {} MB", moves,
+                    hotBytes / BYTES_PER_MB, tieringConfig.getHotMaxBytes() / BYTES_PER_MB);
+        }
+    }
+
+    private boolean promote(String filename) throws IOException, InterruptedException {
+        Path coldFile = super.locate(filename);
+        return move(filename, coldFile, hotPath.resolve(coldFile.getFileName()));
+    }
+
+    private boolean demote(String filename) throws IOException, InterruptedException {
+        Path coldFile = super.locate(filename);
+        return move(filename, hotPath.resolve(coldFile.getFileName()), coldFile);
+    }
+
+    private boolean move(String filename, Path source, Path target) throws IOException, InterruptedException {
+        if (pendingSourceDeletes.contains(filename) || !Files.exists(source)) {
+            return false;
+        }
+
+        Path tmp = target.resolveSibling("." + target.getFileName() + ".migrating");
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = in.transferTo(position, Math.min(TRANSFER_CHUNK, size - position), out);
+                if (transferred <= 0) break;
+                position += transferred;
+                rateLimiter.acquire(transferred);
+            }
+            if (out.size() != size) {
+                throw new IOException("Incomplete copy of " + filename + " (" + out.size() + " of " + size + " bytes)");
+            }
+            out.force(true);
+        } catch (IOException | InterruptedException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        // Se il file è stato eliminato durante la copia, la nuova copia non deve sopravvivergli
+        if (!Files.exists(source)) {
+            Files.deleteIfExists(target);
+            return false;
+        }
+
+        pendingSourceDeletes.add(filename);
+        migrator.schedule(() -> deleteSource(filename, source, target),
+                tieringConfig.getSourceDeleteGraceMs(), TimeUnit.MILLISECONDS);
+        logger.debug("Moved {} to {}", filename, target.getParent());
+        return true;
+    }
+
+    private void deleteSource(String filename, Path source, Path target) {
+        try {
+            // L'originale viene rimosso solo se la copia è ancora al suo posto
+            if (Files.exists(target)) {
+                Files.deleteIfExists(source);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not remove migrated source {}: {}", source, e.getMessage());
+        } finally {
+            pendingSourceDeletes.remove(filename);
+        }
+    }
+
+    private Map<String, Long> listHotFiles() throws IOException {
+        Map<String, Long> files = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(hotPath)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                if (name.startsWith(".")) continue;
+                try {
+                    files.put(name, Files.size(path));
+                } catch (NoSuchFileException e) {
+                    // Eliminato durante la scansione
+                }
+            }
+        }
+        return files;
+    }
+
+    private String coldestHotFile(Set<String> hotFiles, long now) {
+        String coldest = null;
+        double lowest = Double.MAX_VALUE;
+        for (String name : hotFiles) {
+            if (pendingSourceDeletes.contains(name)) continue;
+            double score = score(name, now);
+            if (score < lowest) {
+                lowest = score;
+                coldest = name;
+            }
+        }
+        return coldest;
+    }
+
+    private double score(String filename, long now) {
+        AccessStats stats = accessStats.get(filename);
+        return stats != null ? stats.score(now, lambdaPerMs) : 0;
+    }
+
+    // Senza statistiche (es. dopo un riavvio) conta il momento in cui il file è arrivato nel livello caldo
+    private long lastAccess(String filename, long now) throws IOException {
+        AccessStats stats = accessStats.get(filename);
+        if (stats != null) return stats.lastAccess;
+        try {
+            return Files.getLastModifiedTime(hotPath.resolve(filename)).toMillis();
+        } catch (NoSuchFileException e) {
+            return now;
+        }
+    }
+
+    private void pruneStats(long now, Set<String> hotFiles) {
+        accessStats.entrySet().removeIf(entry ->
+                !hotFiles.contains(entry.getKey()) && entry.getValue().score(now, lambdaPerMs) < MIN_TRACKED_SCORE);
+    }
+
+    /**
+     * Punteggio di accesso con decadimento esponenziale, aggiornato a ogni lettura
+     */
+    private static class AccessStats {
+        private double score;
+        private volatile long lastAccess;
+
+        synchronized void record(long now, double lambdaPerMs) {
+            score = score(now, lambdaPerMs) + 1;
+            lastAccess = now;
+        }
+
+        synchronized double score(long now, double lambdaPerMs) {
+            return lastAccess == 0 ? 0 : score * Math.exp(-lambdaPerMs * (now - lastAccess));
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.TrendingConfiguration;
+import com.example.videoapp.converter.VideoMapper;
+import com.example.videoapp.dto.TrendingVideoDto;
+import com.example.videoapp.dto.VideoOutputDto;
+import com.example.videoapp.model.Video;
+import com.example.videoapp.service.TrendingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Classifica dei video di tendenza con punteggio a decadimento esponenziale.
+ * I punteggi sono memorizzati relativi a un'epoca di riferimento: ogni evento aggiunge
+ * peso * e^(lambda * (t - epoca)), quindi l'ordinamento non cambia nel tempo e nessun
+ * punteggio va ricalcolato; il decadimento viene applicato solo in lettura.
+ */
+@Service
+public class TrendingServiceImpl implements TrendingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendingServiceImpl.class);
+
+    // Oltre questo numero di emivite dall'epoca i punteggi vengono riscalati per evitare overflow
+    private static final double REBASE_AFTER_HALF_LIVES = 64;
+    private static final double MIN_DECAYED_SCORE = 1e-3;
+
+    @Autowired
+    private TrendingConfiguration trendingConfig;
+
+    @Autowired
+    private VideoMapper videoMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<Long, Tracked> tracked = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Ranked> ranking = new ConcurrentSkipListSet<>();
+    private final ReadWriteLock rebaseLock = new ReentrantReadWriteLock();
+    // Serializza le scritture dello snapshot; non synchronized perché tiene il lock durante l'I/O
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    private volatile long epochMillis = System.currentTimeMillis();
+    private double lambdaPerMs;
+
+    @PostConstruct
+    public void init() {
+        lambdaPerMs = Math.log(2) / (trendingConfig.getHalfLifeHours() * 3600_000.0);
+        loadSnapshot();
+    }
+
+    @Override
+    public void recordView(Video video) {
+        addScore(video, trendingConfig.getViewWeight());
+    }
+
+    @Override
+    public void recordUpload(Video video) {
+        addScore(video, trendingConfig.getUploadWeight());
+    }
+
+    @Override
+    public void refresh(Video video) {
+        if (!video.isPublic()) {
+            remove(video.getId());
+            return;
+        }
+        VideoOutputDto dto = videoMapper.toDto(video);
+        tracked.computeIfPresent(video.getId(), (id, current) -> new Tracked(dto, current.ranked));
+    }
+
+    @Override
+    public void updateMetadata(Long videoId, String title, String description) {
+        if (title == null && description == null) return;
+
+        tracked.computeIfPresent(videoId, (id, current) -> {
+            VideoOutputDto dto = new VideoOutputDto();
+            dto.setId(id);
+            dto.setTitle(title != null ? title : current.video.getTitle());
+            dto.setDescription(description != null ? description : current.video.getDescription());
+            dto.setPublic(current.video.isPublic());
+            dto.setUser(current.video.getUser());
+            return new Tracked(dto, current.ranked);
+        });
+    }
+
+    @Override
+    public void remove(Long videoId) {
+        rebaseLock.readLock().lock();
+        try {
+            tracked.computeIfPresent(videoId, (id, current) -> {
+                ranking.remove(current.ranked);
+                return null;
+            });
+        } finally {
+            rebaseLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<TrendingVideoDto> getTrending(int limit) {
+        if (limit <= 0) limit = trendingConfig.getDefaultLimit();
+        double decay = decayFactor(System.currentTimeMillis());
+
+        List<TrendingVideoDto> result = new ArrayList<>(limit);
+        Set<Long> seen = new HashSet<>();
+        for (Ranked ranked : ranking) {
+            if (result.size() >= limit) break;
+            Tracked current = tracked.get(ranked.videoId);
+            // Durante un aggiornamento concorrente lo stesso video può comparire due volte
+            if (current == null || !seen.add(ranked.videoId)) continue;
+            result.add(new TrendingVideoDto(current.video, current.ranked.score * decay));
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${videoapp.trending.snapshot-interval-ms:60000}")
+    public void maintain() {
+        long now = System.currentTimeMillis();
+        if (lambdaPerMs * (now - epochMillis) / Math.log(2) > REBASE_AFTER_HALF_LIVES) {
+            rebase(now);
+        }
+        writeSnapshot();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writeSnapshot();
+    }
+
+    private void addScore(Video video, double weight) {
+        if (video == null || video.getId() == null || !video.isPublic()) {
+            return;
+        }
+
+        rebaseLock.readLock().lock();
+        try {
+            double increment = weight * Math.exp(lambdaPerMs * (System.currentTimeMillis() - epochMillis));
+            VideoOutputDto dto = videoMapper.toDto(video);
+
+            tracked.compute(video.getId(), (id, current) -> {
+                double score = increment;
+                if (current != null) {
+                    score += current.ranked.score;
+                    ranking.remove(current.ranked);
+                }
+                Ranked ranked = new Ranked(id, score);
+                ranking.add(ranked);
+                return new Tracked(dto, ranked);
+            });
+
+            trim();
+        } finally {
+            rebaseLock.readLock().unlock();
+        }
+    }
+
+    // Mantiene solo i primi maxEntries video, scartando quelli con punteggio più basso
+    private void trim() {
+        while (tracked.size() > trendingConfig.getMaxEntries()) {
+            Ranked lowest = ranking.pollLast();
+            if (lowest == null) break;
+            tracked.computeIfPresent(lowest.videoId, (id, current) -> current.ranked == lowest ? null : current);
+        }
+    }
+
+    private void rebase(long now) {
+        rebaseLock.writeLock().lock();
+        try {
+            double factor = decayFactor(now);
+            ranking.clear();
+            tracked.replaceAll((id, current) -> {
+                Ranked ranked = new Ranked(id, current.ranked.score * factor);
+                return new Tracked(current.video, ranked);
+            });
+            tracked.values().removeIf(current -> current.ranked.score < MIN_DECAYED_SCORE);
+            tracked.values().forEach(current -> ranking.add(current.ranked));
+            epochMillis = now;
+            logger.info("Trending scores rebased, {} videos tracked", tracked.size());
+        } finally {
+            rebaseLock.writeLock().unlock();
+        }
+    }
+
+    private double decayFactor(long now) {
+        return Math.exp(-lambdaPerMs * (now - epochMillis));
+    }
+
+    private Path snapshotPath() {
+        String file = trendingConfig.getSnapshotFile();
+        return StringUtils.hasText(file) ? Paths.get(file) : null;
+    }
+
+    private void writeSnapshot() {
+        Path path = snapshotPath();
+        if (path == null) return;
+
+        snapshotLock.lock();
+        try {
+            writeSnapshot(path);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private void writeSnapshot(Path path) {
+        Snapshot snapshot = new Snapshot();
+        rebaseLock.readLock().lock();
+        try {
+            snapshot.epochMillis = epochMillis;
+            for (Tracked current : tracked.values()) {
+                snapshot.entries.add(SnapshotEntry.of(current));
+            }
+        } finally {
+            rebaseLock.readLock().unlock();
+        }
+
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            objectMapper.writeValue(tmp.toFile(), snapshot);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Trending snapshot written with {} entries", snapshot.entries.size());
+        } catch (IOException e) {
+            logger.error("Failed to write trending snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    private void loadSnapshot() {
+        Path path = snapshotPath();
+        if (path == null || !Files.exists(path)) return;
+
+        try {
+            Snapshot snapshot = objectMapper.readValue(path.toFile(), Snapshot.class);
+            epochMillis = snapshot.epochMillis;
+            for (SnapshotEntry entry : snapshot.entries) {
+                Ranked ranked = new Ranked(entry.id, entry.score);
+                tracked.put(entry.id, new Tracked(entry.toDto(), ranked));
+                ranking.add(ranked);
+            }
+            logger.info("Trending snapshot loaded with {} entries", tracked.size());
+        } catch (IOException e) {
+            logger.warn("Could not load trending snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static class Tracked {
+        final VideoOutputDto video;
+        final Ranked ranked;
+
+        Tracked(VideoOutputDto video, Ranked ranked) {
+            this.video = video;
+            this.ranked = ranked;
+        }
+    }
+
+    private static class Ranked implements Comparable<Ranked> {
+        final Long videoId;
+        final double score;
+
+        Ranked(Long videoId, double score) {
+            this.videoId = videoId;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Ranked other) {
+            int byScore = Double.compare(other.score, score);
+            return byScore != 0 ? byScore : videoId.compareTo(other.videoId);
+        }
+    }
+
+    static class Snapshot {
+        public long epochMillis;
+        public List<SnapshotEntry> entries = new ArrayList<>();
+    }
+
+    static class SnapshotEntry {
+        public Long id;
+        public double score;
+        public String title;
+        public String description;
+        public Long userId;
+        public String username;
+
+        static SnapshotEntry of(Tracked tracked) {
+            SnapshotEntry entry = new SnapshotEntry();
+            entry.id = tracked.ranked.videoId;
+            entry.score = tracked.ranked.score;
+            entry.title = tracked.video.getTitle();
+            entry.description = tracked.video.getDescription();
+            if (tracked.video.getUser() != null) {
+                entry.userId = tracked.video.getUser().getUserId();
+                entry.username = tracked.video.getUser().getUsername();
+            }
+            return entry;
+        }
+
+        VideoOutputDto toDto() {
+            VideoOutputDto dto = new VideoOutputDto();
+            dto.setId(id);
+            dto.setTitle(title);
+            dto.setDescription(description);
+            dto.setPublic(true);
+            if (userId != null) {
+                VideoOutputDto.UserDto userDto = new VideoOutputDto.UserDto();
+                userDto.setUserId(userId);
+                userDto.setUsername(username);
+                dto.setUser(userDto);
+            }
+            return dto;
+        }
+    }
+}
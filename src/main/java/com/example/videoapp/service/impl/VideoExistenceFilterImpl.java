@@ -0,0 +1,175 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.ExistenceFilterConfiguration;
+import com.example.videoapp.repository.VideoRepository;
+import com.example.videoapp.service.VideoExistenceFilter;
+import com.example.videoapp.util.IdBitmap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Filtro di esistenza degli id video: una bitmap esatta (gli id vengono da una sequenza, quindi sono densi
+ * e un bit per id costa meno di un bloom filter, senza falsi positivi e con supporto alle cancellazioni)
+ * più una cache negativa a scadenza breve per gli id cercati nel database e non trovati.
+ * La bitmap è aggiornata dopo ogni commit locale e ricostruita periodicamente dalla chiave primaria,
+ * per includere inserimenti e cancellazioni fatti da altre istanze.
+ * Solo la cache negativa rifiuta un id: un bit assente nella bitmap non basta, perché ogni istanza riceve
+ * dal generatore un proprio blocco di id e un'altra può confermare dopo la scansione un id più basso
+ * dell'ultimo caricato. La bitmap conferma invece i video presenti senza interrogare il database.
+ */
+@Service
+public class VideoExistenceFilterImpl implements VideoExistenceFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoExistenceFilterImpl.class);
+
+    @Autowired
+    private ExistenceFilterConfiguration filterConfig;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Null finché il primo caricamento non è completo: fino ad allora ogni id può esistere
+    private volatile IdBitmap current;
+    // Bitmap in ricostruzione: riceve anche le modifiche locali, così nessun commit concorrente alla scansione va perso
+    private volatile IdBitmap building;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final Map<Long, Long> negative = new ConcurrentHashMap<>();
+    // Id inseriti di recente da questa istanza: una lettura da una replica in ritardo non deve marcarli inesistenti
+    private final Map<Long, Long> recentlyAdded = new ConcurrentHashMap<>();
+
+    private Counter negativeRejections;
+
+    @PostConstruct
+    public void init() {
+        negativeRejections = Counter.builder("videoapp.existence.filter.rejections").tag("source", "negative-cache")
+                .register(meterRegistry);
+        Gauge.builder("videoapp.existence.filter.bytes", this, filter -> {
+            IdBitmap bitmap = filter.current;
+            return bitmap != null ? bitmap.sizeInBytes() : 0;
+        }).register(meterRegistry);
+        Gauge.builder("videoapp.existence.filter.negative.entries", negative, Map::size).register(meterRegistry);
+    }
+
+    @Override
+    public boolean mightExist(Long id) {
+        if (id == null || current == null || !filterConfig.isEnabled()) return true;
+
+        Long expiresAt = negative.get(id);
+        if (expiresAt != null) {
+            if (expiresAt > System.currentTimeMillis()) {
+                negativeRejections.increment();
+                return false;
+            }
+            negative.remove(id, expiresAt);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isKnown(Long id) {
+        IdBitmap bitmap = current;
+        return id != null && bitmap != null && filterConfig.isEnabled() && bitmap.contains(id);
+    }
+
+    @Override
+    public void added(Long id) {
+        if (id == null) return;
+        // Prima la bitmap in costruzione: se la ricostruzione parte dopo, la sua scansione vede già il commit
+        IdBitmap next = building;
+        if (next != null) next.add(id);
+        IdBitmap bitmap = current;
+        if (bitmap != null) bitmap.add(id);
+        recentlyAdded.put(id, System.currentTimeMillis());
+        negative.remove(id);
+    }
+
+    @Override
+    public void removed(Long id) {
+        if (id == null) return;
+        IdBitmap next = building;
+        if (next != null) next.remove(id);
+        IdBitmap bitmap = current;
+        if (bitmap != null) bitmap.remove(id);
+    }
+
+    @Override
+    public void recordMiss(Long id) {
+        if (id == null || current == null || !filterConfig.isEnabled() || recentlyAdded.containsKey(id)) return;
+        // Oltre il limite si rinuncia alla cache piuttosto che crescere senza controllo
+        if (negative.size() < filterConfig.getNegativeMaxEntries()) {
+            negative.put(id, System.currentTimeMillis() + filterConfig.getNegativeTtlMs());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${videoapp.existence-filter.rebuild-interval-ms:60000}")
+    public void rebuild() {
+        if (!filterConfig.isEnabled()) {
+            current = null;
+            return;
+        }
+        if (!rebuildLock.tryLock()) return;
+        try {
+            purgeExpired();
+
+            long start = System.currentTimeMillis();
+            IdBitmap next = new IdBitmap(filterConfig.getMaxId());
+            building = next;
+
+            int batchSize = Math.max(1, filterConfig.getRebuildBatchSize());
+            long count = 0;
+            Long afterId = 0L;
+            // Paginazione keyset sulla chiave primaria, come la riconciliazione. Ogni pagina gira in una
+            // transazione di scrittura perché il routing la mandi al primario: una replica in ritardo
+            // darebbe per inesistenti gli ultimi video inseriti
+            while (true) {
+                Long from = afterId;
+                List<Long> ids = transactionTemplate.execute(status ->
+                        videoRepository.findIdsAfter(from, PageRequest.of(0, batchSize)));
+                if (ids == null || ids.isEmpty()) break;
+                for (Long id : ids) {
+                    next.add(id);
+                }
+                count += ids.size();
+                afterId = ids.get(ids.size() - 1);
+                if (ids.size() < batchSize) break;
+            }
+
+            current = next;
+            building = null;
+            logger.debug("Video existence filter rebuilt in {} ms: {} ids, {} KB",
+                    System.currentTimeMillis() - start, count, next.sizeInBytes() / 1024);
+        } catch (RuntimeException e) {
+            // Si continua con la bitmap precedente (o senza filtro se non è mai stata caricata)
+            building = null;
+            logger.warn("Video existence filter rebuild failed: {}", e.getMessage());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        negative.values().removeIf(expiresAt -> expiresAt <= now);
+        recentlyAdded.values().removeIf(addedAt -> addedAt <= now - filterConfig.getNegativeTtlMs());
+    }
+}
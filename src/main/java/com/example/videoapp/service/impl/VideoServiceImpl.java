@@ -1,20 +1,40 @@
 package com.example.videoapp.service.impl;
 
+import com.example.videoapp.config.ExportConfiguration;
+import com.example.videoapp.converter.VideoExportWriter;
 import com.example.videoapp.dto.NuovoVideoInputDto;
+import com.example.videoapp.exception.PreconditionFailedException;
 import com.example.videoapp.model.User;
 import com.example.videoapp.model.Video;
 import com.example.videoapp.repository.UserRepository;
 import com.example.videoapp.repository.VideoRepository;
+import com.example.videoapp.service.ChunkCache;
+import com.example.videoapp.service.FileDeletionService;
+import com.example.videoapp.service.PublicCatalogueCache;
+import com.example.videoapp.service.ReadAheadService;
+import com.example.videoapp.service.StorageQuotaService;
 import com.example.videoapp.service.StorageService;
+import com.example.videoapp.service.StoredFile;
+import com.example.videoapp.service.TrendingService;
+import com.example.videoapp.service.VideoExistenceFilter;
 import com.example.videoapp.service.VideoService;
+import com.example.videoapp.service.ViewCounterService;
+import com.example.videoapp.service.WatchProgressService;
+import com.example.videoapp.util.AfterCommit;
+import com.example.videoapp.util.ZipStreamWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.NoSuchFileException;
 import java.util.*;
 
@@ -23,6 +43,10 @@ public class VideoServiceImpl implements VideoService {
     
     private static final Logger logger = LoggerFactory.getLogger(VideoServiceImpl.class);
 
+    private static final int MAX_BULK_SIZE = 1000;
+
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
     @Autowired
     private VideoRepository videoRepository;
 
@@ -32,10 +56,44 @@ public class VideoServiceImpl implements VideoService {
     @Autowired
     private StorageService storageService;
 
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private PublicCatalogueCache publicCatalogueCache;
+
+    @Autowired
+    private FileDeletionService fileDeletionService;
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    @Autowired
+    private ChunkCache chunkCache;
+
+    @Autowired
+    private ReadAheadService readAheadService;
+
+    @Autowired
+    private VideoExistenceFilter videoExistenceFilter;
+
+    @Autowired
+    private VideoExportWriter videoExportWriter;
+
+    @Autowired
+    private ExportConfiguration exportConfig;
+
+    @Autowired
+    private WatchProgressService watchProgressService;
+
+    @Autowired
+    private ViewCounterService viewCounterService;
+
     @Override
+    @Transactional(readOnly = true)
     public Page<Video> getVideos(int page, int size, Long userId, Boolean isPublic) {
         if (size > 10) size = 10;
-        Pageable pageable = PageRequest.of(Math.max(page - 1, 0), size);
+        Pageable pageable = PageRequest.of(Math.max(page - 1, 0), size, Sort.by("id"));
 
         if (userId != null && isPublic != null) {
             return videoRepository.findByUserIdAndIsPublic(userId, isPublic, pageable);
@@ -49,12 +107,34 @@ public class VideoServiceImpl implements VideoService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Slice<Video> getVideosAfter(Long afterId, int size, Long userId, Boolean isPublic) {
+        if (size > 10) size = 10;
+        Pageable pageable = PageRequest.of(0, size, Sort.by("id"));
+
+        if (userId != null && isPublic != null) {
+            return videoRepository.findByUserIdAndIsPublicAndIdGreaterThan(userId, isPublic, afterId, pageable);
+        } else if (userId != null) {
+            return videoRepository.findByUserIdAndIdGreaterThan(userId, afterId, pageable);
+        } else if (isPublic != null) {
+            return videoRepository.findByIsPublicAndIdGreaterThan(isPublic, afterId, pageable);
+        } else {
+            return videoRepository.findByIdGreaterThan(afterId, pageable);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Video getVideoById(Long id) {
         return videoRepository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("Video con id " + id + " non trovato"));
+                .orElseThrow(() -> {
+                    videoExistenceFilter.recordMiss(id);
+                    return new NoSuchElementException("Video con id " + id + " non trovato");
+                });
     }
 
     @Override
+    @Transactional(rollbackFor = IOException.class)
     public Video uploadVideo(NuovoVideoInputDto dto, MultipartFile file) throws IOException {
         if (dto.getUserId() == null) {
             throw new IllegalArgumentException("User ID è obbligatorio");
@@ -66,15 +146,28 @@ public class VideoServiceImpl implements VideoService {
         
         User user = userRepository.findById(dto.getUserId())
             .orElseThrow(() -> new NoSuchElementException("User con id " + dto.getUserId() + " non trovato"));
+        storageQuotaService.checkUpload(user.getId(), file.getSize());
 
         try {
-            // Utilizza il StorageService per salvare il file
-            String savedFilename = storageService.store(file);
+            // Utilizza il StorageService per salvare il file, senza superare lo spazio residuo dell'utente
+            StoredFile stored = storageService.store(file, storageQuotaService.remainingBytes(user.getId()));
+            String savedFilename = stored.getFilename();
+            AfterCommit.runOnRollback(() -> fileDeletionService.enqueue(savedFilename));
+
+            // L'incremento è condizionato alla quota: fallisce (e annulla tutto) se un upload concorrente l'ha esaurita
+            storageQuotaService.adjust(user.getId(), stored.getSize(), 1);
             
             Video video = new Video(dto.getTitle(), dto.getDescription(), dto.isPublic(), user);
-            video.setFilePath(savedFilename);
+            applyStoredFile(video, stored);
             
             Video savedVideo = videoRepository.save(video);
+            AfterCommit.run(() -> {
+                videoExistenceFilter.added(savedVideo.getId());
+                trendingService.recordUpload(savedVideo);
+                if (savedVideo.isPublic()) {
+                    publicCatalogueCache.invalidateAll();
+                }
+            });
             logger.info("Video uploaded successfully with ID: {} and file: {}", savedVideo.getId(), savedFilename);
             
             return savedVideo;
@@ -85,25 +178,36 @@ public class VideoServiceImpl implements VideoService {
     }
 
     @Override
-    public Video updateVideoWithFile(Long id, String title, String description, boolean isPublic, MultipartFile file) throws IOException {
+    @Transactional(rollbackFor = IOException.class)
+    public Video updateVideoWithFile(Long id, String title, String description, boolean isPublic, MultipartFile file,
+                                     Long expectedVersion) throws IOException {
         Video video = videoRepository.findById(id)
             .orElseThrow(() -> new NoSuchElementException("Video con id " + id + " non trovato"));
+        checkVersion(video, expectedVersion);
+        boolean wasPublic = video.isPublic();
         
         video.setTitle(title);
         video.setDescription(description);
         video.setPublic(isPublic);
 
         if (file != null && !file.isEmpty()) {
+            String previousFile = video.getFilePath();
+            long previousSize = video.getFileSize() != null ? video.getFileSize() : 0;
+            Long ownerId = video.getUser() != null ? video.getUser().getId() : null;
+            // Lo spazio del file sostituito torna disponibile
+            storageQuotaService.checkUpload(ownerId, file.getSize() - previousSize);
             try {
-                // Elimina il file precedente se esiste
-                if (video.getFilePath() != null) {
-                    storageService.deleteFile(video.getFilePath());
-                }
+                // Salva il nuovo file prima di toccare il precedente
+                long maxBytes = storageQuotaService.remainingBytes(ownerId);
+                StoredFile stored = storageService.store(file, maxBytes == Long.MAX_VALUE ? maxBytes : maxBytes + previousSize);
+                String savedFilename = stored.getFilename();
+                AfterCommit.runOnRollback(() -> fileDeletionService.enqueue(savedFilename));
+                storageQuotaService.adjust(ownerId, stored.getSize() - previousSize, 0);
+                applyStoredFile(video, stored);
+
+                // Il file precedente viene eliminato solo a commit avvenuto, quello nuovo se la transazione fallisce
+                fileDeletionService.enqueueAfterCommit(Collections.singletonList(previousFile));
 
-                // Salva il nuovo file
-                String savedFilename = storageService.store(file);
-                video.setFilePath(savedFilename);
-                
                 logger.info("Video file updated for video ID: {} with new file: {}", id, savedFilename);
             } catch (IOException e) {
                 logger.error("Error updating video file for video ID {}: {}", id, e.getMessage());
@@ -111,26 +215,37 @@ public class VideoServiceImpl implements VideoService {
             }
         }
 
-        return videoRepository.save(video);
+        Video savedVideo = videoRepository.save(video);
+        AfterCommit.run(() -> {
+            trendingService.refresh(savedVideo);
+            invalidatePublicCatalogue(savedVideo, wasPublic);
+        });
+        return savedVideo;
     }
 
     @Override
+    @Transactional
     public void deleteVideo(Long id) {
         Video video = videoRepository.findById(id)
             .orElseThrow(() -> new NoSuchElementException("Video con id " + id + " non trovato"));
 
-        // Elimina il file dal filesystem
-        if (video.getFilePath() != null) {
-            try {
-                storageService.deleteFile(video.getFilePath());
-                logger.info("File deleted for video ID: {}", id);
-            } catch (IOException e) {
-                logger.error("Error deleting file for video ID {}: {}", id, e.getMessage());
-                // Non interrompiamo l'eliminazione del video anche se il file non può essere eliminato
-            }
+        if (video.getUser() != null) {
+            storageQuotaService.adjust(video.getUser().getId(),
+                    -(video.getFileSize() != null ? video.getFileSize() : 0), -1);
         }
-
+        watchProgressService.deleteByVideos(List.of(id));
+        viewCounterService.deleteByVideos(List.of(id));
         videoRepository.delete(video);
+
+        // Il file viene eliminato in background solo dopo il commit
+        fileDeletionService.enqueueAfterCommit(Collections.singletonList(video.getFilePath()));
+        AfterCommit.run(() -> {
+            videoExistenceFilter.removed(id);
+            trendingService.remove(id);
+            if (video.isPublic()) {
+                publicCatalogueCache.invalidateAll();
+            }
+        });
         logger.info("Video deleted with ID: {}", id);
     }
 
@@ -144,7 +259,9 @@ public class VideoServiceImpl implements VideoService {
         }
 
         try {
-            return storageService.loadFile(video.getFilePath());
+            byte[] content = storageService.loadFile(video.getFilePath());
+            storageService.recordAccess(video.getFilePath());
+            return content;
         } catch (NoSuchFileException e) {
             logger.error("File not found for video ID {}: {}", id, video.getFilePath());
             throw new NoSuchFileException("File video non trovato: " + video.getFilePath());
@@ -154,6 +271,67 @@ public class VideoServiceImpl implements VideoService {
         }
     }
 
+    @Override
+    public long getVideoFileSize(Long id) throws IOException {
+        Video video = videoRepository.findById(id)
+            .orElseThrow(() -> new NoSuchElementException("Video con id " + id + " non trovato"));
+        return getVideoFileSize(video);
+    }
+
+    @Override
+    public long getVideoFileSize(Video video) throws IOException {
+        Long id = video.getId();
+        if (video.getFilePath() == null) {
+            throw new IllegalStateException("Il video non ha un file associato");
+        }
+
+        try {
+            return storageService.getFileSize(video.getFilePath());
+        } catch (NoSuchFileException e) {
+            logger.error("File not found for video ID {}: {}", id, video.getFilePath());
+            throw new NoSuchFileException("File video non trovato: " + video.getFilePath());
+        }
+    }
+
+    @Override
+    public void writeVideoFile(Video video, long start, long length, String clientKey, OutputStream out)
+            throws IOException {
+        if (video.getFilePath() == null) {
+            throw new IllegalStateException("Il video non ha un file associato");
+        }
+
+        // I segmenti restano fuori dall'heap: qui passa solo un buffer di trasferimento per richiesta
+        int chunkSize = chunkCache.getChunkSize();
+        byte[] transfer = new byte[TRANSFER_BUFFER_SIZE];
+        long position = start;
+        long end = start + length;
+        try {
+            while (position < end) {
+                int offset = (int) (position % chunkSize);
+                readAheadService.onRead(clientKey, video.getFilePath(), position);
+                try (ChunkCache.Chunk chunk = chunkCache.acquire(video.getFilePath(), position / chunkSize)) {
+                    ByteBuffer data = chunk.buffer();
+                    if (offset >= data.limit()) {
+                        throw new EOFException("File video più corto del previsto: " + video.getFilePath());
+                    }
+                    int count = (int) Math.min(data.limit() - offset, end - position);
+                    data.position(offset).limit(offset + count);
+                    while (data.hasRemaining()) {
+                        int n = Math.min(transfer.length, data.remaining());
+                        data.get(transfer, 0, n);
+                        out.write(transfer, 0, n);
+                    }
+                    position += count;
+                }
+            }
+        } catch (IOException e) {
+            // Client disconnesso o file illeggibile: il read-ahead di questo flusso non serve più
+            readAheadService.cancel(clientKey, video.getFilePath());
+            throw e;
+        }
+        storageService.recordAccess(video.getFilePath());
+    }
+
     @Override
     public byte[] downloadVideoFile(Long id) throws IOException {
         // Per il download, la logica è la stessa del getVideoFile
@@ -161,11 +339,94 @@ public class VideoServiceImpl implements VideoService {
         return getVideoFile(id);
     }
 
+    @Override
+    public void writeVideoBundle(List<Long> ids, OutputStream out) throws IOException {
+        checkBulkSize(ids);
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, Video> videos = new HashMap<>();
+        videoRepository.findAllById(distinctIds).forEach(video -> videos.put(video.getId(), video));
+
+        // Tutti i controlli prima del primo byte: dopo, un errore può solo troncare l'archivio
+        List<Video> bundle = new ArrayList<>(distinctIds.size());
+        List<Long> sizes = new ArrayList<>(distinctIds.size());
+        for (Long id : distinctIds) {
+            Video video = videos.get(id);
+            if (video == null) {
+                throw new NoSuchElementException("Video con id " + id + " non trovato");
+            }
+            if (video.getFilePath() == null) {
+                throw new IllegalStateException("Il video " + id + " non ha un file associato");
+            }
+            try {
+                sizes.add(storageService.getFileSize(video.getFilePath()));
+            } catch (NoSuchFileException e) {
+                logger.error("File not found for video ID {}: {}", id, video.getFilePath());
+                throw new NoSuchFileException("File video non trovato: " + video.getFilePath());
+            }
+            bundle.add(video);
+        }
+
+        ZipStreamWriter zip = new ZipStreamWriter(out);
+        Set<String> usedNames = new HashSet<>();
+        for (int i = 0; i < bundle.size(); i++) {
+            Video video = bundle.get(i);
+            long size = sizes.get(i);
+            // Il checksum salvato vale solo se il file ha ancora la dimensione registrata al caricamento
+            Long crc = video.getChecksum() != null && video.getFileSize() != null && video.getFileSize() == size
+                    ? video.getChecksum() : null;
+            try (SeekableByteChannel channel = storageService.openChannel(video.getFilePath())) {
+                zip.writeEntry(uniqueEntryName(video, usedNames), size, crc, channel);
+            }
+        }
+        zip.finish();
+        logger.info("Streamed bundle of {} videos", bundle.size());
+    }
+
+    @Override
+    public long exportVideos(VideoExportWriter.Format format, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        long deadline = start + exportConfig.getMaxDurationMs();
+        // Ogni riga viene scritta appena letta dal cursore: nessuna lista del catalogo in memoria
+        try (VideoExportWriter.RowWriter writer = videoExportWriter.open(format, out)) {
+            long count = videoRepository.scrollAll(exportConfig.getBatchSize(), video -> {
+                // Un client che legge lentamente terrebbe aperti transazione e cursore per tutto l'export
+                if (System.currentTimeMillis() > deadline) {
+                    logger.warn("Export aborted after {} ms, the client is reading too slowly", exportConfig.getMaxDurationMs());
+                    throw new IOException("Export interrotto dopo " + exportConfig.getMaxDurationMs() + " ms");
+                }
+                writer.write(video);
+            });
+            logger.info("Exported {} videos as {} in {} ms", count, format, System.currentTimeMillis() - start);
+            return count;
+        }
+    }
+
+    // Stesso nome del download singolo, con un suffisso numerico se due video hanno lo stesso titolo
+    private String uniqueEntryName(Video video, Set<String> usedNames) {
+        String name = video.getFilePath();
+        if (video.getTitle() != null && !video.getTitle().trim().isEmpty()) {
+            name = storageService.sanitizeFileName(video.getTitle()) + storageService.getFileExtension(video.getFilePath());
+        }
+        if (usedNames.add(name)) return name;
+
+        String extension = storageService.getFileExtension(name);
+        String base = name.substring(0, name.length() - extension.length());
+        for (int n = 2; ; n++) {
+            String candidate = base + " (" + n + ")" + extension;
+            if (usedNames.add(candidate)) return candidate;
+        }
+    }
+
     @Override
     public String getVideoContentType(Long id) throws IOException {
         Video video = videoRepository.findById(id)
             .orElseThrow(() -> new NoSuchElementException("Video con id " + id + " non trovato"));
+        return getVideoContentType(video);
+    }
 
+    @Override
+    public String getVideoContentType(Video video) throws IOException {
+        Long id = video.getId();
         if (video.getFilePath() == null) {
             throw new IllegalStateException("Il video non ha un file associato");
         }
@@ -196,13 +457,15 @@ public class VideoServiceImpl implements VideoService {
     }
 
     @Override
-    public Video updateVideo(Long id, Map<String, Object> updates) {
+    public Video updateVideo(Long id, Map<String, Object> updates, Long expectedVersion) {
         Video video = videoRepository.findById(id)
             .orElseThrow(() -> new NoSuchElementException("Video con id " + id + " non trovato"));
+        checkVersion(video, expectedVersion);
 
         if (updates.isEmpty()) {
             throw new IllegalArgumentException("Nessun campo da aggiornare fornito");
         }
+        boolean wasPublic = video.isPublic();
 
         updates.forEach((key, value) -> {
             switch (key) {
@@ -227,7 +490,205 @@ public class VideoServiceImpl implements VideoService {
         });
 
         Video updatedVideo = videoRepository.save(video);
+        trendingService.refresh(updatedVideo);
+        invalidatePublicCatalogue(updatedVideo, wasPublic);
         logger.info("Video metadata updated for ID: {}", id);
         return updatedVideo;
     }
+
+    @Override
+    public long patchVideo(Long id, Map<String, Object> updates, long expectedVersion) {
+        if (updates.isEmpty()) {
+            throw new IllegalArgumentException("Nessun campo da aggiornare fornito");
+        }
+
+        validateFieldUpdates(updates);
+
+        // Nessuna select preventiva: la versione viene verificata dalla UPDATE stessa
+        if (videoRepository.updateFields(id, expectedVersion, updates) == 0) {
+            if (!videoRepository.existsById(id)) {
+                throw new NoSuchElementException("Video con id " + id + " non trovato");
+            }
+            throw new PreconditionFailedException("Il video " + id + " è stato modificato da un'altra richiesta");
+        }
+
+        if (updates.containsKey("isPublic")) {
+            publicCatalogueCache.invalidateAll();
+            if (!(Boolean) updates.get("isPublic")) {
+                trendingService.remove(id);
+            }
+        } else {
+            publicCatalogueCache.invalidateVideo(id);
+        }
+        trendingService.updateMetadata(id, (String) updates.get("title"), (String) updates.get("description"));
+
+        logger.info("Video metadata patched for ID: {} (version {})", id, expectedVersion + 1);
+        return expectedVersion + 1;
+    }
+
+    @Override
+    @Transactional
+    public int bulkDelete(List<Long> ids) {
+        checkBulkSize(ids);
+
+        List<VideoRepository.VideoFileRef> refs = videoRepository.findFileRefsByIdIn(ids);
+        if (refs.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> foundIds = refs.stream().map(VideoRepository.VideoFileRef::getId).toList();
+
+        // Un solo aggiornamento dei contatori per utente, prima della cancellazione
+        Map<Long, long[]> usageByUser = new HashMap<>();
+        for (VideoRepository.VideoFileRef ref : refs) {
+            if (ref.getUserId() == null) continue;
+            long[] usage = usageByUser.computeIfAbsent(ref.getUserId(), k -> new long[2]);
+            usage[0] += ref.getFileSize() != null ? ref.getFileSize() : 0;
+            usage[1]++;
+        }
+        usageByUser.forEach((userId, usage) -> storageQuotaService.adjust(userId, -usage[0], (int) -usage[1]));
+
+        watchProgressService.deleteByVideos(foundIds);
+        viewCounterService.deleteByVideos(foundIds);
+        videoRepository.deleteAllByIdInBatch(foundIds);
+
+        // File e cache vengono toccati solo dopo il commit, gli unlink avvengono in background
+        fileDeletionService.enqueueAfterCommit(refs.stream().map(VideoRepository.VideoFileRef::getFilePath)
+                .filter(Objects::nonNull).toList());
+        AfterCommit.run(() -> {
+            boolean anyPublic = false;
+            for (VideoRepository.VideoFileRef ref : refs) {
+                videoExistenceFilter.removed(ref.getId());
+                trendingService.remove(ref.getId());
+                anyPublic |= ref.getIsPublic();
+            }
+            if (anyPublic) {
+                publicCatalogueCache.invalidateAll();
+            }
+        });
+
+        logger.info("Bulk deleted {} videos", foundIds.size());
+        return foundIds.size();
+    }
+
+    @Override
+    @Transactional
+    public int bulkUpdate(List<Map<String, Object>> patches) {
+        checkBulkSize(patches);
+
+        // Le patch con lo stesso insieme di campi condividono la stessa UPDATE e vanno nello stesso batch
+        Map<String, BatchGroup> groups = new LinkedHashMap<>();
+        for (Map<String, Object> patch : patches) {
+            if (!(patch.get("id") instanceof Number)) {
+                throw new IllegalArgumentException("Ogni elemento deve contenere un id");
+            }
+            if (patch.containsKey("version") && !(patch.get("version") instanceof Number)) {
+                throw new IllegalArgumentException("Versione non valida per il video " + patch.get("id"));
+            }
+
+            Map<String, Object> fields = new TreeMap<>(patch);
+            fields.remove("id");
+            fields.remove("version");
+            if (fields.isEmpty()) {
+                throw new IllegalArgumentException("Nessun campo da aggiornare per il video " + patch.get("id"));
+            }
+            validateFieldUpdates(fields);
+
+            boolean checkVersion = patch.containsKey("version");
+            String signature = fields.keySet() + (checkVersion ? "+version" : "");
+            groups.computeIfAbsent(signature, k -> new BatchGroup(new ArrayList<>(fields.keySet()), checkVersion))
+                    .patches.add(patch);
+        }
+
+        List<Long> notUpdated = new ArrayList<>();
+        for (BatchGroup group : groups.values()) {
+            notUpdated.addAll(videoRepository.batchUpdateFields(group.fields, group.checkVersion, group.patches));
+        }
+
+        // Un solo aggiornamento fallito annulla l'intera transazione
+        if (!notUpdated.isEmpty()) {
+            List<Long> existing = videoRepository.findExistingIds(notUpdated);
+            if (existing.size() < notUpdated.size()) {
+                notUpdated.removeAll(existing);
+                throw new NoSuchElementException("Video non trovati: " + notUpdated);
+            }
+            throw new PreconditionFailedException("Video modificati da un'altra richiesta: " + notUpdated);
+        }
+
+        AfterCommit.run(() -> {
+            publicCatalogueCache.invalidateAll();
+            for (Map<String, Object> patch : patches) {
+                Long id = ((Number) patch.get("id")).longValue();
+                if (Boolean.FALSE.equals(patch.get("isPublic"))) {
+                    trendingService.remove(id);
+                } else {
+                    trendingService.updateMetadata(id, (String) patch.get("title"), (String) patch.get("description"));
+                }
+            }
+        });
+
+        logger.info("Bulk updated {} videos", patches.size());
+        return patches.size();
+    }
+
+    private void checkBulkSize(List<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Nessun video indicato");
+        }
+        if (items.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("Massimo " + MAX_BULK_SIZE + " video per richiesta");
+        }
+    }
+
+    private void validateFieldUpdates(Map<String, Object> updates) {
+        updates.forEach((key, value) -> {
+            switch (key) {
+                case "title":
+                case "description":
+                    if (value != null && !(value instanceof String)) {
+                        throw new IllegalArgumentException("Valore non valido per il campo: " + key);
+                    }
+                    break;
+                case "isPublic":
+                    if (!(value instanceof Boolean)) {
+                        throw new IllegalArgumentException("Valore non valido per il campo: " + key);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Campo non supportato: " + key);
+            }
+        });
+    }
+
+    private void applyStoredFile(Video video, StoredFile stored) {
+        video.setFilePath(stored.getFilename());
+        video.setChecksum(stored.getChecksum());
+        video.setFileSize(stored.getSize());
+    }
+
+    private void checkVersion(Video video, Long expectedVersion) {
+        if (expectedVersion != null && video.getVersion() != expectedVersion) {
+            throw new PreconditionFailedException("Il video " + video.getId() + " è stato modificato da un'altra richiesta");
+        }
+    }
+
+    // Un cambio di visibilità sposta tutte le pagine e il totale; altrimenti basta invalidare quelle del video
+    private void invalidatePublicCatalogue(Video video, boolean wasPublic) {
+        if (video.isPublic() != wasPublic) {
+            publicCatalogueCache.invalidateAll();
+        } else if (video.isPublic()) {
+            publicCatalogueCache.invalidateVideo(video.getId());
+        }
+    }
+
+    private static class BatchGroup {
+        final List<String> fields;
+        final boolean checkVersion;
+        final List<Map<String, Object>> patches = new ArrayList<>();
+
+        BatchGroup(List<String> fields, boolean checkVersion) {
+            this.fields = fields;
+            this.checkVersion = checkVersion;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,309 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.ViewCountConfiguration;
+import com.example.videoapp.repository.VideoViewCountRepository;
+import com.example.videoapp.service.ViewCounterService;
+import com.example.videoapp.util.AfterCommit;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class ViewCounterServiceImpl implements ViewCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ViewCounterServiceImpl.class);
+
+    // L'upsert è idempotente: un batch già applicato (stesso last_batch) non viene sommato due volte.
+    // La condizione sul video evita di ricreare il contatore di un video cancellato con il batch in volo
+    private static final String UPSERT_SQL =
+            "INSERT INTO video_view_count (video_id, node_id, view_count, last_batch) " +
+            "SELECT ?, ?, ?, ? FROM DUAL WHERE EXISTS (SELECT 1 FROM video WHERE id = ?) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "view_count = IF(VALUES(last_batch) > last_batch, view_count + VALUES(view_count), view_count), " +
+            "last_batch = GREATEST(last_batch, VALUES(last_batch))";
+
+    @Autowired
+    private ViewCountConfiguration viewConfig;
+
+    @Autowired
+    private VideoViewCountRepository viewCountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    // Ultima visualizzazione contata per "video|spettatore"; la coda in ordine di inserimento permette
+    // di scartare le voci più vecchie senza scorrere la mappa
+    private final Map<String, Long> recentViewers = new ConcurrentHashMap<>();
+    private final Queue<ViewerEntry> viewerOrder = new ConcurrentLinkedQueue<>();
+    private final Map<Long, PersistedCount> persistedCounts = new ConcurrentHashMap<>();
+    // Lock esplicito invece di synchronized: il batch JDBC gira con il lock acquisito
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private String nodeId;
+    private long lastBatchId;
+    private PendingBatch failedBatch;
+
+    @PostConstruct
+    public void init() {
+        nodeId = viewConfig.getNodeId();
+        if (!StringUtils.hasText(nodeId)) {
+            try {
+                nodeId = InetAddress.getLocalHost().getHostName();
+            } catch (Exception e) {
+                nodeId = "node";
+            }
+        }
+        logger.info("View counter initialized for node: {}", nodeId);
+    }
+
+    @Override
+    public boolean recordView(Long videoId, String viewerKey) {
+        long now = System.currentTimeMillis();
+
+        if (viewerKey != null && !markViewer(videoId + "|" + viewerKey, now)) {
+            return false;
+        }
+
+        Counter counter = counters.computeIfAbsent(videoId, k -> new Counter());
+        counter.views.increment();
+        counter.lastTouched = now;
+        if (counter.retired) {
+            // Il flush ha ritirato il contatore nel frattempo: quanto è rimasto passa a quello attivo
+            moveToActive(videoId, counter);
+        }
+        return true;
+    }
+
+    @Override
+    public long getViewCount(Long videoId) {
+        long now = System.currentTimeMillis();
+        PersistedCount persisted = persistedCounts.get(videoId);
+        if (persisted == null || now - persisted.loadedAt > viewConfig.getPersistedCacheTtlMs()) {
+            persisted = new PersistedCount(viewCountRepository.sumByVideoId(videoId), now);
+            if (persistedCounts.size() < viewConfig.getMaxPersistedCacheEntries()) {
+                persistedCounts.put(videoId, persisted);
+            }
+        }
+        Counter counter = counters.get(videoId);
+        return counter != null ? persisted.value.get() + counter.unflushed() : persisted.value.get();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${videoapp.views.flush-interval-ms:10000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            purgeViewers(now);
+            persistedCounts.values().removeIf(count -> now - count.loadedAt > viewConfig.getPersistedCacheTtlMs());
+
+            // Un batch fallito viene ritentato con lo stesso id prima di costruirne uno nuovo
+            if (failedBatch != null) {
+                if (!apply(failedBatch)) {
+                    return;
+                }
+                failedBatch = null;
+            }
+
+            PendingBatch batch = new PendingBatch(nextBatchId());
+            counters.forEach((videoId, counter) -> {
+                // Svuotamento atomico per cella: ogni incremento finisce in questo batch o nel successivo
+                long delta = counter.views.sumThenReset();
+                if (delta > 0) {
+                    counter.pending += delta;
+                    batch.entries.add(new PendingEntry(videoId, counter, delta));
+                } else if (counter.pending == 0 && now - counter.lastTouched > viewConfig.getIdleEvictionMs()) {
+                    retire(videoId, counter);
+                }
+            });
+
+            if (!batch.entries.isEmpty() && !apply(batch)) {
+                failedBatch = batch;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    @Override
+    public void deleteByVideos(Collection<Long> videoIds) {
+        if (videoIds.isEmpty()) return;
+        viewCountRepository.deleteByVideoIdIn(videoIds);
+
+        List<Long> deleted = List.copyOf(videoIds);
+        AfterCommit.run(() -> deleted.forEach(videoId -> {
+            // Le visualizzazioni ancora in memoria vanno perse con il video
+            counters.remove(videoId);
+            persistedCounts.remove(videoId);
+        }));
+    }
+
+    private boolean apply(PendingBatch batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, batch.entries, 500,
+                    (ps, entry) -> {
+                        ps.setLong(1, entry.videoId);
+                        ps.setString(2, nodeId);
+                        ps.setLong(3, entry.delta);
+                        ps.setLong(4, batch.id);
+                        ps.setLong(5, entry.videoId);
+                    }));
+        } catch (Exception e) {
+            logger.error("Error flushing {} view counters (batch {}): {}", batch.entries.size(), batch.id, e.getMessage());
+            return false;
+        }
+
+        for (PendingEntry entry : batch.entries) {
+            entry.counter.pending -= entry.delta;
+            PersistedCount persisted = persistedCounts.get(entry.videoId);
+            if (persisted != null) {
+                persisted.value.addAndGet(entry.delta);
+            }
+        }
+        logger.debug("Flushed {} view counters (batch {})", batch.entries.size(), batch.id);
+        return true;
+    }
+
+    private long nextBatchId() {
+        // Crescente anche tra un riavvio e l'altro, così l'upsert riconosce i batch già applicati
+        lastBatchId = Math.max(lastBatchId + 1, System.currentTimeMillis());
+        return lastBatchId;
+    }
+
+    // Finestra scorrevole: la visualizzazione conta se l'ultima contata per lo stesso spettatore è più vecchia della finestra
+    private boolean markViewer(String key, long now) {
+        long window = viewConfig.getDedupWindowMs();
+        long[] counted = new long[1];
+        recentViewers.compute(key, (k, last) -> {
+            if (last != null && now - last < window) return last;
+            counted[0] = 1;
+            return now;
+        });
+        if (counted[0] == 0) {
+            return false;
+        }
+
+        viewerOrder.add(new ViewerEntry(key, now));
+        // Oltre il limite si dimenticano gli spettatori più vecchi invece di smettere di deduplicare
+        while (recentViewers.size() > viewConfig.getMaxDedupEntries()) {
+            ViewerEntry oldest = viewerOrder.poll();
+            if (oldest == null) break;
+            recentViewers.remove(oldest.key, oldest.seenAt);
+        }
+        return true;
+    }
+
+    private void purgeViewers(long now) {
+        long cutoff = now - viewConfig.getDedupWindowMs();
+        ViewerEntry oldest;
+        while ((oldest = viewerOrder.peek()) != null && oldest.seenAt <= cutoff) {
+            viewerOrder.poll();
+            recentViewers.remove(oldest.key, oldest.seenAt);
+        }
+    }
+
+    // Chiamato solo dal flush: marca il contatore, lo toglie dalla mappa e riporta gli incrementi arrivati nel frattempo
+    private void retire(Long videoId, Counter counter) {
+        counter.retired = true;
+        counters.remove(videoId, counter);
+        moveToActive(videoId, counter);
+    }
+
+    /**
+     * Sposta sul contatore attivo gli incrementi rimasti su uno ritirato. Grazie allo svuotamento atomico
+     * ogni incremento viene spostato una sola volta, da chi lo trova per primo.
+     */
+    private void moveToActive(Long videoId, Counter retired) {
+        long orphaned = retired.views.sumThenReset();
+        while (orphaned > 0) {
+            Counter active = counters.computeIfAbsent(videoId, k -> new Counter());
+            active.views.add(orphaned);
+            active.lastTouched = System.currentTimeMillis();
+            orphaned = active.retired ? active.views.sumThenReset() : 0;
+        }
+    }
+
+    /**
+     * Le visualizzazioni non ancora salvate sono quelle ancora nell'adder più quelle già prelevate
+     * da un batch non ancora confermato (pending).
+     */
+    private static class Counter {
+        final LongAdder views = new LongAdder();
+        volatile long pending;
+        volatile long lastTouched = System.currentTimeMillis();
+        volatile boolean retired;
+
+        long unflushed() {
+            return views.sum() + pending;
+        }
+    }
+
+    private static class PersistedCount {
+        final AtomicLong value;
+        final long loadedAt;
+
+        PersistedCount(long value, long loadedAt) {
+            this.value = new AtomicLong(value);
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private static class ViewerEntry {
+        final String key;
+        final Long seenAt;
+
+        ViewerEntry(String key, Long seenAt) {
+            this.key = key;
+            this.seenAt = seenAt;
+        }
+    }
+
+    private static class PendingEntry {
+        final Long videoId;
+        final Counter counter;
+        final long delta;
+
+        PendingEntry(Long videoId, Counter counter, long delta) {
+            this.videoId = videoId;
+            this.counter = counter;
+            this.delta = delta;
+        }
+    }
+
+    private static class PendingBatch {
+        final long id;
+        final List<PendingEntry> entries = new ArrayList<>();
+
+        PendingBatch(long id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.WarmupConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.dto.TrendingVideoDto;
+import com.example.videoapp.dto.WarmupStatusDto;
+import com.example.videoapp.model.Video;
+import com.example.videoapp.repository.VideoRepository;
+import com.example.videoapp.service.*;
+import com.example.videoapp.util.RateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Warm restart: salva periodicamente un piccolo snapshot dell'insieme di lavoro caldo (video in tendenza,
+ * pagine del catalogo più richieste, segmenti della chunk cache) e all'avvio lo ricarica in background
+ * con un limite di frequenza, così le prime richieste dopo un deploy non arrivano tutte a MySQL e al disco.
+ * Leggere i segmenti attraverso la chunk cache riscalda anche la page cache del sistema operativo.
+ * L'istanza si dichiara pronta (indicatore di salute "warmup") quando è stata caricata con successo la
+ * frazione configurata dello snapshot, oppure allo scadere di maxWarmupMs o alla fine del riscaldamento.
+ */
+@Service
+public class WarmupServiceImpl implements WarmupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupServiceImpl.class);
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+    private static final int ID_BATCH_SIZE = 500;
+
+    @Autowired
+    private WarmupConfiguration warmupConfig;
+
+    @Autowired
+    private PublicCatalogueCache publicCatalogueCache;
+
+    @Autowired
+    private ChunkCache chunkCache;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private VideoService videoService;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Scritture dello snapshot serializzate tra il job periodico, l'endpoint di amministrazione e lo shutdown
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private final AtomicInteger processed = new AtomicInteger();
+    // Solo le voci effettivamente caricate contano per la soglia: quelle fallite lasciano la cache fredda
+    private final AtomicInteger warmed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong bytesLoaded = new AtomicLong();
+    private volatile int total;
+    private volatile boolean ready;
+    private volatile boolean running;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWarmup() {
+        Path path = snapshotPath();
+        if (!warmupConfig.isEnabled() || path == null || !Files.exists(path)) {
+            ready = true;
+            return;
+        }
+
+        Snapshot snapshot;
+        try {
+            snapshot = objectMapper.readValue(path.toFile(), Snapshot.class);
+        } catch (IOException e) {
+            logger.warn("Could not read warmup snapshot {}: {}", path, e.getMessage());
+            ready = true;
+            return;
+        }
+
+        total = snapshot.pages.size() + snapshot.videoIds.size() + snapshot.chunks.size();
+        startedAt = System.currentTimeMillis();
+        running = true;
+        worker = workerThreads.newThread("cache-warmup", () -> warm(snapshot));
+        worker.start();
+        logger.info("Cache warmup started: {} pages, {} videos, {} chunks", snapshot.pages.size(),
+                snapshot.videoIds.size(), snapshot.chunks.size());
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${videoapp.warmup.snapshot-interval-ms:300000}",
+               initialDelayString = "${videoapp.warmup.snapshot-interval-ms:300000}")
+    public void writeSnapshot() {
+        Path path = snapshotPath();
+        if (!warmupConfig.isEnabled() || path == null) return;
+
+        snapshotLock.lock();
+        try {
+            Snapshot snapshot = new Snapshot();
+            snapshot.createdAt = System.currentTimeMillis();
+            for (TrendingVideoDto video : trendingService.getTrending(warmupConfig.getTopVideos())) {
+                snapshot.videoIds.add(video.getVideo().getId());
+            }
+            for (PublicCatalogueCache.PageRef page : publicCatalogueCache.hotPages(warmupConfig.getHotPages())) {
+                snapshot.pages.add(PageEntry.of(page));
+            }
+            for (ChunkCache.ChunkRef chunk : chunkCache.hotChunks(warmupConfig.getHotChunks())) {
+                snapshot.chunks.add(ChunkEntry.of(chunk));
+            }
+
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            objectMapper.writeValue(tmp.toFile(), snapshot);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Warmup snapshot written: {} videos, {} pages, {} chunks",
+                    snapshot.videoIds.size(), snapshot.pages.size(), snapshot.chunks.size());
+        } catch (IOException e) {
+            logger.error("Failed to write warmup snapshot {}: {}", path, e.getMessage());
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+        // Con il riscaldamento incompleto le cache sono più fredde dello snapshot precedente, che quindi resta
+        if (!running) {
+            writeSnapshot();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        if (ready) return true;
+        if (!running && startedAt == 0) return false;
+
+        boolean thresholdMet = total == 0 || warmed.get() >= warmupConfig.getReadyThreshold() * total;
+        boolean timedOut = System.currentTimeMillis() - startedAt >= warmupConfig.getMaxWarmupMs();
+        if (thresholdMet || timedOut || !running) {
+            if (timedOut && !thresholdMet && running) {
+                logger.warn("Cache warmup threshold not reached after {} ms, reporting ready anyway",
+                        warmupConfig.getMaxWarmupMs());
+            }
+            ready = true;
+        }
+        return ready;
+    }
+
+    @Override
+    public WarmupStatusDto getStatus() {
+        WarmupStatusDto dto = new WarmupStatusDto();
+        dto.setReady(isReady());
+        dto.setRunning(running);
+        dto.setTotalItems(total);
+        dto.setProcessedItems(processed.get());
+        dto.setWarmedItems(warmed.get());
+        dto.setFailedItems(failed.get());
+        dto.setBytesLoaded(bytesLoaded.get());
+        dto.setStartedAt(startedAt);
+        dto.setFinishedAt(finishedAt);
+        return dto;
+    }
+
+    private void warm(Snapshot snapshot) {
+        RateLimiter items = new RateLimiter(warmupConfig.getMaxItemsPerSecond());
+        RateLimiter bytes = new RateLimiter(warmupConfig.getMaxMbPerSecond() * BYTES_PER_MB);
+        try {
+            // Prima le pagine del catalogo (poche query, molto richieste), poi l'inizio dei video più visti,
+            // infine i singoli segmenti caldi
+            for (PageEntry page : snapshot.pages) {
+                items.acquire();
+                try {
+                    publicCatalogueCache.getPage(page.page, page.size, page.afterId, publicPageLoader(page));
+                    warmed.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    logger.debug("Could not warm catalogue page {}: {}", page.page, e.getMessage());
+                }
+                processed.incrementAndGet();
+            }
+
+            for (int from = 0; from < snapshot.videoIds.size(); from += ID_BATCH_SIZE) {
+                List<Long> ids = snapshot.videoIds.subList(from, Math.min(snapshot.videoIds.size(), from + ID_BATCH_SIZE));
+                Map<Long, String> files = new HashMap<>();
+                for (VideoRepository.VideoFileRef ref : videoRepository.findFileRefsByIdIn(ids)) {
+                    files.put(ref.getId(), ref.getFilePath());
+                }
+                for (Long id : ids) {
+                    items.acquire();
+                    String filename = files.get(id);
+                    if (filename == null) {
+                        failed.incrementAndGet();
+                    } else {
+                        try {
+                            for (int index = 0; index < warmupConfig.getHeadChunks(); index++) {
+                                bytes.acquire(chunkCache.getChunkSize());
+                                if (!warmChunk(filename, index)) break;
+                            }
+                            warmed.incrementAndGet();
+                        } catch (IOException | RuntimeException e) {
+                            failed.incrementAndGet();
+                            logger.debug("Could not warm head chunks of {}: {}", filename, e.getMessage());
+                        }
+                    }
+                    processed.incrementAndGet();
+                }
+            }
+
+            for (ChunkEntry chunk : snapshot.chunks) {
+                items.acquire();
+                bytes.acquire(chunkCache.getChunkSize());
+                try {
+                    warmChunk(chunk.filename, chunk.index);
+                    warmed.incrementAndGet();
+                } catch (IOException | RuntimeException e) {
+                    failed.incrementAndGet();
+                    logger.debug("Could not warm chunk {} of {}: {}", chunk.index, chunk.filename, e.getMessage());
+                }
+                processed.incrementAndGet();
+            }
+            logger.info("Cache warmup finished in {} ms: {} items, {} warmed, {} failed, {} MB loaded",
+                    System.currentTimeMillis() - startedAt, processed.get(), warmed.get(), failed.get(),
+                    bytesLoaded.get() / BYTES_PER_MB);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.info("Cache warmup interrupted after {} of {} items", processed.get(), total);
+        } catch (RuntimeException e) {
+            logger.error("Cache warmup failed: {}", e.getMessage(), e);
+        } finally {
+            finishedAt = System.currentTimeMillis();
+            running = false;
+        }
+    }
+
+    // Falso se il segmento è oltre la fine del file
+    private boolean warmChunk(String filename, long index) throws IOException {
+        try (ChunkCache.Chunk chunk = chunkCache.acquire(filename, index)) {
+            bytesLoaded.addAndGet(chunk.buffer().remaining());
+            return true;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    // Stesso caricamento del controller, così la voce riscaldata è quella che le richieste cercheranno
+    private Supplier<Slice<Video>> publicPageLoader(PageEntry page) {
+        return () -> page.afterId != null
+                ? videoService.getVideosAfter(page.afterId, page.size, null, true)
+                : videoService.getVideos(page.page, page.size, null, true);
+    }
+
+    private Path snapshotPath() {
+        String file = warmupConfig.getSnapshotFile();
+        return StringUtils.hasText(file) ? Paths.get(file) : null;
+    }
+
+    static class Snapshot {
+        public long createdAt;
+        public List<Long> videoIds = new ArrayList<>();
+        public List<PageEntry> pages = new ArrayList<>();
+        public List<ChunkEntry> chunks = new ArrayList<>();
+    }
+
+    static class PageEntry {
+        public int page;
+        public int size;
+        public Long afterId;
+
+        static PageEntry of(PublicCatalogueCache.PageRef ref) {
+            PageEntry entry = new PageEntry();
+            entry.page = ref.getPage();
+            entry.size = ref.getSize();
+            entry.afterId = ref.getAfterId();
+            return entry;
+        }
+    }
+
+    static class ChunkEntry {
+        public String filename;
+        public long index;
+
+        static ChunkEntry of(ChunkCache.ChunkRef ref) {
+            ChunkEntry entry = new ChunkEntry();
+            entry.filename = ref.getFilename();
+            entry.index = ref.getIndex();
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.WatchProgressConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.dto.WatchProgressDto;
+import com.example.videoapp.exception.ServiceUnavailableException;
+import com.example.videoapp.model.WatchProgress;
+import com.example.videoapp.repository.VideoRepository;
+import com.example.videoapp.repository.WatchProgressRepository;
+import com.example.videoapp.service.VideoExistenceFilter;
+import com.example.videoapp.service.WatchProgressService;
+import com.example.videoapp.util.AfterCommit;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache write-behind delle posizioni di riproduzione: per ogni (utente, video) resta in memoria
+ * solo l'ultimo valore, scritto su database a intervalli o al superamento della soglia.
+ */
+@Service
+public class WatchProgressServiceImpl implements WatchProgressService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WatchProgressServiceImpl.class);
+
+    // Un valore più vecchio di quello già salvato (es. flush fuori ordine tra nodi) viene ignorato;
+    // la condizione sul video evita di ricreare righe per un video cancellato mentre la posizione era in attesa
+    private static final String UPSERT_SQL =
+            "INSERT INTO watch_progress (user_id, video_id, position_ms, updated_at) " +
+            "SELECT ?, ?, ?, ? FROM DUAL WHERE EXISTS (SELECT 1 FROM video WHERE id = ?) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "position_ms = IF(VALUES(updated_at) >= updated_at, VALUES(position_ms), position_ms), " +
+            "updated_at = GREATEST(updated_at, VALUES(updated_at))";
+
+    @Autowired
+    private WatchProgressConfiguration progressConfig;
+
+    @Autowired
+    private WatchProgressRepository watchProgressRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private VideoExistenceFilter videoExistenceFilter;
+
+    private final Map<WatchProgress.Key, Pending> dirty = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    // Un solo avviso per periodo di saturazione, riarmato dal primo flush riuscito
+    private final AtomicBoolean overflowLogged = new AtomicBoolean();
+    // Un solo flush alla volta tra scheduler e soglia
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private ExecutorService flushExecutor;
+
+    @PostConstruct
+    public void init() {
+        flushExecutor = Executors.newSingleThreadExecutor(workerThreads.factory("watch-progress-flush"));
+    }
+
+    @Override
+    public void saveProgress(Long userId, Long videoId, long positionMs) {
+        if (positionMs < 0) {
+            throw new IllegalArgumentException("La posizione non può essere negativa");
+        }
+
+        WatchProgress.Key key = new WatchProgress.Key(userId, videoId);
+        Pending pending = new Pending(positionMs, System.currentTimeMillis());
+
+        // Una coppia già in attesa è stata verificata al primo salvataggio
+        if (dirty.replace(key, pending) == null) {
+            requireVideo(videoId);
+            if (dirty.size() >= progressConfig.getMaxPendingEntries()) {
+                // Con il database irraggiungibile la mappa non cresce oltre il limite: la posizione non viene
+                // accettata e il client lo sa (503 con Retry-After), così la rimanda invece di considerarla salvata
+                if (overflowLogged.compareAndSet(false, true)) {
+                    logger.warn("Watch progress buffer full ({} entries), rejecting new entries until the next flush",
+                            dirty.size());
+                }
+                scheduleFlush();
+                throw new ServiceUnavailableException("Posizione di riproduzione non salvata, riprovare più tardi",
+                        Math.max(1, TimeUnit.MILLISECONDS.toSeconds(progressConfig.getFlushIntervalMs())));
+            }
+            dirty.put(key, pending);
+        }
+
+        if (dirty.size() >= progressConfig.getFlushThreshold()) {
+            scheduleFlush();
+        }
+    }
+
+    @Override
+    public WatchProgressDto getProgress(Long userId, Long videoId) {
+        WatchProgress.Key key = new WatchProgress.Key(userId, videoId);
+
+        Pending pending = dirty.get(key);
+        if (pending != null) {
+            return new WatchProgressDto(videoId, pending.positionMs, pending.updatedAt);
+        }
+
+        return watchProgressRepository.findById(key)
+                .map(progress -> new WatchProgressDto(videoId, progress.getPositionMs(), progress.getUpdatedAt()))
+                .orElse(null);
+    }
+
+    @Override
+    public void deleteByVideos(Collection<Long> videoIds) {
+        if (videoIds.isEmpty()) return;
+        watchProgressRepository.deleteByVideoIdIn(videoIds);
+
+        Set<Long> deleted = new HashSet<>(videoIds);
+        AfterCommit.run(() -> dirty.keySet().removeIf(key -> deleted.contains(key.getVideoId())));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${videoapp.progress.flush-interval-ms:5000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (dirty.isEmpty()) return;
+
+            List<Map.Entry<WatchProgress.Key, Pending>> batch = new ArrayList<>(dirty.size());
+            dirty.forEach((key, pending) -> batch.add(Map.entry(key, pending)));
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, batch,
+                        progressConfig.getBatchSize(), (ps, entry) -> {
+                            ps.setLong(1, entry.getKey().getUserId());
+                            ps.setLong(2, entry.getKey().getVideoId());
+                            ps.setLong(3, entry.getValue().positionMs);
+                            ps.setLong(4, entry.getValue().updatedAt);
+                            ps.setLong(5, entry.getKey().getVideoId());
+                        }));
+            } catch (Exception e) {
+                logger.error("Error flushing {} watch progress entries: {}", batch.size(), e.getMessage());
+                return;
+            }
+
+            // Rimuove solo le voci non aggiornate nel frattempo: quelle più recenti restano per il prossimo flush
+            for (Map.Entry<WatchProgress.Key, Pending> entry : batch) {
+                dirty.remove(entry.getKey(), entry.getValue());
+            }
+            overflowLogged.set(false);
+            logger.debug("Flushed {} watch progress entries", batch.size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void requireVideo(Long videoId) {
+        // La bitmap risponde senza query nella quasi totalità dei casi; il database solo per gli id che non copre
+        if (videoExistenceFilter.isKnown(videoId)) return;
+        if (!videoExistenceFilter.mightExist(videoId) || !videoRepository.existsById(videoId)) {
+            videoExistenceFilter.recordMiss(videoId);
+            throw new NoSuchElementException("Video con id " + videoId + " non trovato");
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled.compareAndSet(false, true)) return;
+        flushExecutor.execute(() -> {
+            try {
+                flush();
+            } finally {
+                flushScheduled.set(false);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (!dirty.isEmpty()) {
+            logger.warn("{} watch progress entries could not be saved on shutdown", dirty.size());
+        }
+    }
+
+    private static class Pending {
+        final long positionMs;
+        final long updatedAt;
+
+        Pending(long positionMs, long updatedAt) {
+            this.positionMs = positionMs;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.videoapp.util;
+
+import org.springframework.http.HttpRange;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Risoluzione degli intervalli di una richiesta Range su un file di dimensione nota.
+ */
+public final class ByteRanges {
+
+    private ByteRanges() {}
+
+    /**
+     * Intervallo di byte con estremi inclusi
+     */
+    public static final class Segment {
+        private final long start;
+        private final long end;
+
+        public Segment(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        public long getLength() {
+            return end - start + 1;
+        }
+    }
+
+    /**
+     * Converte gli intervalli in segmenti ordinati, scartando quelli non soddisfacibili e unendo quelli
+     * sovrapposti o separati da al più mergeGap byte; una lista vuota significa 416
+     */
+    public static List<Segment> resolve(List<HttpRange> ranges, long size, long mergeGap) {
+        List<Segment> segments = new ArrayList<>(ranges.size());
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(size);
+            long end = range.getRangeEnd(size);
+            if (start < size && start <= end) {
+                segments.add(new Segment(start, end));
+            }
+        }
+        segments.sort(Comparator.comparingLong(Segment::getStart));
+
+        List<Segment> merged = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            Segment last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && segment.start <= last.end + 1 + mergeGap) {
+                merged.set(merged.size() - 1, new Segment(last.start, Math.max(last.end, segment.end)));
+            } else {
+                merged.add(segment);
+            }
+        }
+        return merged;
+    }
+}
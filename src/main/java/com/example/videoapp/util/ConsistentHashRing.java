@@ -0,0 +1,72 @@
+package com.example.videoapp.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Anello di hashing consistente con nodi virtuali. Ogni nodo occupa virtualNodes punti dell'anello,
+ * così il carico resta bilanciato e aggiungendo un nodo si sposta solo la quota di chiavi che gli spetta.
+ * L'anello è immutabile: un cambio di membership ne costruisce uno nuovo.
+ */
+public final class ConsistentHashRing<T> {
+
+    private final NavigableMap<Long, T> ring = new TreeMap<>();
+    private final int nodeCount;
+
+    /**
+     * @param nodes nodi indicizzati per identificativo stabile (es. indirizzo), da cui derivano i punti sull'anello
+     */
+    public ConsistentHashRing(Map<String, T> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("L'anello richiede almeno un nodo");
+        }
+        int points = Math.max(1, virtualNodes);
+        new TreeMap<>(nodes).forEach((id, node) -> {
+            for (int i = 0; i < points; i++) {
+                // Le rare collisioni vanno al nodo con id minore, indipendentemente dall'ordine di inserimento
+                ring.merge(hash(id + "#" + i), node, (existing, added) -> existing);
+            }
+        });
+        this.nodeCount = new HashSet<>(ring.values()).size();
+    }
+
+    /**
+     * Primi count nodi distinti incontrati in senso orario a partire dall'hash della chiave;
+     * il primo è il proprietario principale, gli altri le repliche
+     */
+    public List<T> preferenceList(String key, int count) {
+        int wanted = Math.min(Math.max(1, count), nodeCount);
+        List<T> result = new ArrayList<>(wanted);
+        long hash = hash(key);
+
+        for (T node : ring.tailMap(hash, true).values()) {
+            if (!result.contains(node)) result.add(node);
+            if (result.size() == wanted) return result;
+        }
+        for (T node : ring.headMap(hash, false).values()) {
+            if (!result.contains(node)) result.add(node);
+            if (result.size() == wanted) return result;
+        }
+        return result;
+    }
+
+    public int size() {
+        return nodeCount;
+    }
+
+    // Primi 8 byte di MD5: distribuzione uniforme e stabile tra JVM e versioni, a differenza di hashCode()
+    static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.videoapp.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap concorrente di id non negativi, un bit per id fino a maxId escluso.
+ * Le letture non prendono lock; le scritture condividono un read lock e la crescita dell'array
+ * (per copia) prende il write lock, così nessun bit impostato durante la copia va perso.
+ */
+public class IdBitmap {
+
+    private final long maxId;
+    private final ReentrantReadWriteLock resizeLock = new ReentrantReadWriteLock();
+    private volatile AtomicLongArray words;
+
+    public IdBitmap(long maxId) {
+        this.maxId = Math.max(64, Math.min(maxId, (long) Integer.MAX_VALUE * 64));
+        this.words = new AtomicLongArray(16);
+    }
+
+    /**
+     * Id rappresentabili: per valori maggiori o uguali la bitmap non sa rispondere
+     */
+    public long getMaxId() {
+        return maxId;
+    }
+
+    public boolean contains(long id) {
+        if (id < 0 || id >= maxId) return false;
+        AtomicLongArray current = words;
+        int index = (int) (id >>> 6);
+        return index < current.length() && (current.get(index) & (1L << id)) != 0;
+    }
+
+    public void add(long id) {
+        if (id < 0 || id >= maxId) return;
+        int index = (int) (id >>> 6);
+        ensureCapacity(index);
+        update(index, 1L << id, true);
+    }
+
+    public void remove(long id) {
+        if (id < 0 || id >= maxId) return;
+        int index = (int) (id >>> 6);
+        if (index < words.length()) {
+            update(index, 1L << id, false);
+        }
+    }
+
+    public long cardinality() {
+        AtomicLongArray current = words;
+        long count = 0;
+        for (int i = 0; i < current.length(); i++) {
+            count += Long.bitCount(current.get(i));
+        }
+        return count;
+    }
+
+    public long sizeInBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    private void update(int index, long mask, boolean set) {
+        resizeLock.readLock().lock();
+        try {
+            // L'array non si riduce mai: l'indice resta valido anche se nel frattempo è cresciuto
+            words.getAndAccumulate(index, mask, set ? (word, bit) -> word | bit : (word, bit) -> word & ~bit);
+        } finally {
+            resizeLock.readLock().unlock();
+        }
+    }
+
+    private void ensureCapacity(int index) {
+        if (index < words.length()) return;
+
+        resizeLock.writeLock().lock();
+        try {
+            AtomicLongArray current = words;
+            if (index < current.length()) return;
+
+            int maxWords = (int) ((maxId + 63) >>> 6);
+            int length = (int) Math.min(maxWords, Math.max(index + 1L, current.length() * 2L));
+            AtomicLongArray grown = new AtomicLongArray(length);
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            words = grown;
+        } finally {
+            resizeLock.writeLock().unlock();
+        }
+    }
+}
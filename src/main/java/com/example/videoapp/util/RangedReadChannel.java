@@ -0,0 +1,119 @@
+package com.example.videoapp.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Canale in sola lettura su un contenuto remoto di dimensione nota. Le letture sequenziali consumano
+ * la risposta corrente; una lettura fuori dalla finestra aperta (seek o fine finestra) apre una nuova
+ * richiesta per almeno minWindow byte, quindi non viene mai scaricato più di quanto serve.
+ */
+public class RangedReadChannel implements SeekableByteChannel {
+
+    /**
+     * Apre uno stream sui byte [start, endInclusive]
+     */
+    @FunctionalInterface
+    public interface RangeSource {
+        InputStream open(long start, long endInclusive) throws IOException;
+    }
+
+    private final String name;
+    private final long size;
+    private final long minWindow;
+    private final RangeSource source;
+    private final byte[] transfer = new byte[64 * 1024];
+    private long position;
+    private InputStream stream;
+    private long streamPosition;
+    private long streamEnd;
+    private boolean open = true;
+
+    public RangedReadChannel(String name, long size, long minWindow, RangeSource source) {
+        this.name = name;
+        this.size = size;
+        this.minWindow = minWindow;
+        this.source = source;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (!open) throw new ClosedChannelException();
+        if (position >= size) return -1;
+        if (!dst.hasRemaining()) return 0;
+
+        if (stream == null || streamPosition != position || streamPosition >= streamEnd) {
+            closeStream();
+            streamEnd = Math.min(size, position + Math.max(dst.remaining(), minWindow));
+            stream = source.open(position, streamEnd - 1);
+            streamPosition = position;
+        }
+
+        int wanted = (int) Math.min(dst.remaining(), streamEnd - streamPosition);
+        int read;
+        if (dst.hasArray()) {
+            read = stream.read(dst.array(), dst.arrayOffset() + dst.position(), wanted);
+            if (read > 0) dst.position(dst.position() + read);
+        } else {
+            // I buffer diretti (es. chunk cache) passano da un array temporaneo riusato
+            read = stream.read(transfer, 0, Math.min(wanted, transfer.length));
+            if (read > 0) dst.put(transfer, 0, read);
+        }
+        if (read < 0) {
+            closeStream();
+            throw new EOFException("Risposta troncata leggendo " + name + " alla posizione " + position);
+        }
+        position += read;
+        streamPosition += read;
+        return read;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) {
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        open = false;
+        closeStream();
+    }
+
+    private void closeStream() throws IOException {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.videoapp.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limitatore di velocità a token bucket: acquire attende finché i permessi richiesti sono disponibili.
+ * Con un tasso non positivo non applica alcun limite.
+ */
+public class RateLimiter {
+
+    private final double permitsPerSecond;
+    private final double maxBurst;
+    private double storedPermits;
+    private long lastRefillNanos = System.nanoTime();
+
+    public RateLimiter(double permitsPerSecond) {
+        this(permitsPerSecond, 1.0);
+    }
+
+    public RateLimiter(double permitsPerSecond, double burstSeconds) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.maxBurst = Math.max(1.0, permitsPerSecond * burstSeconds);
+    }
+
+    public void acquire() throws InterruptedException {
+        acquire(1);
+    }
+
+    public void acquire(long permits) throws InterruptedException {
+        if (permitsPerSecond <= 0 || permits <= 0) {
+            return;
+        }
+        long waitNanos = reserve(permits);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    // I permessi mancanti vengono presi "a debito": chi arriva dopo attende anche il debito precedente
+    private synchronized long reserve(long permits) {
+        long now = System.nanoTime();
+        storedPermits = Math.min(maxBurst, storedPermits + (now - lastRefillNanos) / 1e9 * permitsPerSecond);
+        lastRefillNanos = now;
+
+        storedPermits -= permits;
+        if (storedPermits >= 0) {
+            return 0;
+        }
+        return (long) (-storedPermits / permitsPerSecond * 1e9);
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.videoapp.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Scrittura in streaming di un archivio ZIP64 con sole voci STORED (senza compressione).
+ * Il contenuto di ogni voce viene copiato dal canale del file all'output senza passare da un byte[].
+ * Se il CRC non è noto viene calcolato con una prima lettura del canale: l'header locale contiene
+ * sempre CRC e dimensioni, perché i lettori in streaming non sanno delimitare una voce STORED
+ * con data descriptor. La memoria usata non dipende dalla dimensione dei file.
+ */
+public final class ZipStreamWriter {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int VERSION_ZIP64 = 45;
+    private static final int FLAG_UTF8 = 1 << 11;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final WritableByteChannel channel;
+    private final List<Entry> entries = new ArrayList<>();
+    private final int dosTime;
+    private final int dosDate;
+    private ByteBuffer copyBuffer;
+    private long offset;
+    private boolean finished;
+
+    public ZipStreamWriter(OutputStream out) {
+        this.out = out;
+        this.channel = Channels.newChannel(out);
+        LocalDateTime now = LocalDateTime.now();
+        this.dosTime = (now.getHour() << 11) | (now.getMinute() << 5) | (now.getSecond() >> 1);
+        this.dosDate = ((Math.max(now.getYear(), 1980) - 1980) << 9) | (now.getMonthValue() << 5) | now.getDayOfMonth();
+    }
+
+    /**
+     * Aggiunge una voce copiando size byte dal canale; crc32 null = calcolato prima della copia
+     */
+    public void writeEntry(String name, long size, Long crc32, SeekableByteChannel source) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Archivio già chiuso");
+        }
+
+        Entry entry = new Entry(name.getBytes(StandardCharsets.UTF_8), size, offset, FLAG_UTF8);
+        long start = source.position();
+        if (crc32 != null) {
+            entry.crc = crc32;
+        } else {
+            CRC32 crc = new CRC32();
+            long read = copy(source, size, crc, null);
+            if (read != size) {
+                throw changed(name, read, size);
+            }
+            entry.crc = crc.getValue();
+            source.position(start);
+        }
+        writeLocalHeader(entry);
+
+        long copied = transfer(source, start, size);
+        if (copied != size) {
+            throw changed(name, copied, size);
+        }
+        offset += size;
+        entries.add(entry);
+    }
+
+    /**
+     * Scrive la central directory e i record di chiusura; lo stream sottostante non viene chiuso
+     */
+    public void finish() throws IOException {
+        if (finished) return;
+        finished = true;
+
+        long centralStart = offset;
+        for (Entry entry : entries) {
+            ByteBuffer header = buffer(46 + entry.name.length + 28);
+            header.putInt(CENTRAL_HEADER_SIGNATURE)
+                    .putShort((short) VERSION_ZIP64)
+                    .putShort((short) VERSION_ZIP64)
+                    .putShort((short) entry.flags)
+                    .putShort((short) 0)
+                    .putShort((short) dosTime)
+                    .putShort((short) dosDate)
+                    .putInt((int) entry.crc)
+                    .putInt((int) ZIP64_MARKER)
+                    .putInt((int) ZIP64_MARKER)
+                    .putShort((short) entry.name.length)
+                    .putShort((short) 28)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putInt(0)
+                    .putInt((int) ZIP64_MARKER)
+                    .put(entry.name)
+                    .putShort((short) ZIP64_EXTRA_ID)
+                    .putShort((short) 24)
+                    .putLong(entry.size)
+                    .putLong(entry.size)
+                    .putLong(entry.localHeaderOffset);
+            write(header);
+        }
+        long centralSize = offset - centralStart;
+        long zip64EndOffset = offset;
+
+        ByteBuffer end = buffer(56 + 20 + 22);
+        end.putInt(ZIP64_END_SIGNATURE)
+                .putLong(44)
+                .putShort((short) VERSION_ZIP64)
+                .putShort((short) VERSION_ZIP64)
+                .putInt(0)
+                .putInt(0)
+                .putLong(entries.size())
+                .putLong(entries.size())
+                .putLong(centralSize)
+                .putLong(centralStart);
+        end.putInt(ZIP64_LOCATOR_SIGNATURE)
+                .putInt(0)
+                .putLong(zip64EndOffset)
+                .putInt(1);
+        end.putInt(END_SIGNATURE)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0xFFFF)
+                .putShort((short) 0xFFFF)
+                .putInt((int) ZIP64_MARKER)
+                .putInt((int) ZIP64_MARKER)
+                .putShort((short) 0);
+        write(end);
+        out.flush();
+    }
+
+    private void writeLocalHeader(Entry entry) throws IOException {
+        ByteBuffer header = buffer(30 + entry.name.length + 20);
+        header.putInt(LOCAL_HEADER_SIGNATURE)
+                .putShort((short) VERSION_ZIP64)
+                .putShort((short) entry.flags)
+                .putShort((short) 0)
+                .putShort((short) dosTime)
+                .putShort((short) dosDate)
+                .putInt((int) entry.crc)
+                .putInt((int) ZIP64_MARKER)
+                .putInt((int) ZIP64_MARKER)
+                .putShort((short) entry.name.length)
+                .putShort((short) 20)
+                .put(entry.name)
+                .putShort((short) ZIP64_EXTRA_ID)
+                .putShort((short) 16)
+                .putLong(entry.size)
+                .putLong(entry.size);
+        write(header);
+    }
+
+    private long transfer(SeekableByteChannel source, long start, long size) throws IOException {
+        if (!(source instanceof FileChannel fileChannel)) {
+            return copy(source, size, null, channel);
+        }
+        out.flush();
+        long position = 0;
+        while (position < size) {
+            long n = fileChannel.transferTo(start + position, size - position, channel);
+            if (n <= 0) break;
+            position += n;
+        }
+        return position;
+    }
+
+    // Legge fino a size byte dal canale aggiornando il CRC e/o scrivendoli su target
+    private long copy(SeekableByteChannel source, long size, CRC32 crc, WritableByteChannel target) throws IOException {
+        if (copyBuffer == null) {
+            copyBuffer = ByteBuffer.allocateDirect(COPY_BUFFER_SIZE);
+        }
+        long copied = 0;
+        while (copied < size) {
+            copyBuffer.clear().limit((int) Math.min(copyBuffer.capacity(), size - copied));
+            if (source.read(copyBuffer) < 0) break;
+            copyBuffer.flip();
+            if (crc != null) {
+                crc.update(copyBuffer.duplicate());
+            }
+            copied += copyBuffer.remaining();
+            while (target != null && copyBuffer.hasRemaining()) {
+                target.write(copyBuffer);
+            }
+        }
+        return copied;
+    }
+
+    private static IOException changed(String name, long copied, long size) {
+        return new IOException("Il file " + name + " è cambiato durante la copia (" + copied + " byte su " + size + ")");
+    }
+
+    private static ByteBuffer buffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        offset += buffer.remaining();
+        out.write(buffer.array(), 0, buffer.limit());
+    }
+
+    private static final class Entry {
+        final byte[] name;
+        final long size;
+        final long localHeaderOffset;
+        final int flags;
+        long crc;
+
+        Entry(byte[] name, long size, long localHeaderOffset, int flags) {
+            this.name = name;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+            this.flags = flags;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.videoapp.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Confronto tra thread di piattaforma (pool fisso, come il max-threads di Tomcat) e virtual thread
+ * su un carico simile a una richiesta di streaming: due round trip JDBC simulati e una lettura
+ * posizionale dal file. Non è un test JUnit: si avvia con "gradle threadBenchmark".
+ * <p>
+ * Argomenti opzionali: richieste, thread di piattaforma, latenza JDBC in ms, KB letti per richiesta.
+ */
+public class ThreadModeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int platformThreads = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        long jdbcLatencyMs = args.length > 2 ? Long.parseLong(args[2]) : 10;
+        int readKb = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+
+        Path file = Files.createTempFile("thread-benchmark", ".bin");
+        try {
+            byte[] block = new byte[1024 * 1024];
+            ThreadLocalRandom.current().nextBytes(block);
+            for (int i = 0; i < 64; i++) {
+                Files.write(file, block, StandardOpenOption.APPEND);
+            }
+
+            System.out.printf("%d requests, %d ms simulated JDBC latency x2, %d KB read each%n",
+                    requests, jdbcLatencyMs, readKb);
+            // Un primo giro scalda JIT e page cache e non viene riportato
+            run(Executors.newFixedThreadPool(platformThreads), requests / 10, file, jdbcLatencyMs, readKb);
+
+            report("platform (" + platformThreads + " threads)",
+                    run(Executors.newFixedThreadPool(platformThreads), requests, file, jdbcLatencyMs, readKb), requests);
+            report("virtual (thread per request)",
+                    run(Executors.newVirtualThreadPerTaskExecutor(), requests, file, jdbcLatencyMs, readKb), requests);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Result run(ExecutorService executor, int requests, Path file, long jdbcLatencyMs, int readKb)
+            throws InterruptedException {
+        long[] latencies = new long[requests];
+        long started = System.nanoTime();
+        try (executor) {
+            for (int i = 0; i < requests; i++) {
+                int index = i;
+                long submitted = System.nanoTime();
+                executor.execute(() -> {
+                    try {
+                        handle(file, jdbcLatencyMs, readKb);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    latencies[index] = System.nanoTime() - submitted;
+                });
+            }
+        }
+        return new Result(System.nanoTime() - started, latencies);
+    }
+
+    private static void handle(Path file, long jdbcLatencyMs, int readKb) throws IOException, InterruptedException {
+        Thread.sleep(jdbcLatencyMs);
+        ByteBuffer buffer = ByteBuffer.allocate(readKb * 1024);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = ThreadLocalRandom.current().nextLong(channel.size() - buffer.capacity());
+            while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+                // lettura completa del blocco
+            }
+        }
+        Thread.sleep(jdbcLatencyMs);
+    }
+
+    private static void report(String label, Result result, int requests) {
+        long[] sorted = result.latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-30s %8.0f req/s   p50 %6.1f ms   p99 %7.1f ms%n", label,
+                requests / (result.elapsedNanos / 1e9),
+                sorted[sorted.length / 2] / 1e6,
+                sorted[(int) (sorted.length * 0.99)] / 1e6);
+    }
+
+    private record Result(long elapsedNanos, long[] latencies) {
+    }
+}
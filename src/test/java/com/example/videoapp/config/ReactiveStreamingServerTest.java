@@ -0,0 +1,34 @@
+package com.example.videoapp.config;
+
+import com.example.videoapp.service.LocalFileStorage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveStreamingServerTest {
+
+    @Test
+    void startupFailsWithoutLocalFiles() {
+        ReactiveStreamingServer server = server(null);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, server::checkStorage);
+        assertTrue(e.getMessage().contains("videoapp.storage.mode"));
+    }
+
+    @Test
+    void startupAcceptsLocalStorage() {
+        assertDoesNotThrow(server(mock(LocalFileStorage.class))::checkStorage);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ReactiveStreamingServer server(LocalFileStorage storage) {
+        ObjectProvider<LocalFileStorage> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(storage);
+        ReactiveStreamingServer server = new ReactiveStreamingServer();
+        ReflectionTestUtils.setField(server, "localFileStorage", provider);
+        return server;
+    }
+}
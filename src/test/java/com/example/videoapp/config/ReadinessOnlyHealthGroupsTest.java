@@ -0,0 +1,29 @@
+package com.example.videoapp.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.HealthEndpointGroup;
+import org.springframework.boot.actuate.health.HealthEndpointGroups;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReadinessOnlyHealthGroupsTest {
+
+    @Test
+    void warmupIsExcludedOnlyFromTheOverallStatus() {
+        HealthEndpointGroup primary = mock(HealthEndpointGroup.class);
+        when(primary.isMember(anyString())).thenReturn(true);
+        HealthEndpointGroup readiness = mock(HealthEndpointGroup.class);
+        when(readiness.isMember("warmup")).thenReturn(true);
+
+        HealthEndpointGroups groups = new ReadinessOnlyHealthGroups()
+                .postProcessHealthEndpointGroups(HealthEndpointGroups.of(primary, Map.of("readiness", readiness)));
+
+        assertFalse(groups.getPrimary().isMember("warmup"));
+        assertTrue(groups.getPrimary().isMember("db"));
+        assertSame(readiness, groups.get("readiness"));
+        assertTrue(groups.get("readiness").isMember("warmup"));
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.videoapp.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replicaA;
+    private DataSource replicaB;
+    private Connection primaryConnection;
+    private Connection replicaAConnection;
+    private Connection replicaBConnection;
+    private ReadReplicaConfiguration config;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primaryConnection = mock(Connection.class);
+        replicaAConnection = mock(Connection.class);
+        replicaBConnection = mock(Connection.class);
+        primary = dataSource(primaryConnection);
+        replicaA = dataSource(replicaAConnection);
+        replicaB = dataSource(replicaBConnection);
+
+        config = new ReadReplicaConfiguration();
+        config.setLagQuery("");
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("a", replicaA);
+        replicas.put("b", replicaB);
+        routing = new ReplicaRoutingDataSource(primary, replicas, config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.clear();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplicasInRotation() throws SQLException {
+        assertSame(primaryConnection, routing.getConnection());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Connection first = routing.getConnection();
+        Connection second = routing.getConnection();
+        assertNotSame(first, second);
+        assertTrue(List.of(replicaAConnection, replicaBConnection).containsAll(List.of(first, second)));
+    }
+
+    @Test
+    void failedReplicaIsSkippedUntilHealthy() throws SQLException {
+        when(replicaA.getConnection()).thenThrow(new SQLException("down"));
+        when(replicaBConnection.isValid(anyInt())).thenReturn(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        for (int i = 0; i < 4; i++) {
+            assertSame(replicaBConnection, routing.getConnection());
+        }
+        assertEquals(1, routing.getHealthyReplicaCount());
+
+        when(replicaB.getConnection()).thenThrow(new SQLException("down"));
+        assertSame(primaryConnection, routing.getConnection());
+        assertEquals(0, routing.getHealthyReplicaCount());
+    }
+
+    @Test
+    void laggingReplicaIsExcluded() throws SQLException {
+        config.setLagQuery("SELECT lag");
+        config.setMaxLagMs(2000);
+        lag(replicaAConnection, 10);
+        lag(replicaBConnection, 1);
+
+        routing.checkReplicas();
+        assertEquals(1, routing.getHealthyReplicaCount());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(replicaBConnection, routing.getConnection());
+        assertSame(replicaBConnection, routing.getConnection());
+
+        lag(replicaAConnection, 0);
+        routing.checkReplicas();
+        assertEquals(2, routing.getHealthyReplicaCount());
+    }
+
+    @Test
+    void readsAfterOwnWriteStayOnPrimary() throws SQLException {
+        authenticate("alice");
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        assertSame(primaryConnection, routing.getConnection());
+        commit();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(primaryConnection, routing.getConnection());
+
+        authenticate("bob");
+        assertNotSame(primaryConnection, routing.getConnection());
+    }
+
+    private static DataSource dataSource(Connection connection) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+
+    private static void lag(Connection connection, long seconds) throws SQLException {
+        Statement statement = mock(Statement.class);
+        ResultSet rs = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+        when(rs.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("lag");
+        when(rs.getLong(1)).thenReturn(seconds);
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.afterCommit();
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+}
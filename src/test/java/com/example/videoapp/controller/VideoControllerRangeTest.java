@@ -0,0 +1,90 @@
+package com.example.videoapp.controller;
+
+import com.example.videoapp.exception.GlobalExceptionHandler;
+import com.example.videoapp.model.Video;
+import com.example.videoapp.service.TrendingService;
+import com.example.videoapp.service.VideoService;
+import com.example.videoapp.service.ViewCounterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Richieste con Range: il video viene letto una volta sola e la visualizzazione conta solo per intervalli accettati
+ */
+class VideoControllerRangeTest {
+
+    private static final long SIZE = 1_000_000;
+
+    private VideoService videoService;
+    private ViewCounterService viewCounterService;
+    private TrendingService trendingService;
+    private Video video;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        video = new Video("Video", null, true, null);
+        video.setId(1L);
+        video.setFilePath("a.mp4");
+        videoService = mock(VideoService.class);
+        when(videoService.getVideoById(1L)).thenReturn(video);
+        when(videoService.getVideoContentType(video)).thenReturn("video/mp4");
+        when(videoService.getVideoFileSize(video)).thenReturn(SIZE);
+        viewCounterService = mock(ViewCounterService.class);
+        when(viewCounterService.recordView(eq(1L), anyString())).thenReturn(true);
+        trendingService = mock(TrendingService.class);
+
+        VideoController controller = new VideoController();
+        ReflectionTestUtils.setField(controller, "videoService", videoService);
+        ReflectionTestUtils.setField(controller, "viewCounterService", viewCounterService);
+        ReflectionTestUtils.setField(controller, "trendingService", trendingService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void multipleRangesReuseTheVideoReadOnce() throws Exception {
+        mockMvc.perform(get("/api/videos/1/stream").header("Range", "bytes=0-9,500000-500009"))
+                .andExpect(status().isPartialContent());
+
+        verify(videoService).getVideoById(1L);
+        verify(videoService).writeVideoFile(same(video), eq(0L), eq(10L), anyString(), any(OutputStream.class));
+        verify(videoService).writeVideoFile(same(video), eq(500_000L), eq(10L), anyString(), any(OutputStream.class));
+        verify(videoService, never()).getVideoFileSize(anyLong());
+        verify(videoService, never()).getVideoContentType(anyLong());
+        verify(viewCounterService).recordView(eq(1L), anyString());
+        verify(trendingService).recordView(video);
+    }
+
+    @Test
+    void unsatisfiableRangeIsNotCountedAsAView() throws Exception {
+        mockMvc.perform(get("/api/videos/1/file").header("Range", "bytes=2000000-3000000"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */" + SIZE));
+
+        verify(videoService, never()).writeVideoFile(any(), anyLong(), anyLong(), any(), any());
+        verifyNoInteractions(viewCounterService, trendingService);
+    }
+
+    @Test
+    void fullResponseCountsTheView() throws Exception {
+        mockMvc.perform(get("/api/videos/1/file"))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue("Content-Length", SIZE));
+
+        verify(videoService).writeVideoFile(same(video), eq(0L), eq(SIZE), anyString(), any(OutputStream.class));
+        verify(viewCounterService).recordView(eq(1L), anyString());
+    }
+}
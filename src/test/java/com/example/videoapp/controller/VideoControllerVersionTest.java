@@ -0,0 +1,103 @@
+package com.example.videoapp.controller;
+
+import com.example.videoapp.converter.VideoMapper;
+import com.example.videoapp.exception.GlobalExceptionHandler;
+import com.example.videoapp.exception.PreconditionFailedException;
+import com.example.videoapp.model.Video;
+import com.example.videoapp.service.VideoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Percorsi di If-Match/ETag: versione mancante, non valida, non corrispondente e conflitti concorrenti
+ */
+class VideoControllerVersionTest {
+
+    private VideoService videoService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        videoService = mock(VideoService.class);
+        VideoController controller = new VideoController();
+        ReflectionTestUtils.setField(controller, "videoService", videoService);
+        ReflectionTestUtils.setField(controller, "videoMapper", mock(VideoMapper.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void patchRequiresIfMatch() throws Exception {
+        mockMvc.perform(patch("/api/videos/1").contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"a\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/videos/1").header("If-Match", "\"abc\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"a\"}"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(videoService);
+    }
+
+    @Test
+    void patchReturnsNewVersionAsETag() throws Exception {
+        when(videoService.patchVideo(eq(1L), anyMap(), eq(3L))).thenReturn(4L);
+
+        mockMvc.perform(patch("/api/videos/1").header("If-Match", "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"a\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    void staleVersionIsPreconditionFailed() throws Exception {
+        when(videoService.patchVideo(eq(1L), anyMap(), eq(2L)))
+                .thenThrow(new PreconditionFailedException("Il video 1 è stato modificato da un'altra richiesta"));
+
+        mockMvc.perform(patch("/api/videos/1").header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"a\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void putPassesVersionOnlyWhenIfMatchIsSpecific() throws Exception {
+        Video video = new Video();
+        video.setVersion(8);
+        when(videoService.updateVideo(eq(1L), anyMap(), any())).thenReturn(video);
+
+        mockMvc.perform(put("/api/videos/1").contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"a\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"8\""));
+        mockMvc.perform(put("/api/videos/1").header("If-Match", "*")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"a\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/videos/1").header("If-Match", "\"7\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"a\"}"))
+                .andExpect(status().isOk());
+
+        verify(videoService, times(2)).updateVideo(eq(1L), anyMap(), isNull());
+        verify(videoService).updateVideo(eq(1L), anyMap(), eq(7L));
+    }
+
+    @Test
+    void concurrentSaveIsConflict() throws Exception {
+        when(videoService.updateVideo(eq(1L), anyMap(), any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Video.class, 1L));
+
+        mockMvc.perform(put("/api/videos/1").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"a\"}"))
+                .andExpect(status().isConflict());
+    }
+}
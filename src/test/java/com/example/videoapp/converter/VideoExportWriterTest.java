@@ -0,0 +1,90 @@
+package com.example.videoapp.converter;
+
+import com.example.videoapp.model.User;
+import com.example.videoapp.model.Video;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VideoExportWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final VideoExportWriter exportWriter = new VideoExportWriter(objectMapper);
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws IOException {
+        String output = export(VideoExportWriter.Format.NDJSON);
+        String[] lines = output.split("\n", -1);
+
+        assertEquals(3, lines.length);
+        assertEquals("", lines[2]);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1, first.get("id").asLong());
+        assertEquals("mario", first.get("username").asText());
+        assertEquals("riga uno\nriga due", first.get("description").asText());
+        assertFalse(objectMapper.readTree(lines[1]).has("userId"));
+    }
+
+    @Test
+    void csvQuotesOnlyFieldsThatNeedIt() throws IOException {
+        String[] lines = export(VideoExportWriter.Format.CSV).split("\r\n");
+
+        assertTrue(lines[0].startsWith("id,title,description"));
+        assertEquals("1,\"Ciao, mondo\",\"riga uno\nriga due\",true,7,mario,a.mp4,100,,0", lines[1]);
+        assertEquals("2,\"Il \"\"film\"\"\",,false,,,b.mp4,,42,3", lines[2]);
+    }
+
+    @Test
+    void csvNeutralisesFormulas() throws IOException {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("@SUM(A1)");
+        Video video = new Video("=HYPERLINK(\"http://x\")", "-2+3", true, user);
+        video.setId(1L);
+        video.setFilePath("+a.mp4");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (VideoExportWriter.RowWriter writer = exportWriter.open(VideoExportWriter.Format.CSV, out)) {
+            writer.write(video);
+        }
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals("1,\"'=HYPERLINK(\"\"http://x\"\")\",\"'-2+3\",true,7,\"'@SUM(A1)\",\"'+a.mp4\",,,0", lines[1]);
+    }
+
+    @Test
+    void unknownFormatIsRejected() {
+        assertEquals(VideoExportWriter.Format.CSV, VideoExportWriter.Format.parse("CSV"));
+        assertThrows(IllegalArgumentException.class, () -> VideoExportWriter.Format.parse("xml"));
+    }
+
+    private String export(VideoExportWriter.Format format) throws IOException {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("mario");
+
+        Video first = new Video("Ciao, mondo", "riga uno\nriga due", true, user);
+        first.setId(1L);
+        first.setFilePath("a.mp4");
+        first.setFileSize(100L);
+
+        Video second = new Video("Il \"film\"", null, false, null);
+        second.setId(2L);
+        second.setFilePath("b.mp4");
+        second.setChecksum(42L);
+        second.setVersion(3);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (VideoExportWriter.RowWriter writer = exportWriter.open(format, out)) {
+            writer.write(first);
+            writer.write(second);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
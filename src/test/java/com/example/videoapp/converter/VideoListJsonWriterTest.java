@@ -0,0 +1,110 @@
+package com.example.videoapp.converter;
+
+import com.example.videoapp.dto.VideoOutputDto;
+import com.example.videoapp.model.User;
+import com.example.videoapp.model.Video;
+import com.example.videoapp.util.PageCursor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VideoListJsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final VideoListJsonWriter writer = new VideoListJsonWriter(objectMapper);
+
+    @Test
+    void pageEnvelopeUsesTheExpectedFieldNamesAndOrder() throws IOException {
+        Video video = video(5L, "Ciao \"mondo\"", null, user(7L, "mario"));
+
+        String json = write(new PageImpl<>(List.of(video), PageRequest.of(0, 1), 3), false);
+
+        assertEquals("{\"content\":[{\"id\":5,\"title\":\"Ciao \\\"mondo\\\"\",\"description\":null,\"isPublic\":true,"
+                + "\"public\":true,\"user\":{\"userId\":7,\"username\":\"mario\"}}],\"page\":1,\"size\":1,\"hasNext\":true,"
+                + "\"totalElements\":3,\"totalPages\":3,\"nextCursor\":\"" + PageCursor.encode(5L) + "\"}", json);
+    }
+
+    @Test
+    void cursorEnvelopeOmitsPageAndTotals() throws IOException {
+        Slice<Video> slice = new SliceImpl<>(List.of(video(1L, "a", "x", null), video(2L, "b", "y", null)),
+                PageRequest.of(3, 2), true);
+
+        JsonNode envelope = objectMapper.readTree(write(slice, true));
+
+        assertFalse(envelope.has("page"));
+        assertFalse(envelope.has("totalElements"));
+        assertFalse(envelope.has("totalPages"));
+        assertEquals(2, envelope.get("size").asInt());
+        assertTrue(envelope.get("hasNext").asBoolean());
+        assertEquals(2L, PageCursor.decode(envelope.get("nextCursor").asText()));
+        // Senza utente il campo è null, come nella serializzazione del DTO
+        assertTrue(envelope.get("content").get(0).get("user").isNull());
+    }
+
+    @Test
+    void lastOrEmptyPageHasNoNextCursor() throws IOException {
+        JsonNode last = objectMapper.readTree(write(
+                new PageImpl<>(List.of(video(9L, "z", null, null)), PageRequest.of(1, 1), 2), false));
+        assertFalse(last.get("hasNext").asBoolean());
+        assertFalse(last.has("nextCursor"));
+        assertEquals(2, last.get("page").asInt());
+
+        JsonNode empty = objectMapper.readTree(write(new SliceImpl<>(List.of(), PageRequest.of(0, 10), false), true));
+        assertEquals(0, empty.get("content").size());
+        assertFalse(empty.has("nextCursor"));
+    }
+
+    @Test
+    void contentMatchesTheDtoShape() throws IOException {
+        List<Video> videos = List.of(
+                video(1L, "Primo", "descrizione", user(7L, "mario")),
+                video(2L, "Secondo", null, user(8L, "luigi")),
+                video(3L, "Terzo", null, null));
+        videos.get(1).setPublic(false);
+        VideoMapper mapper = new VideoMapper();
+
+        JsonNode content = objectMapper.readTree(write(new PageImpl<>(videos, PageRequest.of(0, 10), 2), false))
+                .get("content");
+
+        for (int i = 0; i < videos.size(); i++) {
+            VideoOutputDto expected = mapper.toDto(videos.get(i));
+            // Stessi campi e valori della serializzazione Jackson del DTO usata prima dello streaming
+            JsonNode dtoShape = objectMapper.readTree(objectMapper.writeValueAsString(expected));
+            assertEquals(dtoShape, content.get(i));
+
+            VideoOutputDto parsed = objectMapper.treeToValue(content.get(i), VideoOutputDto.class);
+            assertEquals(dtoShape, objectMapper.readTree(objectMapper.writeValueAsString(parsed)));
+        }
+    }
+
+    private String write(Slice<Video> slice, boolean cursorMode) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(slice, cursorMode, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Video video(Long id, String title, String description, User user) {
+        Video video = new Video(title, description, true, user);
+        video.setId(id);
+        video.setFilePath("file-" + id + ".mp4");
+        return video;
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+}
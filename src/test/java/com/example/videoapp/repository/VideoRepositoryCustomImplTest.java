@@ -0,0 +1,78 @@
+package com.example.videoapp.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VideoRepositoryCustomImplTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private VideoRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        repository = new VideoRepositoryCustomImpl();
+        ReflectionTestUtils.setField(repository, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @Test
+    void zeroCountsAreReportedWithoutVerification() {
+        stubCounts(1, 0);
+
+        List<Long> notUpdated = repository.batchUpdateFields(List.of("title"), true,
+                List.of(patch(1L, 3L, "a"), patch(2L, 3L, "b")));
+
+        assertEquals(List.of(2L), notUpdated);
+        verify(jdbcTemplate, never()).queryForList(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void successNoInfoIsVerifiedAgainstVersionAndValues() {
+        stubCounts(Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO);
+        when(jdbcTemplate.queryForList(anyString(), any(Object[].class))).thenReturn(List.of(
+                // Aggiornata dalla patch
+                Map.of("id", 1L, "version", 4L, "title", "a"),
+                // Modificata da un'altra richiesta partita dalla stessa versione
+                Map.of("id", 2L, "version", 4L, "title", "altro")
+                // 3 non esiste più
+        ));
+
+        List<Long> notUpdated = repository.batchUpdateFields(List.of("title"), true,
+                List.of(patch(1L, 3L, "a"), patch(2L, 3L, "b"), patch(3L, 3L, "c")));
+
+        assertEquals(List.of(2L, 3L), notUpdated);
+    }
+
+    @Test
+    void withoutVersionCheckOnlyValuesMatter() {
+        stubCounts(Statement.SUCCESS_NO_INFO);
+        when(jdbcTemplate.queryForList(anyString(), any(Object[].class))).thenReturn(List.of(
+                Map.of("id", 1L, "version", 9L, "is_public", 1)));
+
+        List<Long> notUpdated = repository.batchUpdateFields(List.of("isPublic"), false,
+                List.of(Map.of("id", 1L, "isPublic", true)));
+
+        assertTrue(notUpdated.isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubCounts(int... counts) {
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any()))
+                .thenReturn(new int[][]{counts});
+    }
+
+    private static Map<String, Object> patch(Long id, Long version, String title) {
+        return Map.of("id", id, "version", version, "title", title);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.videoapp.service;
+
+import com.example.videoapp.model.User;
+import com.example.videoapp.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CustomUserDetailsServiceTest {
+
+    @Test
+    void roleBecomesTheOnlyAuthority() {
+        assertEquals("ROLE_ADMIN", authority(User.ROLE_ADMIN));
+        assertEquals("ROLE_USER", authority(User.ROLE_USER));
+        // Righe create prima della colonna role
+        assertEquals("ROLE_USER", authority(null));
+    }
+
+    private static String authority(String role) {
+        User user = new User();
+        user.setUsername("mario");
+        user.setPassword("hash");
+        user.setRole(role);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByUsername("mario")).thenReturn(user);
+        CustomUserDetailsService service = new CustomUserDetailsService();
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+
+        UserDetails details = service.loadUserByUsername("mario");
+        assertEquals(1, details.getAuthorities().size());
+        return details.getAuthorities().stream().map(GrantedAuthority::getAuthority).findFirst().orElseThrow();
+    }
+}
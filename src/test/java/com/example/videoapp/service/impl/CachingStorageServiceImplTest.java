@@ -0,0 +1,199 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.DiskCacheConfiguration;
+import com.example.videoapp.config.StorageConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cache su disco davanti a uno storage locale che conta le aperture, al posto di un backend remoto
+ */
+class CachingStorageServiceImplTest {
+
+    private static final int CHUNK = 64 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private CountingStorage backend;
+    private CachingStorageServiceImpl cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StorageConfiguration storageConfig = new StorageConfiguration();
+        storageConfig.setUploadDir(tempDir.resolve("uploads").toString());
+        backend = new CountingStorage();
+        ReflectionTestUtils.setField(backend, "storageConfig", storageConfig);
+        backend.init();
+
+        cache = newCache(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void secondReadIsServedFromDisk() throws IOException {
+        byte[] data = store("a.mp4", CHUNK * 3 + 100);
+
+        assertArrayEquals(data, cache.loadFile("a.mp4"));
+        int opens = backend.opens.get();
+        assertEquals(4, opens);
+
+        assertArrayEquals(data, cache.loadFile("a.mp4"));
+        assertEquals(opens, backend.opens.get());
+    }
+
+    @Test
+    void concurrentMissesFetchOnce() throws Exception {
+        byte[] data = store("b.mp4", CHUNK);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> reads = new ArrayList<>();
+            CountDownLatch start = new CountDownLatch(1);
+            for (int i = 0; i < 8; i++) {
+                reads.add(pool.submit(() -> {
+                    start.await();
+                    return cache.loadFile("b.mp4");
+                }));
+            }
+            start.countDown();
+            for (Future<byte[]> read : reads) {
+                assertArrayEquals(data, read.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, backend.opens.get());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWithinBudget() throws IOException {
+        cache.shutdown();
+        cache = newCache(1);
+        store("c.mp4", CHUNK * 20);
+        store("d.mp4", CHUNK);
+
+        readChunk("d.mp4", 0);
+        for (int i = 0; i < 20; i++) {
+            readChunk("c.mp4", i);
+            readChunk("d.mp4", 0);
+        }
+
+        long cachedBytes;
+        try (Stream<Path> files = Files.walk(tempDir.resolve("cache/chunks"))) {
+            cachedBytes = files.filter(path -> path.getFileName().toString().matches("\\d+"))
+                    .mapToLong(path -> path.toFile().length()).sum();
+        }
+        assertTrue(cachedBytes <= 1024 * 1024, "cache over budget: " + cachedBytes);
+        // Il segmento letto a ogni giro non viene mai espulso
+        assertEquals(21, backend.opens.get());
+    }
+
+    @Test
+    void deleteInvalidatesCachedChunks() throws IOException {
+        store("e.mp4", CHUNK);
+        cache.loadFile("e.mp4");
+
+        cache.deleteFile("e.mp4");
+
+        assertFalse(Files.exists(tempDir.resolve("cache/chunks/e.mp4")));
+        assertThrows(IOException.class, () -> cache.loadFile("e.mp4"));
+    }
+
+    @Test
+    void originReadsBypassTheCache() throws IOException {
+        byte[] data = store("g.mp4", CHUNK * 2);
+
+        for (int i = 0; i < 2; i++) {
+            try (SeekableByteChannel channel = cache.openOriginChannel("g.mp4")) {
+                ByteBuffer buffer = ByteBuffer.allocate(data.length);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // legge fino alla fine del file
+                }
+                assertArrayEquals(data, buffer.array());
+            }
+        }
+
+        assertEquals(2, backend.opens.get());
+        assertFalse(Files.exists(tempDir.resolve("cache/chunks/g.mp4")));
+    }
+
+    @Test
+    void restoresIndexAfterRestart() throws IOException {
+        byte[] data = store("f.mp4", CHUNK * 2);
+        cache.loadFile("f.mp4");
+        cache.shutdown();
+
+        cache = newCache(4);
+        int opens = backend.opens.get();
+        assertArrayEquals(data, cache.loadFile("f.mp4"));
+        assertEquals(opens, backend.opens.get());
+    }
+
+    private CachingStorageServiceImpl newCache(long maxMb) throws IOException {
+        DiskCacheConfiguration config = new DiskCacheConfiguration();
+        config.setEnabled(true);
+        config.setDir(tempDir.resolve("cache").toString());
+        config.setChunkSizeKb(CHUNK / 1024);
+        config.setMaxMb(maxMb);
+
+        WorkerThreads workerThreads = new WorkerThreads();
+        ReflectionTestUtils.setField(workerThreads, "environment", new MockEnvironment());
+
+        CachingStorageServiceImpl cache = new CachingStorageServiceImpl();
+        ReflectionTestUtils.setField(cache, "delegate", backend);
+        ReflectionTestUtils.setField(cache, "diskCacheConfig", config);
+        ReflectionTestUtils.setField(cache, "workerThreads", workerThreads);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        cache.init();
+        return cache;
+    }
+
+    private byte[] store(String filename, int size) throws IOException {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        backend.storeAs(filename, new ByteArrayInputStream(data), Long.MAX_VALUE);
+        return data;
+    }
+
+    private void readChunk(String filename, int index) throws IOException {
+        try (SeekableByteChannel channel = cache.openChannel(filename)) {
+            channel.position((long) index * CHUNK);
+            assertTrue(channel.read(ByteBuffer.allocate(CHUNK)) > 0);
+        }
+    }
+
+    private static class CountingStorage extends StorageServiceImpl {
+        final AtomicInteger opens = new AtomicInteger();
+
+        @Override
+        public SeekableByteChannel openChannel(String filename) throws IOException {
+            opens.incrementAndGet();
+            return super.openChannel(filename);
+        }
+    }
+}
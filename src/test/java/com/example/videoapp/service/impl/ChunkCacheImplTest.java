@@ -0,0 +1,243 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.ChunkCacheConfiguration;
+import com.example.videoapp.config.StorageConfiguration;
+import com.example.videoapp.service.ChunkCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkCacheImplTest {
+
+    private static final int CHUNK = 4096;
+    // 1 MB di budget con segmenti da 4 KB
+    private static final int CAPACITY = 256;
+
+    @TempDir
+    Path tempDir;
+
+    private CountingStorage storage;
+    private ChunkCacheImpl cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StorageConfiguration storageConfig = new StorageConfiguration();
+        storageConfig.setUploadDir(tempDir.toString());
+        storage = new CountingStorage();
+        ReflectionTestUtils.setField(storage, "storageConfig", storageConfig);
+        storage.init();
+
+        ChunkCacheConfiguration config = new ChunkCacheConfiguration();
+        config.setChunkSizeKb(CHUNK / 1024);
+        config.setMaxMb(1);
+        config.setWindowPercent(10);
+        cache = new ChunkCacheImpl();
+        ReflectionTestUtils.setField(cache, "chunkCacheConfig", config);
+        ReflectionTestUtils.setField(cache, "storageService", storage);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        cache.init();
+    }
+
+    @Test
+    void repeatedReadsAreServedFromCache() throws IOException {
+        byte[] data = store("a.mp4", CHUNK * 3 + 10);
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                try (ChunkCache.Chunk chunk = cache.acquire("a.mp4", i)) {
+                    assertChunk(data, i, chunk);
+                }
+            }
+        }
+        assertEquals(4, storage.opens.get());
+    }
+
+    @Test
+    void evictionKeepsTheByteBudget() throws IOException {
+        byte[] data = store("big.mp4", CHUNK * CAPACITY * 3);
+
+        for (int i = 0; i < CAPACITY * 3; i++) {
+            try (ChunkCache.Chunk chunk = cache.acquire("big.mp4", i)) {
+                assertChunk(data, i, chunk);
+            }
+        }
+        assertConsistent();
+        assertTrue(index().size() <= CAPACITY);
+    }
+
+    @Test
+    void frequentChunksSurviveAScan() throws IOException {
+        store("popular.mp4", CHUNK * 8);
+        store("scan.mp4", CHUNK * CAPACITY * 2);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 8; i++) {
+                cache.acquire("popular.mp4", i).close();
+            }
+        }
+
+        for (int i = 0; i < CAPACITY * 2; i++) {
+            cache.acquire("scan.mp4", i).close();
+        }
+
+        for (int i = 0; i < 8; i++) {
+            assertTrue(cache.isCached("popular.mp4", i), "segmento " + i + " espulso dalla scansione");
+        }
+    }
+
+    @Test
+    void evictedChunkStaysValidUntilClosed() throws IOException {
+        byte[] data = store("held.mp4", CHUNK);
+        byte[] other = store("other.mp4", CHUNK * CAPACITY * 2);
+
+        ChunkCache.Chunk held = cache.acquire("held.mp4", 0);
+        // Riempie la cache: il segmento tenuto viene espulso e i buffer liberati vengono riusati
+        for (int i = 0; i < CAPACITY * 2; i++) {
+            try (ChunkCache.Chunk chunk = cache.acquire("other.mp4", i)) {
+                assertChunk(other, i, chunk);
+            }
+        }
+        assertFalse(cache.isCached("held.mp4", 0));
+        assertChunk(data, 0, held);
+        held.close();
+
+        cache.invalidate("other.mp4");
+        assertConsistent();
+        assertTrue(index().isEmpty());
+    }
+
+    @Test
+    void invalidateDropsOnlyThatFile() throws IOException {
+        store("a.mp4", CHUNK * 2);
+        store("b.mp4", CHUNK * 2);
+        cache.acquire("a.mp4", 0).close();
+        cache.acquire("a.mp4", 1).close();
+        cache.acquire("b.mp4", 0).close();
+
+        cache.invalidate("a.mp4");
+
+        assertFalse(cache.isCached("a.mp4", 0));
+        assertFalse(cache.isCached("a.mp4", 1));
+        assertTrue(cache.isCached("b.mp4", 0));
+        assertConsistent();
+    }
+
+    @Test
+    void concurrentReadersKeepIndexAndPolicyConsistent() throws Exception {
+        byte[] data = store("shared.mp4", CHUNK * CAPACITY * 2);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            CountDownLatch start = new CountDownLatch(1);
+            for (int t = 0; t < threads; t++) {
+                long seed = t;
+                readers.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    start.await();
+                    for (int n = 0; n < 2000; n++) {
+                        // Pochi segmenti molto richiesti e una coda lunga, per avere sia colpi sia espulsioni
+                        int index = random.nextInt(4) == 0 ? random.nextInt(CAPACITY * 2) : random.nextInt(16);
+                        try (ChunkCache.Chunk chunk = cache.acquire("shared.mp4", index)) {
+                            assertChunk(data, index, chunk);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertConsistent();
+        assertTrue(index().size() <= CAPACITY);
+    }
+
+    @Test
+    void admittingAKeyAlreadyCachedReleasesTheNewCopy() throws Exception {
+        store("dup.mp4", CHUNK);
+        // Due caricamenti concorrenti dello stesso segmento arrivano entrambi all'ammissione
+        Object key = construct("ChunkKey", new Class<?>[]{String.class, long.class}, "dup.mp4", 0L);
+        Object first = entry(key);
+        Object second = entry(key);
+
+        ReflectionTestUtils.invokeMethod(cache, "admit", first);
+        ReflectionTestUtils.invokeMethod(cache, "admit", second);
+
+        assertEquals(1, index().size());
+        assertSame(first, index().values().iterator().next());
+        assertConsistent();
+        Object secondChunk = ReflectionTestUtils.getField(second, "chunk");
+        assertEquals(0, ((AtomicInteger) ReflectionTestUtils.getField(secondChunk, "refCount")).get());
+    }
+
+    private Object entry(Object key) throws Exception {
+        Object chunk = ReflectionTestUtils.invokeMethod(cache, "load", key);
+        Class<?> chunkClass = Class.forName(ChunkCacheImpl.class.getName() + "$CachedChunk");
+        return construct("Entry", new Class<?>[]{key.getClass(), chunkClass}, key, chunk);
+    }
+
+    private static Object construct(String nested, Class<?>[] types, Object... args) throws Exception {
+        Constructor<?> constructor = Class.forName(ChunkCacheImpl.class.getName() + "$" + nested)
+                .getDeclaredConstructor(types);
+        constructor.setAccessible(true);
+        return constructor.newInstance(args);
+    }
+
+    private void assertConsistent() {
+        int listed = ((Map<?, ?>) ReflectionTestUtils.getField(cache, "window")).size()
+                + ((Map<?, ?>) ReflectionTestUtils.getField(cache, "probation")).size()
+                + ((Map<?, ?>) ReflectionTestUtils.getField(cache, "protectedSegment")).size();
+        assertEquals(index().size(), listed, "voci indicizzate fuori dalle liste della politica");
+    }
+
+    private Map<?, ?> index() {
+        return (Map<?, ?>) ReflectionTestUtils.getField(cache, "index");
+    }
+
+    private static void assertChunk(byte[] data, long index, ChunkCache.Chunk chunk) {
+        ByteBuffer buffer = chunk.buffer();
+        int offset = (int) (index * CHUNK);
+        int length = Math.min(CHUNK, data.length - offset);
+        assertEquals(length, buffer.remaining());
+        for (int i = 0; i < length; i++) {
+            assertEquals(data[offset + i], buffer.get(i), "byte " + i + " del segmento " + index);
+        }
+    }
+
+    private byte[] store(String filename, int size) throws IOException {
+        byte[] data = new byte[size];
+        new Random(filename.hashCode()).nextBytes(data);
+        storage.storeAs(filename, new ByteArrayInputStream(data), Long.MAX_VALUE);
+        return data;
+    }
+
+    private static class CountingStorage extends StorageServiceImpl {
+        final AtomicInteger opens = new AtomicInteger();
+
+        @Override
+        public SeekableByteChannel openChannel(String filename) throws IOException {
+            opens.incrementAndGet();
+            return super.openChannel(filename);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.DistributedStorageConfiguration;
+import com.example.videoapp.config.StorageConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.util.RateLimiter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class DistributedStorageServiceImplTest {
+
+    private static final int SIZE = 300 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private final List<FakeStorageNode> nodes = new ArrayList<>();
+    private final List<DistributedStorageServiceImpl> services = new ArrayList<>();
+    private DistributedStorageConfiguration distributedConfig;
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(DistributedStorageServiceImpl::shutdown);
+        nodes.forEach(FakeStorageNode::stop);
+    }
+
+    @Test
+    void filesAreReplicatedAndReadableWithOneNodeDown() throws IOException {
+        startNodes(3);
+        DistributedStorageServiceImpl storage = service(nodes);
+        List<byte[]> data = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            data.add(store(storage, "video-" + i + ".mp4"));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(2, copies("video-" + i + ".mp4"), "repliche di video-" + i + ".mp4");
+        }
+        nodes.get(0).down = true;
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(data.get(i), storage.loadFile("video-" + i + ".mp4"));
+        }
+    }
+
+    @Test
+    void hintsAreReplayedWhenTheNodeComesBack() throws Exception {
+        startNodes(2);
+        DistributedStorageServiceImpl storage = service(nodes);
+        FakeStorageNode node = nodes.get(1);
+        store(storage, "deleted.mp4");
+        node.down = true;
+
+        byte[] data = store(storage, "written.mp4");
+        storage.deleteFile("deleted.mp4");
+        assertFalse(node.files.containsKey("written.mp4"));
+        assertTrue(node.files.containsKey("deleted.mp4"));
+
+        node.down = false;
+        storage.checkNodes();
+
+        await(() -> node.files.containsKey("written.mp4") && !node.files.containsKey("deleted.mp4"));
+        assertArrayEquals(data, node.files.get("written.mp4"));
+        await(() -> hints(node).isEmpty());
+    }
+
+    @Test
+    void hintsBeyondTheSizeLimitAreNotKept() throws IOException {
+        startNodes(2);
+        distributedConfig.setMaxHintMbPerNode(1);
+        DistributedStorageServiceImpl storage = service(nodes);
+        FakeStorageNode node = nodes.get(1);
+        node.down = true;
+
+        for (int i = 0; i < 4; i++) {
+            store(storage, "video-" + i + ".mp4");
+        }
+
+        // 1 MB di spazio: entrano tre copie da 300 KB, la quarta la recupera il ribilanciamento
+        assertEquals(3, hints(node).size());
+    }
+
+    @Test
+    void expiredHintsAreDroppedAndRebalanceRestoresTheCopy() throws Exception {
+        startNodes(2);
+        distributedConfig.setMaxHintAgeMs(60_000);
+        DistributedStorageServiceImpl storage = service(nodes);
+        FakeStorageNode node = nodes.get(1);
+        node.down = true;
+        byte[] data = store(storage, "old.mp4");
+        Path hint = hints(node).get(0);
+        Files.setLastModifiedTime(hint, FileTime.fromMillis(System.currentTimeMillis() - 120_000));
+
+        node.down = false;
+        storage.checkNodes();
+        await(() -> !Files.exists(hint));
+        assertFalse(node.files.containsKey("old.mp4"));
+
+        rebalance(storage);
+        assertArrayEquals(data, node.files.get("old.mp4"));
+    }
+
+    @Test
+    void rebalanceMovesCopiesToANewNodeAndThrottlesEachBuffer() throws Exception {
+        startNodes(3);
+        DistributedStorageServiceImpl before = service(nodes.subList(0, 2));
+        List<byte[]> data = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            data.add(store(before, "video-" + i + ".mp4"));
+        }
+        assertTrue(nodes.get(2).files.isEmpty());
+
+        DistributedStorageServiceImpl after = service(nodes);
+        RateLimiter limiter = spy(new RateLimiter(1000.0 * 1024 * 1024));
+        ReflectionTestUtils.setField(after, "rebalanceLimiter", limiter);
+        rebalance(after);
+
+        assertFalse(nodes.get(2).files.isEmpty());
+        for (int i = 0; i < 10; i++) {
+            // Copiata sui nuovi proprietari e rimossa da quello che non lo è più
+            assertEquals(2, copies("video-" + i + ".mp4"), "repliche di video-" + i + ".mp4");
+            assertArrayEquals(data.get(i), after.loadFile("video-" + i + ".mp4"));
+        }
+        verify(limiter, atLeast(2 * nodes.get(2).files.size())).acquire(anyLong());
+        verify(limiter, never()).acquire((long) SIZE);
+    }
+
+    private void startNodes(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            nodes.add(new FakeStorageNode());
+        }
+        distributedConfig = new DistributedStorageConfiguration();
+        distributedConfig.setHintDir(tempDir.resolve("hints").toString());
+        distributedConfig.setSpoolDir(tempDir.resolve("spool").toString());
+        distributedConfig.setNodeToken(FakeStorageNode.TOKEN);
+        distributedConfig.setWriteQuorum(1);
+        distributedConfig.setMaxRebalanceMbPerSecond(1000);
+    }
+
+    private DistributedStorageServiceImpl service(List<FakeStorageNode> members) throws IOException {
+        StorageConfiguration storageConfig = new StorageConfiguration();
+        storageConfig.setNodes(members.stream().map(FakeStorageNode::address).toList());
+        storageConfig.setReplicationFactor(2);
+        storageConfig.setVirtualNodes(64);
+        WorkerThreads workerThreads = mock(WorkerThreads.class);
+        when(workerThreads.factory(anyString())).thenReturn(Executors.defaultThreadFactory());
+
+        DistributedStorageServiceImpl storage = new DistributedStorageServiceImpl();
+        ReflectionTestUtils.setField(storage, "storageConfig", storageConfig);
+        ReflectionTestUtils.setField(storage, "distributedConfig", distributedConfig);
+        ReflectionTestUtils.setField(storage, "workerThreads", workerThreads);
+        storage.init();
+        services.add(storage);
+        return storage;
+    }
+
+    private static void rebalance(DistributedStorageServiceImpl storage) {
+        ReflectionTestUtils.invokeMethod(storage, "rebalance");
+    }
+
+    private long copies(String filename) {
+        return nodes.stream().filter(node -> node.files.containsKey(filename)).count();
+    }
+
+    private List<Path> hints(FakeStorageNode node) {
+        Path dir = tempDir.resolve("hints").resolve(node.address().replaceAll("^[a-z]+://", "").replace(':', '_'));
+        if (!Files.isDirectory(dir)) return List.of();
+        try (var files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] store(DistributedStorageServiceImpl storage, String filename) throws IOException {
+        byte[] data = new byte[SIZE];
+        new Random(filename.hashCode()).nextBytes(data);
+        storage.storeAs(filename, new ByteArrayInputStream(data), Long.MAX_VALUE);
+        return data;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condizione non raggiunta entro 5 s");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.videoapp.service.impl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Server S3 minimale in-process per i test: oggetti in memoria, multipart, Range con If-Match,
+ * ListObjectsV2 paginato e copia, su un bucket unico "videos"
+ */
+class FakeS3 {
+
+    record FakeObject(byte[] data, String contentType) {
+        String etag() {
+            return "\"" + Integer.toHexString(Arrays.hashCode(data)) + "\"";
+        }
+    }
+
+    private static final Pattern PART = Pattern.compile("<PartNumber>(\\d+)</PartNumber><ETag>&quot;([^&]+)&quot;</ETag>");
+    private static final int PAGE_SIZE = 10;
+
+    final Map<String, FakeObject> objects = new ConcurrentHashMap<>();
+    final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    final AtomicInteger partsUploaded = new AtomicInteger();
+    final AtomicInteger listRequests = new AtomicInteger();
+    final AtomicInteger headRequests = new AtomicInteger();
+    final AtomicInteger failuresToInject = new AtomicInteger();
+    final AtomicLong bytesServed = new AtomicLong();
+    private final HttpServer server;
+
+    FakeS3() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/", exchange -> {
+            try {
+                handle(exchange);
+            } catch (Exception e) {
+                send(exchange, 500, ("<Error>" + e + "</Error>").getBytes(StandardCharsets.UTF_8), null);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    void stop() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String auth = exchange.getRequestHeaders().getFirst("Authorization");
+        if (auth == null || !auth.startsWith("AWS4-HMAC-SHA256 Credential=test-key/")) {
+            send(exchange, 403, "<Error>AccessDenied</Error>".getBytes(StandardCharsets.UTF_8), null);
+            return;
+        }
+        if (failuresToInject.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            send(exchange, 503, "<Error>SlowDown</Error>".getBytes(StandardCharsets.UTF_8), null);
+            return;
+        }
+
+        String method = exchange.getRequestMethod();
+        String path = URLDecoder.decode(exchange.getRequestURI().getRawPath(), StandardCharsets.UTF_8);
+        String key = path.length() > "/videos/".length() ? path.substring("/videos/".length()) : "";
+        Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+        byte[] body = exchange.getRequestBody().readAllBytes();
+
+        if (key.isEmpty() && method.equals("GET")) {
+            list(exchange, query);
+        } else if (method.equals("POST") && query.containsKey("uploads")) {
+            String uploadId = UUID.randomUUID().toString();
+            uploads.put(uploadId, new ConcurrentHashMap<>());
+            send(exchange, 200, ("<InitiateMultipartUploadResult><UploadId>" + uploadId +
+                    "</UploadId></InitiateMultipartUploadResult>").getBytes(StandardCharsets.UTF_8), null);
+        } else if (method.equals("PUT") && query.containsKey("partNumber")) {
+            uploads.get(query.get("uploadId")).put(Integer.parseInt(query.get("partNumber")), body);
+            partsUploaded.incrementAndGet();
+            exchange.getResponseHeaders().add("ETag", "\"etag-" + query.get("partNumber") + "\"");
+            send(exchange, 200, new byte[0], null);
+        } else if (method.equals("POST") && query.containsKey("uploadId")) {
+            Map<Integer, byte[]> parts = uploads.remove(query.get("uploadId"));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Matcher matcher = PART.matcher(new String(body, StandardCharsets.UTF_8));
+            while (matcher.find()) {
+                out.write(parts.get(Integer.parseInt(matcher.group(1))));
+            }
+            objects.put(key, new FakeObject(out.toByteArray(), "video/mp4"));
+            send(exchange, 200, "<CompleteMultipartUploadResult/>".getBytes(StandardCharsets.UTF_8), null);
+        } else if (method.equals("DELETE") && query.containsKey("uploadId")) {
+            uploads.remove(query.get("uploadId"));
+            send(exchange, 204, null, null);
+        } else if (method.equals("PUT") && exchange.getRequestHeaders().containsKey("x-amz-copy-source")) {
+            String source = exchange.getRequestHeaders().getFirst("x-amz-copy-source").substring("/videos/".length());
+            FakeObject object = objects.get(URLDecoder.decode(source, StandardCharsets.UTF_8));
+            if (object == null) {
+                send(exchange, 404, null, null);
+                return;
+            }
+            objects.put(key, object);
+            send(exchange, 200, "<CopyObjectResult/>".getBytes(StandardCharsets.UTF_8), null);
+        } else if (method.equals("PUT")) {
+            objects.put(key, new FakeObject(body, exchange.getRequestHeaders().getFirst("Content-Type")));
+            send(exchange, 200, new byte[0], null);
+        } else if (method.equals("DELETE")) {
+            objects.remove(key);
+            send(exchange, 204, null, null);
+        } else {
+            FakeObject object = objects.get(key);
+            if (object == null) {
+                send(exchange, 404, method.equals("HEAD") ? null : "<Error>NoSuchKey</Error>".getBytes(), null);
+            } else if (method.equals("HEAD")) {
+                headRequests.incrementAndGet();
+                exchange.getResponseHeaders().add("Content-Type", object.contentType());
+                exchange.getResponseHeaders().add("ETag", object.etag());
+                exchange.getResponseHeaders().add("Last-Modified", "Mon, 19 Oct 2026 10:00:00 GMT");
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(object.data().length));
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                get(exchange, object);
+            }
+        }
+    }
+
+    private void get(HttpExchange exchange, FakeObject object) throws IOException {
+        String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+        if (ifMatch != null && !ifMatch.equals(object.etag())) {
+            send(exchange, 412, "<Error>PreconditionFailed</Error>".getBytes(StandardCharsets.UTF_8), null);
+            return;
+        }
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        byte[] data = object.data();
+        if (range == null) {
+            bytesServed.addAndGet(data.length);
+            send(exchange, 200, data, object.contentType());
+            return;
+        }
+        String[] bounds = range.substring("bytes=".length()).split("-");
+        int start = Integer.parseInt(bounds[0]);
+        int end = Math.min(data.length - 1, Integer.parseInt(bounds[1]));
+        byte[] slice = Arrays.copyOfRange(data, start, end + 1);
+        bytesServed.addAndGet(slice.length);
+        exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + data.length);
+        send(exchange, 206, slice, object.contentType());
+    }
+
+    private void list(HttpExchange exchange, Map<String, String> query) throws IOException {
+        listRequests.incrementAndGet();
+        String prefix = query.getOrDefault("prefix", "");
+        List<String> keys = objects.keySet().stream().filter(k -> k.startsWith(prefix)).sorted().toList();
+        int from = query.containsKey("continuation-token") ? Integer.parseInt(query.get("continuation-token")) : 0;
+        int to = Math.min(keys.size(), from + PAGE_SIZE);
+
+        StringBuilder xml = new StringBuilder("<ListBucketResult>");
+        for (String key : keys.subList(from, to)) {
+            xml.append("<Contents><Key>").append(key).append("</Key></Contents>");
+        }
+        xml.append("<IsTruncated>").append(to < keys.size()).append("</IsTruncated>");
+        if (to < keys.size()) {
+            xml.append("<NextContinuationToken>").append(to).append("</NextContinuationToken>");
+        }
+        xml.append("</ListBucketResult>");
+        send(exchange, 200, xml.toString().getBytes(StandardCharsets.UTF_8), "application/xml");
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) return params;
+        for (String param : rawQuery.split("&")) {
+            int eq = param.indexOf('=');
+            String name = eq < 0 ? param : param.substring(0, eq);
+            String value = eq < 0 ? "" : URLDecoder.decode(param.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(name, value);
+        }
+        return params;
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body, String contentType) throws IOException {
+        if (contentType != null) {
+            exchange.getResponseHeaders().add("Content-Type", contentType);
+        }
+        if (body == null || body.length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (InputStream in = new ByteArrayInputStream(body)) {
+            in.transferTo(exchange.getResponseBody());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.videoapp.service.impl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Nodo di storage in-process per i test: l'API /internal/storage di StorageNodeController su file
+ * in memoria, con Range e un interruttore che lo rende irraggiungibile (503 su ogni richiesta)
+ */
+class FakeStorageNode {
+
+    static final String TOKEN = "node-token";
+
+    final Map<String, byte[]> files = new ConcurrentHashMap<>();
+    volatile boolean down;
+    private final HttpServer server;
+
+    FakeStorageNode() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/internal/storage", exchange -> {
+            try {
+                handle(exchange);
+            } catch (Exception e) {
+                send(exchange, 500, null);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    String address() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    void stop() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        if (down) {
+            send(exchange, 503, null);
+            return;
+        }
+        if (!TOKEN.equals(exchange.getRequestHeaders().getFirst("X-Storage-Node-Token"))) {
+            send(exchange, 403, null);
+            return;
+        }
+
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getRawPath().substring("/internal/storage".length());
+        if (path.equals("/health")) {
+            send(exchange, 200, "OK".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        if (path.equals("/files")) {
+            send(exchange, 200, String.join("\n", files.keySet()).getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        String name = URLDecoder.decode(path.substring("/files/".length()), StandardCharsets.UTF_8);
+        if (method.equals("POST") && name.endsWith("/quarantine")) {
+            send(exchange, files.remove(name.substring(0, name.length() - "/quarantine".length())) != null ? 204 : 404, null);
+            return;
+        }
+        switch (method) {
+            case "PUT" -> {
+                files.put(name, body);
+                send(exchange, 201, null);
+            }
+            case "DELETE" -> send(exchange, files.remove(name) != null ? 204 : 404, null);
+            case "HEAD" -> {
+                byte[] data = files.get(name);
+                if (data == null) {
+                    send(exchange, 404, null);
+                    return;
+                }
+                exchange.getResponseHeaders().add("Content-Type", "video/mp4");
+                exchange.getResponseHeaders().add("Last-Modified", "Mon, 19 Oct 2026 10:00:00 GMT");
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(data.length));
+                exchange.sendResponseHeaders(200, -1);
+            }
+            default -> get(exchange, files.get(name));
+        }
+    }
+
+    private static void get(HttpExchange exchange, byte[] data) throws IOException {
+        if (data == null) {
+            send(exchange, 404, null);
+            return;
+        }
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range == null) {
+            send(exchange, 200, data);
+            return;
+        }
+        String[] bounds = range.substring("bytes=".length()).split("-");
+        int start = Integer.parseInt(bounds[0]);
+        int end = Math.min(data.length - 1, Integer.parseInt(bounds[1]));
+        exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + data.length);
+        send(exchange, 206, Arrays.copyOfRange(data, start, end + 1));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (body == null || body.length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
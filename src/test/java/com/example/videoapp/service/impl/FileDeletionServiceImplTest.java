@@ -0,0 +1,180 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.DeletionQueueConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.repository.VideoRepository;
+import com.example.videoapp.service.ChunkCache;
+import com.example.videoapp.service.StorageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FileDeletionServiceImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path journal;
+    private DeletionQueueConfiguration config;
+    private StorageService storageService;
+    private VideoRepository videoRepository;
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+    private FileDeletionServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        journal = tempDir.resolve("deletion-journal.log");
+        config = new DeletionQueueConfiguration();
+        config.setJournalFile(journal.toString());
+        config.setMaxDeletesPerSecond(10000);
+
+        storageService = mock(StorageService.class);
+        doAnswer(invocation -> deleted.add(invocation.getArgument(0))).when(storageService).deleteFile(anyString());
+        videoRepository = mock(VideoRepository.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.stop();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void replayRequeuesOutstandingAndResolvesIntentsAgainstTheDatabase() throws Exception {
+        Files.write(journal, List.of(
+                "+ queued.mp4",
+                "+ done.mp4",
+                "- done.mp4",
+                // Commit avvenuto, crash prima dell'accodamento: il video non c'è più
+                "? committed.mp4",
+                // Transazione mai confermata: il video referenzia ancora il file
+                "? rolledback.mp4",
+                "? enqueued.mp4",
+                "+ enqueued.mp4"), StandardCharsets.UTF_8);
+        when(videoRepository.findExistingFilePaths(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<String>>getArgument(0).stream().filter("rolledback.mp4"::equals).toList());
+
+        start();
+
+        await(() -> deleted.size() == 3 && service.pendingCount() == 0);
+        assertEquals(Set.of("queued.mp4", "committed.mp4", "enqueued.mp4"), deleted);
+    }
+
+    @Test
+    void intentIsJournaledBeforeCommitAndQueuedAfterIt() throws Exception {
+        start();
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.enqueueAfterCommit(List.of("old.mp4"));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(sync -> sync.beforeCommit(false));
+
+        // Dopo beforeCommit l'intenzione è già su disco e nulla è stato eliminato
+        assertTrue(Files.readAllLines(journal).contains("? old.mp4"));
+        assertTrue(deleted.isEmpty());
+
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        await(() -> deleted.contains("old.mp4") && service.pendingCount() == 0);
+    }
+
+    @Test
+    void rollbackClosesTheIntentWithoutDeleting() throws Exception {
+        start();
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.enqueueAfterCommit(List.of("kept.mp4"));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(sync -> sync.beforeCommit(false));
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        service.stop();
+        service = null;
+
+        List<String> lines = Files.readAllLines(journal);
+        assertTrue(lines.indexOf("- kept.mp4") > lines.indexOf("? kept.mp4"));
+        assertTrue(deleted.isEmpty());
+
+        // Al riavvio non resta nulla da risolvere
+        start();
+        Thread.sleep(200);
+        assertTrue(deleted.isEmpty());
+        verify(videoRepository, never()).findExistingFilePaths(anyCollection());
+    }
+
+    @Test
+    void exhaustedFilesAreParkedAndRetriedInsteadOfDropped() throws Exception {
+        config.setMaxAttempts(2);
+        config.setParkedRetryIntervalMs(0);
+        doThrow(new IOException("disco non disponibile")).when(storageService).deleteFile("stuck.mp4");
+        start();
+
+        service.enqueue("stuck.mp4");
+        await(() -> {
+            try {
+                verify(storageService, times(2)).deleteFile("stuck.mp4");
+                return true;
+            } catch (Throwable e) {
+                return false;
+            }
+        });
+        Thread.sleep(100);
+        assertEquals(1, service.pendingCount());
+        await(() -> readJournalQuietly().contains("+ stuck.mp4"));
+
+        doAnswer(invocation -> deleted.add(invocation.getArgument(0))).when(storageService).deleteFile("stuck.mp4");
+        service.retryParked();
+        await(() -> deleted.contains("stuck.mp4") && service.pendingCount() == 0);
+    }
+
+    private void start() throws IOException {
+        WorkerThreads workerThreads = mock(WorkerThreads.class);
+        when(workerThreads.newThread(anyString(), any())).thenAnswer(invocation ->
+                Thread.ofPlatform().name(invocation.getArgument(0)).daemon(true)
+                        .unstarted(invocation.getArgument(1)));
+
+        service = new FileDeletionServiceImpl();
+        ReflectionTestUtils.setField(service, "deletionConfig", config);
+        ReflectionTestUtils.setField(service, "storageService", storageService);
+        ReflectionTestUtils.setField(service, "chunkCache", mock(ChunkCache.class));
+        ReflectionTestUtils.setField(service, "workerThreads", workerThreads);
+        ReflectionTestUtils.setField(service, "videoRepository", videoRepository);
+        service.start();
+    }
+
+    private List<String> readJournalQuietly() {
+        try {
+            return Files.readAllLines(journal);
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condizione non raggiunta entro 5 s");
+            Thread.sleep(10);
+        }
+    }
+}
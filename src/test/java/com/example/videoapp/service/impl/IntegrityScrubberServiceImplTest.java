@@ -0,0 +1,217 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.ScrubberConfiguration;
+import com.example.videoapp.config.StorageConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.dto.IntegrityMismatchDto;
+import com.example.videoapp.dto.ScrubberStatusDto;
+import com.example.videoapp.repository.VideoRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IntegrityScrubberServiceImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<IntegrityScrubberServiceImpl> scrubbers = new ArrayList<>();
+    private StorageServiceImpl storage;
+    private ScrubberConfiguration config;
+    private Path progressFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StorageConfiguration storageConfig = new StorageConfiguration();
+        storageConfig.setUploadDir(tempDir.resolve("uploads").toString());
+        storage = new StorageServiceImpl();
+        ReflectionTestUtils.setField(storage, "storageConfig", storageConfig);
+        storage.init();
+
+        progressFile = tempDir.resolve("state/scrubber.json");
+        config = new ScrubberConfiguration();
+        config.setEnabled(false);
+        config.setBufferSizeKb(4);
+        config.setMaxMbPerSecond(1000);
+        config.setBatchSize(2);
+        config.setProgressSaveIntervalMs(0);
+        config.setProgressFile(progressFile.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        scrubbers.forEach(IntegrityScrubberServiceImpl::shutdown);
+    }
+
+    @Test
+    void firstReadBackfillsMissingChecksums() throws IOException {
+        byte[] data = file("a.mp4", 10_000);
+        VideoRepository repository = mock(VideoRepository.class);
+        VideoRepository.VideoChecksumRef ref = ref(1L, "a.mp4", null, null);
+        when(repository.findChecksumRefById(1L)).thenReturn(Optional.of(ref));
+
+        assertNull(scrubber(repository).verify(1L));
+
+        verify(repository).backfillChecksum(1L, "a.mp4", crc(data), data.length);
+    }
+
+    @Test
+    void mismatchesAreRecordedWithExpectedAndActualValues() throws IOException {
+        byte[] data = file("a.mp4", 10_000);
+        VideoRepository repository = mock(VideoRepository.class);
+        VideoRepository.VideoChecksumRef corrupted = ref(1L, "a.mp4", crc(data) + 1, (long) data.length);
+        VideoRepository.VideoChecksumRef truncated = ref(2L, "a.mp4", crc(data), data.length + 1L);
+        VideoRepository.VideoChecksumRef missing = ref(3L, "gone.mp4", 1L, 1L);
+        for (VideoRepository.VideoChecksumRef ref : List.of(corrupted, truncated, missing)) {
+            when(repository.findChecksumRefById(ref.getId())).thenReturn(Optional.of(ref));
+        }
+        IntegrityScrubberServiceImpl scrubber = scrubber(repository);
+
+        IntegrityMismatchDto checksum = scrubber.verify(1L);
+        assertEquals(IntegrityMismatchDto.Type.CHECKSUM, checksum.getType());
+        assertEquals(crc(data) + 1, checksum.getExpectedChecksum());
+        assertEquals(crc(data), checksum.getActualChecksum());
+        assertEquals(IntegrityMismatchDto.Type.SIZE, scrubber.verify(2L).getType());
+        assertEquals(IntegrityMismatchDto.Type.MISSING, scrubber.verify(3L).getType());
+
+        ScrubberStatusDto status = scrubber.getStatus();
+        assertEquals(List.of(1L, 2L, 3L), status.getMismatches().stream().map(IntegrityMismatchDto::getVideoId).toList());
+        verify(repository, never()).backfillChecksum(anyLong(), any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void fileReplacedDuringTheReadIsNotReported() throws IOException {
+        byte[] data = file("a.mp4", 10_000);
+        VideoRepository repository = mock(VideoRepository.class);
+        VideoRepository.VideoChecksumRef stale = ref(1L, "a.mp4", crc(data) + 1, (long) data.length);
+        VideoRepository.VideoChecksumRef replaced = ref(1L, "b.mp4", 1L, 1L);
+        when(repository.findChecksumRefById(1L)).thenReturn(Optional.of(stale)).thenReturn(Optional.of(replaced));
+
+        IntegrityScrubberServiceImpl scrubber = scrubber(repository);
+
+        assertNull(scrubber.verify(1L));
+        assertTrue(scrubber.getStatus().getMismatches().isEmpty());
+    }
+
+    @Test
+    void progressIsPersistedAndTheNextStartResumesFromIt() throws Exception {
+        byte[] first = file("a.mp4", 5_000);
+        file("b.mp4", 5_000);
+        byte[] third = file("c.mp4", 5_000);
+        config.setEnabled(true);
+
+        VideoRepository repository = mock(VideoRepository.class);
+        VideoRepository.VideoChecksumRef ok = ref(1L, "a.mp4", crc(first), (long) first.length);
+        VideoRepository.VideoChecksumRef corrupted = ref(2L, "b.mp4", 42L, 5_000L);
+        List<VideoRepository.VideoChecksumRef> batch = List.of(ok, corrupted);
+        when(repository.findChecksumRefsAfter(eq(0L), any(Pageable.class))).thenReturn(batch);
+        when(repository.findChecksumRefById(2L)).thenReturn(Optional.of(corrupted));
+        // Il processo si ferma mentre legge il blocco successivo
+        CountDownLatch stopped = new CountDownLatch(1);
+        when(repository.findChecksumRefsAfter(eq(2L), any(Pageable.class))).thenAnswer(invocation -> {
+            stopped.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("arresto");
+        });
+
+        IntegrityScrubberServiceImpl scrubber = scrubber(repository);
+        stopped.await();
+        scrubber.shutdown();
+
+        JsonNode saved = objectMapper.readTree(progressFile.toFile());
+        assertEquals(2, saved.get("lastVideoId").asLong());
+        assertTrue(saved.get("passStartedAt").asLong() > 0);
+        assertEquals(1, saved.get("mismatches").size());
+        assertEquals(2, saved.get("mismatches").get(0).get("videoId").asLong());
+        assertEquals("CHECKSUM", saved.get("mismatches").get(0).get("type").asText());
+
+        VideoRepository restarted = mock(VideoRepository.class);
+        VideoRepository.VideoChecksumRef last = ref(3L, "c.mp4", crc(third), (long) third.length);
+        List<VideoRepository.VideoChecksumRef> rest = List.of(last);
+        when(restarted.findChecksumRefsAfter(eq(2L), any(Pageable.class))).thenReturn(rest);
+        when(restarted.findExistingIds(any())).thenReturn(List.of(2L));
+
+        IntegrityScrubberServiceImpl resumed = scrubber(restarted);
+        await(() -> resumed.getStatus().getLastPassCompletedAt() > 0);
+
+        // Riprende dopo l'ultimo video verificato, con le anomalie ancora aperte
+        verify(restarted, never()).findChecksumRefsAfter(eq(0L), any(Pageable.class));
+        ScrubberStatusDto status = resumed.getStatus();
+        assertEquals(1, status.getFilesVerified());
+        assertEquals(0, status.getLastVideoId());
+        assertEquals(List.of(2L), status.getMismatches().stream().map(IntegrityMismatchDto::getVideoId).toList());
+    }
+
+    private IntegrityScrubberServiceImpl scrubber(VideoRepository repository) {
+        WorkerThreads workerThreads = mock(WorkerThreads.class);
+        when(workerThreads.newThread(anyString(), any())).thenAnswer(invocation -> new Thread(invocation.<Runnable>getArgument(1)));
+
+        IntegrityScrubberServiceImpl scrubber = new IntegrityScrubberServiceImpl();
+        ReflectionTestUtils.setField(scrubber, "scrubberConfig", config);
+        ReflectionTestUtils.setField(scrubber, "storageService", storage);
+        ReflectionTestUtils.setField(scrubber, "videoRepository", repository);
+        ReflectionTestUtils.setField(scrubber, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(scrubber, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(scrubber, "workerThreads", workerThreads);
+        scrubber.init();
+        scrubbers.add(scrubber);
+        return scrubber;
+    }
+
+    private byte[] file(String name, int size) throws IOException {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * 31 + name.hashCode());
+        }
+        Files.write(tempDir.resolve("uploads").resolve(name), data);
+        return data;
+    }
+
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    private static VideoRepository.VideoChecksumRef ref(Long id, String filePath, Long checksum, Long fileSize) {
+        VideoRepository.VideoChecksumRef ref = mock(VideoRepository.VideoChecksumRef.class);
+        when(ref.getId()).thenReturn(id);
+        when(ref.getFilePath()).thenReturn(filePath);
+        when(ref.getChecksum()).thenReturn(checksum);
+        when(ref.getFileSize()).thenReturn(fileSize);
+        return ref;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condizione non raggiunta entro 5 s");
+            Thread.sleep(10);
+        }
+    }
+}
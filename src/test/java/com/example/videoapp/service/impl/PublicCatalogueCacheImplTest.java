@@ -0,0 +1,158 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.CatalogueCacheConfiguration;
+import com.example.videoapp.converter.VideoListJsonWriter;
+import com.example.videoapp.model.Video;
+import com.example.videoapp.service.PublicCatalogueCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PublicCatalogueCacheImplTest {
+
+    private CatalogueCacheConfiguration cacheConfig;
+    private TransactionTemplate transactionTemplate;
+    private PublicCatalogueCacheImpl cache;
+
+    @BeforeEach
+    void setUp() {
+        cacheConfig = new CatalogueCacheConfiguration();
+        transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        cache = new PublicCatalogueCacheImpl();
+        ReflectionTestUtils.setField(cache, "cacheConfig", cacheConfig);
+        ReflectionTestUtils.setField(cache, "videoListJsonWriter", new VideoListJsonWriter(new ObjectMapper()));
+        ReflectionTestUtils.setField(cache, "transactionTemplate", transactionTemplate);
+    }
+
+    @Test
+    void pagesThatFillTheCacheAreLoadedInAWriteTransaction() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getPage(1, 10, null, loader(loads, 1L, 2L));
+        cache.getPage(1, 10, null, loader(loads, 1L, 2L));
+
+        assertEquals(1, loads.get());
+        // Il TransactionTemplate di default non è in sola lettura: il routing usa il primario
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+
+    @Test
+    void uncacheablePagesSkipThePrimary() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getPage(cacheConfig.getMaxCachedPage() + 1, 10, null, loader(loads, 1L));
+
+        assertEquals(1, loads.get());
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void arbitraryCursorsStayWithinTheirBudgetAndKeepHotPagesCached() {
+        cacheConfig.setMaxEntries(4);
+        cacheConfig.setMaxCursorEntries(2);
+        AtomicInteger loads = new AtomicInteger();
+        cache.getPage(1, 10, null, loader(loads, 1L));
+        cache.getPage(1, 10, null, loader(loads, 1L));
+
+        for (long cursor = 100; cursor < 200; cursor++) {
+            cache.getPage(0, 10, cursor, loader(loads, cursor + 1));
+        }
+        cache.getPage(2, 10, null, loader(loads, 2L));
+        loads.set(0);
+
+        // La pagina 1 ha servito più richieste di ogni cursore e la pagina 2 entra ancora
+        cache.getPage(1, 10, null, loader(loads, 1L));
+        cache.getPage(2, 10, null, loader(loads, 2L));
+        assertEquals(0, loads.get());
+        assertEquals(2, cache.hotPages(10).stream().filter(ref -> ref.getAfterId() != null).count());
+    }
+
+    @Test
+    void fullCacheEvictsTheLeastRequestedPage() {
+        cacheConfig.setMaxEntries(2);
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            cache.getPage(1, 10, null, loader(loads, 1L));
+        }
+        cache.getPage(2, 10, null, loader(loads, 2L));
+        cache.getPage(3, 10, null, loader(loads, 3L));
+        loads.set(0);
+
+        cache.getPage(1, 10, null, loader(loads, 1L));
+        cache.getPage(3, 10, null, loader(loads, 3L));
+        assertEquals(0, loads.get());
+        cache.getPage(2, 10, null, loader(loads, 2L));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void etagFollowsTheContentAndGzipDecodesToTheBody() throws IOException {
+        PublicCatalogueCache.CachedPage first = cache.getPage(1, 10, null, loader(new AtomicInteger(), 1L, 2L));
+        PublicCatalogueCache.CachedPage same = cache.getPage(1, 20, null, loader(new AtomicInteger(), 1L, 2L));
+        PublicCatalogueCache.CachedPage other = cache.getPage(2, 10, null, loader(new AtomicInteger(), 3L));
+
+        assertEquals(first.getEtag(), same.getEtag());
+        assertNotEquals(first.getEtag(), other.getEtag());
+        assertNotEquals(first.getEtag(), first.getGzipEtag());
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(first.getGzipBody()))) {
+            assertArrayEquals(first.getBody(), gzip.readAllBytes());
+        }
+
+        cacheConfig.setGzip(false);
+        assertNull(cache.getPage(3, 10, null, loader(new AtomicInteger(), 4L)).getGzipBody());
+    }
+
+    @Test
+    void invalidationDropsOnlyPagesContainingTheVideo() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getPage(1, 10, null, loader(loads, 1L, 2L));
+        cache.getPage(2, 10, null, loader(loads, 3L));
+        cache.getPage(0, 10, 2L, loader(loads, 3L));
+        loads.set(0);
+
+        cache.invalidateVideo(3L);
+        cache.getPage(1, 10, null, loader(loads, 1L, 2L));
+        assertEquals(0, loads.get());
+        cache.getPage(2, 10, null, loader(loads, 3L));
+        cache.getPage(0, 10, 2L, loader(loads, 3L));
+        assertEquals(2, loads.get());
+
+        cache.invalidateAll();
+        assertTrue(cache.hotPages(10).isEmpty());
+        cache.getPage(1, 10, null, loader(loads, 1L, 2L));
+        assertEquals(3, loads.get());
+    }
+
+    static Supplier<Slice<Video>> loader(AtomicInteger loads, Long... ids) {
+        return () -> {
+            loads.incrementAndGet();
+            List<Video> videos = Arrays.stream(ids).map(id -> {
+                Video video = new Video("Video " + id, null, true, null);
+                video.setId(id);
+                return video;
+            }).toList();
+            return new PageImpl<>(videos, PageRequest.of(0, 10), videos.size());
+        };
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.ReadAheadConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.service.ChunkCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReadAheadServiceImplTest {
+
+    private static final int CHUNK = 1024 * 1024;
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    private ChunkCache chunkCache;
+    private ChunkCache.Chunk chunk;
+    private RecordingExecutor executor;
+    private ReadAheadServiceImpl readAhead;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReadAheadConfiguration config = new ReadAheadConfiguration();
+        config.setMinDepth(2);
+        config.setMaxDepth(16);
+        config.setLeadTimeMs(4000);
+        config.setSequentialThreshold(2);
+        chunkCache = mock(ChunkCache.class);
+        chunk = mock(ChunkCache.Chunk.class);
+        when(chunkCache.getChunkSize()).thenReturn(CHUNK);
+        when(chunkCache.acquire(anyString(), anyLong())).thenReturn(chunk);
+        WorkerThreads workerThreads = mock(WorkerThreads.class);
+        when(workerThreads.factory(anyString())).thenReturn(Executors.defaultThreadFactory());
+
+        readAhead = new ReadAheadServiceImpl();
+        ReflectionTestUtils.setField(readAhead, "readAheadConfig", config);
+        ReflectionTestUtils.setField(readAhead, "chunkCache", chunkCache);
+        ReflectionTestUtils.setField(readAhead, "workerThreads", workerThreads);
+        readAhead.init();
+        readAhead.shutdown();
+        // I precaricamenti restano in coda finché il test non li esegue
+        executor = new RecordingExecutor();
+        ReflectionTestUtils.setField(readAhead, "executor", executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void prefetchStartsOnlyAfterSequentialReads() throws IOException {
+        readAhead.onRead("client", "a.mp4", 0);
+        readAhead.onRead("client", "a.mp4", CHUNK);
+        assertTrue(executor.queued.isEmpty());
+
+        readAhead.onRead("client", "a.mp4", 2L * CHUNK);
+        assertFalse(executor.queued.isEmpty());
+        executor.runQueued();
+        verify(chunkCache).acquire("a.mp4", 3L);
+        // Il riferimento preso per caricare il segmento viene sempre rilasciato
+        verify(chunk, times(executor.ran)).close();
+
+        // Letture sparse di un altro client non attivano il read-ahead
+        readAhead.onRead("other", "a.mp4", 10L * CHUNK);
+        readAhead.onRead("other", "a.mp4", 3L * CHUNK);
+        readAhead.onRead("other", "a.mp4", 7L * CHUNK);
+        assertTrue(executor.queued.isEmpty());
+    }
+
+    @Test
+    void depthFollowsTheConsumptionRate() throws Exception {
+        Object stream = newStream();
+
+        assertEquals(List.of(), plan(stream, 0, 0));
+        assertEquals(List.of(), plan(stream, 1, SECOND_NANOS));
+        // 1 MB/s per 4 s di anticipo: quattro segmenti oltre quello corrente
+        assertEquals(List.of(3L, 4L, 5L, 6L), plan(stream, 2, 2 * SECOND_NANOS));
+        // Un segmento in un quarto di secondo: la media sale a 1,9 MB/s, cioè otto segmenti
+        assertEquals(List.of(7L, 8L, 9L, 10L, 11L), plan(stream, 3, 2 * SECOND_NANOS + SECOND_NANOS / 4));
+        // Ripetere la lettura dello stesso segmento non chiede nulla di nuovo
+        assertEquals(List.of(), plan(stream, 3, 3 * SECOND_NANOS));
+
+        Object fast = newStream();
+        plan(fast, 0, 0);
+        plan(fast, 1, 1_000_000L);
+        assertEquals(16, plan(fast, 2, 2_000_000L).size());
+
+        Object slow = newStream();
+        plan(slow, 0, 0);
+        plan(slow, 1, 60 * SECOND_NANOS);
+        assertEquals(List.of(3L, 4L), plan(slow, 2, 120 * SECOND_NANOS));
+    }
+
+    @Test
+    void seekCancelsQueuedPrefetches() throws IOException {
+        readSequentially("client", "a.mp4");
+        assertFalse(executor.queued.isEmpty());
+
+        readAhead.onRead("client", "a.mp4", 50L * CHUNK);
+        executor.runQueued();
+
+        verify(chunkCache, never()).acquire(anyString(), anyLong());
+    }
+
+    @Test
+    void disconnectCancelsQueuedPrefetches() throws IOException {
+        readSequentially("client", "a.mp4");
+        readSequentially("other", "b.mp4");
+
+        readAhead.cancel("client", "a.mp4");
+        executor.runQueued();
+
+        verify(chunkCache, never()).acquire(eq("a.mp4"), anyLong());
+        verify(chunkCache, atLeastOnce()).acquire(eq("b.mp4"), anyLong());
+    }
+
+    @Test
+    void endOfFileStopsFurtherPrefetches() throws IOException {
+        when(chunkCache.acquire("a.mp4", 4L)).thenThrow(new EOFException());
+        readSequentially("client", "a.mp4");
+        executor.runQueued();
+
+        readAhead.onRead("client", "a.mp4", 3L * CHUNK);
+        readAhead.onRead("client", "a.mp4", 4L * CHUNK);
+        executor.runQueued();
+
+        // Senza la fine del file la lettura del segmento 4 avrebbe chiesto il 19 e il 20
+        verify(chunkCache, never()).acquire("a.mp4", 19L);
+        verify(chunkCache, times(1)).acquire("a.mp4", 4L);
+    }
+
+    private void readSequentially(String client, String filename) {
+        for (int i = 0; i < 3; i++) {
+            readAhead.onRead(client, filename, (long) i * CHUNK);
+        }
+    }
+
+    private static Object newStream() throws Exception {
+        Constructor<?> constructor = Class.forName(ReadAheadServiceImpl.class.getName() + "$ReadStream")
+                .getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return constructor.newInstance();
+    }
+
+    // Letture di un segmento intero a partire dal suo inizio, all'istante indicato
+    private List<Long> plan(Object stream, long chunkIndex, long nanos) {
+        return ReflectionTestUtils.invokeMethod(readAhead, "plan", stream, chunkIndex, chunkIndex * CHUNK, nanos);
+    }
+
+    private static class RecordingExecutor extends ThreadPoolExecutor {
+        final List<Runnable> queued = new ArrayList<>();
+        int ran;
+
+        RecordingExecutor() {
+            super(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            queued.add(command);
+        }
+
+        void runQueued() {
+            List<Runnable> tasks = new ArrayList<>(queued);
+            queued.clear();
+            tasks.forEach(Runnable::run);
+            ran += tasks.size();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.ReconciliationConfiguration;
+import com.example.videoapp.config.StorageConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.dto.ReconciliationReportDto;
+import com.example.videoapp.repository.VideoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReconciliationServiceImplTest {
+
+    private static final long HOUR_MS = 3_600_000L;
+
+    @TempDir
+    Path tempDir;
+
+    private Path uploads;
+    private ReconciliationConfiguration config;
+    private VideoRepository videoRepository;
+    private ReconciliationServiceImpl reconciliation;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StorageConfiguration storageConfig = new StorageConfiguration();
+        storageConfig.setUploadDir(tempDir.resolve("uploads").toString());
+        StorageServiceImpl storage = new StorageServiceImpl();
+        ReflectionTestUtils.setField(storage, "storageConfig", storageConfig);
+        storage.init();
+        uploads = tempDir.resolve("uploads");
+
+        config = new ReconciliationConfiguration();
+        config.setBatchSize(2);
+        config.setMaxChecksPerSecond(10_000);
+        config.setOrphanGraceMs(HOUR_MS);
+        WorkerThreads workerThreads = mock(WorkerThreads.class);
+        when(workerThreads.factory(anyString())).thenReturn(Executors.defaultThreadFactory());
+
+        videoRepository = mock(VideoRepository.class);
+        Set<String> referenced = Set.of("a.mp4", "b.mp4", "missing.mp4");
+        when(videoRepository.findExistingFilePaths(any())).thenAnswer(invocation ->
+                invocation.<Collection<String>>getArgument(0).stream().filter(referenced::contains).toList());
+        List<VideoRepository.VideoFileRef> firstBatch = List.of(ref(1L, "a.mp4"), ref(2L, "missing.mp4"));
+        List<VideoRepository.VideoFileRef> lastBatch = List.of(ref(3L, "b.mp4"));
+        when(videoRepository.findFileRefsAfter(eq(0L), any(Pageable.class))).thenReturn(firstBatch);
+        when(videoRepository.findFileRefsAfter(eq(2L), any(Pageable.class))).thenReturn(lastBatch);
+
+        reconciliation = new ReconciliationServiceImpl();
+        ReflectionTestUtils.setField(reconciliation, "reconciliationConfig", config);
+        ReflectionTestUtils.setField(reconciliation, "storageService", storage);
+        ReflectionTestUtils.setField(reconciliation, "videoRepository", videoRepository);
+        ReflectionTestUtils.setField(reconciliation, "workerThreads", workerThreads);
+        reconciliation.init();
+
+        file("a.mp4", 2 * HOUR_MS);
+        file("b.mp4", 2 * HOUR_MS);
+        file("orphan.mp4", 2 * HOUR_MS);
+        // Senza riga ma caricato da poco: la riga può non essere ancora committata
+        file("fresh.mp4", 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reconciliation.shutdown();
+    }
+
+    @Test
+    void reportsOldOrphansAndBrokenRows() {
+        ReconciliationReportDto report = reconciliation.reconcile();
+
+        assertNull(report.getError());
+        assertFalse(report.isRunning());
+        assertEquals(4, report.getFilesScanned());
+        assertEquals(1, report.getOrphanFiles());
+        assertEquals(List.of("orphan.mp4"), report.getOrphanSample());
+        assertEquals(0, report.getQuarantinedFiles());
+        assertEquals(3, report.getRowsScanned());
+        assertEquals(1, report.getBrokenRows());
+        assertEquals(List.of(2L), report.getBrokenRowSample());
+        assertTrue(Files.exists(uploads.resolve("orphan.mp4")));
+    }
+
+    @Test
+    void quarantinesOnlyOrphansPastTheGracePeriod() {
+        config.setQuarantineOrphans(true);
+
+        ReconciliationReportDto report = reconciliation.reconcile();
+
+        assertEquals(1, report.getQuarantinedFiles());
+        assertFalse(Files.exists(uploads.resolve("orphan.mp4")));
+        assertTrue(Files.exists(uploads.resolve(".quarantine/orphan.mp4")));
+        assertTrue(Files.exists(uploads.resolve("fresh.mp4")));
+        assertTrue(Files.exists(uploads.resolve("a.mp4")));
+    }
+
+    @Test
+    void shorterGracePeriodAlsoCatchesRecentOrphans() throws IOException {
+        config.setOrphanGraceMs(0);
+        Files.setLastModifiedTime(uploads.resolve("fresh.mp4"), FileTime.fromMillis(System.currentTimeMillis() - 1000));
+
+        ReconciliationReportDto report = reconciliation.reconcile();
+
+        assertEquals(2, report.getOrphanFiles());
+        assertTrue(report.getOrphanSample().containsAll(List.of("orphan.mp4", "fresh.mp4")));
+    }
+
+    private void file(String name, long ageMs) throws IOException {
+        Path path = Files.write(uploads.resolve(name), new byte[16]);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis() - ageMs));
+    }
+
+    private static VideoRepository.VideoFileRef ref(Long id, String filePath) {
+        VideoRepository.VideoFileRef ref = mock(VideoRepository.VideoFileRef.class);
+        when(ref.getId()).thenReturn(id);
+        when(ref.getFilePath()).thenReturn(filePath);
+        return ref;
+    }
+}
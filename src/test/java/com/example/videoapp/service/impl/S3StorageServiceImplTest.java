@@ -0,0 +1,115 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.S3StorageConfiguration;
+import com.example.videoapp.config.StorageConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.service.LocalFileStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.util.Random;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class S3StorageServiceImplTest {
+
+    private FakeS3 s3;
+    private S3StorageServiceImpl storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        s3 = new FakeS3();
+
+        S3StorageConfiguration config = new S3StorageConfiguration();
+        config.setEndpoint("http://127.0.0.1:" + s3.port());
+        config.setBucket("videos");
+        config.setAccessKey("test-key");
+        config.setSecretKey("test-secret");
+        config.setKeyPrefix("v");
+        config.setMinReadWindowKb(64);
+        config.setRetryBaseDelayMs(1);
+        config.setRetryMaxDelayMs(10);
+        WorkerThreads workerThreads = mock(WorkerThreads.class);
+        when(workerThreads.factory(anyString())).thenReturn(Executors.defaultThreadFactory());
+
+        storage = new S3StorageServiceImpl();
+        ReflectionTestUtils.setField(storage, "storageConfig", new StorageConfiguration());
+        ReflectionTestUtils.setField(storage, "s3Config", config);
+        ReflectionTestUtils.setField(storage, "workerThreads", workerThreads);
+        storage.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.shutdown();
+        s3.stop();
+    }
+
+    @Test
+    void doesNotExposeLocalPaths() {
+        assertFalse(LocalFileStorage.class.isAssignableFrom(S3StorageServiceImpl.class));
+    }
+
+    @Test
+    void repeatedOpensReuseSizeAndEtag() throws IOException {
+        byte[] data = put("clip.mp4", 200_000);
+
+        for (int i = 0; i < 5; i++) {
+            assertArrayEquals(data, readAll("clip.mp4"));
+        }
+        assertEquals(data.length, storage.getFileSize("clip.mp4"));
+        assertEquals(1, s3.headRequests.get());
+    }
+
+    @Test
+    void replacedObjectIsNeverReadWithStaleMetadata() throws IOException {
+        put("clip.mp4", 200_000);
+        storage.getFileSize("clip.mp4");
+        // Sostituito da un'altra istanza: la dimensione in cache non vale più
+        byte[] replaced = put("clip.mp4", 150_000);
+
+        assertThrows(S3Client.ObjectChangedException.class, () -> readAll("clip.mp4"));
+        assertArrayEquals(replaced, readAll("clip.mp4"));
+        assertEquals(replaced.length, storage.getFileSize("clip.mp4"));
+    }
+
+    @Test
+    void writesAndDeletesDropCachedMetadata() throws IOException {
+        storage.storeAs("clip.mp4", new ByteArrayInputStream(new byte[1000]), Long.MAX_VALUE);
+        assertEquals(1000, storage.getFileSize("clip.mp4"));
+
+        storage.storeAs("clip.mp4", new ByteArrayInputStream(new byte[2000]), Long.MAX_VALUE);
+        assertEquals(2000, storage.getFileSize("clip.mp4"));
+
+        storage.deleteFile("clip.mp4");
+        assertFalse(storage.exists("clip.mp4"));
+        assertThrows(NoSuchFileException.class, () -> storage.getFileSize("clip.mp4"));
+    }
+
+    private byte[] put(String filename, int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        s3.objects.put("v/" + filename, new FakeS3.FakeObject(data, "video/mp4"));
+        return data;
+    }
+
+    private byte[] readAll(String filename) throws IOException {
+        try (SeekableByteChannel channel = storage.openChannel(filename)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // legge tutto
+            }
+            return buffer.array();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.QuotaConfiguration;
+import com.example.videoapp.exception.QuotaExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StorageQuotaServiceImplTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private StorageQuotaServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        QuotaConfiguration config = new QuotaConfiguration();
+        config.setMaxBytesPerUser(1000);
+        config.setRepairBatchSize(10);
+
+        service = new StorageQuotaServiceImpl();
+        ReflectionTestUtils.setField(service, "quotaConfig", config);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "transactionTemplate", transactionTemplate);
+    }
+
+    @Test
+    void existingCounterIsUpdatedWithoutSeeding() {
+        when(jdbcTemplate.update(startsWith("UPDATE"), any(Object[].class))).thenReturn(1);
+
+        service.adjust(1L, 100, 1);
+
+        verify(jdbcTemplate, times(1)).update(startsWith("UPDATE"), any(Object[].class));
+        verify(jdbcTemplate, never()).update(startsWith("INSERT IGNORE"), any(Object[].class));
+    }
+
+    @Test
+    void missingCounterIsSeededThenUpdated() {
+        when(jdbcTemplate.update(startsWith("UPDATE"), any(Object[].class))).thenReturn(0, 1);
+        when(jdbcTemplate.queryForList(startsWith("SELECT bytes_used"), eq(1L))).thenReturn(List.of());
+        when(jdbcTemplate.update(startsWith("INSERT IGNORE"), any(Object[].class))).thenReturn(1);
+
+        service.adjust(1L, 100, 1);
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).update(startsWith("UPDATE"), any(Object[].class));
+        order.verify(jdbcTemplate).update(startsWith("INSERT IGNORE"), any(Object[].class));
+        order.verify(jdbcTemplate).update(startsWith("UPDATE"), any(Object[].class));
+    }
+
+    @Test
+    void exceededQuotaOnExistingCounterDoesNotSeed() {
+        when(jdbcTemplate.update(startsWith("UPDATE"), any(Object[].class))).thenReturn(0);
+        when(jdbcTemplate.queryForList(startsWith("SELECT bytes_used"), eq(1L)))
+                .thenReturn(List.of(Map.of("bytes_used", 990L, "video_count", 3L)));
+
+        assertThrows(QuotaExceededException.class, () -> service.adjust(1L, 100, 1));
+        verify(jdbcTemplate, never()).update(startsWith("INSERT IGNORE"), any(Object[].class));
+    }
+
+    @Test
+    void repairLocksCountersBeforeRecomputingThem() {
+        when(jdbcTemplate.queryForObject("SELECT MAX(id) FROM user", Long.class)).thenReturn(15L);
+
+        service.repair();
+
+        InOrder order = inOrder(jdbcTemplate);
+        for (long from : new long[]{1, 11}) {
+            order.verify(jdbcTemplate).queryForList(endsWith("FOR UPDATE"), eq(Long.class), eq(from), eq(from + 9));
+            order.verify(jdbcTemplate).update(startsWith("INSERT INTO user_storage_usage"), eq(from), eq(from + 9));
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.StorageConfiguration;
+import com.example.videoapp.config.TieredStorageConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class TieredStorageServiceImplTest {
+
+    private static final int SIZE = 256 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private Path coldDir;
+    private Path hotDir;
+    private TieredStorageConfiguration tieringConfig;
+    private TieredStorageServiceImpl storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        coldDir = tempDir.resolve("cold");
+        hotDir = tempDir.resolve("hot");
+
+        StorageConfiguration storageConfig = new StorageConfiguration();
+        storageConfig.setUploadDir(coldDir.toString());
+        tieringConfig = new TieredStorageConfiguration();
+        tieringConfig.setHotDir(hotDir.toString());
+        tieringConfig.setPromoteMinScore(2);
+        tieringConfig.setSourceDeleteGraceMs(300);
+        tieringConfig.setMaxMigrationMbPerSecond(1000);
+        WorkerThreads workerThreads = mock(WorkerThreads.class);
+        when(workerThreads.factory(anyString())).thenReturn(Executors.defaultThreadFactory());
+
+        storage = new TieredStorageServiceImpl();
+        ReflectionTestUtils.setField(storage, "storageConfig", storageConfig);
+        ReflectionTestUtils.setField(storage, "tieringConfig", tieringConfig);
+        ReflectionTestUtils.setField(storage, "workerThreads", workerThreads);
+        storage.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.shutdown();
+    }
+
+    @Test
+    void listFilesReportsFilesInBothTiersOnce() throws IOException {
+        store("cold.mp4");
+        store("both.mp4");
+        Files.copy(coldDir.resolve("both.mp4"), hotDir.resolve("both.mp4"));
+        Files.write(hotDir.resolve("hot.mp4"), new byte[10]);
+        Files.write(hotDir.resolve(".hot.mp4.migrating"), new byte[10]);
+
+        try (Stream<String> files = storage.listFiles()) {
+            assertEquals(List.of("both.mp4", "cold.mp4", "hot.mp4"), files.sorted().toList());
+        }
+    }
+
+    @Test
+    void popularFileIsPromotedAndOldCopyRemovedAfterGrace() throws Exception {
+        byte[] data = store("popular.mp4");
+        store("ignored.mp4");
+        for (int i = 0; i < 3; i++) {
+            storage.recordAccess("popular.mp4");
+        }
+        storage.recordAccess("ignored.mp4");
+
+        migrate();
+
+        assertTrue(Files.exists(hotDir.resolve("popular.mp4")));
+        assertFalse(Files.exists(hotDir.resolve("ignored.mp4")));
+        // Durante il periodo di grazia esistono entrambe le copie e le letture usano quella calda
+        assertTrue(Files.exists(coldDir.resolve("popular.mp4")));
+        assertEquals(hotDir.resolve("popular.mp4"), storage.getLocalPath("popular.mp4"));
+        assertArrayEquals(data, storage.loadFile("popular.mp4"));
+
+        await(() -> !Files.exists(coldDir.resolve("popular.mp4")));
+        assertArrayEquals(data, storage.loadFile("popular.mp4"));
+    }
+
+    @Test
+    void idleHotFileIsDemoted() throws Exception {
+        byte[] data = store("idle.mp4");
+        Files.move(coldDir.resolve("idle.mp4"), hotDir.resolve("idle.mp4"));
+        tieringConfig.setDemoteIdleMs(0);
+        Thread.sleep(5);
+
+        migrate();
+
+        assertTrue(Files.exists(coldDir.resolve("idle.mp4")));
+        await(() -> !Files.exists(hotDir.resolve("idle.mp4")));
+        assertArrayEquals(data, storage.loadFile("idle.mp4"));
+    }
+
+    @Test
+    void fullHotTierEvictsOnlyLessPopularFiles() throws Exception {
+        tieringConfig.setHotMaxBytes(SIZE);
+        store("warm.mp4");
+        store("hot.mp4");
+        Files.move(coldDir.resolve("warm.mp4"), hotDir.resolve("warm.mp4"));
+        storage.recordAccess("warm.mp4");
+        for (int i = 0; i < 5; i++) {
+            storage.recordAccess("hot.mp4");
+        }
+
+        migrate();
+
+        assertTrue(Files.exists(hotDir.resolve("hot.mp4")));
+        assertTrue(Files.exists(coldDir.resolve("warm.mp4")));
+    }
+
+    @Test
+    void channelOpenedBeforeMoveKeepsReadingTheWholeFile() throws Exception {
+        byte[] data = store("moving.mp4");
+        for (int i = 0; i < 3; i++) {
+            storage.recordAccess("moving.mp4");
+        }
+
+        try (SeekableByteChannel channel = storage.openChannel("moving.mp4")) {
+            ByteBuffer first = ByteBuffer.allocate(SIZE / 2);
+            channel.read(first);
+
+            migrate();
+            await(() -> !Files.exists(coldDir.resolve("moving.mp4")));
+
+            // L'originale è stato rimosso, ma il canale aperto continua a leggerlo fino in fondo
+            ByteBuffer rest = ByteBuffer.allocate(SIZE);
+            while (channel.read(rest) > 0) {
+                // continua
+            }
+            byte[] read = new byte[SIZE];
+            System.arraycopy(first.array(), 0, read, 0, SIZE / 2);
+            System.arraycopy(rest.array(), 0, read, SIZE / 2, rest.position());
+            assertEquals(SIZE / 2, rest.position());
+            assertArrayEquals(data, read);
+        }
+    }
+
+    @Test
+    void deletingDuringGraceRemovesBothCopies() throws Exception {
+        store("deleted.mp4");
+        for (int i = 0; i < 3; i++) {
+            storage.recordAccess("deleted.mp4");
+        }
+        migrate();
+
+        storage.deleteFile("deleted.mp4");
+
+        assertFalse(storage.exists("deleted.mp4"));
+        assertFalse(Files.exists(hotDir.resolve("deleted.mp4")));
+        assertFalse(Files.exists(coldDir.resolve("deleted.mp4")));
+    }
+
+    private void migrate() {
+        ReflectionTestUtils.invokeMethod(storage, "migrate");
+    }
+
+    private byte[] store(String filename) throws IOException {
+        byte[] data = new byte[SIZE];
+        new Random(filename.hashCode()).nextBytes(data);
+        storage.storeAs(filename, new ByteArrayInputStream(data), Long.MAX_VALUE);
+        return data;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condizione non raggiunta entro 5 s");
+            Thread.sleep(10);
+        }
+    }
+}
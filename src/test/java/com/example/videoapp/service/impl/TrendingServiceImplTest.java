@@ -0,0 +1,162 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.TrendingConfiguration;
+import com.example.videoapp.converter.VideoMapper;
+import com.example.videoapp.dto.TrendingVideoDto;
+import com.example.videoapp.model.Video;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendingServiceImplTest {
+
+    private static final long HOUR_MS = 3_600_000L;
+
+    private TrendingConfiguration config;
+    private TrendingServiceImpl trending;
+
+    @BeforeEach
+    void setUp() {
+        config = new TrendingConfiguration();
+        config.setHalfLifeHours(1);
+
+        trending = new TrendingServiceImpl();
+        ReflectionTestUtils.setField(trending, "trendingConfig", config);
+        ReflectionTestUtils.setField(trending, "videoMapper", new VideoMapper());
+        ReflectionTestUtils.setField(trending, "objectMapper", new ObjectMapper());
+        trending.init();
+    }
+
+    @Test
+    void scoresHalveEveryHalfLifeAndRecentViewsRankFirst() {
+        trending.recordView(video(1L));
+        trending.recordView(video(1L));
+        elapse(HOUR_MS);
+        trending.recordView(video(2L));
+        trending.recordView(video(2L));
+        trending.recordView(video(2L));
+
+        List<TrendingVideoDto> result = trending.getTrending(10);
+
+        assertEquals(List.of(2L, 1L), ids(result));
+        assertEquals(3.0, result.get(0).getScore(), 1e-3);
+        // Due visualizzazioni di un'emivita fa valgono quanto una di adesso
+        assertEquals(1.0, result.get(1).getScore(), 1e-3);
+    }
+
+    @Test
+    void rebaseAfter64HalfLivesKeepsDecayedScoresAndDropsNegligibleOnes() {
+        trending.recordView(video(3L));
+        elapse(65 * HOUR_MS);
+        trending.recordView(video(1L));
+        trending.recordView(video(1L));
+        trending.recordView(video(2L));
+        // Senza riscalatura i punteggi relativi all'epoca sono nell'ordine di 2^65
+        assertTrue(storedScore(1L) > 1e19);
+
+        long before = System.currentTimeMillis();
+        trending.maintain();
+
+        assertTrue((long) ReflectionTestUtils.getField(trending, "epochMillis") >= before);
+        assertEquals(2.0, storedScore(1L), 1e-3);
+        assertEquals(1.0, storedScore(2L), 1e-3);
+        List<TrendingVideoDto> result = trending.getTrending(10);
+        assertEquals(List.of(1L, 2L), ids(result));
+        assertEquals(2.0, result.get(0).getScore(), 1e-3);
+
+        // L'ordine resta coerente con gli eventi successivi alla riscalatura
+        trending.recordView(video(2L));
+        trending.recordView(video(2L));
+        assertEquals(List.of(2L, 1L), ids(trending.getTrending(10)));
+    }
+
+    @Test
+    void concurrentViewsRemovalsAndRefreshesKeepRankingAndIndexConsistent() throws Exception {
+        config.setMaxEntries(40);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+        try {
+            for (int t = 0; t < 8; t++) {
+                long seed = t;
+                tasks.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    start.await();
+                    for (int i = 0; i < 5000; i++) {
+                        long id = random.nextInt(60) + 1;
+                        switch (random.nextInt(5)) {
+                            case 0 -> trending.remove(id);
+                            case 1 -> {
+                                Video hidden = video(id);
+                                hidden.setPublic(false);
+                                trending.refresh(hidden);
+                            }
+                            case 2 -> trending.refresh(video(id));
+                            default -> trending.recordView(video(id));
+                        }
+                        if (i % 100 == 0) {
+                            List<Long> ids = ids(trending.getTrending(100));
+                            assertEquals(ids.size(), new HashSet<>(ids).size(), "video duplicati in classifica");
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Ogni video indicizzato ha esattamente una voce in classifica e viceversa
+        Map<Long, ?> tracked = tracked();
+        Set<?> ranking = (Set<?>) ReflectionTestUtils.getField(trending, "ranking");
+        assertEquals(tracked.size(), ranking.size());
+        for (Object ranked : ranking) {
+            Object current = tracked.get((Long) ReflectionTestUtils.getField(ranked, "videoId"));
+            assertNotNull(current);
+            assertSame(ranked, ReflectionTestUtils.getField(current, "ranked"));
+        }
+        assertTrue(tracked.size() <= config.getMaxEntries());
+        assertEquals(tracked.size(), trending.getTrending(100).size());
+    }
+
+    private static Video video(Long id) {
+        Video video = new Video("Video " + id, null, true, null);
+        video.setId(id);
+        return video;
+    }
+
+    // Sposta indietro l'epoca: equivale al passare del tempo per tutti gli eventi già registrati
+    private void elapse(long millis) {
+        long epoch = (long) ReflectionTestUtils.getField(trending, "epochMillis");
+        ReflectionTestUtils.setField(trending, "epochMillis", epoch - millis);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, ?> tracked() {
+        return (Map<Long, ?>) ReflectionTestUtils.getField(trending, "tracked");
+    }
+
+    private double storedScore(Long id) {
+        Object ranked = ReflectionTestUtils.getField(tracked().get(id), "ranked");
+        return (double) ReflectionTestUtils.getField(ranked, "score");
+    }
+
+    private static List<Long> ids(List<TrendingVideoDto> result) {
+        return result.stream().map(dto -> dto.getVideo().getId()).toList();
+    }
+}
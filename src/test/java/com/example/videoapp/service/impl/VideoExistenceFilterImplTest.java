@@ -0,0 +1,94 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.ExistenceFilterConfiguration;
+import com.example.videoapp.repository.VideoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VideoExistenceFilterImplTest {
+
+    private VideoRepository videoRepository;
+    private TransactionTemplate transactionTemplate;
+    private VideoExistenceFilterImpl filter;
+
+    @BeforeEach
+    void setUp() {
+        ExistenceFilterConfiguration config = new ExistenceFilterConfiguration();
+        config.setRebuildBatchSize(2);
+        videoRepository = mock(VideoRepository.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        filter = new VideoExistenceFilterImpl();
+        ReflectionTestUtils.setField(filter, "filterConfig", config);
+        ReflectionTestUtils.setField(filter, "videoRepository", videoRepository);
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "transactionTemplate", transactionTemplate);
+        filter.init();
+    }
+
+    @Test
+    void everythingMightExistBeforeFirstLoad() {
+        assertTrue(filter.mightExist(42L));
+        filter.recordMiss(42L);
+        assertTrue(filter.mightExist(42L));
+    }
+
+    @Test
+    void bitmapMissesAreLeftToTheDatabase() {
+        when(videoRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(videoRepository.findIdsAfter(eq(2L), any(Pageable.class))).thenReturn(List.of(5L));
+        filter.rebuild();
+
+        assertTrue(filter.isKnown(1L));
+        assertTrue(filter.isKnown(5L));
+        assertFalse(filter.isKnown(3L));
+        // Il 3 può appartenere al blocco di id di un'altra istanza, confermato dopo la scansione
+        assertTrue(filter.mightExist(3L));
+        assertTrue(filter.mightExist(1000L));
+
+        // Ogni pagina è letta in una transazione di scrittura, quindi sul primario
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void databaseMissesAreCachedAndLocalChangesAreVisible() {
+        when(videoRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(1L));
+        filter.rebuild();
+
+        filter.recordMiss(3L);
+        assertFalse(filter.mightExist(3L));
+
+        filter.added(3L);
+        assertTrue(filter.mightExist(3L));
+        assertTrue(filter.isKnown(3L));
+
+        filter.removed(1L);
+        assertFalse(filter.isKnown(1L));
+    }
+
+    @Test
+    void failedRebuildKeepsPreviousBitmap() {
+        when(videoRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 3L));
+        when(videoRepository.findIdsAfter(eq(3L), any(Pageable.class))).thenReturn(List.of());
+        filter.rebuild();
+        assertFalse(filter.isKnown(2L));
+
+        when(videoRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenThrow(new IllegalStateException("down"));
+        filter.rebuild();
+        assertFalse(filter.isKnown(2L));
+        assertTrue(filter.isKnown(3L));
+    }
+}
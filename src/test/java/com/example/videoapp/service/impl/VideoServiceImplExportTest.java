@@ -0,0 +1,71 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.ExportConfiguration;
+import com.example.videoapp.converter.VideoExportWriter;
+import com.example.videoapp.model.Video;
+import com.example.videoapp.repository.VideoRepository;
+import com.example.videoapp.repository.VideoRepositoryCustom;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VideoServiceImplExportTest {
+
+    private VideoRepository videoRepository;
+    private ExportConfiguration exportConfig;
+    private VideoServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        videoRepository = mock(VideoRepository.class);
+        exportConfig = new ExportConfiguration();
+        // Il cursore consegna un video, poi il client rallenta prima del successivo
+        when(videoRepository.scrollAll(anyInt(), any())).thenAnswer(invocation -> {
+            VideoRepositoryCustom.VideoRowHandler handler = invocation.getArgument(1);
+            handler.handle(video(1L));
+            Thread.sleep(50);
+            handler.handle(video(2L));
+            return 2L;
+        });
+
+        service = new VideoServiceImpl();
+        ReflectionTestUtils.setField(service, "videoRepository", videoRepository);
+        ReflectionTestUtils.setField(service, "videoExportWriter", new VideoExportWriter(new ObjectMapper()));
+        ReflectionTestUtils.setField(service, "exportConfig", exportConfig);
+    }
+
+    @Test
+    void exportWritesEveryRow() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(2, service.exportVideos(VideoExportWriter.Format.CSV, out));
+        assertEquals(3, out.toString(StandardCharsets.UTF_8).split("\r\n").length);
+    }
+
+    @Test
+    void exportStopsAfterTheMaximumDuration() {
+        exportConfig.setMaxDurationMs(20);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThrows(IOException.class, () -> service.exportVideos(VideoExportWriter.Format.CSV, out));
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("1,"));
+    }
+
+    private static Video video(long id) {
+        Video video = new Video("Video " + id, null, true, null);
+        video.setId(id);
+        video.setFilePath(id + ".mp4");
+        return video;
+    }
+}
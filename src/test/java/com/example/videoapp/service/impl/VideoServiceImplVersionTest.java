@@ -0,0 +1,96 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.exception.PreconditionFailedException;
+import com.example.videoapp.model.Video;
+import com.example.videoapp.repository.VideoRepository;
+import com.example.videoapp.service.PublicCatalogueCache;
+import com.example.videoapp.service.TrendingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VideoServiceImplVersionTest {
+
+    private VideoRepository videoRepository;
+    private PublicCatalogueCache publicCatalogueCache;
+    private TrendingService trendingService;
+    private VideoServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        videoRepository = mock(VideoRepository.class);
+        publicCatalogueCache = mock(PublicCatalogueCache.class);
+        trendingService = mock(TrendingService.class);
+
+        service = new VideoServiceImpl();
+        ReflectionTestUtils.setField(service, "videoRepository", videoRepository);
+        ReflectionTestUtils.setField(service, "publicCatalogueCache", publicCatalogueCache);
+        ReflectionTestUtils.setField(service, "trendingService", trendingService);
+    }
+
+    @Test
+    void patchWithCurrentVersionReturnsNextOne() {
+        when(videoRepository.updateFields(eq(1L), eq(3L), anyMap())).thenReturn(1);
+
+        assertEquals(4L, service.patchVideo(1L, Map.of("title", "nuovo"), 3L));
+
+        verify(videoRepository, never()).findById(any());
+        verify(publicCatalogueCache).invalidateVideo(1L);
+        verify(trendingService).updateMetadata(1L, "nuovo", null);
+    }
+
+    @Test
+    void patchWithStaleVersionFailsPrecondition() {
+        when(videoRepository.updateFields(eq(1L), eq(2L), anyMap())).thenReturn(0);
+        when(videoRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(PreconditionFailedException.class, () -> service.patchVideo(1L, Map.of("title", "x"), 2L));
+        verifyNoInteractions(publicCatalogueCache, trendingService);
+    }
+
+    @Test
+    void patchOfMissingVideoIsNotFound() {
+        when(videoRepository.updateFields(eq(9L), anyLong(), anyMap())).thenReturn(0);
+        when(videoRepository.existsById(9L)).thenReturn(false);
+
+        assertThrows(NoSuchElementException.class, () -> service.patchVideo(9L, Map.of("title", "x"), 0L));
+    }
+
+    @Test
+    void patchRejectsInvalidFieldsBeforeTouchingTheDatabase() {
+        assertThrows(IllegalArgumentException.class, () -> service.patchVideo(1L, Map.of("filePath", "x"), 0L));
+        assertThrows(IllegalArgumentException.class, () -> service.patchVideo(1L, Map.of("isPublic", "si"), 0L));
+        verifyNoInteractions(videoRepository);
+    }
+
+    @Test
+    void updateWithStaleVersionFailsPreconditionWithoutSaving() {
+        Video video = new Video();
+        video.setId(1L);
+        video.setVersion(5);
+        when(videoRepository.findById(1L)).thenReturn(Optional.of(video));
+
+        assertThrows(PreconditionFailedException.class, () -> service.updateVideo(1L, Map.of("title", "x"), 4L));
+        verify(videoRepository, never()).save(any());
+    }
+
+    @Test
+    void updateWithoutVersionSkipsTheCheck() {
+        Video video = new Video();
+        video.setId(1L);
+        video.setVersion(5);
+        when(videoRepository.findById(1L)).thenReturn(Optional.of(video));
+        when(videoRepository.save(video)).thenReturn(video);
+
+        assertSame(video, service.updateVideo(1L, Map.of("title", "x"), null));
+        assertEquals("x", video.getTitle());
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.ViewCountConfiguration;
+import com.example.videoapp.repository.VideoViewCountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ViewCounterServiceImplTest {
+
+    private ViewCountConfiguration config;
+    private VideoViewCountRepository repository;
+    private JdbcTemplate jdbcTemplate;
+    private ViewCounterServiceImpl service;
+
+    // Delta salvati per video e id dei batch applicati
+    private final ConcurrentMap<Long, AtomicLong> saved = new ConcurrentHashMap<>();
+    private final List<Long> batchIds = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean failFlush = new AtomicBoolean();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        config = new ViewCountConfiguration();
+        config.setNodeId("test");
+        repository = mock(VideoViewCountRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any())).thenAnswer(invocation -> {
+            if (failFlush.get()) throw new IllegalStateException("database non disponibile");
+            Collection<Object> entries = invocation.getArgument(1);
+            ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+            for (Object entry : entries) {
+                PreparedStatement ps = mock(PreparedStatement.class);
+                setter.setValues(ps, entry);
+                long[] values = new long[3];
+                verify(ps).setLong(eq(1), longThat(v -> { values[0] = v; return true; }));
+                verify(ps).setLong(eq(3), longThat(v -> { values[1] = v; return true; }));
+                verify(ps).setLong(eq(4), longThat(v -> { values[2] = v; return true; }));
+                saved.computeIfAbsent(values[0], k -> new AtomicLong()).addAndGet(values[1]);
+                if (!batchIds.contains(values[2])) batchIds.add(values[2]);
+            }
+            return new int[][] { new int[entries.size()] };
+        });
+
+        service = new ViewCounterServiceImpl();
+        ReflectionTestUtils.setField(service, "viewConfig", config);
+        ReflectionTestUtils.setField(service, "viewCountRepository", repository);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "transactionTemplate", transactionTemplate);
+        service.init();
+    }
+
+    @Test
+    void sameViewerCountsOncePerSlidingWindow() throws InterruptedException {
+        config.setDedupWindowMs(200);
+
+        assertTrue(service.recordView(1L, "ip:a"));
+        Thread.sleep(120);
+        assertFalse(service.recordView(1L, "ip:a"));
+        assertTrue(service.recordView(2L, "ip:a"));
+        Thread.sleep(120);
+        // Finestra scorrevole dalla visualizzazione contata, non un intervallo fisso
+        assertTrue(service.recordView(1L, "ip:a"));
+    }
+
+    @Test
+    void fullDedupTableEvictsOldestViewersInsteadOfDisablingDedup() {
+        config.setMaxDedupEntries(2);
+
+        assertTrue(service.recordView(1L, "a"));
+        assertTrue(service.recordView(1L, "b"));
+        assertTrue(service.recordView(1L, "c"));
+        assertFalse(service.recordView(1L, "c"));
+        assertFalse(service.recordView(1L, "b"));
+        assertTrue(service.recordView(1L, "a"));
+    }
+
+    @Test
+    void failedFlushIsRetriedWithTheSameBatchId() {
+        when(repository.sumByVideoId(5L)).thenReturn(10L);
+        service.recordView(5L, null);
+        service.recordView(5L, null);
+
+        failFlush.set(true);
+        service.flush();
+        assertEquals(12, service.getViewCount(5L));
+
+        failFlush.set(true);
+        service.recordView(5L, null);
+        service.flush();
+        assertEquals(13, service.getViewCount(5L));
+
+        // Prima il batch fallito con il suo id, poi un nuovo batch per la visualizzazione successiva
+        failFlush.set(false);
+        service.flush();
+        assertEquals(3, saved.get(5L).get());
+        assertEquals(2, batchIds.size());
+        assertEquals(13, service.getViewCount(5L));
+        // Il totale salvato resta in cache e viene aggiornato dai flush, senza rileggere il database
+        verify(repository, times(1)).sumByVideoId(5L);
+    }
+
+    @Test
+    void viewsRecordedDuringFlushAndEvictionAreNotLost() throws Exception {
+        config.setIdleEvictionMs(0);
+        int threads = 4;
+        int viewsPerThread = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (running.get()) service.flush();
+        });
+        flusher.start();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < viewsPerThread; i++) {
+                        service.recordView((long) (i % 3), null);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            running.set(false);
+            flusher.join();
+            pool.shutdownNow();
+        }
+        service.flush();
+
+        long total = saved.values().stream().mapToLong(AtomicLong::get).sum();
+        assertEquals((long) threads * viewsPerThread, total);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.WarmupConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.service.ChunkCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class WarmupServiceImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ChunkCache chunkCache;
+    private WarmupServiceImpl warmup;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        WarmupConfiguration config = new WarmupConfiguration();
+        config.setSnapshotFile(tempDir.resolve("warmup.json").toString());
+        config.setReadyThreshold(0.8);
+        config.setMaxWarmupMs(60_000);
+        config.setMaxItemsPerSecond(10_000);
+        config.setMaxMbPerSecond(10_000);
+        WorkerThreads workerThreads = mock(WorkerThreads.class);
+        when(workerThreads.newThread(anyString(), any())).thenAnswer(invocation -> new Thread(invocation.<Runnable>getArgument(1)));
+        chunkCache = mock(ChunkCache.class);
+        when(chunkCache.getChunkSize()).thenReturn(4096);
+
+        // Dieci segmenti: i primi sette illeggibili, due caricati, l'ultimo bloccato fino al rilascio
+        WarmupServiceImpl.Snapshot snapshot = new WarmupServiceImpl.Snapshot();
+        for (int i = 0; i < 10; i++) {
+            WarmupServiceImpl.ChunkEntry entry = new WarmupServiceImpl.ChunkEntry();
+            entry.filename = "video.mp4";
+            entry.index = i;
+            snapshot.chunks.add(entry);
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.writeValue(tempDir.resolve("warmup.json").toFile(), snapshot);
+
+        warmup = new WarmupServiceImpl();
+        ReflectionTestUtils.setField(warmup, "warmupConfig", config);
+        ReflectionTestUtils.setField(warmup, "chunkCache", chunkCache);
+        ReflectionTestUtils.setField(warmup, "workerThreads", workerThreads);
+        ReflectionTestUtils.setField(warmup, "objectMapper", objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    void failedItemsDoNotCountTowardsReadiness() throws Exception {
+        when(chunkCache.acquire(eq("video.mp4"), anyLong())).thenAnswer(invocation -> {
+            long index = invocation.getArgument(1);
+            if (index < 7) throw new IOException("disco illeggibile");
+            if (index == 9) release.await();
+            ChunkCache.Chunk chunk = mock(ChunkCache.Chunk.class);
+            when(chunk.buffer()).thenReturn(ByteBuffer.allocate(100));
+            return chunk;
+        });
+
+        warmup.startWarmup();
+        await(() -> warmup.getStatus().getProcessedItems() == 9);
+
+        // Nove voci su dieci elaborate, ma solo due caricate: la soglia dell'80% non è raggiunta
+        assertEquals(2, warmup.getStatus().getWarmedItems());
+        assertEquals(7, warmup.getStatus().getFailedItems());
+        assertFalse(warmup.isReady());
+
+        release.countDown();
+        await(() -> !warmup.getStatus().isRunning());
+        assertTrue(warmup.isReady());
+    }
+
+    @Test
+    void loadedItemsReachTheThresholdBeforeTheEnd() throws Exception {
+        when(chunkCache.acquire(eq("video.mp4"), anyLong())).thenAnswer(invocation -> {
+            if (invocation.<Long>getArgument(1) == 9) release.await();
+            ChunkCache.Chunk chunk = mock(ChunkCache.Chunk.class);
+            when(chunk.buffer()).thenReturn(ByteBuffer.allocate(100));
+            return chunk;
+        });
+
+        warmup.startWarmup();
+        await(() -> warmup.getStatus().getProcessedItems() == 9);
+
+        assertTrue(warmup.getStatus().isRunning());
+        assertTrue(warmup.isReady());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condizione non raggiunta entro 5 s");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.videoapp.service.impl;
+
+import com.example.videoapp.config.WatchProgressConfiguration;
+import com.example.videoapp.config.WorkerThreads;
+import com.example.videoapp.exception.ServiceUnavailableException;
+import com.example.videoapp.repository.VideoRepository;
+import com.example.videoapp.repository.WatchProgressRepository;
+import com.example.videoapp.service.VideoExistenceFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class WatchProgressServiceImplTest {
+
+    private WatchProgressConfiguration config;
+    private VideoRepository videoRepository;
+    private VideoExistenceFilter existenceFilter;
+    private WatchProgressRepository progressRepository;
+    private TransactionTemplate transactionTemplate;
+    private WatchProgressServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        config = new WatchProgressConfiguration();
+        videoRepository = mock(VideoRepository.class);
+        existenceFilter = mock(VideoExistenceFilter.class);
+        progressRepository = mock(WatchProgressRepository.class);
+        when(progressRepository.findById(any())).thenReturn(Optional.empty());
+        when(existenceFilter.mightExist(any())).thenReturn(true);
+        transactionTemplate = mock(TransactionTemplate.class);
+        WorkerThreads workerThreads = mock(WorkerThreads.class);
+        when(workerThreads.factory(anyString())).thenReturn(Executors.defaultThreadFactory());
+
+        service = new WatchProgressServiceImpl();
+        ReflectionTestUtils.setField(service, "progressConfig", config);
+        ReflectionTestUtils.setField(service, "watchProgressRepository", progressRepository);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", mock(JdbcTemplate.class));
+        ReflectionTestUtils.setField(service, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(service, "workerThreads", workerThreads);
+        ReflectionTestUtils.setField(service, "videoRepository", videoRepository);
+        ReflectionTestUtils.setField(service, "videoExistenceFilter", existenceFilter);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void rejectsMissingVideoWithoutBufferingIt() {
+        when(existenceFilter.mightExist(7L)).thenReturn(false);
+        assertThrows(NoSuchElementException.class, () -> service.saveProgress(1L, 7L, 1000));
+
+        when(videoRepository.existsById(8L)).thenReturn(false);
+        assertThrows(NoSuchElementException.class, () -> service.saveProgress(1L, 8L, 1000));
+        verify(existenceFilter).recordMiss(8L);
+
+        assertNull(service.getProgress(1L, 7L));
+        assertNull(service.getProgress(1L, 8L));
+    }
+
+    @Test
+    void checksTheVideoOnlyForNewPairs() {
+        when(existenceFilter.isKnown(5L)).thenReturn(false);
+        when(videoRepository.existsById(5L)).thenReturn(true);
+
+        service.saveProgress(1L, 5L, 1000);
+        service.saveProgress(1L, 5L, 2000);
+        service.saveProgress(1L, 5L, 3000);
+
+        verify(videoRepository, times(1)).existsById(5L);
+        assertEquals(3000, service.getProgress(1L, 5L).getPositionMs());
+    }
+
+    @Test
+    void bufferStopsGrowingAtTheLimit() {
+        config.setMaxPendingEntries(2);
+        when(existenceFilter.isKnown(any())).thenReturn(true);
+        // Database irraggiungibile: il flush avviato dal buffer pieno non svuota nulla
+        doThrow(new IllegalStateException("down")).when(transactionTemplate).executeWithoutResult(any());
+
+        service.saveProgress(1L, 1L, 100);
+        service.saveProgress(2L, 1L, 100);
+        // La posizione scartata viene segnalata al client invece di risultare salvata
+        ServiceUnavailableException rejected =
+                assertThrows(ServiceUnavailableException.class, () -> service.saveProgress(3L, 1L, 100));
+        assertEquals(5, rejected.getRetryAfterSeconds());
+        // Le coppie già presenti continuano ad aggiornarsi
+        service.saveProgress(1L, 1L, 500);
+
+        assertNull(service.getProgress(3L, 1L));
+        assertEquals(500, service.getProgress(1L, 1L).getPositionMs());
+    }
+
+    @Test
+    void deletingVideosDropsPendingPositions() {
+        when(existenceFilter.isKnown(any())).thenReturn(true);
+        service.saveProgress(1L, 1L, 100);
+        service.saveProgress(1L, 2L, 100);
+
+        service.deleteByVideos(List.of(1L));
+
+        verify(progressRepository).deleteByVideoIdIn(List.of(1L));
+        assertNull(service.getProgress(1L, 1L));
+        assertNotNull(service.getProgress(1L, 2L));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.videoapp.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpRange;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteRangesTest {
+
+    private static final long SIZE = 1000;
+
+    @Test
+    void disjointRangesAreSortedAndKept() {
+        List<ByteRanges.Segment> segments = resolve("bytes=500-599,0-99", 0);
+
+        assertSegments(segments, 0, 99, 500, 599);
+    }
+
+    @Test
+    void overlappingAndAdjacentRangesAreMerged() {
+        List<ByteRanges.Segment> segments = resolve("bytes=0-99,50-149,150-199,400-499,420-450", 0);
+
+        assertSegments(segments, 0, 199, 400, 499);
+    }
+
+    @Test
+    void smallGapsAreMergedWithinTheConfiguredThreshold() {
+        assertSegments(resolve("bytes=0-99,110-199", 10), 0, 199);
+        assertSegments(resolve("bytes=0-99,111-199", 10), 0, 99, 111, 199);
+    }
+
+    @Test
+    void suffixAndOpenEndedRangesAreClampedToTheFile() {
+        assertSegments(resolve("bytes=-100", 0), 900, 999);
+        assertSegments(resolve("bytes=-5000", 0), 0, 999);
+        assertSegments(resolve("bytes=950-", 0), 950, 999);
+        assertSegments(resolve("bytes=990-5000", 0), 990, 999);
+        // Il suffisso si sovrappone al primo intervallo
+        assertSegments(resolve("bytes=850-949,-100", 0), 850, 999);
+    }
+
+    @Test
+    void unsatisfiableRangesAreDropped() {
+        assertSegments(resolve("bytes=1000-1100,0-9", 0), 0, 9);
+        assertTrue(resolve("bytes=1000-", 0).isEmpty());
+        assertTrue(resolve("bytes=2000-3000,1000-1001", 0).isEmpty());
+    }
+
+    @Test
+    void emptyFileSatisfiesNoRange() {
+        List<HttpRange> ranges = HttpRange.parseRanges("bytes=0-0,-10");
+        assertTrue(ByteRanges.resolve(ranges, 0, 0).isEmpty());
+    }
+
+    private static List<ByteRanges.Segment> resolve(String header, long mergeGap) {
+        return ByteRanges.resolve(HttpRange.parseRanges(header), SIZE, mergeGap);
+    }
+
+    private static void assertSegments(List<ByteRanges.Segment> segments, long... bounds) {
+        assertEquals(bounds.length / 2, segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            assertEquals(bounds[2 * i], segments.get(i).getStart(), "inizio del segmento " + i);
+            assertEquals(bounds[2 * i + 1], segments.get(i).getEnd(), "fine del segmento " + i);
+        }
+    }
+}
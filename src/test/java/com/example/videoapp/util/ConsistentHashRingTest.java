@@ -0,0 +1,64 @@
+package com.example.videoapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 40_000;
+
+    @Test
+    void spreadsKeysEvenlyAcrossNodes() {
+        ConsistentHashRing<String> ring = ring(4);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.preferenceList("video_" + i + ".mp4", 1).get(0), 1, Integer::sum);
+        }
+
+        assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            assertEquals(KEYS / 4.0, count, KEYS / 4.0 * 0.2, "unbalanced: " + counts);
+        }
+    }
+
+    @Test
+    void replicasAreDistinctNodes() {
+        ConsistentHashRing<String> ring = ring(3);
+        for (int i = 0; i < 1000; i++) {
+            List<String> replicas = ring.preferenceList("video_" + i + ".mp4", 3);
+            assertEquals(3, new HashSet<>(replicas).size());
+        }
+        assertEquals(3, ring.preferenceList("video.mp4", 5).size());
+    }
+
+    @Test
+    void addingANodeMovesOnlyItsShare() {
+        ConsistentHashRing<String> before = ring(4);
+        ConsistentHashRing<String> after = ring(5);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "video_" + i + ".mp4";
+            String oldOwner = before.preferenceList(key, 1).get(0);
+            String newOwner = after.preferenceList(key, 1).get(0);
+            if (!oldOwner.equals(newOwner)) {
+                // Le chiavi si spostano solo verso il nodo aggiunto
+                assertEquals("http://127.0.0.1:9105", newOwner);
+                moved++;
+            }
+        }
+        assertEquals(KEYS / 5.0, moved, KEYS / 5.0 * 0.2);
+    }
+
+    private static ConsistentHashRing<String> ring(int nodes) {
+        Map<String, String> members = new LinkedHashMap<>();
+        for (int i = 1; i <= nodes; i++) {
+            String address = "http://127.0.0.1:910" + i;
+            members.put(address, address);
+        }
+        return new ConsistentHashRing<>(members, 160);
+    }
+}
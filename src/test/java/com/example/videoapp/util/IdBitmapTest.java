@@ -0,0 +1,63 @@
+package com.example.videoapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdBitmapTest {
+
+    @Test
+    void addAndRemove() {
+        IdBitmap bitmap = new IdBitmap(1 << 20);
+        bitmap.add(1);
+        bitmap.add(64);
+        bitmap.add(100_000);
+
+        assertTrue(bitmap.contains(1));
+        assertTrue(bitmap.contains(64));
+        assertTrue(bitmap.contains(100_000));
+        assertFalse(bitmap.contains(2));
+        assertFalse(bitmap.contains(-1));
+        assertEquals(3, bitmap.cardinality());
+
+        bitmap.remove(64);
+        bitmap.remove(500_000);
+        assertFalse(bitmap.contains(64));
+        assertEquals(2, bitmap.cardinality());
+    }
+
+    @Test
+    void idsBeyondMaxAreIgnored() {
+        IdBitmap bitmap = new IdBitmap(1000);
+        bitmap.add(5000);
+        assertFalse(bitmap.contains(5000));
+        assertTrue(bitmap.sizeInBytes() <= 1024);
+    }
+
+    @Test
+    void concurrentAddsDuringGrowthAreNotLost() throws InterruptedException {
+        IdBitmap bitmap = new IdBitmap(1 << 24);
+        int threads = 8;
+        int perThread = 50_000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            // Id crescenti e interleaved tra i thread: la bitmap cresce mentre gli altri scrivono
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    bitmap.add((long) i * threads + offset);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals((long) threads * perThread, bitmap.cardinality());
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.videoapp.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipStreamWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void entriesWithAndWithoutKnownCrcRoundTrip() throws IOException {
+        byte[] first = file("first.mp4", 100_000);
+        byte[] second = file("second.mp4", 70_000);
+        CRC32 crc = new CRC32();
+        crc.update(first);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ZipStreamWriter zip = new ZipStreamWriter(out);
+        try (FileChannel channel = FileChannel.open(tempDir.resolve("first.mp4"))) {
+            zip.writeEntry("primo.mp4", first.length, crc.getValue(), channel);
+        }
+        try (FileChannel channel = FileChannel.open(tempDir.resolve("second.mp4"))) {
+            zip.writeEntry("secondo è.mp4", second.length, null, channel);
+        }
+        zip.finish();
+
+        // Lettura in streaming: usa solo gli header locali
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEntry(in, "primo.mp4", first);
+            assertEntry(in, "secondo è.mp4", second);
+            assertNull(in.getNextEntry());
+        }
+
+        // Lettura dalla central directory, raggiunta tramite i record ZIP64
+        Path archive = tempDir.resolve("bundle.zip");
+        Files.write(archive, out.toByteArray());
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            assertEquals(2, zipFile.size());
+            ZipEntry entry = zipFile.getEntry("secondo è.mp4");
+            assertEquals(second.length, entry.getSize());
+            assertEquals(ZipEntry.STORED, entry.getMethod());
+            try (InputStream entryIn = zipFile.getInputStream(entry)) {
+                assertArrayEquals(second, entryIn.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void sourceShorterThanDeclaredSizeFails() throws IOException {
+        file("short.mp4", 1000);
+        ZipStreamWriter zip = new ZipStreamWriter(OutputStream.nullOutputStream());
+        try (FileChannel channel = FileChannel.open(tempDir.resolve("short.mp4"))) {
+            assertThrows(IOException.class, () -> zip.writeEntry("short.mp4", 2000, null, channel));
+        }
+    }
+
+    @Test
+    void entryLargerThanFourGigabytesRoundTrips() throws Exception {
+        long size = (1L << 32) + 10;
+        PipedInputStream pipeIn = new PipedInputStream(1 << 20);
+        PipedOutputStream pipeOut = new PipedOutputStream(pipeIn);
+
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            try (pipeOut) {
+                ZipStreamWriter zip = new ZipStreamWriter(pipeOut);
+                zip.writeEntry("grande.mp4", size, null, new ZeroChannel(size));
+                zip.finish();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        try (ZipInputStream in = new ZipInputStream(pipeIn)) {
+            ZipEntry entry = in.getNextEntry();
+            assertEquals("grande.mp4", entry.getName());
+            assertEquals(size, entry.getSize());
+            byte[] buffer = new byte[1 << 16];
+            long read = 0;
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                read += n;
+            }
+            // ZipInputStream verifica anche il CRC a fine voce
+            assertEquals(size, read);
+            assertNull(in.getNextEntry());
+        }
+        writer.get(60, TimeUnit.SECONDS);
+    }
+
+    private static void assertEntry(ZipInputStream in, String name, byte[] data) throws IOException {
+        ZipEntry entry = in.getNextEntry();
+        assertNotNull(entry);
+        assertEquals(name, entry.getName());
+        assertArrayEquals(data, in.readAllBytes());
+    }
+
+    private byte[] file(String name, int size) throws IOException {
+        byte[] data = new byte[size];
+        new Random(name.hashCode()).nextBytes(data);
+        Files.write(tempDir.resolve(name), data);
+        return data;
+    }
+
+    // Canale di sola lettura di size byte a zero, senza occupare disco
+    private static final class ZeroChannel implements SeekableByteChannel {
+        private static final ByteBuffer ZEROS = ByteBuffer.allocateDirect(1 << 16);
+        private final long size;
+        private long position;
+
+        ZeroChannel(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if (position >= size) return -1;
+            int n = (int) Math.min(Math.min(dst.remaining(), ZEROS.capacity()), size - position);
+            dst.put(ZEROS.duplicate().limit(n));
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) {
+            position = newPosition;
+            return this;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}